@@ -91,6 +91,10 @@ abstract class AbstractHandler<Request, Response>(
             .withEngineOptions { options ->
                 options.serverFactory = LambdaServerFactory::class.qualifiedName
 
+                // each invocation has its own thread, so avoid handing off to a worker pool
+                options.inlineRequestHandling = true
+                options.deferPluginRoutes = Settings.lazyPluginInit
+
                 Settings.pluginDiscoveryStrategyClass?.let { discoveryStrategy ->
                     options.pluginDiscoveryStrategyClass = discoveryStrategy
                 } ?: run {
@@ -103,6 +107,26 @@ abstract class AbstractHandler<Request, Response>(
         @Suppress("UNCHECKED_CAST")
         server = serverFactory.activeServer as LambdaServer<Request, Response>
 
+        // runs during initialisation, so it is captured by a SnapStart snapshot
+        Settings.primeRequests.takeIf { it.isNotEmpty() }?.let(::prime)
+
         logger.info("Imposter handler ready")
     }
+
+    /**
+     * Dispatches the given requests, discarding the responses, so that classes are
+     * loaded and caches populated before the first invocation.
+     *
+     * @param requests method and path pairs
+     */
+    fun prime(requests: List<Pair<String, String>>) {
+        requests.forEach { (method, path) ->
+            try {
+                server.prime(method, path)
+                logger.debug("Primed handler with request: $method $path")
+            } catch (e: Exception) {
+                logger.warn("Error priming handler with request: $method $path", e)
+            }
+        }
+    }
 }
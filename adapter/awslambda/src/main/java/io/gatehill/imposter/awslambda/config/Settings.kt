@@ -74,6 +74,28 @@ object Settings {
     val metaInfScan: Boolean get() =
         EnvVars.getEnv("IMPOSTER_METAINF_SCAN")?.toBoolean() ?: false
 
+    /**
+     * Add plugin routes when a request first needs them, instead of at startup.
+     */
+    val lazyPluginInit: Boolean get() =
+        EnvVars.getEnv("IMPOSTER_LAZY_PLUGIN_INIT")?.toBoolean() ?: false
+
+    /**
+     * Requests to dispatch during initialisation, as method and path pairs.
+     * The method is optional and defaults to `GET`.
+     *
+     * Example:
+     *
+     *     GET /pets,/pets/1
+     */
+    val primeRequests: List<Pair<String, String>> get() =
+        EnvVars.getEnv("IMPOSTER_PRIME_REQUESTS")?.splitOnCommaAndTrim()?.map(::parseRequest) ?: emptyList()
+
+    fun parseRequest(request: String): Pair<String, String> {
+        val parts = request.trim().split(Regex("\\s+"), limit = 2)
+        return if (parts.size == 2) parts[0].uppercase() to parts[1] else "GET" to parts[0]
+    }
+
     /**
      * Example:
      *
@@ -56,6 +56,10 @@ import io.vertx.core.AsyncResult
 import io.vertx.core.Handler
 import org.apache.logging.log4j.LogManager
 import org.apache.logging.log4j.Logger
+import java.nio.ByteBuffer
+import java.nio.charset.CharacterCodingException
+import java.nio.charset.CodingErrorAction
+import java.util.Base64
 import java.util.Collections.synchronizedMap
 
 /**
@@ -63,35 +67,48 @@ import java.util.Collections.synchronizedMap
  */
 abstract class LambdaServer<Request, Response>(
     private val responseService: ResponseService,
-    private val router: HttpRouter,
+    router: HttpRouter,
 ) : HttpServer {
     protected val logger: Logger = LogManager.getLogger(LambdaServer::class.java)
-    private val routes: Array<HttpRoute>
-    private val errorHandlers: Map<Int, (HttpExchange) -> Unit>
 
-    init {
-        routes = router.routes.toTypedArray()
-        errorHandlers = synchronizedMap(router.errorHandlers)
+    @Volatile
+    private var routing = Routing(router)
+
+    /**
+     * {@inheritDoc}
+     *
+     * Events already being dispatched complete using the previous router.
+     */
+    override fun updateRouter(router: HttpRouter) {
+        routing = Routing(router)
     }
 
     fun dispatch(event: Request): Response {
+        val routing = this.routing
+        val router = routing.router
         val response = LambdaHttpResponse()
         val attributes = mutableMapOf<String, Any>()
 
         var failureCause: Throwable? = null
         try {
-            val matched = matchRoutes(event)
+            // add the deferred plugin routes that could match the request
+            if (router.hasDeferredRoutes && router.configureDeferredRoutes(getRequestPath(event))) {
+                routing.routeTable = RouteTable(router.routes)
+            }
+            val matched = matchRoutes(routing, event)
 
-            if (matched.isEmpty() || matched.all { it.isCatchAll() }) {
+            if (isUnmatched(matched)) {
                 logger.trace("No explicit routes matched for: ${describeRequestShort(event)}")
                 response.setStatusCode(HttpUtil.HTTP_NOT_FOUND)
 
             } else {
                 matched.forEach { route ->
-                    val request = buildRequest(event, route)
+                    val request = buildRequest(event, router, route)
                     val exchange = LambdaHttpExchange(router, route, request, response, attributes)
                     val handler = route.handler ?: throw IllegalStateException("No route handler set for: $route")
                     try {
+                        // request handling runs inline on this thread, so the future
+                        // is usually complete already and this does not block
                         handler(exchange).get()
                     } catch (e: Exception) {
                         throw RuntimeException("Unhandled error in route: $route", e)
@@ -112,13 +129,13 @@ abstract class LambdaServer<Request, Response>(
 
         when (val statusCode = response.statusCode) {
             in 400..499 -> {
-                errorHandlers[statusCode]?.let { errorHandler ->
-                    failExchange(event, response, attributes, statusCode, null, errorHandler)
+                routing.errorHandlers[statusCode]?.let { errorHandler ->
+                    failExchange(router, event, response, attributes, statusCode, null, errorHandler)
                 } ?: logger.warn("Unhandled client error for: ${describeRequestShort(event)} [status code: $statusCode]")
             }
             in 500..599 -> {
-                errorHandlers[statusCode]?.let { errorHandler ->
-                    failExchange(event, response, attributes, statusCode, failureCause, errorHandler)
+                routing.errorHandlers[statusCode]?.let { errorHandler ->
+                    failExchange(router, event, response, attributes, statusCode, failureCause, errorHandler)
                 } ?: logger.error("Unhandled server error for: ${describeRequestShort(event)} [status code: $statusCode]", failureCause)
             }
         }
@@ -126,7 +143,18 @@ abstract class LambdaServer<Request, Response>(
         return buildResponse(response)
     }
 
+    /**
+     * Dispatches a request with the given [method] and [path], discarding the response.
+     */
+    fun prime(method: String, path: String) {
+        dispatch(buildPrimingEvent(method, path))
+    }
+
+    private fun isUnmatched(matched: List<HttpRoute>) =
+        matched.isEmpty() || matched.all { it.isCatchAll() }
+
     private fun failExchange(
+        router: HttpRouter,
         event: Request,
         response: LambdaHttpResponse,
         attributes: MutableMap<String, Any>,
@@ -134,25 +162,63 @@ abstract class LambdaServer<Request, Response>(
         failureCause: Throwable?,
         errorHandler: (HttpExchange) -> Unit,
     ) {
-        val request = buildRequest(event, null)
+        val request = buildRequest(event, router, null)
         val exchange = LambdaHttpExchange(router, null, request, response, attributes)
         exchange.fail(statusCode, failureCause)
         errorHandler(exchange)
     }
 
-    private fun matchRoutes(event: Request): List<HttpRoute> {
+    private fun matchRoutes(routing: Routing, event: Request): List<HttpRoute> {
         val requestPath = getRequestPath(event)
         val requestMethod = getRequestMethod(event)
 
-        val matchedRoutes = routes.filter { route ->
-            route.matches(requestPath) && (null == route.method || requestMethod == route.method.toString())
-        }
+        val matchedRoutes = routing.routeTable.match(requestMethod, requestPath)
         if (logger.isTraceEnabled) {
             logger.trace("Routes matched for: ${describeRequestShort(event)}: $matchedRoutes")
         }
         return matchedRoutes
     }
 
+    /**
+     * Encodes the response body for the event response. Textual bodies are
+     * returned as-is; other bodies, such as images or compressed content,
+     * are Base64 encoded.
+     *
+     * @return the encoded body and whether it is Base64 encoded, or `null` if there is no body
+     */
+    protected fun encodeBody(response: LambdaHttpResponse): Pair<String, Boolean>? {
+        val body = response.bodyBuffer?.takeIf { it.length() > 0 } ?: return null
+        val headers = response.getHeadersIgnoreCase(arrayOf("content-type", "content-encoding"))
+            .mapKeys { it.key.lowercase() }
+
+        val bytes = body.bytes
+        val textual = null == headers["content-encoding"] &&
+            (headers["content-type"]?.let(::isTextualContentType) ?: isUtf8(bytes))
+        return if (textual) {
+            String(bytes, Charsets.UTF_8) to false
+        } else {
+            Base64.getEncoder().encodeToString(bytes) to true
+        }
+    }
+
+    private fun isTextualContentType(contentType: String): Boolean {
+        val mediaType = contentType.substringBefore(';').trim().lowercase()
+        return mediaType.startsWith("text/") ||
+            mediaType.endsWith("/json") || mediaType.endsWith("+json") ||
+            mediaType.endsWith("/xml") || mediaType.endsWith("+xml") ||
+            mediaType in textualMediaTypes
+    }
+
+    private fun isUtf8(bytes: ByteArray): Boolean = try {
+        Charsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT)
+            .decode(ByteBuffer.wrap(bytes))
+        true
+    } catch (e: CharacterCodingException) {
+        false
+    }
+
     override fun close(onCompletion: Handler<AsyncResult<Void>>) {
         /* no op */
     }
@@ -164,6 +230,27 @@ abstract class LambdaServer<Request, Response>(
     protected abstract fun getRequestMethod(event: Request): String
     protected abstract fun getRequestPath(event: Request): String
     protected abstract fun acceptsHtml(event: Request): Boolean
-    protected abstract fun buildRequest(event: Request, route: HttpRoute?): HttpRequest
+    protected abstract fun buildRequest(event: Request, router: HttpRouter, route: HttpRoute?): HttpRequest
     protected abstract fun buildResponse(response: LambdaHttpResponse): Response
+    protected abstract fun buildPrimingEvent(method: String, path: String): Request
+
+    /**
+     * A router, with the route table and error handlers derived from it.
+     */
+    private class Routing(val router: HttpRouter) {
+        @Volatile
+        var routeTable = RouteTable(router.routes)
+        val errorHandlers: Map<Int, (HttpExchange) -> Unit> = synchronizedMap(router.errorHandlers)
+    }
+
+    companion object {
+        private val textualMediaTypes = setOf(
+            "application/javascript",
+            "application/x-www-form-urlencoded",
+            "application/yaml",
+            "application/x-yaml",
+            "application/graphql",
+            "application/x-ndjson",
+        )
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.awslambda.impl
+
+import io.gatehill.imposter.http.HttpRoute
+
+/**
+ * A lookup table of routes, built once when the server starts.
+ *
+ * Routes with a literal path are indexed by path, so they are found without
+ * evaluating every route. Other routes, such as those with path placeholders,
+ * wildcards or regular expressions, are evaluated in turn. Matched routes are
+ * returned in the order they were registered.
+ *
+ * @author Pete Cornish
+ */
+internal class RouteTable(routes: List<HttpRoute>) {
+    private class IndexedRoute(
+        val index: Int,
+        val route: HttpRoute,
+        val method: String?,
+    )
+
+    private val literalRoutes: Map<String, List<IndexedRoute>>
+    private val dynamicRoutes: List<IndexedRoute>
+
+    init {
+        val indexed = routes.mapIndexed { index, route -> IndexedRoute(index, route, route.method?.toString()) }
+        val (literal, dynamic) = indexed.partition { isLiteral(it.route) }
+        literalRoutes = literal.groupBy { it.route.path!! }
+        dynamicRoutes = dynamic
+    }
+
+    /**
+     * @return the routes matching the request, in registration order
+     */
+    fun match(requestMethod: String, requestPath: String): List<HttpRoute> {
+        val literal = literalRoutes[requestPath] ?: emptyList()
+        val dynamic = dynamicRoutes.filter { it.route.matches(requestPath) }
+
+        // merge the two lists, each of which is already in registration order
+        val matched = ArrayList<HttpRoute>(literal.size + dynamic.size)
+        var l = 0
+        var d = 0
+        while (l < literal.size || d < dynamic.size) {
+            val next = if (d >= dynamic.size || (l < literal.size && literal[l].index < dynamic[d].index)) {
+                literal[l++]
+            } else {
+                dynamic[d++]
+            }
+            if (null == next.method || requestMethod == next.method) {
+                matched += next.route
+            }
+        }
+        return matched
+    }
+
+    private fun isLiteral(route: HttpRoute): Boolean {
+        val path = route.path ?: return false
+        return !route.hasTrailingWildcard && !path.contains('{')
+    }
+}
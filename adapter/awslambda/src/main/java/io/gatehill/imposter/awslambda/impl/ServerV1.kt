@@ -59,7 +59,7 @@ import io.gatehill.imposter.util.HttpUtil
  */
 class ServerV1(
     responseService: ResponseService,
-    private val router: HttpRouter,
+    router: HttpRouter,
 ) : LambdaServer<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>(responseService, router) {
 
     init {
@@ -74,7 +74,14 @@ class ServerV1(
         return HttpUtil.readAcceptedContentTypes(event.headers["Accept"]).contains(HttpUtil.CONTENT_TYPE_HTML)
     }
 
-    override fun buildRequest(event: APIGatewayProxyRequestEvent, route: HttpRoute?) = LambdaHttpRequestV1(event, router, route)
+    override fun buildRequest(event: APIGatewayProxyRequestEvent, router: HttpRouter, route: HttpRoute?) =
+        LambdaHttpRequestV1(event, router, route)
+
+    override fun buildPrimingEvent(method: String, path: String) = APIGatewayProxyRequestEvent()
+        .withHttpMethod(method)
+        .withPath(path)
+        .withHeaders(emptyMap())
+        .withIsBase64Encoded(false)
 
     override fun buildResponse(response: LambdaHttpResponse) = APIGatewayProxyResponseEvent().apply {
         // read status again in case modified by error handler
@@ -82,10 +89,9 @@ class ServerV1(
 
         headers = response.headers
 
-        if (response.bodyLength > 0) {
-            // TODO encode to base 64 if request.event.isBase64Encoded == true
-            body = response.bodyBuffer?.toString(Charsets.UTF_8)
-            isBase64Encoded = false
+        encodeBody(response)?.let { (encodedBody, base64Encoded) ->
+            body = encodedBody
+            isBase64Encoded = base64Encoded
         }
     }
 }
@@ -59,7 +59,7 @@ import io.gatehill.imposter.util.HttpUtil
  */
 class ServerV2(
     responseService: ResponseService,
-    private val router: HttpRouter,
+    router: HttpRouter,
 ) : LambdaServer<APIGatewayV2HTTPEvent, APIGatewayV2HTTPResponse>(responseService, router) {
 
     init {
@@ -74,7 +74,19 @@ class ServerV2(
         return HttpUtil.readAcceptedContentTypes(event.headers["Accept"]).contains(HttpUtil.CONTENT_TYPE_HTML)
     }
 
-    override fun buildRequest(event: APIGatewayV2HTTPEvent, route: HttpRoute?) = LambdaHttpRequestV2(event, router, route)
+    override fun buildRequest(event: APIGatewayV2HTTPEvent, router: HttpRouter, route: HttpRoute?) =
+        LambdaHttpRequestV2(event, router, route)
+
+    override fun buildPrimingEvent(method: String, path: String) = APIGatewayV2HTTPEvent().apply {
+        rawPath = path
+        headers = emptyMap()
+        requestContext = APIGatewayV2HTTPEvent.RequestContext().apply {
+            http = APIGatewayV2HTTPEvent.RequestContext.Http().apply {
+                this.method = method
+                this.path = path
+            }
+        }
+    }
 
     override fun buildResponse(response: LambdaHttpResponse) = APIGatewayV2HTTPResponse().apply {
         // read status again in case modified by error handler
@@ -82,10 +94,9 @@ class ServerV2(
 
         headers = response.headers
 
-        if (response.bodyLength > 0) {
-            // TODO encode to base 64 if request.event.isBase64Encoded == true
-            body = response.bodyBuffer?.toString(Charsets.UTF_8)
-            isBase64Encoded = false
+        encodeBody(response)?.let { (encodedBody, base64Encoded) ->
+            body = encodedBody
+            isBase64Encoded = base64Encoded
         }
     }
 }
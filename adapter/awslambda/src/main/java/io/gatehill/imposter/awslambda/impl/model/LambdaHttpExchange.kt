@@ -47,6 +47,7 @@ import com.google.common.base.Strings
 import io.gatehill.imposter.http.*
 import io.gatehill.imposter.util.HttpUtil
 import io.vertx.core.buffer.Buffer
+import java.util.concurrent.CompletableFuture
 
 /**
  * @author Pete Cornish
@@ -106,6 +107,18 @@ class LambdaHttpExchange(
         failureCause = cause
     }
 
+    /**
+     * The body of a Lambda request has already been received, so it is only checked against the limit.
+     */
+    override fun readBody(maxBodySize: Long): CompletableFuture<Boolean> {
+        val bodySize = request.body?.length() ?: 0
+        if (maxBodySize >= 0 && bodySize > maxBodySize) {
+            fail(HttpUtil.HTTP_ENTITY_TOO_LARGE)
+            return CompletableFuture.completedFuture(false)
+        }
+        return CompletableFuture.completedFuture(true)
+    }
+
     override fun <T> get(key: String): T? {
         @Suppress("UNCHECKED_CAST")
         return attributes[key] as T?
@@ -45,6 +45,7 @@ package io.gatehill.imposter.awslambda.impl.model
 
 import io.gatehill.imposter.http.HttpResponse
 import io.vertx.core.buffer.Buffer
+import java.util.concurrent.CompletableFuture
 
 /**
  * @author Pete Cornish
@@ -73,14 +74,24 @@ class LambdaHttpResponse : HttpResponse {
         return headers.filterKeys { headerKeys.contains(it.lowercase()) }
     }
 
+    /**
+     * Lambda responses cannot be streamed, so the body is accumulated until the response ends.
+     */
+    override fun write(chunk: Buffer): CompletableFuture<Unit> {
+        bodyBuffer = (bodyBuffer ?: Buffer.buffer()).appendBuffer(chunk)
+        return CompletableFuture.completedFuture(Unit)
+    }
+
     override fun end() {
         markFinished()
-        /* no op */
+        if (!headers.containsKey("Content-Length") && bodyLength > 0) {
+            headers["Content-Length"] = bodyLength.toString()
+        }
     }
 
     override fun end(body: Buffer) {
         markFinished()
-        bodyBuffer = body
+        bodyBuffer = bodyBuffer?.appendBuffer(body) ?: body
         if (!headers.containsKey("Content-Length") && bodyLength > 0) {
             headers["Content-Length"] = bodyLength.toString()
         }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.awslambda.util
+
+import io.gatehill.imposter.awslambda.HandlerV2
+import io.gatehill.imposter.awslambda.config.Settings
+import kotlin.system.exitProcess
+
+/**
+ * Initialises the handler and dispatches the requests given as arguments,
+ * such as `"GET /pets"`, then exits.
+ *
+ * Run this with `-XX:ArchiveClassesAtExit` to generate an AppCDS archive
+ * containing the classes loaded during a cold start.
+ *
+ * @author Pete Cornish
+ */
+object ColdStartTrainer {
+    private val defaultRequests = listOf("GET" to "/system/status")
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        val requests = args.map(Settings::parseRequest).ifEmpty { defaultRequests }
+        HandlerV2().prime(requests)
+
+        // the engine's threads would otherwise keep the JVM running
+        exitProcess(0)
+    }
+}
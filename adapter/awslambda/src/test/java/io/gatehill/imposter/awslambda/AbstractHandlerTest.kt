@@ -51,12 +51,13 @@ abstract class AbstractHandlerTest {
     abstract val configDir: String
     protected var context: Context? = null
 
-    protected fun configure() {
+    protected fun configure(vararg additionalEnv: Pair<String, String>) {
         context = Mockito.mock(Context::class.java)
 
         EnvVars.populate(
                 "IMPOSTER_CONFIG_DIR" to AbstractHandlerTest::class.java.getResource(configDir).path,
                 "IMPOSTER_LOG_LEVEL" to "trace",
+                *additionalEnv,
         )
     }
 }
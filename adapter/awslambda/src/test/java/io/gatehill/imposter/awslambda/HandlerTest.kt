@@ -87,7 +87,9 @@ class HandlerTest : AbstractHandlerTest() {
         assertNotNull(responseEvent, "Response event should be returned")
         assertEquals(200, responseEvent.statusCode)
         assertEquals("""{ "id": 2, "name": "Dog" }""", responseEvent.body)
-        assertEquals(4, responseEvent.headers?.size)
+        // includes the ETag and Last-Modified validators
+        assertEquals(6, responseEvent.headers?.size)
+        assertNotNull(responseEvent.headers["ETag"], "ETag header should be set")
         assertEquals("imposter", responseEvent.headers["Server"])
     }
 
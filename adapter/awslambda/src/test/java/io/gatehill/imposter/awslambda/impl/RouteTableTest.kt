@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.awslambda.impl
+
+import io.gatehill.imposter.http.HttpMethod
+import io.gatehill.imposter.http.HttpRoute
+import io.gatehill.imposter.http.HttpRouter
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.mock
+
+/**
+ * Tests for [RouteTable].
+ */
+class RouteTableTest {
+    private val router = HttpRouter(mock())
+
+    @Test
+    fun `match routes in registration order`() {
+        val catchAll = HttpRoute(router)
+        val literal = HttpRoute(router, path = "/pets/1", method = HttpMethod.GET)
+        val placeholder = HttpRoute(router, path = "/pets/{petId}", method = HttpMethod.GET)
+        val wildcard = HttpRoute(router, path = "/pets/*")
+        val regex = HttpRoute(router, regex = "/pets/[0-9]+")
+        val other = HttpRoute(router, path = "/orders")
+
+        val routeTable = RouteTable(listOf(catchAll, literal, placeholder, wildcard, regex, other))
+
+        assertEquals(listOf(literal, placeholder, wildcard, regex), routeTable.match("GET", "/pets/1"))
+        assertEquals(listOf(placeholder, wildcard, regex), routeTable.match("GET", "/pets/2"))
+        assertEquals(listOf(other), routeTable.match("GET", "/orders"))
+    }
+
+    @Test
+    fun `filter routes by method`() {
+        val get = HttpRoute(router, path = "/pets", method = HttpMethod.GET)
+        val post = HttpRoute(router, path = "/pets", method = HttpMethod.POST)
+        val any = HttpRoute(router, path = "/pets")
+
+        val routeTable = RouteTable(listOf(get, post, any))
+
+        assertEquals(listOf(post, any), routeTable.match("POST", "/pets"))
+        assertTrue(routeTable.match("GET", "/unknown").isEmpty(), "No routes should match")
+    }
+}
@@ -48,25 +48,39 @@ import io.gatehill.imposter.http.HttpExchangeFutureHandler
 import io.gatehill.imposter.http.HttpRouter
 import io.gatehill.imposter.server.HttpServer
 import io.gatehill.imposter.server.ServerFactory
+import io.gatehill.imposter.server.vertxweb.config.ServerTuningOptions
+import io.gatehill.imposter.server.vertxweb.config.ServerTuningOptions.KeyStoreType
+import io.gatehill.imposter.server.vertxweb.config.ServerTuningOptions.SslEngine
 import io.gatehill.imposter.server.vertxweb.impl.VertxHttpExchange
 import io.gatehill.imposter.server.vertxweb.impl.VertxHttpServer
 import io.gatehill.imposter.server.vertxweb.util.VertxResourceUtil
 import io.gatehill.imposter.server.vertxweb.util.VertxResourceUtil.convertMethodToVertx
+import io.gatehill.imposter.util.ConditionalResponseUtil
 import io.gatehill.imposter.util.FileUtil
+import io.gatehill.imposter.util.HttpUtil
 import io.gatehill.imposter.util.makeFuture
 import io.vertx.core.Vertx
+import io.vertx.core.http.HttpServer as VertxServer
 import io.vertx.core.http.HttpServerOptions
+import io.vertx.core.http.impl.MimeMapping
+import io.vertx.core.net.JdkSSLEngineOptions
 import io.vertx.core.net.JksOptions
+import io.vertx.core.net.OpenSSLEngineOptions
+import io.vertx.core.net.PemKeyCertOptions
+import io.vertx.core.net.PfxOptions
 import io.vertx.ext.web.Router
 import io.vertx.ext.web.handler.FileSystemAccess
 import io.vertx.ext.web.handler.StaticHandler
-import io.vertx.ext.web.handler.impl.BodyHandlerImpl
 import io.vertx.micrometer.PrometheusScrapingHandler
 import org.apache.logging.log4j.LogManager
+import java.io.File
 import java.net.URISyntaxException
 import java.nio.file.Path
 import java.nio.file.Paths
 import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReference
 
 /**
  * @author Pete Cornish
@@ -79,24 +93,35 @@ class VertxWebServerFactoryImpl : ServerFactory {
         router: HttpRouter,
     ): CompletableFuture<HttpServer> {
         LOGGER.trace("Starting mock server on {}:{}", imposterConfig.host, imposterConfig.listenPort)
-        val serverOptions = HttpServerOptions()
+        val tuning = ServerTuningOptions.fromEnv()
+        val errors = tuning.validate(imposterConfig.isTlsEnabled, imposterConfig.keystorePath)
+        if (errors.isNotEmpty()) {
+            throw IllegalStateException("Invalid server options:\n${errors.joinToString("\n")}")
+        }
+        val serverOptions = buildServerOptions(vertx, tuning, imposterConfig.isTlsEnabled)
 
         // configure keystore and enable HTTPS
         if (imposterConfig.isTlsEnabled) {
             LOGGER.trace("TLS is enabled")
-            configureTls(imposterConfig, serverOptions)
+            configureTls(imposterConfig, tuning, serverOptions)
         } else {
             LOGGER.trace("TLS is disabled")
         }
 
-        val vertxRouter = convertRouterToVertx(router)
-        val vertxServer = vertx.createHttpServer(serverOptions).requestHandler(vertxRouter)
+        // indirection allows the router to be replaced when configuration is reloaded
+        val activeRouter = AtomicReference(convertRouterToVertx(router))
+        val vertxServer = vertx.createHttpServer(serverOptions).requestHandler { request ->
+            activeRouter.get().handle(request)
+        }
+        if (tuning.maxConnections > 0) {
+            limitConnections(vertxServer, tuning.maxConnections)
+        }
 
         LOGGER.trace("Listening on {}", imposterConfig.serverUrl)
         val serverFuture = CompletableFuture<HttpServer>()
         vertxServer.listen(imposterConfig.listenPort, imposterConfig.host) { listenResult ->
             if (listenResult.succeeded()) {
-                serverFuture.complete(VertxHttpServer(vertxServer))
+                serverFuture.complete(VertxHttpServer(vertxServer, activeRouter, ::convertRouterToVertx))
             } else {
                 serverFuture.completeExceptionally(
                     RuntimeException(
@@ -110,27 +135,91 @@ class VertxWebServerFactoryImpl : ServerFactory {
         return serverFuture
     }
 
+    private fun buildServerOptions(
+        vertx: Vertx,
+        tuning: ServerTuningOptions,
+        tlsEnabled: Boolean,
+    ): HttpServerOptions {
+        LOGGER.debug("Server tuning options: {}", tuning)
+        if (tuning.nativeTransport && !vertx.isNativeTransportEnabled) {
+            LOGGER.warn("Native transport was requested but is unavailable", vertx.unavailableNativeTransportCause())
+        }
+        if (tuning.tcpFastOpen && !vertx.isNativeTransportEnabled) {
+            LOGGER.warn("TCP fast open requires native transport - it will have no effect")
+        }
+
+        val serverOptions = HttpServerOptions()
+        serverOptions.isTcpNoDelay = tuning.tcpNoDelay
+        serverOptions.isTcpFastOpen = tuning.tcpFastOpen
+        tuning.http2?.let { http2 ->
+            serverOptions.isHttp2ClearTextEnabled = http2
+            serverOptions.isUseAlpn = http2 && tlsEnabled
+        }
+        if (tuning.compression) {
+            serverOptions.isCompressionSupported = true
+            serverOptions.compressionLevel = tuning.compressionLevel
+        }
+        if (tuning.idleTimeoutSecs > 0) {
+            serverOptions.idleTimeout = tuning.idleTimeoutSecs
+            serverOptions.idleTimeoutUnit = TimeUnit.SECONDS
+        }
+        if (tuning.acceptBacklog > 0) {
+            serverOptions.acceptBacklog = tuning.acceptBacklog
+        }
+        return serverOptions
+    }
+
+    /**
+     * Closes new connections once [maxConnections] are open.
+     */
+    private fun limitConnections(vertxServer: VertxServer, maxConnections: Int) {
+        val openConnections = AtomicInteger()
+        vertxServer.connectionHandler { connection ->
+            connection.closeHandler { openConnections.decrementAndGet() }
+            if (openConnections.incrementAndGet() > maxConnections) {
+                LOGGER.warn("Rejecting connection from {} - limit of {} connections reached", connection.remoteAddress(), maxConnections)
+                connection.close()
+            }
+        }
+    }
+
     private fun configureTls(
         imposterConfig: ImposterConfig,
+        tuning: ServerTuningOptions,
         serverOptions: HttpServerOptions,
     ) {
-        // locate keystore
-        val keystorePath: Path = if (imposterConfig.keystorePath!!.startsWith(FileUtil.CLASSPATH_PREFIX)) {
+        val keystorePath = resolvePath(imposterConfig.keystorePath!!, "keystore")
+        serverOptions.keyCertOptions = when (tuning.resolveKeyStoreType(imposterConfig.keystorePath!!)) {
+            KeyStoreType.JKS -> JksOptions()
+                .setPath(keystorePath.toString())
+                .setPassword(imposterConfig.keystorePassword)
+
+            KeyStoreType.PKCS12 -> PfxOptions()
+                .setPath(keystorePath.toString())
+                .setPassword(imposterConfig.keystorePassword)
+
+            KeyStoreType.PEM -> PemKeyCertOptions()
+                .setKeyPath(keystorePath.toString())
+                .setCertPath(resolvePath(tuning.certPath!!, "certificate").toString())
+        }
+        serverOptions.sslEngineOptions = when (tuning.sslEngine) {
+            SslEngine.JDK -> JdkSSLEngineOptions()
+            SslEngine.OPENSSL -> OpenSSLEngineOptions()
+        }
+        serverOptions.isSsl = true
+    }
+
+    private fun resolvePath(path: String, description: String): Path {
+        return if (path.startsWith(FileUtil.CLASSPATH_PREFIX)) {
             try {
-                val kp = imposterConfig.keystorePath!!.substring(FileUtil.CLASSPATH_PREFIX.length)
-                Paths.get(VertxWebServerFactoryImpl::class.java.getResource(kp).toURI())
+                val resourcePath = path.substring(FileUtil.CLASSPATH_PREFIX.length)
+                Paths.get(VertxWebServerFactoryImpl::class.java.getResource(resourcePath).toURI())
             } catch (e: URISyntaxException) {
-                throw RuntimeException("Error locating keystore", e)
+                throw RuntimeException("Error locating $description", e)
             }
         } else {
-            Paths.get(imposterConfig.keystorePath!!)
+            Paths.get(path)
         }
-
-        val jksOptions = JksOptions()
-        jksOptions.path = keystorePath.toString()
-        jksOptions.password = imposterConfig.keystorePassword
-        serverOptions.keyStoreOptions = jksOptions
-        serverOptions.isSsl = true
     }
 
     private fun convertRouterToVertx(router: HttpRouter) = Router.router(router.vertx).also { vertxRouter ->
@@ -165,22 +254,82 @@ class VertxWebServerFactoryImpl : ServerFactory {
         }
     }
 
-    override fun createBodyHttpHandler(): HttpExchangeFutureHandler {
-        val handler = BodyHandlerImpl(false)
-        return { he -> makeFuture { handler.handle((he as VertxHttpExchange).routingContext) } }
+    override fun createBodyHttpHandler(): HttpExchangeFutureHandler = { he ->
+        makeFuture {
+            val exchange = he as VertxHttpExchange
+            exchange.deferBody()
+            exchange.routingContext.next()
+        }
     }
 
     override fun createStaticHttpHandler(root: String, relative: Boolean): HttpExchangeFutureHandler {
         val handlerVisibility = if (relative) FileSystemAccess.RELATIVE else FileSystemAccess.ROOT
         val handler = StaticHandler.create(handlerVisibility, root)
+
+        // validators are only computed for files on the filesystem, not the classpath
+        val staticRoot = if (relative) null else File(root).canonicalFile
         return { exchange ->
-            makeFuture {
-                LOGGER.debug("Serving static resource: ${exchange.request.path}")
-                handler.handle((exchange as VertxHttpExchange).routingContext)
+            LOGGER.debug("Serving static resource: ${exchange.request.path}")
+            val vertxExchange = exchange as VertxHttpExchange
+            val file = staticRoot?.let { resolveStaticFile(vertxExchange, it) }
+            if (null == file) {
+                makeFuture { handler.handle(vertxExchange.routingContext) }
+            } else {
+                val context = vertxExchange.routingContext.vertx().orCreateContext
+                ConditionalResponseUtil.prepareFileResponse(exchange, file, allowPrecompressed = true).thenCompose { servedPath ->
+                    // the file may have been hashed on a worker thread
+                    val served = CompletableFuture<Unit>()
+                    context.runOnContext {
+                        try {
+                            serveStaticFile(vertxExchange, handler, file, servedPath)
+                            served.complete(Unit)
+                        } catch (e: Exception) {
+                            served.completeExceptionally(e)
+                        }
+                    }
+                    served
+                }
             }
         }
     }
 
+    /**
+     * @param servedPath the path of the file to send, or `null` if the response has been sent
+     */
+    private fun serveStaticFile(exchange: VertxHttpExchange, handler: StaticHandler, file: File, servedPath: String?) {
+        when (servedPath) {
+            null -> LOGGER.trace("Static resource {} not modified", file)
+            file.path -> handler.handle(exchange.routingContext)
+            else -> {
+                // precompressed variant
+                MimeMapping.getMimeTypeForFilename(file.name)?.let {
+                    exchange.response.putHeader(HttpUtil.CONTENT_TYPE, it)
+                }
+                exchange.response.sendFile(servedPath)
+            }
+        }
+    }
+
+    /**
+     * Resolves the file for the request path, relative to the static content root.
+     *
+     * @return the file, or `null` if it is not a regular file within the root
+     */
+    private fun resolveStaticFile(exchange: VertxHttpExchange, root: File): File? {
+        var path = exchange.routingContext.normalizedPath()
+        exchange.currentRoute?.let { currentRoute ->
+            val routePath = currentRoute.path
+            if (routePath != null && currentRoute.hasTrailingWildcard) {
+                path = path.removePrefix(routePath.removeSuffix("*"))
+            }
+        }
+        if (path.endsWith('/') || path.isEmpty()) {
+            path += STATIC_INDEX_FILE
+        }
+        val file = File(root, path).canonicalFile
+        return file.takeIf { it.path.startsWith(root.path + File.separator) && it.isFile }
+    }
+
     override fun createMetricsHandler(): HttpExchangeFutureHandler {
         val handler = PrometheusScrapingHandler.create()
         return { he -> makeFuture { handler.handle((he as VertxHttpExchange).routingContext) } }
@@ -188,5 +337,6 @@ class VertxWebServerFactoryImpl : ServerFactory {
 
     companion object {
         private val LOGGER = LogManager.getLogger(VertxWebServerFactoryImpl::class.java)
+        private const val STATIC_INDEX_FILE = "index.html"
     }
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.server.vertxweb.config
+
+import io.gatehill.imposter.config.util.EnvVars
+import io.vertx.core.net.OpenSSLEngineOptions
+
+/**
+ * Tuning options for the HTTP server, read from environment variables.
+ *
+ * @author Pete Cornish
+ */
+data class ServerTuningOptions(
+    val nativeTransport: Boolean = false,
+    val tcpNoDelay: Boolean = true,
+    val tcpFastOpen: Boolean = false,
+
+    /**
+     * Enables HTTP/2 over cleartext (h2c) and, when TLS is enabled, ALPN.
+     * If `null`, the server defaults apply.
+     */
+    val http2: Boolean? = null,
+
+    val compression: Boolean = false,
+    val compressionLevel: Int = DEFAULT_COMPRESSION_LEVEL,
+
+    /**
+     * Seconds before an idle connection is closed, or `0` for no timeout.
+     */
+    val idleTimeoutSecs: Int = 0,
+
+    /**
+     * The accept backlog, or `-1` for the operating system default.
+     */
+    val acceptBacklog: Int = -1,
+
+    /**
+     * The maximum number of concurrent connections, or `0` for no limit.
+     */
+    val maxConnections: Int = 0,
+
+    /**
+     * The type of the key material at the keystore path. If `null`, it is
+     * determined from the file extension.
+     */
+    val keyStoreType: KeyStoreType? = null,
+
+    /**
+     * The certificate chain, when the key material is in PEM format.
+     */
+    val certPath: String? = null,
+
+    val sslEngine: SslEngine = SslEngine.JDK,
+) {
+    enum class KeyStoreType {
+        JKS,
+        PKCS12,
+        PEM,
+    }
+
+    enum class SslEngine {
+        JDK,
+        OPENSSL,
+    }
+
+    /**
+     * @return the type of the key material at [keystorePath]
+     */
+    fun resolveKeyStoreType(keystorePath: String): KeyStoreType = keyStoreType ?: when (keystorePath.substringAfterLast('.').lowercase()) {
+        "p12", "pfx" -> KeyStoreType.PKCS12
+        "pem", "key" -> KeyStoreType.PEM
+        else -> KeyStoreType.JKS
+    }
+
+    /**
+     * @return a description of each invalid option, or an empty list if the options are valid
+     */
+    fun validate(tlsEnabled: Boolean, keystorePath: String?): List<String> {
+        val errors = mutableListOf<String>()
+        if (compressionLevel !in 1..9) {
+            errors += "$ENV_COMPRESSION_LEVEL must be between 1 and 9, but was: $compressionLevel"
+        }
+        if (idleTimeoutSecs < 0) {
+            errors += "$ENV_IDLE_TIMEOUT must not be negative, but was: $idleTimeoutSecs"
+        }
+        if (acceptBacklog == 0 || acceptBacklog < -1) {
+            errors += "$ENV_ACCEPT_BACKLOG must be positive, or -1 for the system default, but was: $acceptBacklog"
+        }
+        if (maxConnections < 0) {
+            errors += "$ENV_MAX_CONNECTIONS must not be negative, but was: $maxConnections"
+        }
+        if (tlsEnabled) {
+            if (keystorePath != null && resolveKeyStoreType(keystorePath) == KeyStoreType.PEM && certPath.isNullOrBlank()) {
+                errors += "$ENV_TLS_CERT_PATH must be set when using a PEM key"
+            }
+            if (sslEngine == SslEngine.OPENSSL && !OpenSSLEngineOptions.isAvailable()) {
+                errors += "$ENV_TLS_ENGINE is ${SslEngine.OPENSSL.name.lowercase()}, but OpenSSL is not available - add netty-tcnative to the classpath"
+            }
+        } else if (sslEngine != SslEngine.JDK || keyStoreType != null || certPath != null) {
+            errors += "TLS options are set, but TLS is not enabled"
+        }
+        return errors
+    }
+
+    companion object {
+        const val DEFAULT_COMPRESSION_LEVEL = 6
+
+        const val ENV_NATIVE_TRANSPORT = "IMPOSTER_SERVER_NATIVE_TRANSPORT"
+        const val ENV_TCP_NODELAY = "IMPOSTER_SERVER_TCP_NODELAY"
+        const val ENV_TCP_FASTOPEN = "IMPOSTER_SERVER_TCP_FASTOPEN"
+        const val ENV_HTTP2 = "IMPOSTER_SERVER_HTTP2"
+        const val ENV_COMPRESSION = "IMPOSTER_SERVER_COMPRESSION"
+        const val ENV_COMPRESSION_LEVEL = "IMPOSTER_SERVER_COMPRESSION_LEVEL"
+        const val ENV_IDLE_TIMEOUT = "IMPOSTER_SERVER_IDLE_TIMEOUT"
+        const val ENV_ACCEPT_BACKLOG = "IMPOSTER_SERVER_ACCEPT_BACKLOG"
+        const val ENV_MAX_CONNECTIONS = "IMPOSTER_SERVER_MAX_CONNECTIONS"
+        const val ENV_TLS_KEYSTORE_TYPE = "IMPOSTER_TLS_KEYSTORE_TYPE"
+        const val ENV_TLS_CERT_PATH = "IMPOSTER_TLS_CERT_PATH"
+        const val ENV_TLS_ENGINE = "IMPOSTER_TLS_ENGINE"
+
+        /**
+         * @throws IllegalStateException if an environment variable cannot be parsed
+         */
+        fun fromEnv() = ServerTuningOptions(
+            nativeTransport = getBoolean(ENV_NATIVE_TRANSPORT) ?: false,
+            tcpNoDelay = getBoolean(ENV_TCP_NODELAY) ?: true,
+            tcpFastOpen = getBoolean(ENV_TCP_FASTOPEN) ?: false,
+            http2 = getBoolean(ENV_HTTP2),
+            compression = getBoolean(ENV_COMPRESSION) ?: false,
+            compressionLevel = getInt(ENV_COMPRESSION_LEVEL) ?: DEFAULT_COMPRESSION_LEVEL,
+            idleTimeoutSecs = getInt(ENV_IDLE_TIMEOUT) ?: 0,
+            acceptBacklog = getInt(ENV_ACCEPT_BACKLOG) ?: -1,
+            maxConnections = getInt(ENV_MAX_CONNECTIONS) ?: 0,
+            keyStoreType = getEnum<KeyStoreType>(ENV_TLS_KEYSTORE_TYPE),
+            certPath = EnvVars.getEnv(ENV_TLS_CERT_PATH),
+            sslEngine = getEnum<SslEngine>(ENV_TLS_ENGINE) ?: SslEngine.JDK,
+        )
+
+        private fun getBoolean(name: String): Boolean? = EnvVars.getEnv(name)?.let { value ->
+            when (value.trim().lowercase()) {
+                "true" -> true
+                "false" -> false
+                else -> throw IllegalStateException("$name must be true or false, but was: $value")
+            }
+        }
+
+        private fun getInt(name: String): Int? = EnvVars.getEnv(name)?.let { value ->
+            value.trim().toIntOrNull() ?: throw IllegalStateException("$name must be an integer, but was: $value")
+        }
+
+        private inline fun <reified T : Enum<T>> getEnum(name: String): T? = EnvVars.getEnv(name)?.let { value ->
+            enumValues<T>().firstOrNull { it.name.equals(value.trim(), ignoreCase = true) }
+                ?: throw IllegalStateException(
+                    "$name must be one of ${enumValues<T>().joinToString { it.name.lowercase() }}, but was: $value"
+                )
+        }
+    }
+}
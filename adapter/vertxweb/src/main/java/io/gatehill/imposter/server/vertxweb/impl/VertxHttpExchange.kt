@@ -48,8 +48,16 @@ import io.gatehill.imposter.http.HttpRequest
 import io.gatehill.imposter.http.HttpResponse
 import io.gatehill.imposter.http.HttpRoute
 import io.gatehill.imposter.http.HttpRouter
+import io.gatehill.imposter.util.HttpUtil
+import io.vertx.core.Context
+import io.vertx.core.Vertx
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.http.HttpHeaders
 import io.vertx.ext.web.RoutingContext
 import io.vertx.ext.web.impl.ParsableMIMEValue
+import io.vertx.ext.web.impl.RoutingContextInternal
+import org.apache.logging.log4j.LogManager
+import java.util.concurrent.CompletableFuture
 
 /**
  * @author Pete Cornish
@@ -100,4 +108,135 @@ class VertxHttpExchange(
     override fun put(key: String, value: Any) {
         routingContext.put(key, value)
     }
+
+    /**
+     * Pauses the request, so its body is not read until [readBody] or [discardBody]
+     * is called. If neither is called before the response is sent, the body is discarded.
+     */
+    internal fun deferBody() {
+        val request = routingContext.request()
+        if (request.isEnded) {
+            return
+        }
+        request.pause()
+        routingContext.put(KEY_BODY_CONTEXT, Vertx.currentContext())
+        routingContext.addHeadersEndHandler { discardBody() }
+    }
+
+    override fun readBody(maxBodySize: Long): CompletableFuture<Boolean> {
+        routingContext.get<CompletableFuture<Boolean>>(KEY_BODY_READ)?.let { bodyRead ->
+            // already read, possibly with a different limit
+            return bodyRead.thenApply { read -> read && checkBodySize(maxBodySize) }
+        }
+        val context = routingContext.get<Context>(KEY_BODY_CONTEXT)
+            ?: return CompletableFuture.completedFuture(checkBodySize(maxBodySize))
+
+        val bodyRead = CompletableFuture<Boolean>()
+        routingContext.put(KEY_BODY_READ, bodyRead)
+
+        val request = routingContext.request()
+        val contentLength = request.getHeader(HttpHeaders.CONTENT_LENGTH)?.toLongOrNull()
+        if (maxBodySize >= 0 && contentLength != null && contentLength > maxBodySize) {
+            LOGGER.debug("Rejecting request with content length {} exceeding limit of {} bytes", contentLength, maxBodySize)
+            routingContext.fail(HttpUtil.HTTP_ENTITY_TOO_LARGE)
+            bodyRead.complete(false)
+
+            // drop the body without buffering it
+            context.runOnContext { request.resume() }
+            return bodyRead
+        }
+
+        context.runOnContext {
+            if (request.isEnded) {
+                bodyRead.complete(true)
+                return@runOnContext
+            }
+            val contentType = request.getHeader(HttpHeaders.CONTENT_TYPE)?.lowercase()
+            if (contentType?.startsWith("application/x-www-form-urlencoded") == true || contentType?.startsWith("multipart/form-data") == true) {
+                request.setExpectMultipart(true)
+            }
+            val body = Buffer.buffer()
+            request.handler { chunk ->
+                if (bodyRead.isDone) {
+                    return@handler
+                }
+                if (maxBodySize >= 0 && body.length() + chunk.length() > maxBodySize) {
+                    LOGGER.debug("Rejecting request with body exceeding limit of {} bytes", maxBodySize)
+                    bodyRead.complete(false)
+                    routingContext.fail(HttpUtil.HTTP_ENTITY_TOO_LARGE)
+                } else {
+                    body.appendBuffer(chunk)
+                }
+            }
+            request.endHandler {
+                if (!bodyRead.isDone) {
+                    (routingContext as RoutingContextInternal).setBody(body)
+                    bodyRead.complete(true)
+                }
+            }
+            request.exceptionHandler { cause -> bodyRead.completeExceptionally(cause) }
+            request.resume()
+        }
+        return bodyRead
+    }
+
+    override fun discardBody() {
+        if (null != routingContext.get<Any>(KEY_BODY_READ)) {
+            return
+        }
+        val context = routingContext.get<Context>(KEY_BODY_CONTEXT) ?: return
+        routingContext.put(KEY_BODY_READ, CompletableFuture.completedFuture(true))
+
+        // no data handler is set, so the body is dropped as it arrives
+        context.runOnContext { routingContext.request().resume() }
+    }
+
+    override fun streamBody(chunkHandler: (Buffer) -> CompletableFuture<Unit>): CompletableFuture<Unit> {
+        val context = routingContext.get<Context>(KEY_BODY_CONTEXT)
+        if (null != routingContext.get<Any>(KEY_BODY_READ) || null == context) {
+            return super.streamBody(chunkHandler)
+        }
+        routingContext.put(KEY_BODY_READ, CompletableFuture.completedFuture(true))
+
+        val streamed = CompletableFuture<Unit>()
+        val request = routingContext.request()
+        context.runOnContext {
+            if (request.isEnded) {
+                streamed.complete(Unit)
+                return@runOnContext
+            }
+            request.handler { chunk ->
+                // wait for the chunk to be handled before reading more
+                request.pause()
+                chunkHandler(chunk).whenComplete { _, cause ->
+                    if (null != cause) {
+                        streamed.completeExceptionally(cause)
+
+                        // drop the rest of the body
+                        request.handler(null)
+                    }
+                    context.runOnContext { request.resume() }
+                }
+            }
+            request.endHandler { streamed.complete(Unit) }
+            request.exceptionHandler { cause -> streamed.completeExceptionally(cause) }
+            request.resume()
+        }
+        return streamed
+    }
+
+    private fun checkBodySize(maxBodySize: Long): Boolean {
+        val bodySize = routingContext.body().length()
+        if (maxBodySize >= 0 && bodySize > maxBodySize) {
+            fail(HttpUtil.HTTP_ENTITY_TOO_LARGE)
+            return false
+        }
+        return true
+    }
+
+    companion object {
+        private val LOGGER = LogManager.getLogger(VertxHttpExchange::class.java)
+        private const val KEY_BODY_CONTEXT = "io.gatehill.imposter.bodyContext"
+        private const val KEY_BODY_READ = "io.gatehill.imposter.bodyRead"
+    }
 }
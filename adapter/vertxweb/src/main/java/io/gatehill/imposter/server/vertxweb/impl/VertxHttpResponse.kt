@@ -46,7 +46,9 @@ import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.http.HttpResponse
 import io.gatehill.imposter.http.HttpRouter
 import io.vertx.core.buffer.Buffer
+import io.vertx.core.http.HttpHeaders
 import io.vertx.core.http.HttpServerResponse
+import java.util.concurrent.CompletableFuture
 
 /**
  * @author Pete Cornish
@@ -82,6 +84,24 @@ class VertxHttpResponse(
             .associate { it.key to it.value }
     }
 
+    override fun write(chunk: Buffer): CompletableFuture<Unit> {
+        if (!vertxResponse.headWritten() && !vertxResponse.headers().contains(HttpHeaders.CONTENT_LENGTH)) {
+            vertxResponse.isChunked = true
+        }
+        vertxResponse.write(chunk)
+        if (!vertxResponse.writeQueueFull()) {
+            return CompletableFuture.completedFuture(Unit)
+        }
+        val drained = CompletableFuture<Unit>()
+        vertxResponse.drainHandler { drained.complete(Unit) }
+
+        // the queue may have drained before the handler was set
+        if (!vertxResponse.writeQueueFull()) {
+            drained.complete(Unit)
+        }
+        return drained
+    }
+
     override fun end() {
         markFinished()
         router.invokeBeforeEndHandlers(exchange)
@@ -95,6 +115,15 @@ class VertxHttpResponse(
         vertxResponse.end(body)
     }
 
+    override val sendFileSupported: Boolean
+        get() = true
+
+    override fun sendFile(path: String) {
+        markFinished()
+        router.invokeBeforeEndHandlers(exchange)
+        vertxResponse.sendFile(path)
+    }
+
     override fun close() {
         markFinished()
         vertxResponse.close()
@@ -42,14 +42,25 @@
  */
 package io.gatehill.imposter.server.vertxweb.impl
 
+import io.gatehill.imposter.http.HttpRouter
 import io.gatehill.imposter.server.HttpServer
 import io.vertx.core.AsyncResult
 import io.vertx.core.Handler
+import io.vertx.ext.web.Router
+import java.util.concurrent.atomic.AtomicReference
 
 /**
  * @author Pete Cornish
  */
-class VertxHttpServer(private val vertxServer: io.vertx.core.http.HttpServer) : HttpServer {
+class VertxHttpServer(
+    private val vertxServer: io.vertx.core.http.HttpServer,
+    private val activeRouter: AtomicReference<Router>,
+    private val routerConverter: (HttpRouter) -> Router,
+) : HttpServer {
+    override fun updateRouter(router: HttpRouter) {
+        activeRouter.set(routerConverter(router))
+    }
+
     override fun close(onCompletion: Handler<AsyncResult<Void>>) {
         vertxServer.close(onCompletion)
     }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.server.vertxweb.config
+
+import io.gatehill.imposter.config.util.EnvVars
+import io.gatehill.imposter.server.vertxweb.config.ServerTuningOptions.KeyStoreType
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+
+/**
+ * Tests for [ServerTuningOptions].
+ *
+ * @author Pete Cornish
+ */
+class ServerTuningOptionsTest {
+    @AfterEach
+    fun tearDown() {
+        EnvVars.reset(emptyList())
+    }
+
+    @Test
+    fun `should use defaults when unset`() {
+        EnvVars.populate(emptyMap())
+        val options = ServerTuningOptions.fromEnv()
+        assertEquals(ServerTuningOptions(), options)
+        assertTrue(options.validate(tlsEnabled = false, keystorePath = null).isEmpty())
+    }
+
+    @Test
+    fun `should read options from environment`() {
+        EnvVars.populate(
+            "IMPOSTER_SERVER_HTTP2" to "true",
+            "IMPOSTER_SERVER_COMPRESSION" to "true",
+            "IMPOSTER_SERVER_COMPRESSION_LEVEL" to "3",
+            "IMPOSTER_SERVER_MAX_CONNECTIONS" to "100",
+            "IMPOSTER_TLS_KEYSTORE_TYPE" to "pkcs12",
+        )
+        val options = ServerTuningOptions.fromEnv()
+        assertEquals(true, options.http2)
+        assertTrue(options.compression)
+        assertEquals(3, options.compressionLevel)
+        assertEquals(100, options.maxConnections)
+        assertEquals(KeyStoreType.PKCS12, options.keyStoreType)
+    }
+
+    @Test
+    fun `should reject unparseable values`() {
+        EnvVars.populate("IMPOSTER_SERVER_IDLE_TIMEOUT" to "soon")
+        assertThrows<IllegalStateException> { ServerTuningOptions.fromEnv() }
+    }
+
+    @Test
+    fun `should report invalid options`() {
+        val options = ServerTuningOptions(compressionLevel = 10, acceptBacklog = 0, maxConnections = -1)
+        assertEquals(3, options.validate(tlsEnabled = false, keystorePath = null).size)
+    }
+
+    @Test
+    fun `should require certificate for PEM key`() {
+        val options = ServerTuningOptions()
+        assertEquals(KeyStoreType.PEM, options.resolveKeyStoreType("/tls/server.pem"))
+        assertEquals(1, options.validate(tlsEnabled = true, keystorePath = "/tls/server.pem").size)
+        assertTrue(options.copy(certPath = "/tls/cert.pem").validate(tlsEnabled = true, keystorePath = "/tls/server.pem").isEmpty())
+    }
+}
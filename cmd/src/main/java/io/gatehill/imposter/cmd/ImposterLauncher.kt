@@ -47,6 +47,7 @@ import io.gatehill.imposter.config.util.ConfigUtil
 import io.gatehill.imposter.config.util.MetaUtil.readVersion
 import io.gatehill.imposter.plugin.DynamicPluginDiscoveryStrategyImpl
 import io.gatehill.imposter.plugin.internal.MetaInfPluginDetectorImpl
+import io.gatehill.imposter.server.ImposterVerticle
 import io.gatehill.imposter.server.vertxweb.VertxWebServerFactoryImpl
 import io.gatehill.imposter.util.CryptoUtil.DEFAULT_KEYSTORE_PASSWORD
 import io.gatehill.imposter.util.CryptoUtil.DEFAULT_KEYSTORE_PATH
@@ -55,10 +56,13 @@ import io.gatehill.imposter.util.HttpUtil.BIND_ALL_HOSTS
 import io.gatehill.imposter.util.HttpUtil.DEFAULT_HTTPS_LISTEN_PORT
 import io.gatehill.imposter.util.HttpUtil.DEFAULT_HTTP_LISTEN_PORT
 import io.gatehill.imposter.util.LogUtil
+import io.vertx.core.Vertx
 import org.apache.logging.log4j.LogManager
 import org.kohsuke.args4j.CmdLineException
 import org.kohsuke.args4j.CmdLineParser
 import org.kohsuke.args4j.Option
+import java.nio.file.Path
+import java.nio.file.Paths
 import kotlin.system.exitProcess
 
 /**
@@ -118,6 +122,12 @@ class ImposterLauncher(args: Array<String>) {
     @Option(name = "--serverFactory", usage = "Fully qualified class for server factory")
     private var serverFactory: String = VertxWebServerFactoryImpl::class.java.canonicalName
 
+    @Option(
+        name = "--prepareSnapshot",
+        usage = "Write a startup snapshot of the parsed configuration to this path, then exit without starting the server"
+    )
+    private var prepareSnapshotPath: String? = null
+
     companion object {
         private val LOGGER = LogManager.getLogger(ImposterLauncher::class.java)
 
@@ -206,6 +216,25 @@ class ImposterLauncher(args: Array<String>) {
             imposterConfig.pluginArgs = splitArgs
         }
 
-        LifecycleAwareLauncher().dispatch(originalArgs)
+        val snapshotPath = prepareSnapshotPath
+        if (null != snapshotPath) {
+            prepareSnapshot(Paths.get(snapshotPath))
+        } else {
+            LifecycleAwareLauncher().dispatch(originalArgs)
+        }
+    }
+
+    private fun prepareSnapshot(snapshotPath: Path) {
+        val vertx = Vertx.vertx()
+        val exitCode = try {
+            ImposterVerticle.newEngine(vertx).prepareSnapshot(snapshotPath).get()
+            0
+        } catch (e: Exception) {
+            LOGGER.error("Error preparing startup snapshot", e)
+            1
+        } finally {
+            vertx.close()
+        }
+        exitProcess(exitCode)
     }
 }
@@ -43,6 +43,7 @@
 package io.gatehill.imposter.cmd
 
 import io.gatehill.imposter.server.ImposterVerticle
+import io.gatehill.imposter.server.vertxweb.config.ServerTuningOptions
 import io.gatehill.imposter.util.FeatureUtil.doIfFeatureEnabled
 import io.gatehill.imposter.util.MetricsUtil
 import io.gatehill.imposter.util.MetricsUtil.configureMetrics
@@ -57,7 +58,12 @@ class LifecycleAwareLauncher : Launcher() {
         super.dispatch(arrayOf("run", ImposterVerticle::class.java.canonicalName, *args))
     }
 
-    override fun beforeStartingVertx(options: VertxOptions) = doIfFeatureEnabled(MetricsUtil.FEATURE_NAME_METRICS) {
-        configureMetrics(options)
+    override fun beforeStartingVertx(options: VertxOptions) {
+        // native transport must be chosen before Vert.x starts
+        options.preferNativeTransport = ServerTuningOptions.fromEnv().nativeTransport
+
+        doIfFeatureEnabled(MetricsUtil.FEATURE_NAME_METRICS) {
+            configureMetrics(options)
+        }
     }
 }
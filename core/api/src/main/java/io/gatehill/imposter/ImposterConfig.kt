@@ -64,7 +64,19 @@ class ImposterConfig {
     var pluginDiscoveryStrategyClass: String? = null
     var useEmbeddedScriptEngine: Boolean = false
 
+    /**
+     * Handle requests on the thread that receives them, instead of dispatching
+     * them to a worker pool. Suitable for servers that have a thread per request.
+     */
+    var inlineRequestHandling: Boolean = false
+
+    /**
+     * Add plugin routes on first use, instead of at startup. Only supported
+     * by servers that look up routes for each request.
+     */
+    var deferPluginRoutes: Boolean = false
+
     override fun toString(): String {
-        return "ImposterConfig(host=$host, listenPort=$listenPort, configDirs=${configDirs.contentToString()}, serverUrl=$serverUrl, isTlsEnabled=$isTlsEnabled, keystorePath=$keystorePath, keystorePassword=$keystorePassword, plugins=${plugins?.contentToString()}, pluginArgs=$pluginArgs, serverFactory=$serverFactory, pluginDiscoveryStrategy=$pluginDiscoveryStrategy, pluginDiscoveryStrategyClass=$pluginDiscoveryStrategyClass, useEmbeddedScriptEngine=$useEmbeddedScriptEngine)"
+        return "ImposterConfig(host=$host, listenPort=$listenPort, configDirs=${configDirs.contentToString()}, serverUrl=$serverUrl, isTlsEnabled=$isTlsEnabled, keystorePath=$keystorePath, keystorePassword=$keystorePassword, plugins=${plugins?.contentToString()}, pluginArgs=$pluginArgs, serverFactory=$serverFactory, pluginDiscoveryStrategy=$pluginDiscoveryStrategy, pluginDiscoveryStrategyClass=$pluginDiscoveryStrategyClass, useEmbeddedScriptEngine=$useEmbeddedScriptEngine, inlineRequestHandling=$inlineRequestHandling, deferPluginRoutes=$deferPluginRoutes)"
     }
 }
@@ -69,6 +69,24 @@ interface EngineLifecycleListener {
         // no op
     }
 
+    /**
+     * Invoked after the routes have been rebuilt, following a reload of configuration.
+     * By default, this delegates to [afterRoutesConfigured].
+     *
+     * @param imposterConfig        the Imposter configuration
+     * @param allPluginConfigs      all plugin configurations
+     * @param reloadedPluginConfigs the plugin configurations that were reloaded
+     * @param router                the new router
+     */
+    fun afterRoutesReloaded(
+        imposterConfig: ImposterConfig,
+        allPluginConfigs: List<PluginConfig>,
+        reloadedPluginConfigs: List<PluginConfig>,
+        router: HttpRouter,
+    ) {
+        afterRoutesConfigured(imposterConfig, allPluginConfigs, router)
+    }
+
     /**
      * Invoked if an unhandled exception is thrown when starting the engine.
      */
@@ -73,4 +73,19 @@ interface PluginDiscoveryStrategy {
     fun getPluginClasses(): Collection<Class<out Plugin>>
 
     fun getPluginName(clazz: Class<in Plugin>): String
+
+    /**
+     * @return the plugin short names discovered so far, mapped to their fully qualified class names
+     */
+    fun exportPluginNames(): Map<String, String> = emptyMap()
+
+    /**
+     * Uses previously discovered plugin short names, such as those from a startup
+     * snapshot, instead of discovering them again.
+     *
+     * @param pluginNames plugin short names, mapped to their fully qualified class names
+     */
+    fun importPluginNames(pluginNames: Map<String, String>) {
+        /* no op */
+    }
 }
@@ -49,4 +49,12 @@ import io.gatehill.imposter.http.HttpRouter
  */
 interface RoutablePlugin : Plugin {
     fun configureRoutes(router: HttpRouter)
+
+    /**
+     * The path prefixes of the routes added by [configureRoutes], or `null` if they
+     * could match any path. This must not require the routes to be prepared, as it
+     * determines which plugins to prepare when plugin routes are deferred.
+     */
+    val routePathPrefixes: Set<String>?
+        get() = null
 }
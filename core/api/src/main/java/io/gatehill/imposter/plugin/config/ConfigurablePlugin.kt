@@ -48,6 +48,19 @@ import io.gatehill.imposter.config.LoadedConfig
  * @author Pete Cornish
  */
 interface ConfigurablePlugin<C : PluginConfig> {
-    fun loadConfiguration(loadedConfigs: List<LoadedConfig>)
+    fun loadConfiguration(loadedConfigs: List<LoadedConfig>) {
+        applyConfiguration(parseConfiguration(loadedConfigs))
+    }
+
+    /**
+     * Parses the configuration files, without changing the configuration in use.
+     */
+    fun parseConfiguration(loadedConfigs: List<LoadedConfig>): List<C>
+
+    /**
+     * Replaces the configuration in use with [configs].
+     */
+    fun applyConfiguration(configs: List<C>)
+
     val configs: List<C>
 }
@@ -55,7 +55,8 @@ import java.util.UUID
  *
  * @author Pete Cornish
  */
-abstract class AbstractResourceConfig : BasicResourceConfig, SecurityConfigHolder, CaptureConfigHolder {
+abstract class AbstractResourceConfig : BasicResourceConfig, SecurityConfigHolder, CaptureConfigHolder,
+    RequestBodyHandlingHolder {
     @JsonProperty("path")
     override var path: String? = null
 
@@ -74,10 +75,16 @@ abstract class AbstractResourceConfig : BasicResourceConfig, SecurityConfigHolde
     @JsonProperty("continue")
     override val continueToNext: Boolean? = null
 
+    @JsonProperty("maxRequestBodySize")
+    override val maxRequestBodySize: Long? = null
+
+    @JsonProperty("bufferRequestBody")
+    override val bufferRequestBody: Boolean? = null
+
     @get:JsonIgnore
     override val resourceId by lazy { UUID.randomUUID().toString() }
 
     override fun toString(): String {
-        return "AbstractResourceConfig(path=$path, securityConfig=$securityConfig, captureConfig=$captureConfig, responseConfig=$responseConfig, continueToNext=$continueToNext)"
+        return "AbstractResourceConfig(path=$path, securityConfig=$securityConfig, captureConfig=$captureConfig, responseConfig=$responseConfig, continueToNext=$continueToNext, maxRequestBodySize=$maxRequestBodySize, bufferRequestBody=$bufferRequestBody)"
     }
 }
@@ -51,9 +51,12 @@ import org.apache.logging.log4j.Logger
  * @author Pete Cornish
  */
 class ScriptBindings(
-    private val env: Map<String, String>,
-    private val logger: Logger,
-    private val pluginConfig: PluginConfig,
+    /**
+     * Expected to be a shared, read-only view, as it is exposed to scripts without copying.
+     */
+    val env: Map<String, String>,
+    val logger: Logger,
+    val pluginConfig: PluginConfig,
     private val additionalBindings: Map<String, Any>?,
     val executionContext: ExecutionContext
 ) {
@@ -62,7 +65,7 @@ class ScriptBindings(
      * @return a representation of the script bindings as a [Map]
      */
     fun asMap(): Map<String, Any> {
-        val bindings: MutableMap<String, Any> = mutableMapOf()
+        val bindings = HashMap<String, Any>(STATIC_BINDING_COUNT + (additionalBindings?.size ?: 0), 1f)
         bindings["config"] = pluginConfig
         bindings["context"] = executionContext
         bindings["env"] = env
@@ -74,6 +77,8 @@ class ScriptBindings(
     }
 
     companion object {
+        private const val STATIC_BINDING_COUNT = 4
+
         val empty = ScriptBindings(
             emptyMap(),
             LogManager.getLogger("noop"),
@@ -42,6 +42,7 @@
  */
 package io.gatehill.imposter.server
 
+import io.gatehill.imposter.http.HttpRouter
 import io.vertx.core.AsyncResult
 import io.vertx.core.Handler
 
@@ -49,5 +50,11 @@ import io.vertx.core.Handler
  * @author Pete Cornish
  */
 interface HttpServer {
+    /**
+     * Atomically replaces the router used to handle new requests.
+     * Requests already in progress complete using the previous router.
+     */
+    fun updateRouter(router: HttpRouter)
+
     fun close(onCompletion: Handler<AsyncResult<Void>>)
 }
@@ -63,6 +63,10 @@ interface ServerFactory {
      */
     fun provide(injector: Injector, imposterConfig: ImposterConfig, vertx: Vertx, router: HttpRouter): CompletableFuture<HttpServer>
 
+    /**
+     * Creates a handler that defers reading the request body, so it is only
+     * buffered when [io.gatehill.imposter.http.HttpExchange.readBody] is called.
+     */
     fun createBodyHttpHandler(): HttpExchangeFutureHandler
 
     fun createStaticHttpHandler(root: String, relative: Boolean = true): HttpExchangeFutureHandler
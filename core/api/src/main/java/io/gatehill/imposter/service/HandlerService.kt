@@ -66,9 +66,14 @@ interface HandlerService {
      * router.get("/example").handler(handler)
      * ```
      *
+     * The request body is read before [httpExchangeHandler] is invoked, unless
+     * [requestBodyStreamed] is `true`, in which case the handler must read it
+     * using [HttpExchange.streamBody].
+     *
      * @param imposterConfig      the Imposter configuration
      * @param allPluginConfigs    all plugin configurations
      * @param resourceMatcher     the [ResourceMatcher] to use
+     * @param requestBodyStreamed whether [httpExchangeHandler] streams the request body
      * @param httpExchangeHandler the consumer of the [HttpExchange]
      * @return the handler
      */
@@ -76,6 +81,7 @@ interface HandlerService {
         imposterConfig: ImposterConfig,
         allPluginConfigs: List<PluginConfig>,
         resourceMatcher: ResourceMatcher,
+        requestBodyStreamed: Boolean = false,
         httpExchangeHandler: HttpExchangeFutureHandler,
     ): HttpExchangeFutureHandler
 
@@ -100,9 +106,14 @@ interface HandlerService {
      * router.get("/example").handler(handler)
      * ```
      *
+     * The request body is read before [httpExchangeHandler] is invoked if
+     * [requestBodyRequired] is `true`, or if the plugin configuration or the
+     * matched resource requires it. Otherwise, the body is discarded.
+     *
      * @param imposterConfig      the Imposter configuration
      * @param pluginConfig        the plugin configuration
      * @param resourceMatcher     the [ResourceMatcher] to use
+     * @param requestBodyRequired whether [httpExchangeHandler] reads the request body
      * @param httpExchangeHandler the consumer of the [HttpExchange]
      * @return the handler
      */
@@ -110,6 +121,7 @@ interface HandlerService {
         imposterConfig: ImposterConfig,
         pluginConfig: PluginConfig,
         resourceMatcher: ResourceMatcher,
+        requestBodyRequired: Boolean = true,
         httpExchangeHandler: HttpExchangeFutureHandler,
     ): HttpExchangeFutureHandler
 
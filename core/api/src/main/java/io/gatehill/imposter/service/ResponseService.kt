@@ -131,6 +131,21 @@ interface ResponseService {
         trustedData: Boolean,
     )
 
+    /**
+     * Write the file at the given path as the response, without reading it into memory
+     * if the server supports it.
+     *
+     * @param httpExchange the HTTP exchange
+     * @param filenameHintForContentType the filename used to infer the content type
+     * @param filePath     the path to the file
+     */
+    fun writeResponseFile(
+        resourceConfig: ResourceConfig?,
+        httpExchange: HttpExchange,
+        filenameHintForContentType: String?,
+        filePath: String,
+    )
+
     /**
      * Invoke the `block`, then finalise the exchange by setting the phase, and
      * calling any configured listeners.
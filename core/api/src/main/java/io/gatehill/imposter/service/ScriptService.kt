@@ -72,6 +72,22 @@ interface ScriptService {
 
     fun executeEvalScript(scriptId: String, scriptCode: String, scriptBindings: ScriptBindings): Boolean =
         throw NotImplementedError()
+
+    /**
+     * Compile an inline eval script into a reusable handle. Compilation errors
+     * should be thrown from this function, rather than on first use.
+     *
+     * The default implementation initialises the script and delegates
+     * each invocation to [executeEvalScript].
+     *
+     * @param scriptId   the stable identifier for the script
+     * @param scriptCode the script code
+     * @return the compiled script
+     */
+    fun compileEvalScript(scriptId: String, scriptCode: String): CompiledEvalScript {
+        initEvalScript(scriptId, scriptCode)
+        return CompiledEvalScript { scriptBindings -> executeEvalScript(scriptId, scriptCode, scriptBindings) }
+    }
 }
 
 typealias ScriptContextBuilder = (request: HttpRequest, additional: Map<String, Any>?) -> ExecutionContext
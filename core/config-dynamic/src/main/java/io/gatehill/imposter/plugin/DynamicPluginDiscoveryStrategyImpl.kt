@@ -181,6 +181,17 @@ class DynamicPluginDiscoveryStrategyImpl : PluginDiscoveryStrategy {
         return classpathPlugins[normalisedPluginId] ?: normalisedPluginId
     }
 
+    override fun exportPluginNames(): Map<String, String> = synchronized(classpathPlugins) {
+        classpathPlugins.toMap()
+    }
+
+    override fun importPluginNames(pluginNames: Map<String, String>) {
+        synchronized(classpathPlugins) {
+            classpathPlugins.putAll(pluginNames)
+            hasScannedForPlugins = true
+        }
+    }
+
     override fun getPluginClasses(): Collection<Class<out Plugin>> {
         return Collections.unmodifiableCollection(finalPluginClasses)
     }
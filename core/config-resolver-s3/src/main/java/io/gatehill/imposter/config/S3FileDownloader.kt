@@ -46,12 +46,22 @@ import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration
 import com.amazonaws.regions.DefaultAwsRegionProviderChain
 import com.amazonaws.services.s3.AmazonS3
 import com.amazonaws.services.s3.AmazonS3ClientBuilder
+import com.amazonaws.services.s3.model.ListObjectsV2Request
+import com.amazonaws.services.s3.model.S3ObjectSummary
 import io.gatehill.imposter.config.util.EnvVars.Companion.getEnv
 import org.apache.logging.log4j.LogManager
 import java.io.BufferedReader
 import java.io.File
 import java.io.InputStreamReader
 import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.NoSuchFileException
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.nio.file.StandardCopyOption
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
 import java.util.stream.Collectors
 
 /**
@@ -62,6 +72,24 @@ import java.util.stream.Collectors
 class S3FileDownloader private constructor() {
     private val s3client: AmazonS3
 
+    private val downloadThreads: Int =
+        getEnv("IMPOSTER_S3_DOWNLOAD_THREADS")?.toInt() ?: DEFAULT_DOWNLOAD_THREADS
+
+    /**
+     * The directory in which downloaded objects are cached, or `null` if caching is disabled.
+     */
+    private val cacheDir: Path? by lazy {
+        if (getEnv("IMPOSTER_S3_CACHE")?.toBoolean() == false) {
+            return@lazy null
+        }
+        val dir = System.getProperty(SYS_PROP_S3_CACHE_DIR, getEnv(ENV_S3_CACHE_DIR))?.let { Paths.get(it) }
+            ?: (getEnv("IMPOSTER_CACHE_DIR")?.let { Paths.get(it) }
+                ?: Paths.get(System.getProperty("java.io.tmpdir"), "imposter-cache")).resolve("s3")
+
+        Files.createDirectories(dir)
+        return@lazy dir
+    }
+
     init {
         val clientBuilder = AmazonS3ClientBuilder.standard().enablePathStyleAccess()
         System.getProperty(SYS_PROP_S3_API_ENDPOINT, getEnv(ENV_S3_API_ENDPOINT))
@@ -102,14 +130,29 @@ class S3FileDownloader private constructor() {
      * @return the file names, relative to `s3Url`
      */
     fun listFiles(s3Url: String): List<String> {
+        val keyName = determineObjectKeyPrefix(s3Url)
+        return listObjects(s3Url).map { it.key.substring(keyName.length) }
+    }
+
+    /**
+     * Lists objects, recursively, at the given S3 location, following
+     * continuation tokens for listings larger than a single page.
+     */
+    private fun listObjects(s3Url: String): List<S3ObjectSummary> {
         try {
             val bucketName = determineBucketName(s3Url)
             val keyName = determineObjectKeyPrefix(s3Url)
 
-            val objects = s3client.listObjectsV2(bucketName, keyName).objectSummaries
-                .map { it.key.substring(keyName.length) }
+            val objects = mutableListOf<S3ObjectSummary>()
+            val request = ListObjectsV2Request().withBucketName(bucketName).withPrefix(keyName)
+            do {
+                val result = s3client.listObjectsV2(request)
+                objects += result.objectSummaries
+                request.continuationToken = result.nextContinuationToken
+            } while (result.isTruncated)
 
-            LOGGER.debug("Found ${objects.size} objects in S3: $s3Url: $objects")
+            LOGGER.debug("Found ${objects.size} objects in S3: $s3Url")
+            LOGGER.trace("Objects in S3: {}: {}", s3Url, objects.map { it.key })
             return objects
 
         } catch (e: Exception) {
@@ -117,22 +160,37 @@ class S3FileDownloader private constructor() {
         }
     }
 
+    /**
+     * Downloads all files at the given S3 location to [destDir], preserving
+     * the directory structure.
+     *
+     * Files are downloaded concurrently, on a pool sized by `IMPOSTER_S3_DOWNLOAD_THREADS`,
+     * and streamed to disk. Unless disabled with `IMPOSTER_S3_CACHE=false`, objects are
+     * stored in a local cache, keyed by their ETag and size, and unchanged objects
+     * are copied from the cache instead of being downloaded again. Each S3 location
+     * has its own cache, from which objects no longer in the location are removed
+     * after each download.
+     */
     fun downloadAllFiles(s3BaseUrl: String, destDir: File) {
         if (!destDir.exists() && !destDir.mkdirs()) {
             throw RuntimeException("Unable to create destination directory: $destDir")
         }
 
         val normalisedBaseUrl = s3BaseUrl.removeSuffix("/")
+        val bucketName = determineBucketName(normalisedBaseUrl)
+        val keyName = determineObjectKeyPrefix(normalisedBaseUrl)
 
-        val files: List<String> = listFiles(normalisedBaseUrl)
-        if (files.isEmpty()) {
+        val objects = listObjects(normalisedBaseUrl)
+        if (objects.isEmpty()) {
             throw IllegalStateException("No files found in S3 at: $normalisedBaseUrl")
         }
 
-        files.map { it.removePrefix("/") }.filter { it.isNotEmpty() }.forEach { fileName ->
-            val s3Url = normalisedBaseUrl.removeSuffix("/") + "/" + fileName
-            val localFile = File(destDir, fileName)
-
+        // create directories before downloading, so concurrent downloads do not race
+        val files = objects.mapNotNull { obj ->
+            val fileName = obj.key.substring(keyName.length).removePrefix("/")
+            if (fileName.isEmpty()) {
+                return@mapNotNull null
+            }
             // check if in subdir
             if (fileName.contains('/')) {
                 val subDirs = fileName.substring(0, fileName.lastIndexOf('/'))
@@ -149,17 +207,105 @@ class S3FileDownloader private constructor() {
                     throw RuntimeException("Error creating subdirectories: $subDirs", e)
                 }
             }
-
             // only fetch files
-            if (!fileName.endsWith("/")) {
+            obj.takeUnless { fileName.endsWith("/") }?.let { it to File(destDir, fileName) }
+        }
+
+        val locationCacheDir = cacheDir?.resolve("$bucketName/$keyName".replace(UNSAFE_CACHE_KEY_CHARS, "_"))
+            ?.also { Files.createDirectories(it) }
+
+        val threads = minOf(files.size, downloadThreads).coerceAtLeast(1)
+        val threadCount = AtomicInteger()
+        val executor = Executors.newFixedThreadPool(threads) { runnable ->
+            Thread(runnable, "imposter-s3-${threadCount.incrementAndGet()}").apply { isDaemon = true }
+        }
+        try {
+            val downloads = files.map { (obj, localFile) ->
+                executor.submit(Runnable {
+                    val s3Url = "$S3PROTO_PREFIX$bucketName/${obj.key}"
+                    try {
+                        downloadFile(locationCacheDir, obj, localFile)
+                        LOGGER.debug("Downloaded file: $s3Url [${obj.size} bytes] to: $localFile")
+                    } catch (e: Exception) {
+                        throw RuntimeException("Error downloading file: $s3Url to: $localFile", e)
+                    }
+                })
+            }
+            downloads.forEach { download ->
                 try {
-                    val content = readFileFromS3(s3Url)
-                    localFile.writeText(content)
-                    LOGGER.debug("Downloaded file: $s3Url [${content.length} bytes] to: $localFile")
-                } catch (e: Exception) {
-                    throw RuntimeException("Error downloading file: $s3Url to: $localFile", e)
+                    download.get()
+                } catch (e: ExecutionException) {
+                    throw e.cause ?: e
                 }
             }
+        } finally {
+            executor.shutdownNow()
+        }
+
+        locationCacheDir?.let { dir -> pruneCache(dir, files.mapNotNull { (obj, _) -> buildCacheFileName(obj) }.toSet()) }
+    }
+
+    private fun downloadFile(locationCacheDir: Path?, obj: S3ObjectSummary, localFile: File) {
+        val cacheFileName = buildCacheFileName(obj)
+        if (null == locationCacheDir || null == cacheFileName) {
+            streamToFile(obj, localFile.toPath())
+            return
+        }
+        val cachedFile = locationCacheDir.resolve(cacheFileName)
+        if (Files.exists(cachedFile)) {
+            LOGGER.trace("Using cached copy of S3 object: {} with ETag: {}", obj.key, obj.eTag)
+        } else {
+            streamToFile(obj, cachedFile)
+        }
+        try {
+            Files.copy(cachedFile, localFile.toPath(), StandardCopyOption.REPLACE_EXISTING)
+        } catch (e: NoSuchFileException) {
+            // pruned by another download of the same location
+            streamToFile(obj, localFile.toPath())
+        }
+    }
+
+    /**
+     * @return the name of the cache file for the object, or `null` if it has no ETag
+     */
+    private fun buildCacheFileName(obj: S3ObjectSummary): String? {
+        // ETags are quoted by some implementations
+        val eTag = obj.eTag?.trim('"')?.takeIf { it.isNotEmpty() } ?: return null
+        return "${eTag.replace(UNSAFE_CACHE_KEY_CHARS, "_")}-${obj.size}"
+    }
+
+    /**
+     * Deletes cached objects that are not in [cacheFileNames], such as objects
+     * deleted from, or replaced in, the S3 location.
+     */
+    private fun pruneCache(locationCacheDir: Path, cacheFileNames: Set<String>) {
+        try {
+            Files.newDirectoryStream(locationCacheDir).use { entries ->
+                entries.filter { Files.isRegularFile(it) }
+                    .filterNot { it.fileName.toString().let { name -> name in cacheFileNames || name.startsWith(TEMP_FILE_PREFIX) } }
+                    .forEach { stale ->
+                        LOGGER.trace("Removing stale cached S3 object: {}", stale)
+                        Files.deleteIfExists(stale)
+                    }
+            }
+        } catch (e: Exception) {
+            LOGGER.warn("Error removing stale objects from S3 cache: $locationCacheDir", e)
+        }
+    }
+
+    /**
+     * Streams the object to a temporary file alongside [dest], then moves it into place,
+     * so a partially written file is never observed at [dest].
+     */
+    private fun streamToFile(obj: S3ObjectSummary, dest: Path) {
+        val tempFile = Files.createTempFile(dest.parent, TEMP_FILE_PREFIX, ".tmp")
+        try {
+            s3client.getObject(obj.bucketName, obj.key).objectContent.use { s3is ->
+                Files.copy(s3is, tempFile, StandardCopyOption.REPLACE_EXISTING)
+            }
+            Files.move(tempFile, dest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+        } finally {
+            Files.deleteIfExists(tempFile)
         }
     }
 
@@ -188,9 +334,14 @@ class S3FileDownloader private constructor() {
 
     companion object {
         private const val S3PROTO_PREFIX = "s3://"
+        private const val DEFAULT_DOWNLOAD_THREADS = 8
         const val ENV_S3_API_ENDPOINT = "IMPOSTER_S3_API_ENDPOINT"
         const val SYS_PROP_S3_API_ENDPOINT = "imposter.s3.api.endpoint"
+        const val ENV_S3_CACHE_DIR = "IMPOSTER_S3_CACHE_DIR"
+        const val SYS_PROP_S3_CACHE_DIR = "imposter.s3.cache.dir"
         private val LOGGER = LogManager.getLogger(S3FileDownloader::class.java)
+        private val UNSAFE_CACHE_KEY_CHARS = Regex("[^A-Za-z0-9_-]")
+        private const val TEMP_FILE_PREFIX = ".download"
 
         private var instance: S3FileDownloader? = null
 
@@ -57,6 +57,8 @@ import org.junit.jupiter.api.Assertions
 import org.junit.jupiter.api.Assertions.assertFalse
 import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.BeforeEach
+import java.io.File
+import java.nio.file.Files
 
 /**
  * Verifies loading remote config.
@@ -113,6 +115,61 @@ class S3ConfigResolverTest {
         Assertions.assertEquals(localConfigDir.listFiles().size, 3, "files should be downloaded from S3")
     }
 
+    /**
+     * Should serve unchanged objects from the local cache on subsequent loads.
+     */
+    @Test
+    fun testLoadConfigFromCache() {
+        val cacheDir = Files.createTempDirectory("s3-cache").toFile()
+        try {
+            System.setProperty(S3FileDownloader.SYS_PROP_S3_CACHE_DIR, cacheDir.absolutePath)
+            S3FileDownloader.destroyInstance()
+
+            val firstConfigDir = s3ConfigResolver.resolve("s3://test")
+            val cachedFiles = listCachedFiles(cacheDir)
+            Assertions.assertEquals(3, cachedFiles.size, "objects should be cached")
+
+            // alter the cached copies, to show they are used instead of downloading again
+            cachedFiles.forEach { it.writeText("cached") }
+
+            val secondConfigDir = s3ConfigResolver.resolve("s3://test")
+            Assertions.assertEquals(firstConfigDir.listFiles()!!.size, secondConfigDir.listFiles()!!.size)
+            Assertions.assertEquals("cached", File(secondConfigDir, "imposter-config.yaml").readText())
+            Assertions.assertEquals("cached", File(secondConfigDir, "subdir/response.json").readText())
+
+        } finally {
+            System.clearProperty(S3FileDownloader.SYS_PROP_S3_CACHE_DIR)
+            cacheDir.deleteRecursively()
+        }
+    }
+
+    /**
+     * Should remove cached objects that are no longer in the bucket.
+     */
+    @Test
+    fun testPruneCache() {
+        val cacheDir = Files.createTempDirectory("s3-cache").toFile()
+        try {
+            System.setProperty(S3FileDownloader.SYS_PROP_S3_CACHE_DIR, cacheDir.absolutePath)
+            S3FileDownloader.destroyInstance()
+
+            s3ConfigResolver.resolve("s3://test")
+            Assertions.assertEquals(3, listCachedFiles(cacheDir).size, "objects should be cached")
+
+            TestSupport.deleteFileFromS3(s3Mock!!, "pet-api.yaml")
+            val configDir = s3ConfigResolver.resolve("s3://test")
+
+            Assertions.assertFalse(File(configDir, "pet-api.yaml").exists())
+            Assertions.assertEquals(2, listCachedFiles(cacheDir).size, "deleted object should be removed from cache")
+
+        } finally {
+            System.clearProperty(S3FileDownloader.SYS_PROP_S3_CACHE_DIR)
+            cacheDir.deleteRecursively()
+        }
+    }
+
+    private fun listCachedFiles(cacheDir: File) = cacheDir.walkTopDown().filter { it.isFile }.toList()
+
     companion object {
         private var vertx: Vertx? = null
 
@@ -18,10 +18,7 @@ object TestSupport {
     }
 
     fun uploadFileToS3(s3Mock: S3MockContainer, baseDir: String, filePath: String) {
-        val s3 = AmazonS3ClientBuilder.standard()
-            .enablePathStyleAccess()
-            .withEndpointConfiguration(AwsClientBuilder.EndpointConfiguration(s3Mock.httpEndpoint, "us-east-1"))
-            .build()
+        val s3 = buildS3Client(s3Mock)
 
         if (filePath.endsWith("/")){
             s3.putObject("test", filePath, "")
@@ -31,6 +28,15 @@ object TestSupport {
         }
     }
 
+    fun deleteFileFromS3(s3Mock: S3MockContainer, filePath: String) {
+        buildS3Client(s3Mock).deleteObject("test", filePath)
+    }
+
+    private fun buildS3Client(s3Mock: S3MockContainer) = AmazonS3ClientBuilder.standard()
+        .enablePathStyleAccess()
+        .withEndpointConfiguration(AwsClientBuilder.EndpointConfiguration(s3Mock.httpEndpoint, "us-east-1"))
+        .build()
+
     /**
      * Block the consumer until the handler is called.
      *
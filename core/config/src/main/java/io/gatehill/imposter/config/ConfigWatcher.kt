@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.config
+
+import org.apache.logging.log4j.LogManager
+import java.io.File
+
+/**
+ * Detects changes to the files within the configuration directories, by
+ * comparing their modification time and size between scans.
+ *
+ * Polling is used, rather than a native file watch service, so changes are
+ * detected consistently across platforms and on mounted volumes.
+ *
+ * @author Pete Cornish
+ */
+class ConfigWatcher(private val configDirs: List<File>) {
+    private val logger = LogManager.getLogger(ConfigWatcher::class.java)
+    private var fileStates: Map<File, FileState> = listFileStates()
+
+    /**
+     * Scans the configuration directories.
+     *
+     * @return the files that have been added, modified or removed since the previous scan
+     */
+    fun scan(): Set<File> {
+        val current = listFileStates()
+        val changed = (current.keys + fileStates.keys).filterTo(mutableSetOf()) { current[it] != fileStates[it] }
+        fileStates = current
+        if (changed.isNotEmpty()) {
+            logger.trace("Detected {} changed file(s) in configuration directories: {}", changed.size, changed)
+        }
+        return changed
+    }
+
+    private fun listFileStates(): Map<File, FileState> {
+        return configDirs.flatMap { configDir ->
+            configDir.walkTopDown().filter { it.isFile }.map { file ->
+                file.absoluteFile.normalize() to FileState(file.lastModified(), file.length())
+            }.toList()
+        }.toMap()
+    }
+
+    private data class FileState(
+        val lastModified: Long,
+        val size: Long,
+    )
+}
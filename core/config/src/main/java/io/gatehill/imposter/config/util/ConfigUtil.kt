@@ -65,6 +65,9 @@ import io.gatehill.imposter.util.splitOnCommaAndTrim
 import org.apache.logging.log4j.LogManager
 import java.io.File
 import java.io.IOException
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
 
 /**
  * Utility methods for reading configuration.
@@ -86,6 +89,9 @@ object ConfigUtil {
     private val scanRecursiveConfig
         get() = EnvVars.getEnv("IMPOSTER_CONFIG_SCAN_RECURSIVE")?.toBoolean() == true
 
+    private val configParseThreads: Int
+        get() = EnvVars.getEnv("IMPOSTER_CONFIG_PARSE_THREADS")?.toInt() ?: Runtime.getRuntime().availableProcessors()
+
     private val autoBasePath
         get() = EnvVars.getEnv("IMPOSTER_AUTO_BASE_PATH")?.toBoolean() == true
 
@@ -182,20 +188,32 @@ object ConfigUtil {
     private fun parseExclusionsFile(rawEntries: List<String>) =
         rawEntries.filter { it.isNotBlank() && !it.startsWith("#") }
 
-    fun readPluginConfigs(pluginManager: PluginManager, configFiles: List<ConfigReference>): Map<String, List<LoadedConfig>> {
-        var configCount = 0
+    /**
+     * Reads the configuration files and groups them by plugin class.
+     *
+     * @param previousConfig returns the previously read configuration for a file, if it can be reused
+     */
+    fun readPluginConfigs(
+        pluginManager: PluginManager,
+        configFiles: List<ConfigReference>,
+        previousConfig: (ConfigReference) -> LoadedConfig? = { null },
+    ): Map<String, List<LoadedConfig>> {
+        // read, interpolate and parse config files concurrently
+        val results = mapConcurrently(configFiles) { configFile ->
+            previousConfig(configFile) ?: run {
+                LOGGER.debug("Loading configuration file: {}", configFile.file)
+                readPluginConfig(configFile)
+            }
+        }
 
-        // read all config files
+        // assign to plugins in discovery order, so the outcome does not depend on parsing order
         val allPluginConfigs = mutableMapOf<String, MutableList<LoadedConfig>>()
         var errorCount = 0
 
-        for (configFile in configFiles) {
+        configFiles.zip(results).forEach { (configFile, result) ->
             try {
-                LOGGER.debug("Loading configuration file: {}", configFile.file)
-                configCount++
-
                 // load to determine plugin
-                val config = readPluginConfig(configFile)
+                val config = result.getOrThrow()
 
                 val pluginClass = pluginManager.determinePluginClass(config.plugin)
                 val pluginConfigs = allPluginConfigs.getOrPut(pluginClass) { mutableListOf() }
@@ -213,13 +231,38 @@ object ConfigUtil {
         }
         LOGGER.trace(
             "Loaded {} plugin configuration file(s) with {} error(s): {}",
-            configCount,
+            configFiles.size,
             errorCount,
             configFiles
         )
         return allPluginConfigs
     }
 
+    /**
+     * Applies [block] to each item on a bounded pool of threads, sized by the
+     * `IMPOSTER_CONFIG_PARSE_THREADS` environment variable, defaulting to the
+     * number of available processors.
+     *
+     * Failures are captured rather than thrown, so the caller can handle them in
+     * a deterministic order. The results are in the same order as [items].
+     */
+    fun <T, R> mapConcurrently(items: List<T>, block: (T) -> R): List<Result<R>> {
+        val threads = minOf(items.size, configParseThreads)
+        if (threads <= 1) {
+            return items.map { runCatching { block(it) } }
+        }
+        val threadCount = AtomicInteger()
+        val executor = Executors.newFixedThreadPool(threads) { runnable ->
+            Thread(runnable, "imposter-config-${threadCount.incrementAndGet()}").apply { isDaemon = true }
+        }
+        try {
+            val futures = items.map { item -> executor.submit(Callable { runCatching { block(item) } }) }
+            return futures.map { it.get() }
+        } finally {
+            executor.shutdown()
+        }
+    }
+
     fun listConfigFiles(configRoot: File, scanRecursive: Boolean, exclusions: List<String>): List<ConfigReference> {
         return listConfigFiles(configRoot, configRoot, scanRecursive, exclusions)
     }
@@ -294,50 +337,69 @@ object ConfigUtil {
         val configFile = loadedConfig.ref.file
         try {
             val config = lookupMapper(configFile).readValue(loadedConfig.serialised, configClass)!!
-            check(config.plugin != null) { "No plugin specified in configuration file: $configFile" }
-            config.dir = configFile.parentFile
+            return preparePluginConfig(imposterConfig, loadedConfig.ref, config)
 
-            // normalise path param format
-            if (config is ResourcesHolder<*>) {
-                config.resources?.forEach { resource ->
-                    resource.path = ResourceUtil.convertPathParamsToBracketFormat(resource.path)
-                }
-            }
+        } catch (e: JsonMappingException) {
+            throw RuntimeException("Error loading configuration file: " + configFile.absolutePath + ", reason: ${e.message}")
+        } catch (e: IOException) {
+            throw RuntimeException("Error loading configuration file: " + configFile.absolutePath, e)
+        }
+    }
 
-            if (config is BasePathHolder) {
-                val basePath = if (autoBasePath) {
-                    // Use the relative path from the config root to the config file's directory.
-                    // Normalise the path separators to forward slashes.
-                    configFile.canonicalPath.substring(loadedConfig.ref.configRoot.canonicalPath.length)
-                        .substringBeforeLast(File.separator)
-                        .replace('\\', '/')
-                } else {
-                    config.basePath
-                }
-                basePath?.let { applyBasePath<T>(basePath, configFile, config) }
-            }
+    /**
+     * Applies the standard post-processing to a configuration object, such as
+     * normalising paths and applying the base path. This is used for configuration
+     * read from a file, as well as configuration built in memory by a plugin.
+     *
+     * @param imposterConfig             the imposter configuration
+     * @param configRef              the reference to the file the configuration belongs to
+     * @param config                 the configuration
+     * @return the configuration
+     */
+    fun <T : BasicPluginConfig> preparePluginConfig(
+        imposterConfig: ImposterConfig,
+        configRef: ConfigReference,
+        config: T,
+    ): T {
+        val configFile = configRef.file
+        check(config.plugin != null) { "No plugin specified in configuration file: $configFile" }
+        config.dir = configFile.parentFile
 
-            if (imposterConfig.useEmbeddedScriptEngine) {
-                config.responseConfig.scriptFile = "embedded"
+        // normalise path param format
+        if (config is ResourcesHolder<*>) {
+            config.resources?.forEach { resource ->
+                resource.path = ResourceUtil.convertPathParamsToBracketFormat(resource.path)
             }
+        }
 
-            // mark interceptors
-            if (config is InterceptorsHolder<*>) {
-                config.interceptors?.forEach {
-                    it.isInterceptor = true
-                    if (it is SecurityConfigHolder && null != it.securityConfig) {
-                        throw IllegalStateException("Interceptors cannot specify security conditions")
-                    }
-                }
+        if (config is BasePathHolder) {
+            val basePath = if (autoBasePath) {
+                // Use the relative path from the config root to the config file's directory.
+                // Normalise the path separators to forward slashes.
+                configFile.canonicalPath.substring(configRef.configRoot.canonicalPath.length)
+                    .substringBeforeLast(File.separator)
+                    .replace('\\', '/')
+            } else {
+                config.basePath
             }
+            basePath?.let { applyBasePath<T>(basePath, configFile, config) }
+        }
 
-            return config
+        if (imposterConfig.useEmbeddedScriptEngine) {
+            config.responseConfig.scriptFile = "embedded"
+        }
 
-        } catch (e: JsonMappingException) {
-            throw RuntimeException("Error loading configuration file: " + configFile.absolutePath + ", reason: ${e.message}")
-        } catch (e: IOException) {
-            throw RuntimeException("Error loading configuration file: " + configFile.absolutePath, e)
+        // mark interceptors
+        if (config is InterceptorsHolder<*>) {
+            config.interceptors?.forEach {
+                it.isInterceptor = true
+                if (it is SecurityConfigHolder && null != it.securityConfig) {
+                    throw IllegalStateException("Interceptors cannot specify security conditions")
+                }
+            }
         }
+
+        return config
     }
 
     /**
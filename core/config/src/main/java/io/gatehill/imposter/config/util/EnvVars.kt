@@ -54,6 +54,12 @@ import kotlin.io.path.inputStream
  * @author Pete Cornish
  */
 class EnvVars(private val env: Map<String, String>) {
+    /**
+     * Read-only view of the environment, created once per instance, so it can
+     * be shared across script executions without copying.
+     */
+    private val readOnlyEnv: Map<String, String> = Collections.unmodifiableMap(env)
+
     companion object {
         /**
          * Precedes parsing, so uses system environment.
@@ -102,6 +108,14 @@ class EnvVars(private val env: Map<String, String>) {
             return INSTANCE.env
         }
 
+        /**
+         * @return a shared, read-only view of the environment, suitable for exposing to scripts
+         */
+        @JvmStatic
+        fun getReadOnlyEnv(): Map<String, String> {
+            return INSTANCE.readOnlyEnv
+        }
+
         @JvmStatic
         fun getEnv(key: String): String? {
             return INSTANCE.env[key]
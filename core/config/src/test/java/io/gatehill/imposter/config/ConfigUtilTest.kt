@@ -252,6 +252,24 @@ class ConfigUtilTest {
         assertEquals(0, configDirs.size)
     }
 
+    @Test
+    fun testMapConcurrentlyPreservesOrderAndCapturesFailures() {
+        val items = (1..50).toList()
+        val results = ConfigUtil.mapConcurrently(items) { item ->
+            if (item % 10 == 0) throw IllegalStateException("failed $item")
+            item * 2
+        }
+
+        assertEquals(items.size, results.size)
+        items.zip(results).forEach { (item, result) ->
+            if (item % 10 == 0) {
+                assertEquals("failed $item", result.exceptionOrNull()?.message)
+            } else {
+                assertEquals(item * 2, result.getOrThrow())
+            }
+        }
+    }
+
     private fun buildLoadedConfig(configRef: ConfigReference, configFile: File) =
         LoadedConfig(configRef, configFile.readText(), "io.gatehill.imposter.core.test.ExamplePluginImpl")
 }
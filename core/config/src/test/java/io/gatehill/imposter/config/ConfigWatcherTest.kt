@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.config
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+import java.nio.file.Path
+
+/**
+ * Tests for [ConfigWatcher].
+ */
+class ConfigWatcherTest {
+    @TempDir
+    lateinit var tempDir: Path
+
+    @Test
+    fun testDetectChangedFiles() {
+        val configDir = tempDir.toFile()
+        val configFile = File(configDir, "test-config.yaml").apply { writeText("plugin: rest") }
+        val responseFile = File(configDir, "response.json").apply { writeText("{}") }
+        val removedFile = File(configDir, "removed.json").apply { writeText("{}") }
+
+        val watcher = ConfigWatcher(listOf(configDir))
+        assertThat(watcher.scan(), Matchers.empty())
+
+        responseFile.writeText("""{ "changed": true }""")
+        removedFile.delete()
+        val addedFile = File(configDir, "nested/added.json").apply {
+            parentFile.mkdirs()
+            writeText("{}")
+        }
+
+        val changed = watcher.scan()
+        assertThat(
+            changed,
+            Matchers.containsInAnyOrder(
+                responseFile.absoluteFile.normalize(),
+                removedFile.absoluteFile.normalize(),
+                addedFile.absoluteFile.normalize(),
+            )
+        )
+        assertThat(changed, Matchers.not(Matchers.hasItem(configFile.absoluteFile.normalize())))
+
+        // changes are only reported once
+        assertThat(watcher.scan(), Matchers.empty())
+    }
+}
@@ -48,6 +48,7 @@ import org.hamcrest.MatcherAssert.assertThat
 import org.hamcrest.Matchers
 import org.hamcrest.collection.IsMapContaining
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
 import java.nio.file.Paths
 
 /**
@@ -70,6 +71,20 @@ class EnvVarsTest {
         assertThat(entries, IsMapContaining.hasEntry("foo", "bar"))
     }
 
+    @Test
+    fun testGetReadOnlyEnvIsShared() {
+        EnvVars.populate("foo" to "bar")
+
+        val entries = EnvVars.getReadOnlyEnv()
+        assertThat(entries, IsMapContaining.hasEntry("foo", "bar"))
+        assertThat(EnvVars.getReadOnlyEnv(), CoreMatchers.sameInstance(entries))
+
+        @Suppress("UNCHECKED_CAST")
+        assertThrows<UnsupportedOperationException> {
+            (entries as MutableMap<String, String>)["baz"] = "qux"
+        }
+    }
+
     @Test
     fun testLoadFromDotenv() {
         val envFileDir = Paths.get(EnvVarsTest::class.java.getResource("/.env").toURI())
@@ -42,12 +42,15 @@
  */
 package io.gatehill.imposter
 
+import com.google.inject.Injector
 import com.google.inject.Module
+import io.gatehill.imposter.config.ConfigWatcher
 import io.gatehill.imposter.config.LoadedConfig
 import io.gatehill.imposter.config.util.ConfigUtil
 import io.gatehill.imposter.config.util.EnvVars
 import io.gatehill.imposter.config.util.MetaUtil
 import io.gatehill.imposter.http.HttpRouter
+import io.gatehill.imposter.http.RequestBodyPolicy
 import io.gatehill.imposter.http.SingletonResourceMatcher
 import io.gatehill.imposter.inject.BootstrapModule
 import io.gatehill.imposter.inject.EngineModule
@@ -63,22 +66,30 @@ import io.gatehill.imposter.plugin.config.PluginConfig
 import io.gatehill.imposter.server.HttpServer
 import io.gatehill.imposter.server.ServerFactory
 import io.gatehill.imposter.service.HandlerService
+import io.gatehill.imposter.service.ResponseFileService
 import io.gatehill.imposter.service.security.CorsService
 import io.gatehill.imposter.util.AsyncUtil
 import io.gatehill.imposter.util.HttpUtil
 import io.gatehill.imposter.util.InjectorUtil
 import io.gatehill.imposter.util.MetricsUtil
 import io.gatehill.imposter.util.ResourceUtil
+import io.gatehill.imposter.util.StartupSnapshotUtil
 import io.gatehill.imposter.util.splitOnCommaAndTrim
 import io.gatehill.imposter.util.supervisedDefaultCoroutineScope
+import io.micrometer.core.instrument.Timer
 import io.vertx.core.Promise
 import io.vertx.core.Vertx
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.future.await
 import kotlinx.coroutines.future.future
+import kotlinx.coroutines.launch
 import org.apache.logging.log4j.LogManager
+import java.io.File
+import java.nio.file.Path
 import java.nio.file.Paths
 import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
 import javax.inject.Inject
 import kotlin.io.path.exists
 
@@ -104,8 +115,24 @@ class Imposter(
     @Inject
     private lateinit var corsService: CorsService
 
+    @Inject
+    private lateinit var responseFileService: ResponseFileService
+
     private var httpServer: HttpServer? = null
 
+    /**
+     * The configuration files in use, grouped by plugin class.
+     */
+    private var pluginConfigs: Map<String, List<LoadedConfig>> = emptyMap()
+
+    private val reloading = AtomicBoolean(false)
+    private var reloadTimer: Timer? = null
+
+    /**
+     * The envfiles applied to the environment before reading configuration.
+     */
+    private var envFiles: List<Path> = emptyList()
+
     private val preferExactMatchRoutes: Boolean
         get() = EnvVars.getEnv("IMPOSTER_PREFER_EXACT_MATCH_ROUTES")?.toBoolean() != false
 
@@ -113,41 +140,99 @@ class Imposter(
         try {
             LOGGER.info("Starting mock engine ${MetaUtil.readVersion()}")
 
-            val plugins = defaultPlugins.toMutableList()
-            imposterConfig.plugins?.let(plugins::addAll)
-
-            val pluginConfigs = processConfiguration()
-            val dependencies = pluginManager.preparePluginsFromConfig(imposterConfig, plugins, pluginConfigs)
-
-            val allModules = mutableListOf<Module>().apply {
-                add(BootstrapModule(vertx, imposterConfig, engineLifecycle, pluginDiscoveryStrategy, pluginManager))
-                add(EngineModule())
-                addAll(dependencies.flatMap { it.requiredModules })
-                addAll(additionalModules)
-            }
-
-            val injector = InjectorUtil.create(*allModules.toTypedArray())
-            injector.injectMembers(this@Imposter)
-
-            pluginManager.startPlugins(injector, pluginConfigs)
-            registerLifecycleListeners(pluginManager.getPlugins())
+            pluginConfigs = restoreSnapshot() ?: processConfiguration()
+            val injector = startPlugins(pluginConfigs)
 
             val router = configureRoutes()
             httpServer = serverFactory.provide(injector, imposterConfig, vertx, router).await()
 
             LOGGER.info("Mock engine up and running on {}", imposterConfig.serverUrl)
 
+            if (EnvVars.getEnv("IMPOSTER_CONFIG_WATCH")?.toBoolean() == true) {
+                watchConfiguration()
+            }
+
         } catch (e: Exception) {
             engineLifecycle.forEach { listener -> listener.onStartupError(e) }
             throw e
         }
     }
 
+    /**
+     * Discovers and parses configuration, starts plugins and configures routes,
+     * then writes a startup snapshot of the result to [snapshotPath], without
+     * starting the server.
+     *
+     * @see StartupSnapshotUtil
+     */
+    fun prepareSnapshot(snapshotPath: Path): CompletableFuture<Unit> = future {
+        LOGGER.info("Preparing startup snapshot for mock engine ${MetaUtil.readVersion()}")
+        StartupSnapshotUtil.startRecording()
+
+        val pluginConfigs = processConfiguration()
+        startPlugins(pluginConfigs)
+        configureRoutes()
+
+        StartupSnapshotUtil.write(
+            path = snapshotPath,
+            imposterConfig = imposterConfig,
+            pluginConfigs = pluginConfigs,
+            pluginNames = pluginDiscoveryStrategy.exportPluginNames(),
+            envFiles = envFiles,
+        )
+    }
+
+    private fun startPlugins(pluginConfigs: Map<String, List<LoadedConfig>>): Injector {
+        val plugins = defaultPlugins.toMutableList()
+        imposterConfig.plugins?.let(plugins::addAll)
+
+        val dependencies = pluginManager.preparePluginsFromConfig(imposterConfig, plugins, pluginConfigs)
+
+        val allModules = mutableListOf<Module>().apply {
+            add(BootstrapModule(vertx, imposterConfig, engineLifecycle, pluginDiscoveryStrategy, pluginManager))
+            add(EngineModule())
+            addAll(dependencies.flatMap { it.requiredModules })
+            addAll(additionalModules)
+        }
+
+        val injector = InjectorUtil.create(*allModules.toTypedArray())
+        injector.injectMembers(this@Imposter)
+
+        pluginManager.startPlugins(injector, pluginConfigs)
+        registerLifecycleListeners(pluginManager.getPlugins())
+        return injector
+    }
+
+    /**
+     * Restores the configuration from the startup snapshot, if one is configured
+     * and its inputs are unchanged.
+     *
+     * @return the plugin configurations, or `null` if the snapshot cannot be used
+     */
+    private fun restoreSnapshot(): Map<String, List<LoadedConfig>>? {
+        val snapshot = StartupSnapshotUtil.load(imposterConfig) ?: return null
+
+        envFiles = snapshot.envFiles.map { Paths.get(it) }
+        if (envFiles.isNotEmpty()) {
+            EnvVars.reset(envFiles)
+        }
+        finaliseEngineConfig()
+
+        if (!StartupSnapshotUtil.isEnvCurrent(imposterConfig, snapshot)) {
+            return null
+        }
+        pluginDiscoveryStrategy.importPluginNames(snapshot.pluginNames)
+        StartupSnapshotUtil.activate(snapshot)
+
+        LOGGER.debug("Using startup snapshot with {} configuration file(s)", snapshot.configs.size)
+        return StartupSnapshotUtil.restoreConfigs(snapshot)
+    }
+
     private fun processConfiguration(): Map<String, List<LoadedConfig>> {
         val configFiles = ConfigUtil.discoverConfigFiles(imposterConfig.configDirs)
 
         if (EnvVars.discoverEnvFiles) {
-            val envFiles = configFiles.map { Paths.get(it.file.parent, ".env") }.filter { it.exists() }
+            envFiles = configFiles.map { Paths.get(it.file.parent, ".env") }.filter { it.exists() }
             if (envFiles.isNotEmpty()) {
                 EnvVars.reset(envFiles)
             }
@@ -170,18 +255,126 @@ class Imposter(
         EnvVars.getEnv("IMPOSTER_EMBEDDED_SCRIPT_ENGINE")?.let {
             imposterConfig.useEmbeddedScriptEngine = it.toBoolean()
         }
+        RequestBodyPolicy.validateEnv()
         if (LOGGER.isTraceEnabled) {
             LOGGER.trace("Engine config: $imposterConfig")
         }
     }
 
+    /**
+     * Periodically scans the configuration directories, reloading the plugins
+     * affected by any changed files.
+     */
+    private fun watchConfiguration() {
+        val configRoots = pluginConfigs.values.flatten().map { it.ref.configRoot.absoluteFile.normalize() }.distinct()
+        val watcher = ConfigWatcher(configRoots)
+        val interval = EnvVars.getEnv("IMPOSTER_CONFIG_WATCH_INTERVAL")?.toLong() ?: DEFAULT_CONFIG_WATCH_INTERVAL_MS
+
+        MetricsUtil.doIfMetricsEnabled(METRIC_CONFIG_RELOAD_DURATION) { registry ->
+            reloadTimer = Timer
+                .builder(METRIC_CONFIG_RELOAD_DURATION)
+                .description("Configuration reload duration in seconds")
+                .register(registry)
+        }
+
+        LOGGER.info("Watching configuration directories for changes: {}", configRoots)
+        vertx.setPeriodic(interval) {
+            // skip this scan if the previous reload is still in progress
+            if (reloading.compareAndSet(false, true)) {
+                launch {
+                    try {
+                        watcher.scan().takeIf { it.isNotEmpty() }?.let(::reloadConfiguration)
+                    } catch (e: Exception) {
+                        LOGGER.error("Error reloading configuration", e)
+                    } finally {
+                        reloading.set(false)
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reloads the configuration of the plugins affected by [changedFiles], then
+     * atomically replaces the router. Requests in progress complete using the
+     * previous router. If the reload fails, the previous configuration remains active.
+     *
+     * A plugin is affected if one of its configuration files changed, or if any file
+     * within the directory of one of its configuration files changed.
+     *
+     * The new configuration of every affected plugin is parsed before any plugin
+     * is changed. If the router cannot then be built, the previous configuration
+     * objects are restored, so they are not parsed again.
+     */
+    private fun reloadConfiguration(changedFiles: Set<File>) {
+        val startTime = System.nanoTime()
+        val previousConfigs = pluginConfigs
+        val previousByFile = previousConfigs.values.flatten().associateBy { it.ref.file.absoluteFile.normalize() }
+
+        // only changed or new configuration files are read again
+        val configFiles = ConfigUtil.discoverConfigFiles(imposterConfig.configDirs)
+        val currentConfigs = ConfigUtil.readPluginConfigs(pluginManager, configFiles) { ref ->
+            ref.file.absoluteFile.normalize().takeUnless { it in changedFiles }?.let { previousByFile[it] }
+        }
+
+        val affected = (currentConfigs.keys + previousConfigs.keys).filter { pluginClass ->
+            val current = currentConfigs[pluginClass].orEmpty()
+            current != previousConfigs[pluginClass].orEmpty() || current.any { config ->
+                val configDir = config.ref.file.absoluteFile.normalize().parentFile
+                changedFiles.any { it.startsWith(configDir) }
+            }
+        }
+        if (affected.isEmpty()) {
+            LOGGER.debug("No plugins affected by changed files: {}", changedFiles)
+            responseFileService.invalidateCache(changedFiles)
+            return
+        }
+
+        val plugins = affected.mapNotNull { pluginClass ->
+            @Suppress("UNCHECKED_CAST")
+            when (val plugin = pluginManager.getPlugin<Plugin>(pluginClass)) {
+                is ConfigurablePlugin<*> -> pluginClass to plugin as ConfigurablePlugin<PluginConfig>
+                else -> {
+                    LOGGER.warn("Plugin {} is not running - restart the engine to apply its configuration", pluginClass)
+                    null
+                }
+            }
+        }.toMap()
+
+        val previousPluginConfigs = plugins.mapValues { (_, plugin) -> plugin.configs }
+        try {
+            val parsedConfigs = plugins.mapValues { (pluginClass, plugin) ->
+                plugin.parseConfiguration(currentConfigs[pluginClass].orEmpty())
+            }
+            parsedConfigs.forEach { (pluginClass, configs) -> plugins.getValue(pluginClass).applyConfiguration(configs) }
+            val router = configureRoutes(reloadedConfigs = parsedConfigs.values.flatten())
+            responseFileService.invalidateCache(changedFiles)
+            httpServer?.updateRouter(router)
+
+        } catch (e: Exception) {
+            LOGGER.error("Failed to reload configuration - continuing with previous configuration", e)
+            previousPluginConfigs.forEach { (pluginClass, configs) -> plugins.getValue(pluginClass).applyConfiguration(configs) }
+            return
+        }
+
+        pluginConfigs = previousConfigs.filterKeys { it !in plugins.keys } +
+            currentConfigs.filterKeys { it in plugins.keys }
+
+        val elapsed = System.nanoTime() - startTime
+        reloadTimer?.record(elapsed, TimeUnit.NANOSECONDS)
+        LOGGER.info("Reloaded configuration for {} plugin(s) in {}ms", plugins.size, TimeUnit.NANOSECONDS.toMillis(elapsed))
+    }
+
     private fun registerLifecycleListeners(plugins: Collection<Plugin>) {
         plugins.filterIsInstance<EngineLifecycleListener>().forEach {
             engineLifecycle.registerListener(it)
         }
     }
 
-    private fun configureRoutes(): HttpRouter {
+    /**
+     * @param reloadedConfigs the plugin configurations that have been reloaded, or `null` at startup
+     */
+    private fun configureRoutes(reloadedConfigs: List<PluginConfig>? = null): HttpRouter {
         val router = HttpRouter.router(vertx)
         val resourceMatcher = SingletonResourceMatcher.instance
 
@@ -203,7 +396,7 @@ class Imposter(
                     imposterConfig,
                     allConfigs,
                     resourceMatcher,
-                    serverFactory.createMetricsHandler()
+                    httpExchangeHandler = serverFactory.createMetricsHandler()
                 )
             )
         }
@@ -218,22 +411,38 @@ class Imposter(
 
         handlerService.handleStaticContent(serverFactory, allConfigs, router)
 
-        plugins.filterIsInstance<RoutablePlugin>().forEach { it.configureRoutes(router) }
+        val routablePlugins = plugins.filterIsInstance<RoutablePlugin>()
+        if (imposterConfig.deferPluginRoutes) {
+            // the server adds the routes of the plugins that could match each request
+            routablePlugins.forEach { plugin ->
+                router.deferRoutes(plugin.routePathPrefixes) {
+                    LOGGER.debug("Configuring deferred routes for plugin: {}", plugin::class.java.simpleName)
+                    plugin.configureRoutes(router)
+                    orderRoutes(router)
+                }
+            }
+        } else {
+            routablePlugins.forEach { it.configureRoutes(router) }
+        }
 
         // configure CORS after all routes have been added
         corsService.configure(imposterConfig, allConfigs, router, resourceMatcher)
 
         // fire post route config hooks
         engineLifecycle.forEach { listener: EngineLifecycleListener ->
-            listener.afterRoutesConfigured(imposterConfig, allConfigs, router)
+            reloadedConfigs?.let { listener.afterRoutesReloaded(imposterConfig, allConfigs, reloadedConfigs, router) }
+                ?: listener.afterRoutesConfigured(imposterConfig, allConfigs, router)
         }
 
+        orderRoutes(router)
+        return router
+    }
+
+    private fun orderRoutes(router: HttpRouter) {
         if (preferExactMatchRoutes) {
             LOGGER.trace("Ordering routes by exact matches first")
             router.routes.sortWith { r1, r2 -> ResourceUtil.countPlaceholders(r1) - ResourceUtil.countPlaceholders(r2) }
         }
-
-        return router
     }
 
     fun stop(promise: Promise<Void>) {
@@ -244,5 +453,7 @@ class Imposter(
     companion object {
         private val LOGGER = LogManager.getLogger(Imposter::class.java)
         private val defaultPlugins = listOf("js-detector", "store-detector")
+        private const val DEFAULT_CONFIG_WATCH_INTERVAL_MS = 1000L
+        private const val METRIC_CONFIG_RELOAD_DURATION = "config.reload.duration"
     }
 }
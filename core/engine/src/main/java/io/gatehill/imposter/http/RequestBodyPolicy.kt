@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.http
+
+import io.gatehill.imposter.config.ResolvedResourceConfig
+import io.gatehill.imposter.config.util.EnvVars
+import io.gatehill.imposter.plugin.config.PluginConfig
+import io.gatehill.imposter.plugin.config.capture.CaptureConfig
+import io.gatehill.imposter.plugin.config.capture.CaptureConfigHolder
+import io.gatehill.imposter.plugin.config.resource.BasicResourceConfig
+import io.gatehill.imposter.plugin.config.resource.EvalResourceConfig
+import io.gatehill.imposter.plugin.config.resource.PassthroughResourceConfig
+import io.gatehill.imposter.plugin.config.resource.RequestBodyHandlingHolder
+import io.gatehill.imposter.plugin.config.resource.expression.ExpressionMatchersConfigHolder
+import io.gatehill.imposter.plugin.config.resource.request.FormParamsResourceConfig
+import io.gatehill.imposter.plugin.config.resource.request.RequestBodyResourceConfig
+import io.gatehill.imposter.plugin.config.security.SecurityConfigHolder
+import io.gatehill.imposter.plugin.config.steps.StepsConfigHolder
+import io.gatehill.imposter.util.LogUtil
+
+/**
+ * Determines when the request body is read for the routes of a plugin
+ * configuration, so that it is only buffered if the handler or the
+ * matched resource needs it.
+ *
+ * @author Pete Cornish
+ */
+class RequestBodyPolicy private constructor(
+    private val maxBodySize: Long,
+
+    /**
+     * Whether the body must be read before resource matching, because the
+     * handler, or any resource matcher, uses it.
+     */
+    val readBeforeMatching: Boolean,
+
+    private val resourcesRequiringBody: Set<String>,
+
+    /**
+     * Whether a body that is not required is discarded. If `false`, the
+     * handler is responsible for reading the body.
+     */
+    val discardUnread: Boolean = true,
+) {
+    /**
+     * @return the maximum body size for the resource, or `-1` for no limit
+     */
+    fun getMaxBodySize(resource: BasicResourceConfig?): Long =
+        (resource as? RequestBodyHandlingHolder)?.maxRequestBodySize ?: maxBodySize
+
+    /**
+     * @return whether the body must be read to handle a request matching the resources
+     */
+    fun isBodyRequired(resources: Collection<BasicResourceConfig>): Boolean =
+        readBeforeMatching || resources.any { it.resourceId in resourcesRequiringBody }
+
+    companion object {
+        /**
+         * Always reads the body, up to the default size limit. Used for routes that
+         * are not specific to a plugin configuration, such as system endpoints.
+         */
+        fun always() = RequestBodyPolicy(defaultMaxBodySize, true, emptySet())
+
+        /**
+         * Leaves the body unread, so the handler can stream it with [HttpExchange.streamBody].
+         */
+        fun streamed() = RequestBodyPolicy(defaultMaxBodySize, false, emptySet(), discardUnread = false)
+
+        private const val ENV_MAX_REQUEST_BODY_SIZE = "IMPOSTER_MAX_REQUEST_BODY_SIZE"
+
+        /**
+         * @throws IllegalStateException if the environment variable is not an integer of at least `-1`
+         */
+        val defaultMaxBodySize: Long
+            get() = readMaxBodySize()
+
+        /**
+         * Checks the environment, so an invalid default body size fails startup,
+         * rather than each request whose body is read.
+         *
+         * @throws IllegalStateException if the default body size is invalid
+         */
+        fun validateEnv() {
+            readMaxBodySize()
+        }
+
+        private fun readMaxBodySize(): Long = EnvVars.getEnv(ENV_MAX_REQUEST_BODY_SIZE)?.let { value ->
+            value.trim().toLongOrNull()?.takeIf { it >= -1 } ?: throw IllegalStateException(
+                "$ENV_MAX_REQUEST_BODY_SIZE must be an integer of at least -1, but was: $value"
+            )
+        } ?: -1
+
+        /**
+         * Substrings of an expression that refer to the request body.
+         */
+        private val bodyExpressions = listOf("request.body", "request.formParams")
+
+        /**
+         * @param handlerRequiresBody whether the route handler itself reads the body
+         */
+        fun build(
+            pluginConfig: PluginConfig,
+            resourceConfigs: List<ResolvedResourceConfig>,
+            interceptorConfigs: List<ResolvedResourceConfig>,
+            handlerRequiresBody: Boolean,
+        ): RequestBodyPolicy {
+            val maxBodySize = (pluginConfig as? RequestBodyHandlingHolder)?.maxRequestBodySize ?: defaultMaxBodySize
+            val resources = (resourceConfigs + interceptorConfigs).map { it.config }
+            val root = pluginConfig as? BasicResourceConfig
+
+            val readBeforeMatching = when ((pluginConfig as? RequestBodyHandlingHolder)?.bufferRequestBody) {
+                true -> true
+                false -> false
+                null -> handlerRequiresBody ||
+                    LogUtil.logRequestBody ||
+                    root?.let(::isBodyRequiredAfterMatching) == true ||
+                    (listOfNotNull(root) + resources).any(::isBodyRequiredForMatching)
+            }
+            val resourcesRequiringBody = resources.filter { resource ->
+                (resource as? RequestBodyHandlingHolder)?.bufferRequestBody ?: isBodyRequiredAfterMatching(resource)
+            }.map { it.resourceId }.toSet()
+
+            return RequestBodyPolicy(maxBodySize, readBeforeMatching, resourcesRequiringBody)
+        }
+
+        private fun isBodyRequiredForMatching(resource: BasicResourceConfig): Boolean =
+            (resource as? RequestBodyResourceConfig)?.requestBody != null ||
+                (resource as? FormParamsResourceConfig)?.formParams?.isNotEmpty() == true ||
+                (resource as? EvalResourceConfig)?.eval != null ||
+                (resource as? ExpressionMatchersConfigHolder)?.let { holder ->
+                    (holder.allOf.orEmpty() + holder.anyOf.orEmpty()).any { refersToBody(it.expression) }
+                } == true ||
+                (resource as? SecurityConfigHolder)?.securityConfig?.conditions?.any { it.formParams.isNotEmpty() } == true
+
+        private fun isBodyRequiredAfterMatching(resource: BasicResourceConfig): Boolean =
+            resource.responseConfig.isTemplate == true ||
+                resource.responseConfig.scriptFile != null ||
+                (resource as? StepsConfigHolder)?.steps?.isNotEmpty() == true ||
+                (resource as? PassthroughResourceConfig)?.passthrough?.isNotBlank() == true ||
+                (resource as? CaptureConfigHolder)?.captureConfig?.values?.any { capture ->
+                    capture.enabled && listOfNotNull(capture, capture.key, capture.store).any(::isBodyCapture)
+                } == true
+
+        private fun isBodyCapture(capture: CaptureConfig): Boolean =
+            capture.requestBody.jsonPath != null ||
+                capture.requestBody.xPath != null ||
+                capture.formParam != null ||
+                refersToBody(capture.expression)
+
+        private fun refersToBody(expression: String?): Boolean =
+            expression?.let { bodyExpressions.any(expression::contains) } == true
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.model.snapshot
+
+/**
+ * The fully resolved result of configuration discovery and parsing, written
+ * ahead of time so the engine can skip this work at startup.
+ *
+ * @param formatVersion the snapshot format version
+ * @param engineVersion the version of the engine that wrote the snapshot
+ * @param inputs        describes the inputs from which the snapshot was built
+ * @param pluginNames   plugin short names, mapped to their fully qualified class names
+ * @param envFiles      the envfiles applied before the configuration was read
+ * @param configs       the interpolated configuration files, in plugin assignment order
+ * @param entries       data recorded by plugins, such as parsed specifications, keyed by namespace then key
+ */
+class StartupSnapshot(
+    val formatVersion: Int,
+    val engineVersion: String?,
+    val inputs: SnapshotInputs,
+    val pluginNames: Map<String, String>,
+    val envFiles: List<String>,
+    val configs: List<SnapshotConfig>,
+    val entries: Map<String, Map<String, String>>,
+)
+
+/**
+ * The inputs from which a snapshot was built. A snapshot is only used if these
+ * match the current environment.
+ *
+ * @param configDirs   the configuration directories
+ * @param plugins      the configured plugins
+ * @param fileHashes   content hashes of all files within the configuration directories, keyed by absolute path
+ * @param envHashes    hashes of the environment variable values referenced by the configuration
+ * @param settingsHash hash of the engine settings that affect discovery and interpolation
+ */
+class SnapshotInputs(
+    val configDirs: List<String>,
+    val plugins: List<String>,
+    val fileHashes: Map<String, String>,
+    val envHashes: Map<String, String>,
+    val settingsHash: String,
+)
+
+/**
+ * A configuration file, after interpolation.
+ */
+class SnapshotConfig(
+    val file: String,
+    val configRoot: String,
+    val pluginClass: String,
+    val plugin: String,
+    val serialised: String,
+)
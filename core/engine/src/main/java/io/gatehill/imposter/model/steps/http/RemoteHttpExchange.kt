@@ -48,6 +48,7 @@ import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.http.HttpRoute
 import okhttp3.Request
 import okhttp3.Response
+import java.util.concurrent.CompletableFuture
 
 /**
  * Adapts an OkHttp HTTP request and response to an Imposter HTTP exchange.
@@ -92,6 +93,10 @@ class RemoteHttpExchange(
     override val failureCause: Throwable?
         get() = throw UnsupportedOperationException()
 
+    override fun readBody(maxBodySize: Long): CompletableFuture<Boolean> {
+        throw UnsupportedOperationException()
+    }
+
     override fun <T> get(key: String): T? {
         return initiatingExchange.get<T>(key)
     }
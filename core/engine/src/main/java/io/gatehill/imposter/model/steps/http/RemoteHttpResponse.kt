@@ -46,6 +46,7 @@ package io.gatehill.imposter.model.steps.http
 import io.gatehill.imposter.http.HttpResponse
 import io.vertx.core.buffer.Buffer
 import okhttp3.Response
+import java.util.concurrent.CompletableFuture
 
 /**
  * Adapts an OkHttp response to an Imposter response.
@@ -73,6 +74,10 @@ class RemoteHttpResponse(
         return remoteResp.headers.toMap().mapKeys { (key, _) -> key.lowercase() }
     }
 
+    override fun write(chunk: Buffer): CompletableFuture<Unit> {
+        throw UnsupportedOperationException()
+    }
+
     override fun end() {
         throw UnsupportedOperationException()
     }
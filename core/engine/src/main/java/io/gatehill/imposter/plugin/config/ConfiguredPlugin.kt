@@ -68,12 +68,15 @@ abstract class ConfiguredPlugin<T : BasicPluginConfig> @Inject constructor(
 
     protected abstract val configClass: Class<T>
 
-    override fun loadConfiguration(loadedConfigs: List<LoadedConfig>) {
-        configs = loadedConfigs.mapNotNull { loadedConfig ->
-            try {
-                val config = ConfigUtil.loadPluginConfig(imposterConfig, loadedConfig, configClass)
+    override fun parseConfiguration(loadedConfigs: List<LoadedConfig>): List<T> {
+        val results = ConfigUtil.mapConcurrently(loadedConfigs) { loadedConfig ->
+            ConfigUtil.loadPluginConfig(imposterConfig, loadedConfig, configClass).also { config ->
                 validateConfig(loadedConfig.ref.file, config)
-                return@mapNotNull config
+            }
+        }
+        return loadedConfigs.zip(results).mapNotNull { (loadedConfig, result) ->
+            try {
+                return@mapNotNull result.getOrThrow()
 
             } catch (e: Exception) {
                 val configEx = RuntimeException("Error loading plugin config: $loadedConfig", e)
@@ -85,6 +88,10 @@ abstract class ConfiguredPlugin<T : BasicPluginConfig> @Inject constructor(
                 }
             }
         }
+    }
+
+    override fun applyConfiguration(configs: List<T>) {
+        this.configs = configs
         configurePlugin(configs)
     }
 
@@ -60,8 +60,9 @@ import io.gatehill.imposter.util.LogUtil
 import io.gatehill.imposter.util.LogUtil.describeRequest
 import io.gatehill.imposter.util.ResourceUtil
 import io.gatehill.imposter.util.makeFuture
-import io.gatehill.imposter.util.supervisedDefaultCoroutineScope
+import io.gatehill.imposter.util.supervisedRequestCoroutineScope
 import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.future.await
 import kotlinx.coroutines.future.future
 import org.apache.logging.log4j.Level
@@ -71,6 +72,8 @@ import java.util.*
 import java.util.concurrent.CompletableFuture
 import java.util.regex.Pattern
 import javax.inject.Inject
+import kotlin.coroutines.CoroutineContext
+import kotlin.coroutines.EmptyCoroutineContext
 
 /**
  * @author Pete Cornish
@@ -81,7 +84,7 @@ class HandlerServiceImpl @Inject constructor(
     private val interceptorService: InterceptorService,
     private val responseService: ResponseService,
     private val upstreamService: UpstreamService,
-) : HandlerService, CoroutineScope by supervisedDefaultCoroutineScope {
+) : HandlerService, CoroutineScope by supervisedRequestCoroutineScope {
 
     private val shouldAddEngineResponseHeaders: Boolean =
         EnvVars.getEnv("IMPOSTER_ADD_ENGINE_RESPONSE_HEADERS")?.toBoolean() != false
@@ -90,20 +93,46 @@ class HandlerServiceImpl @Inject constructor(
         imposterConfig: ImposterConfig,
         allPluginConfigs: List<PluginConfig>,
         resourceMatcher: ResourceMatcher,
+        requestBodyStreamed: Boolean,
         httpExchangeHandler: HttpExchangeFutureHandler,
     ): HttpExchangeFutureHandler {
         val selectedConfig = securityService.findConfigPreferringSecurityPolicy(allPluginConfigs)
-        return build(imposterConfig, selectedConfig, resourceMatcher, httpExchangeHandler)
+        val resolvedResourceConfigs = resolveResourceConfigs(selectedConfig)
+        val resolvedInterceptorConfigs = resolveInterceptorConfigs(selectedConfig)
+
+        // the handler is not specific to the selected configuration, so may use the body
+        val bodyPolicy = if (requestBodyStreamed) RequestBodyPolicy.streamed() else RequestBodyPolicy.always()
+        val handlerContext = buildHandlerContext(imposterConfig)
+        return { httpExchange: HttpExchange ->
+            handle(
+                selectedConfig,
+                httpExchangeHandler,
+                httpExchange,
+                resolvedResourceConfigs,
+                resolvedInterceptorConfigs,
+                resourceMatcher,
+                bodyPolicy,
+                handlerContext,
+            )
+        }
     }
 
     override fun build(
         imposterConfig: ImposterConfig,
         pluginConfig: PluginConfig,
         resourceMatcher: ResourceMatcher,
+        requestBodyRequired: Boolean,
         httpExchangeHandler: HttpExchangeFutureHandler,
     ): HttpExchangeFutureHandler {
         val resolvedResourceConfigs = resolveResourceConfigs(pluginConfig)
         val resolvedInterceptorConfigs = resolveInterceptorConfigs(pluginConfig)
+        val bodyPolicy = RequestBodyPolicy.build(
+            pluginConfig,
+            resolvedResourceConfigs,
+            resolvedInterceptorConfigs,
+            requestBodyRequired,
+        )
+        val handlerContext = buildHandlerContext(imposterConfig)
         return { httpExchange: HttpExchange ->
             handle(
                 pluginConfig,
@@ -111,18 +140,28 @@ class HandlerServiceImpl @Inject constructor(
                 httpExchange,
                 resolvedResourceConfigs,
                 resolvedInterceptorConfigs,
-                resourceMatcher
+                resourceMatcher,
+                bodyPolicy,
+                handlerContext,
             )
         }
     }
 
+    /**
+     * Inline request handling runs the handler on the calling thread, and resumes
+     * it on whichever thread completes an awaited operation, avoiding a thread
+     * handoff for each request.
+     */
+    private fun buildHandlerContext(imposterConfig: ImposterConfig): CoroutineContext =
+        if (imposterConfig.inlineRequestHandling) Dispatchers.Unconfined else EmptyCoroutineContext
+
     override fun buildAndWrap(
         imposterConfig: ImposterConfig,
         allPluginConfigs: List<PluginConfig>,
         resourceMatcher: ResourceMatcher,
         httpExchangeHandler: HttpExchangeHandler,
     ): HttpExchangeFutureHandler =
-        build(imposterConfig, allPluginConfigs, resourceMatcher, wrapInFuture(httpExchangeHandler))
+        build(imposterConfig, allPluginConfigs, resourceMatcher, httpExchangeHandler = wrapInFuture(httpExchangeHandler))
 
     override fun buildAndWrap(
         imposterConfig: ImposterConfig,
@@ -130,7 +169,7 @@ class HandlerServiceImpl @Inject constructor(
         resourceMatcher: ResourceMatcher,
         httpExchangeHandler: HttpExchangeHandler,
     ): HttpExchangeFutureHandler =
-        build(imposterConfig, pluginConfig, resourceMatcher, wrapInFuture(httpExchangeHandler))
+        build(imposterConfig, pluginConfig, resourceMatcher, httpExchangeHandler = wrapInFuture(httpExchangeHandler))
 
     /**
      * Wraps the given [httpExchangeHandler] in a [HttpExchangeFutureHandler] and returns the future.
@@ -260,7 +299,9 @@ class HandlerServiceImpl @Inject constructor(
         resourceConfigs: List<ResolvedResourceConfig>,
         interceptorConfigs: List<ResolvedResourceConfig>,
         resourceMatcher: ResourceMatcher,
-    ): CompletableFuture<Unit> = future {
+        bodyPolicy: RequestBodyPolicy,
+        handlerContext: CoroutineContext,
+    ): CompletableFuture<Unit> = future(handlerContext) {
         try {
             httpExchange.put(LogUtil.KEY_REQUEST_START, System.nanoTime())
 
@@ -275,6 +316,11 @@ class HandlerServiceImpl @Inject constructor(
                 response.putHeader("Server", "imposter")
             }
 
+            if (bodyPolicy.readBeforeMatching && !httpExchange.readBody(bodyPolicy.getMaxBodySize(null)).await()) {
+                LOGGER.trace("Request {} body was rejected", describeRequest(httpExchange, requestId))
+                return@future
+            }
+
             val matchedInterceptors = resourceMatcher.matchAllResourceConfigs(pluginConfig, interceptorConfigs, httpExchange)
             val rootResourceConfig = pluginConfig as BasicResourceConfig
             val resourceConfig = resourceMatcher.matchSingleResourceConfig(pluginConfig, resourceConfigs, httpExchange)
@@ -283,6 +329,16 @@ class HandlerServiceImpl @Inject constructor(
             // allows plugins to customise behaviour
             httpExchange.put(ResourceUtil.RESOURCE_CONFIG_KEY, resourceConfig)
 
+            // the matched resource may need the body, or have a lower size limit
+            if (bodyPolicy.isBodyRequired(matchedInterceptors + listOfNotNull(resourceConfig))) {
+                if (!httpExchange.readBody(bodyPolicy.getMaxBodySize(resourceConfig)).await()) {
+                    LOGGER.trace("Request {} body was rejected", describeRequest(httpExchange, requestId))
+                    return@future
+                }
+            } else if (bodyPolicy.discardUnread) {
+                httpExchange.discardBody()
+            }
+
             if (isRequestPermitted(rootResourceConfig, resourceConfig, resourceConfigs, httpExchange)) {
                 // set before actual dispatch to avoid race condition where
                 // a response is sent before the phase is set
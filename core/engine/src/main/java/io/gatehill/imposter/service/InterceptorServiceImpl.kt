@@ -49,11 +49,13 @@ import io.gatehill.imposter.plugin.config.resource.BasicResourceConfig
 import io.gatehill.imposter.script.ResponseBehaviourType
 import io.gatehill.imposter.util.LogUtil
 import io.gatehill.imposter.util.makeFuture
-import io.gatehill.imposter.util.supervisedDefaultCoroutineScope
+import io.gatehill.imposter.util.supervisedRequestCoroutineScope
 import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
 import kotlinx.coroutines.future.await
 import kotlinx.coroutines.future.future
 import org.apache.logging.log4j.LogManager
+import java.util.concurrent.CompletableFuture
 import java.util.concurrent.atomic.AtomicBoolean
 import javax.inject.Inject
 
@@ -63,16 +65,27 @@ import javax.inject.Inject
  */
 class InterceptorServiceImpl @Inject constructor(
     private val responseRoutingService: ResponseRoutingService,
-) : InterceptorService, CoroutineScope by supervisedDefaultCoroutineScope {
+) : InterceptorService, CoroutineScope by supervisedRequestCoroutineScope {
 
     override fun executeInterceptors(
         pluginConfig: PluginConfig,
         interceptors: List<BasicResourceConfig>,
         httpExchange: HttpExchange,
-    ) = future {
+    ): CompletableFuture<Boolean> {
         if (interceptors.isEmpty()) {
-            return@future false
+            return CompletableFuture.completedFuture(false)
         }
+        // start on the calling thread, which is already handling the request
+        return future(start = CoroutineStart.UNDISPATCHED) {
+            executeAll(pluginConfig, interceptors, httpExchange)
+        }
+    }
+
+    private suspend fun executeAll(
+        pluginConfig: PluginConfig,
+        interceptors: List<BasicResourceConfig>,
+        httpExchange: HttpExchange,
+    ): Boolean {
         val handled = AtomicBoolean(true)
         val handler = buildHandler(httpExchange, handled)
 
@@ -94,7 +107,7 @@ class InterceptorServiceImpl @Inject constructor(
                 break
             }
         }
-        return@future handled.get()
+        return handled.get()
     }
 
     private fun buildHandler(
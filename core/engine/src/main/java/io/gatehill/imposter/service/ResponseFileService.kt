@@ -48,6 +48,7 @@ import io.gatehill.imposter.plugin.config.PluginConfig
 import io.gatehill.imposter.plugin.config.resource.ResourceConfig
 import io.gatehill.imposter.script.ResponseBehaviour
 import io.vertx.core.json.JsonArray
+import java.io.File
 
 interface ResponseFileService {
     /**
@@ -67,4 +68,11 @@ interface ResponseFileService {
     fun loadResponseAsJsonArray(config: PluginConfig, behaviour: ResponseBehaviour): JsonArray
 
     fun loadResponseAsJsonArray(config: PluginConfig, responseFile: String): JsonArray
+
+    /**
+     * Removes any cached content for the given files.
+     *
+     * @param files the files that have changed
+     */
+    fun invalidateCache(files: Collection<File>)
 }
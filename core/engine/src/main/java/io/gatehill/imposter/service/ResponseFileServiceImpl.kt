@@ -43,22 +43,36 @@
 package io.gatehill.imposter.service
 
 import com.google.common.base.Strings
+import com.google.common.cache.Cache
 import com.google.common.cache.CacheBuilder
+import io.gatehill.imposter.ImposterConfig
 import io.gatehill.imposter.config.util.EnvVars.Companion.getEnv
+import io.gatehill.imposter.http.ExchangePhase
 import io.gatehill.imposter.http.HttpExchange
+import io.gatehill.imposter.http.HttpRouter
+import io.gatehill.imposter.lifecycle.EngineLifecycleHooks
+import io.gatehill.imposter.lifecycle.EngineLifecycleListener
+import io.gatehill.imposter.plugin.config.InterceptorsHolder
 import io.gatehill.imposter.plugin.config.PluginConfig
+import io.gatehill.imposter.plugin.config.ResourcesHolder
+import io.gatehill.imposter.plugin.config.capture.CaptureConfigHolder
+import io.gatehill.imposter.plugin.config.resource.BasicResourceConfig
 import io.gatehill.imposter.plugin.config.resource.ResourceConfig
 import io.gatehill.imposter.script.ResponseBehaviour
+import io.gatehill.imposter.util.ConditionalResponseUtil
 import io.gatehill.imposter.util.FileUtil
 import io.gatehill.imposter.util.LogUtil
 import io.gatehill.imposter.util.MetricsUtil
+import io.micrometer.core.instrument.FunctionCounter
 import io.micrometer.core.instrument.Gauge
 import io.vertx.core.Vertx
 import io.vertx.core.buffer.Buffer
 import io.vertx.core.json.JsonArray
 import org.apache.logging.log4j.LogManager
+import java.io.File
 import java.io.IOException
 import java.nio.file.NoSuchFileException
+import java.util.concurrent.atomic.AtomicLong
 import javax.inject.Inject
 import kotlin.io.path.exists
 
@@ -66,17 +80,19 @@ import kotlin.io.path.exists
  * @author Pete Cornish
  */
 class ResponseFileServiceImpl @Inject constructor(
+    engineLifecycle: EngineLifecycleHooks,
     private val responseService: ResponseService,
     private val vertx: Vertx,
-) : ResponseFileService {
+) : ResponseFileService, EngineLifecycleListener {
 
     /**
-     * Holds response files, with maximum number of entries determined by the environment
-     * variable [ENV_RESPONSE_FILE_CACHE_ENTRIES].
+     * Holds response files, with maximum total size in bytes determined by the environment
+     * variable [ENV_RESPONSE_FILE_CACHE_SIZE].
      */
-    private val responseFileCache = CacheBuilder.newBuilder()
-        .maximumSize(getEnv(ENV_RESPONSE_FILE_CACHE_ENTRIES)?.toLong() ?: DEFAULT_RESPONSE_FILE_CACHE_ENTRIES)
-        .build<String, Buffer>()
+    private val responseFileCache: Cache<String, CachedResponseFile> = buildCache()
+
+    private val cacheHits = AtomicLong()
+    private val cacheMisses = AtomicLong()
 
     init {
         MetricsUtil.doIfMetricsEnabled(
@@ -85,7 +101,62 @@ class ResponseFileServiceImpl @Inject constructor(
             Gauge.builder(METRIC_RESPONSE_FILE_CACHE_ENTRIES) { responseFileCache.size() }
                 .description("The number of cached response files")
                 .register(registry)
+
+            Gauge.builder(METRIC_RESPONSE_FILE_CACHE_BYTES) { responseFileCache.asMap().values.sumOf { it.size.toLong() } }
+                .description("The total size of cached response files in bytes")
+                .register(registry)
+
+            FunctionCounter.builder(METRIC_RESPONSE_FILE_CACHE_HITS, cacheHits) { it.get().toDouble() }
+                .description("The number of response files served from the cache")
+                .register(registry)
+
+            FunctionCounter.builder(METRIC_RESPONSE_FILE_CACHE_MISSES, cacheMisses) { it.get().toDouble() }
+                .description("The number of response files read from disk")
+                .register(registry)
         }
+
+        engineLifecycle.registerListener(this)
+    }
+
+    override fun afterRoutesConfigured(
+        imposterConfig: ImposterConfig,
+        allPluginConfigs: List<PluginConfig>,
+        router: HttpRouter,
+    ) {
+        hashResponseFiles(allPluginConfigs)
+    }
+
+    override fun afterRoutesReloaded(
+        imposterConfig: ImposterConfig,
+        allPluginConfigs: List<PluginConfig>,
+        reloadedPluginConfigs: List<PluginConfig>,
+        router: HttpRouter,
+    ) {
+        hashResponseFiles(reloadedPluginConfigs)
+    }
+
+    /**
+     * Hashes the non-templated response files of the configurations, so their
+     * validators are available when they are first served.
+     */
+    private fun hashResponseFiles(pluginConfigs: List<PluginConfig>) {
+        val files = pluginConfigs.flatMap { pluginConfig ->
+            val resources = listOfNotNull(pluginConfig as? BasicResourceConfig) +
+                (pluginConfig as? ResourcesHolder<*>)?.resources.orEmpty()
+
+            resources.mapNotNull { resource ->
+                resource.responseConfig.takeUnless { it.isTemplate == true }?.file?.let { responseFile ->
+                    try {
+                        File(resolvePath(pluginConfig, responseFile))
+                    } catch (e: SecurityException) {
+                        null
+                    }
+                }
+            }
+        }.distinct()
+
+        LOGGER.trace("Hashing {} response file(s)", files.size)
+        ConditionalResponseUtil.hashFiles(files)
     }
 
     override fun serveResponseFile(
@@ -104,22 +175,32 @@ class ResponseFileServiceImpl @Inject constructor(
 
         val responseFile = responseBehaviour.responseFile ?: throw IllegalStateException("Response file not set")
         val fsPath = resolvePath(pluginConfig, responseFile)
+        val file = File(fsPath)
+        val filename = fsPath.substringAfterLast("/")
 
-        val responseData = responseFileCache.getIfPresent(fsPath) ?: run {
-            try {
-                val buf = vertx.fileSystem().readFileBlocking(fsPath)
-                buf.also { responseFileCache.put(fsPath, it) }
-            } catch (e: Exception) {
-                if (e.cause is NoSuchFileException) {
-                    responseService.failWithNotFoundResponse(httpExchange, "Response file does not exist: $fsPath")
-                } else {
-                    httpExchange.fail(RuntimeException("Failed to read response file: $fsPath", e))
-                }
+        if (!responseBehaviour.isTemplate && file.isFile) {
+            val sendDirect = response.sendFileSupported && !isResponseBodyRequired(pluginConfig, resourceConfig)
+
+            // precompressed variants can only be sent as-is
+            val servedPath = ConditionalResponseUtil.prepareHashedFileResponse(httpExchange, file, allowPrecompressed = sendDirect)
+                ?: return
+            if (sendDirect) {
+                LOGGER.trace("Sending response file {} without buffering", servedPath)
+                responseService.writeResponseFile(resourceConfig, httpExchange, filename, servedPath)
                 return
             }
         }
 
-        val filename = fsPath.substringAfterLast("/")
+        val responseData = try {
+            loadResponseFile(fsPath, file)
+        } catch (e: Exception) {
+            if (e.cause is NoSuchFileException) {
+                responseService.failWithNotFoundResponse(httpExchange, "Response file does not exist: $fsPath")
+            } else {
+                httpExchange.fail(RuntimeException("Failed to read response file: $fsPath", e))
+            }
+            return
+        }
 
         responseService.writeResponseData(
             resourceConfig = resourceConfig,
@@ -131,6 +212,47 @@ class ResponseFileServiceImpl @Inject constructor(
         )
     }
 
+    /**
+     * Returns the file contents from the cache, reading it from disk if it is not
+     * cached, or if it has been modified since it was cached.
+     */
+    private fun loadResponseFile(fsPath: String, file: File): Buffer {
+        // 0 if the file does not exist on the filesystem, such as on the classpath
+        val lastModified = file.lastModified()
+
+        responseFileCache.getIfPresent(fsPath)?.let { cached ->
+            if (cached.lastModified == lastModified) {
+                cacheHits.incrementAndGet()
+                return cached.data
+            }
+            LOGGER.trace("Response file {} modified since cached", fsPath)
+        }
+        cacheMisses.incrementAndGet()
+
+        val data = vertx.fileSystem().readFileBlocking(fsPath)
+        responseFileCache.put(fsPath, CachedResponseFile(data, lastModified))
+        return data
+    }
+
+    /**
+     * The response body is held in memory if it is logged, or if the resource, the root
+     * configuration or an interceptor captures items after the response is sent,
+     * as a file sent directly has no [io.gatehill.imposter.http.HttpResponse.bodyBuffer].
+     */
+    private fun isResponseBodyRequired(pluginConfig: PluginConfig, resourceConfig: ResourceConfig?): Boolean {
+        if (LogUtil.logResponseBody) {
+            return true
+        }
+        val captureHolders = listOfNotNull(resourceConfig, pluginConfig) +
+            (pluginConfig as? InterceptorsHolder<*>)?.interceptors.orEmpty()
+
+        return captureHolders.any { holder ->
+            (holder as? CaptureConfigHolder)?.captureConfig?.values?.any {
+                it.phase != ExchangePhase.REQUEST_RECEIVED
+            } == true
+        }
+    }
+
     private fun resolvePath(pluginConfig: PluginConfig, responseFile: String): String {
         val normalisedPath = FileUtil.validatePath(responseFile, pluginConfig.dir)
 
@@ -160,10 +282,48 @@ class ResponseFileServiceImpl @Inject constructor(
         }
     }
 
+    override fun invalidateCache(files: Collection<File>) {
+        val changed = files.map { it.absoluteFile.normalize() }.toSet()
+        responseFileCache.asMap().keys.removeIf { File(it).absoluteFile.normalize() in changed }
+    }
+
     companion object {
         private val LOGGER = LogManager.getLogger(ResponseFileServiceImpl::class.java)
+        private const val ENV_RESPONSE_FILE_CACHE_SIZE = "IMPOSTER_RESPONSE_FILE_CACHE_SIZE"
         private const val ENV_RESPONSE_FILE_CACHE_ENTRIES = "IMPOSTER_RESPONSE_FILE_CACHE_ENTRIES"
-        private const val DEFAULT_RESPONSE_FILE_CACHE_ENTRIES = 20L
+        private const val DEFAULT_RESPONSE_FILE_CACHE_SIZE = 20L * 1024 * 1024
         private const val METRIC_RESPONSE_FILE_CACHE_ENTRIES = "response.file.cache.entries"
+        private const val METRIC_RESPONSE_FILE_CACHE_BYTES = "response.file.cache.bytes"
+        private const val METRIC_RESPONSE_FILE_CACHE_HITS = "response.file.cache.hits"
+        private const val METRIC_RESPONSE_FILE_CACHE_MISSES = "response.file.cache.misses"
+
+        /**
+         * Bounds the cache by total size in bytes. The legacy entry count limit is
+         * used if it is set and the size limit is not.
+         */
+        private fun buildCache(): Cache<String, CachedResponseFile> {
+            val maxSize = getEnv(ENV_RESPONSE_FILE_CACHE_SIZE)?.toLong()
+            val maxEntries = getEnv(ENV_RESPONSE_FILE_CACHE_ENTRIES)?.toLong()
+
+            return if (null == maxSize && null != maxEntries) {
+                LOGGER.warn("{} is deprecated - use {} instead", ENV_RESPONSE_FILE_CACHE_ENTRIES, ENV_RESPONSE_FILE_CACHE_SIZE)
+                CacheBuilder.newBuilder()
+                    .maximumSize(maxEntries)
+                    .build<String, CachedResponseFile>()
+            } else {
+                CacheBuilder.newBuilder()
+                    .maximumWeight(maxSize ?: DEFAULT_RESPONSE_FILE_CACHE_SIZE)
+                    .weigher<String, CachedResponseFile> { _, file -> file.size }
+                    .build<String, CachedResponseFile>()
+            }
+        }
+    }
+
+    private class CachedResponseFile(
+        val data: Buffer,
+        val lastModified: Long,
+    ) {
+        val size: Int
+            get() = data.length()
     }
 }
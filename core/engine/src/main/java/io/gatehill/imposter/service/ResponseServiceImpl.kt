@@ -230,6 +230,17 @@ class ResponseServiceImpl @Inject constructor(
         response.end(responseData)
     }
 
+    override fun writeResponseFile(
+        resourceConfig: ResourceConfig?,
+        httpExchange: HttpExchange,
+        filenameHintForContentType: String?,
+        filePath: String,
+    ) {
+        val response = httpExchange.response
+        setContentTypeIfAbsent(resourceConfig, response, filenameHintForContentType)
+        response.sendFile(filePath)
+    }
+
     private fun setContentTypeIfAbsent(
         resourceConfig: ResourceConfig?,
         response: HttpResponse,
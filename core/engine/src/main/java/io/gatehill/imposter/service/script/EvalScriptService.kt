@@ -6,23 +6,58 @@ import io.gatehill.imposter.plugin.config.PluginConfig
 import io.gatehill.imposter.plugin.config.resource.BasicResourceConfig
 import io.gatehill.imposter.plugin.config.resource.EvalResourceConfig
 import io.gatehill.imposter.script.ScriptBindings
+import io.gatehill.imposter.service.CompiledEvalScript
 import io.gatehill.imposter.service.ScriptService
 import io.gatehill.imposter.util.InjectorUtil
 import io.gatehill.imposter.util.LogUtil
 import org.apache.logging.log4j.LogManager
+import java.util.concurrent.ConcurrentHashMap
 
 class EvalScriptService {
     private val jsScriptService: ScriptService by lazy {
         InjectorUtil.getInstance<ScriptServiceFactory>().fetchScriptService("eval.js")
     }
 
+    /**
+     * Compiled scripts, keyed by script code, so resources with the same script
+     * share a compiled script. Resource IDs are not used, as they change each
+     * time configuration is loaded.
+     */
+    private val compiledScripts = ConcurrentHashMap<String, CompiledEvalScript>()
+
+    /**
+     * Compiles the eval script for the resource, if configured, so that
+     * compilation errors are reported at startup.
+     */
     fun initScript(config: EvalResourceConfig) {
         if (config.eval.isNullOrBlank()) {
             return
         }
-        jsScriptService.initEvalScript(config.resourceId, config.eval!!)
+        try {
+            getCompiledScript(config)
+        } catch (e: Exception) {
+            throw RuntimeException("Failed to compile inline eval script for resource ${config.resourceId}: ${config.eval}", e)
+        }
     }
 
+    internal val compiledScriptCount: Int
+        get() = compiledScripts.size
+
+    /**
+     * Discards the compiled scripts not used by the given resources, such as
+     * those of configuration replaced by a reload.
+     */
+    fun retainScripts(configs: Collection<EvalResourceConfig>) {
+        val scriptCodes = configs.mapNotNullTo(HashSet()) { it.eval }
+        compiledScripts.keys.retainAll(scriptCodes)
+    }
+
+    private fun getCompiledScript(config: EvalResourceConfig): CompiledEvalScript =
+        compiledScripts.computeIfAbsent(config.eval!!) { scriptCode ->
+            logger.trace("Compiling inline eval script {}: {}", config.resourceId, scriptCode)
+            jsScriptService.compileEvalScript(config.resourceId, scriptCode)
+        }
+
     fun evalScript(
         httpExchange: HttpExchange,
         pluginConfig: PluginConfig,
@@ -44,7 +79,7 @@ class EvalScriptService {
                 emptyMap(),
                 executionContext
             )
-            val result = jsScriptService.executeEvalScript(scriptId, config.eval!!, scriptBindings)
+            val result = getCompiledScript(config).evaluate(scriptBindings)
             if (logger.isTraceEnabled) {
                 logger.trace("Evaluation of inline script {} result: {}: {}", scriptId, result, config.eval)
             } else {
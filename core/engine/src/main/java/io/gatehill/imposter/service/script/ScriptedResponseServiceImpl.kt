@@ -109,6 +109,19 @@ class ScriptedResponseServiceImpl @Inject constructor(
         initScripts(allPluginConfigs)
     }
 
+    override fun afterRoutesReloaded(
+        imposterConfig: ImposterConfig,
+        allPluginConfigs: List<PluginConfig>,
+        reloadedPluginConfigs: List<PluginConfig>,
+        router: HttpRouter
+    ) {
+        initScripts(allPluginConfigs)
+        evalScriptService.retainScripts(
+            allPluginConfigs.flatMap { (it as? ResourcesHolder<*>)?.resources.orEmpty() }
+                .filterIsInstance<EvalResourceConfig>()
+        )
+    }
+
     private fun initScripts(allPluginConfigs: List<PluginConfig>) {
         // root resource
         allPluginConfigs.forEach { config ->
@@ -195,7 +208,7 @@ class ScriptedResponseServiceImpl @Inject constructor(
             val scriptLogger = buildScriptLogger(script.source)
 
             val scriptBindings = ScriptBindings(
-                EnvVars.getEnv(),
+                EnvVars.getReadOnlyEnv(),
                 scriptLogger,
                 pluginConfig,
                 additionalBindings,
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2025.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.service.security
+
+import io.gatehill.imposter.http.HttpResponse
+import io.gatehill.imposter.plugin.config.security.CorsConfig
+import io.gatehill.imposter.util.HttpUtil
+
+/**
+ * An immutable CORS policy, compiled from a [CorsConfig], with the
+ * response header values rendered ahead of time.
+ */
+class CorsPolicy private constructor(
+    private val allowOrigins: Set<String>?,
+    private val allowMethods: String,
+    private val allowHeaders: String,
+    private val allowCredentials: String,
+    private val maxAge: String,
+) {
+    private val matchRequestOrigin = allowOrigins?.contains(MatchRequestOrigin) == true
+    private val allowWildcardOrigin = allowOrigins?.contains(WildcardOrigin) == true
+
+    /**
+     * @param requestOrigin the value of the request `Origin` header
+     * @return the value of the `Access-Control-Allow-Origin` response header, or `null` if not permitted
+     */
+    fun determineResponseOrigin(requestOrigin: String?): String? {
+        if (null == allowOrigins) {
+            return null
+        }
+        return if (matchRequestOrigin || (null != requestOrigin && allowOrigins.contains(requestOrigin))) {
+            requestOrigin
+        } else if (allowWildcardOrigin) {
+            WildcardOrigin
+        } else {
+            null
+        }
+    }
+
+    fun addHeaders(response: HttpResponse, origin: String) {
+        response
+            .putHeader(HttpUtil.CORS_ALLOW_ORIGIN, origin)
+            .putHeader("Access-Control-Allow-Methods", allowMethods)
+            .putHeader("Access-Control-Allow-Headers", allowHeaders)
+            .putHeader("Access-Control-Allow-Credentials", allowCredentials)
+            .putHeader("Access-Control-Max-Age", maxAge)
+    }
+
+    companion object {
+        private const val WildcardOrigin = "*"
+        private const val MatchRequestOrigin = "all"
+
+        /**
+         * Compile the CORS configuration into a policy.
+         */
+        fun compile(cors: CorsConfig) = CorsPolicy(
+            allowOrigins = when (cors.allowOrigins) {
+                is String -> setOf(cors.allowOrigins as String)
+                is List<*> -> (cors.allowOrigins as List<*>).mapTo(HashSet()) { it.toString() }
+                else -> null
+            },
+            allowMethods = cors.allowMethods?.joinToString(",") ?: "*",
+            allowHeaders = cors.allowHeaders?.joinToString(",") ?: "*",
+            allowCredentials = cors.allowCredentials.toString(),
+            maxAge = cors.maxAge.toString(),
+        )
+    }
+}
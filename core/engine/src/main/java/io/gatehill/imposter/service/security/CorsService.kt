@@ -47,11 +47,9 @@ import io.gatehill.imposter.ImposterConfig
 import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.http.HttpExchangeFutureHandler
 import io.gatehill.imposter.http.HttpMethod
-import io.gatehill.imposter.http.HttpRequest
 import io.gatehill.imposter.http.HttpRouter
 import io.gatehill.imposter.http.ResourceMatcher
 import io.gatehill.imposter.plugin.config.PluginConfig
-import io.gatehill.imposter.plugin.config.security.CorsConfig
 import io.gatehill.imposter.plugin.config.security.CorsConfigHolder
 import io.gatehill.imposter.service.HandlerService
 import io.gatehill.imposter.service.SecurityService
@@ -81,7 +79,7 @@ class CorsService @Inject constructor(
             if (selectedConfig !is CorsConfigHolder || selectedConfig.corsConfig == null) {
                 throw IllegalStateException("No CORS configuration found")
             }
-            val cors = selectedConfig.corsConfig!!
+            val cors = CorsPolicy.compile(selectedConfig.corsConfig!!)
 
             // preflight
             router.route(HttpMethod.OPTIONS, "/*").handler(
@@ -100,14 +98,14 @@ class CorsService @Inject constructor(
         imposterConfig: ImposterConfig,
         selectedConfig: PluginConfig,
         resourceMatcher: ResourceMatcher,
-        cors: CorsConfig,
+        cors: CorsPolicy,
     ): HttpExchangeFutureHandler {
         return handlerService.buildAndWrap(imposterConfig, selectedConfig, resourceMatcher) { exchange: HttpExchange ->
-            val origin = determineResponseOrigin(cors, exchange.request)
+            val origin = cors.determineResponseOrigin(exchange.request.getHeader("Origin"))
             origin?.let {
                 logger.debug("Serving CORS pre-flight request: ${LogUtil.describeRequest(exchange)}")
                 exchange.response.setStatusCode(HttpUtil.HTTP_NO_CONTENT)
-                addCorsHeaders(exchange, origin, cors)
+                cors.addHeaders(exchange.response, origin)
                 exchange.response.end()
             } ?: run {
                 logger.warn("CORS pre-flight request with invalid Origin: ${LogUtil.describeRequest(exchange)}")
@@ -118,48 +116,20 @@ class CorsService @Inject constructor(
         }
     }
 
-    private fun decorate(cors: CorsConfig) = { exchange: HttpExchange ->
+    private fun decorate(cors: CorsPolicy) = { exchange: HttpExchange ->
         // don't add headers to preflight requests (handled in preflight handler)
         if (exchange.request.method != HttpMethod.OPTIONS) {
-            val origin = determineResponseOrigin(cors, exchange.request)
+            val origin = cors.determineResponseOrigin(exchange.request.getHeader("Origin"))
             origin?.let {
-                logger.trace("Adding CORS headers to response for: ${LogUtil.describeRequest(exchange)}")
-                addCorsHeaders(exchange, origin, cors)
+                if (logger.isTraceEnabled) {
+                    logger.trace("Adding CORS headers to response for: ${LogUtil.describeRequest(exchange)}")
+                }
+                cors.addHeaders(exchange.response, origin)
             } ?: run {
-                logger.trace("CORS request with invalid Origin: ${LogUtil.describeRequest(exchange)}")
+                if (logger.isTraceEnabled) {
+                    logger.trace("CORS request with invalid Origin: ${LogUtil.describeRequest(exchange)}")
+                }
             }
         }
     }
-
-    private fun determineResponseOrigin(cors: CorsConfig, request: HttpRequest): String? {
-        val requestOrigin = request.getHeader("Origin")
-        val allowOrigins = when (cors.allowOrigins) {
-            is String -> listOf(cors.allowOrigins)
-            is List<*> -> (cors.allowOrigins as List<*>).map { it.toString() }
-            else -> null
-        }
-        return allowOrigins?.let {
-            if (it.contains(requestOrigin) || it.contains(MatchRequestOrigin)) {
-                requestOrigin
-            } else if (it.contains(WildcardOrigin)) {
-                WildcardOrigin
-            } else {
-                null
-            }
-        }
-    }
-
-    private fun addCorsHeaders(exchange: HttpExchange, origin: String, cors: CorsConfig) {
-        exchange.response
-            .putHeader(HttpUtil.CORS_ALLOW_ORIGIN, origin)
-            .putHeader("Access-Control-Allow-Methods", cors.allowMethods?.joinToString(",") ?: "*")
-            .putHeader("Access-Control-Allow-Headers", cors.allowHeaders?.joinToString(",") ?: "*")
-            .putHeader("Access-Control-Allow-Credentials", cors.allowCredentials.toString())
-            .putHeader("Access-Control-Max-Age", cors.maxAge.toString())
-    }
-
-    companion object {
-        private const val WildcardOrigin = "*"
-        private const val MatchRequestOrigin = "all"
-    }
 }
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2025.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.service.security
+
+import io.gatehill.imposter.http.HttpRequest
+import io.gatehill.imposter.plugin.config.resource.conditional.ConditionalNameValuePair
+import io.gatehill.imposter.plugin.config.security.SecurityCondition
+import io.gatehill.imposter.plugin.config.security.SecurityConfig
+import io.gatehill.imposter.plugin.config.security.SecurityEffect
+import io.gatehill.imposter.util.MatchUtil.conditionMatches
+import org.apache.logging.log4j.LogManager
+import java.util.*
+
+/**
+ * An immutable security policy, compiled from a [SecurityConfig].
+ *
+ * Header names are normalised and assigned a slot when the policy is compiled,
+ * so evaluating the policy requires a single pass over the request headers
+ * and no copies of the request maps.
+ */
+class SecurityPolicy private constructor(
+    private val defaultEffect: SecurityEffect,
+    private val conditions: List<CompiledCondition>,
+    private val headerSlots: Map<String, Int>,
+) {
+    /**
+     * Evaluate the policy against the request.
+     *
+     * @param request the HTTP request
+     * @return the outcome of the policy
+     */
+    fun evaluate(request: HttpRequest): PolicyOutcome {
+        if (conditions.isEmpty()) {
+            return PolicyOutcome(defaultEffect, "default effect")
+        }
+
+        val headerValues = collectHeaderValues(request)
+        var failed: MutableList<CompiledCondition>? = null
+        for (condition in conditions) {
+            if (!condition.permits(request, headerValues)) {
+                if (null == failed) {
+                    failed = mutableListOf()
+                }
+                failed.add(condition)
+            }
+        }
+
+        return if (null == failed) {
+            PERMIT_ALL_CONDITIONS
+        } else {
+            PolicyOutcome(SecurityEffect.Deny, failed.joinToString(", ") { it.description })
+        }
+    }
+
+    /**
+     * @return the values of the headers referenced by the policy, indexed by slot
+     */
+    private fun collectHeaderValues(request: HttpRequest): Array<String?> {
+        if (headerSlots.isEmpty()) {
+            return NO_HEADER_VALUES
+        }
+        val values = arrayOfNulls<String>(headerSlots.size)
+        for ((name, value) in request.headers) {
+            headerSlots[name.lowercase(Locale.getDefault())]?.let { slot -> values[slot] = value }
+        }
+        return values
+    }
+
+    class PolicyOutcome(val effect: SecurityEffect, val policySource: String)
+
+    private class HeaderCondition(val slot: Int, val pair: ConditionalNameValuePair)
+
+    /**
+     * A condition is permitted if each of its name/value pairs matches the request
+     * when the effect is [SecurityEffect.Permit], or does not match when the
+     * effect is [SecurityEffect.Deny].
+     */
+    private class CompiledCondition(
+        private val effect: SecurityEffect,
+        private val queryParams: List<ConditionalNameValuePair>,
+        private val formParams: List<ConditionalNameValuePair>,
+        private val headers: List<HeaderCondition>,
+        val description: String,
+    ) {
+        private val requireMatch = SecurityEffect.Permit == effect
+
+        fun permits(request: HttpRequest, headerValues: Array<String?>): Boolean {
+            if (queryParams.isNotEmpty()) {
+                val requestQueryParams = request.queryParams
+                if (!queryParams.all { check(it, requestQueryParams[it.name]) }) {
+                    return false
+                }
+            }
+            if (formParams.isNotEmpty()) {
+                val requestFormParams = request.formParams
+                if (!formParams.all { check(it, requestFormParams[it.name]) }) {
+                    return false
+                }
+            }
+            return headers.all { check(it.pair, headerValues[it.slot]) }
+        }
+
+        private fun check(pair: ConditionalNameValuePair, actual: String?): Boolean {
+            val matched = conditionMatches(pair, actual)
+            if (LOGGER.isTraceEnabled) {
+                LOGGER.trace(
+                    "Condition match for {} {} {}: {}. Request value: {}. Effect: {}",
+                    pair.name,
+                    pair.operator,
+                    pair.value,
+                    matched,
+                    actual,
+                    if (matched) effect else effect.invert()
+                )
+            }
+            return matched == requireMatch
+        }
+    }
+
+    companion object {
+        private val LOGGER = LogManager.getLogger(SecurityPolicy::class.java)
+        private val NO_HEADER_VALUES = emptyArray<String?>()
+        private val PERMIT_ALL_CONDITIONS = PolicyOutcome(SecurityEffect.Permit, "all conditions")
+
+        /**
+         * Compile the security configuration into a policy.
+         */
+        fun compile(security: SecurityConfig): SecurityPolicy {
+            val headerSlots = mutableMapOf<String, Int>()
+            val conditions = security.conditions.map { condition ->
+                val headers = condition.requestHeaders.values.map { pair ->
+                    val name = pair.name.lowercase(Locale.getDefault())
+                    HeaderCondition(headerSlots.getOrPut(name) { headerSlots.size }, pair)
+                }
+                CompiledCondition(
+                    effect = condition.effect,
+                    queryParams = condition.queryParams.values.toList(),
+                    formParams = condition.formParams.values.toList(),
+                    headers = headers,
+                    description = describeCondition(condition),
+                )
+            }
+            return SecurityPolicy(security.defaultEffect, conditions, headerSlots.toMap())
+        }
+
+        private fun describeCondition(condition: SecurityCondition): String {
+            val description = StringBuilder()
+            describeConditionPart(description, condition.queryParams, "query conditions")
+            describeConditionPart(description, condition.requestHeaders, "header conditions")
+            return description.toString()
+        }
+
+        private fun describeConditionPart(
+            description: StringBuilder,
+            part: Map<String, ConditionalNameValuePair>,
+            partType: String,
+        ) {
+            if (part.isNotEmpty()) {
+                if (description.isNotEmpty()) {
+                    description.append(", ")
+                }
+                description.append(partType).append(": [").append(java.lang.String.join(", ", part.keys)).append("]")
+            }
+        }
+    }
+}
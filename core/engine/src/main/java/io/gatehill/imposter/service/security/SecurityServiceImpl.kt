@@ -42,32 +42,43 @@
  */
 package io.gatehill.imposter.service.security
 
+import io.gatehill.imposter.ImposterConfig
 import io.gatehill.imposter.http.HttpExchange
+import io.gatehill.imposter.http.HttpRouter
+import io.gatehill.imposter.lifecycle.EngineLifecycleHooks
+import io.gatehill.imposter.lifecycle.EngineLifecycleListener
 import io.gatehill.imposter.lifecycle.SecurityLifecycleHooks
 import io.gatehill.imposter.plugin.config.PluginConfig
-import io.gatehill.imposter.plugin.config.resource.conditional.ConditionalNameValuePair
-import io.gatehill.imposter.plugin.config.security.SecurityCondition
+import io.gatehill.imposter.plugin.config.ResourcesHolder
 import io.gatehill.imposter.plugin.config.security.SecurityConfig
 import io.gatehill.imposter.plugin.config.security.SecurityConfigHolder
 import io.gatehill.imposter.plugin.config.security.SecurityEffect
 import io.gatehill.imposter.service.SecurityService
-import io.gatehill.imposter.util.CollectionUtil.convertKeysToLowerCase
 import io.gatehill.imposter.util.HttpUtil
 import io.gatehill.imposter.util.LogUtil
-import io.gatehill.imposter.util.MatchUtil.conditionMatches
 import org.apache.logging.log4j.LogManager
-import java.util.*
+import java.util.concurrent.ConcurrentHashMap
 import javax.inject.Inject
 
 /**
  * @author Pete Cornish
  */
 class SecurityServiceImpl @Inject constructor(
+    engineLifecycle: EngineLifecycleHooks,
     securityLifecycle: SecurityLifecycleHooks,
     securityListener: SecurityLifecycleListenerImpl,
-) : SecurityService {
+) : SecurityService, EngineLifecycleListener {
+
+    /**
+     * Compiled policies, keyed by the identity of their configuration.
+     */
+    private val policies = ConcurrentHashMap<SecurityConfig, SecurityPolicy>()
+
+    internal val policyCount: Int
+        get() = policies.size
 
     init {
+        engineLifecycle.registerListener(this)
         securityLifecycle.registerListener(securityListener)
     }
 
@@ -95,121 +106,50 @@ class SecurityServiceImpl @Inject constructor(
         return selectedConfig
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    override fun enforce(security: SecurityConfig, httpExchange: HttpExchange): Boolean {
-        val outcome: PolicyOutcome = if (security.conditions.isEmpty()) {
-            PolicyOutcome(security.defaultEffect, "default effect")
-        } else {
-            evaluatePolicy(security, httpExchange)
-        }
-        return enforceEffect(httpExchange, outcome)
+    override fun afterRoutesConfigured(
+        imposterConfig: ImposterConfig,
+        allPluginConfigs: List<PluginConfig>,
+        router: HttpRouter,
+    ) {
+        // compile all policies up front, so requests only evaluate them
+        listSecurityConfigs(allPluginConfigs).forEach(::getPolicy)
+        LOGGER.trace("Compiled {} security policies", policies.size)
     }
 
-    private fun evaluatePolicy(security: SecurityConfig?, httpExchange: HttpExchange): PolicyOutcome {
-        val failed = security!!.conditions.filter { c: SecurityCondition -> !checkCondition(c, httpExchange) }
+    override fun afterRoutesReloaded(
+        imposterConfig: ImposterConfig,
+        allPluginConfigs: List<PluginConfig>,
+        reloadedPluginConfigs: List<PluginConfig>,
+        router: HttpRouter,
+    ) {
+        val securityConfigs = listSecurityConfigs(allPluginConfigs)
+        securityConfigs.forEach(::getPolicy)
 
-        return if (failed.isEmpty()) {
-            PolicyOutcome(SecurityEffect.Permit, "all conditions")
-        } else {
-            PolicyOutcome(
-                SecurityEffect.Deny,
-                failed.joinToString(", ") { condition -> describeCondition(condition) }
-            )
-        }
+        // discard the policies of replaced configuration
+        policies.keys.retainAll(securityConfigs.toSet())
+        LOGGER.trace("Compiled {} security policies", policies.size)
     }
 
-    /**
-     * Determine if the condition permits the request to proceed.
-     *
-     * @param condition      the security condition
-     * @param httpExchange the HTTP exchange
-     * @return `true` if the condition permits the request, otherwise `false`
-     */
-    private fun checkCondition(condition: SecurityCondition, httpExchange: HttpExchange): Boolean {
-        val results = mutableListOf<SecurityEffect>()
-        val request = httpExchange.request
-
-        // query params
-        results.addAll(
-            checkCondition(
-                condition.queryParams,
-                request.queryParams,
-                condition.effect,
-                caseSensitiveKeyMatch = true
-            )
-        )
-
-        // form params
-        results.addAll(
-            checkCondition(
-                condition.formParams,
-                request.formParams,
-                condition.effect,
-                caseSensitiveKeyMatch = true
-            )
-        )
-
-        // headers
-        results.addAll(
-            checkCondition(
-                condition.requestHeaders,
-                request.headers,
-                condition.effect,
-                caseSensitiveKeyMatch = false
-            )
-        )
-
-        // all must permit
-        return results.all { effect -> SecurityEffect.Permit == effect }
-    }
+    private fun listSecurityConfigs(allPluginConfigs: List<PluginConfig>): List<SecurityConfig> =
+        allPluginConfigs.flatMap { config ->
+            listOfNotNull((config as? SecurityConfigHolder)?.securityConfig) +
+                (config as? ResourcesHolder<*>)?.resources.orEmpty().mapNotNull { resource ->
+                    (resource as? SecurityConfigHolder)?.securityConfig
+                }
+        }
 
     /**
-     * Determine the effect of each conditional name/value pair and operator.
-     * Keys in the request map may be compared in a case-insensitive manner, based
-     * on the value of caseSensitiveKeyMatch.
-     *
-     * @param conditionMap          the values from the condition
-     * @param requestMap            the values from the request
-     * @param conditionEffect       the effect of the condition if it is true
-     * @param caseSensitiveKeyMatch whether to match the keys case-sensitively
-     * @return the actual effect based on the values
+     * {@inheritDoc}
      */
-    private fun checkCondition(
-        conditionMap: Map<String, ConditionalNameValuePair>,
-        requestMap: Map<String, String>,
-        conditionEffect: SecurityEffect,
-        caseSensitiveKeyMatch: Boolean,
-    ): List<SecurityEffect> {
-        val comparisonMap = if (caseSensitiveKeyMatch) requestMap else convertKeysToLowerCase(requestMap)
-        return conditionMap.values.map { conditionValue: ConditionalNameValuePair ->
-            val key = if (caseSensitiveKeyMatch) conditionValue.name else conditionValue.name.lowercase(Locale.getDefault())
-            val requestConditionValue = comparisonMap[key]
-
-            val matched = conditionMatches(conditionValue, requestConditionValue)
-            val finalEffect: SecurityEffect = if (matched) {
-                conditionEffect
-            } else {
-                conditionEffect.invert()
-            }
-
-            if (LOGGER.isTraceEnabled) {
-                LOGGER.trace(
-                    "Condition match for {} {} {}: {}. Request map: {}. Effect: {}",
-                    conditionValue.name,
-                    conditionValue.operator,
-                    conditionValue.value,
-                    matched,
-                    comparisonMap.entries,
-                    finalEffect
-                )
-            }
-            return@map finalEffect
-        }
+    override fun enforce(security: SecurityConfig, httpExchange: HttpExchange): Boolean {
+        val outcome = getPolicy(security).evaluate(httpExchange.request)
+        return enforceEffect(httpExchange, outcome)
     }
 
-    private fun enforceEffect(httpExchange: HttpExchange, outcome: PolicyOutcome): Boolean {
+    private fun getPolicy(security: SecurityConfig): SecurityPolicy =
+        policies.computeIfAbsent(security) { SecurityPolicy.compile(it) }
+
+    private fun enforceEffect(httpExchange: HttpExchange, outcome: SecurityPolicy.PolicyOutcome): Boolean {
         return if (SecurityEffect.Permit != outcome.effect) {
             LOGGER.warn(
                 "Denying request {} due to security policy - {}",
@@ -226,28 +166,6 @@ class SecurityServiceImpl @Inject constructor(
         }
     }
 
-    private fun describeCondition(condition: SecurityCondition): String {
-        val description = StringBuilder()
-        describeConditionPart(description, condition.queryParams, "query conditions")
-        describeConditionPart(description, condition.requestHeaders, "header conditions")
-        return description.toString()
-    }
-
-    private fun describeConditionPart(
-        description: StringBuilder,
-        part: Map<String, ConditionalNameValuePair>,
-        partType: String,
-    ) {
-        if (part.isNotEmpty()) {
-            if (description.isNotEmpty()) {
-                description.append(", ")
-            }
-            description.append(partType).append(": [").append(java.lang.String.join(", ", part.keys)).append("]")
-        }
-    }
-
-    private class PolicyOutcome(val effect: SecurityEffect, val policySource: String)
-
     companion object {
         private val LOGGER = LogManager.getLogger(
             SecurityServiceImpl::class.java
@@ -76,11 +76,11 @@ object BodyQueryUtil {
             .build()
     )
 
-    private fun buildXPath(
+    private fun <T> buildXPath(
         expression: String,
         xPathNamespaces: List<Namespace> = emptyList(),
-        filter: Filter<*> = Filters.element()
-    ): XPathExpression<*> {
+        filter: Filter<T>,
+    ): XPathExpression<T> {
         val finalXPath = if (expression.startsWith('!')) {
             normaliseXPathExpression(expression.substring(1))
         } else {
@@ -93,19 +93,36 @@ object BodyQueryUtil {
         namespaces?.map { (prefix, uri) -> Namespace.getNamespace(prefix, uri) } ?: emptyList()
 
     fun selectSingleNode(context: Any, expression: String, xPathNamespaces: List<Namespace>): Element? {
-        val xPath = buildXPath(expression, xPathNamespaces)
+        val xPath = buildXPath(expression, xPathNamespaces, Filters.element())
         return xPath.evaluateFirst(context) as Element?
     }
 
     @Suppress("UNCHECKED_CAST")
     fun selectNodes(context: Any, expression: String, xPathNamespaces: List<Namespace>): List<Element> {
-        val xPath = buildXPath(expression, xPathNamespaces)
+        val xPath = buildXPath(expression, xPathNamespaces, Filters.element())
         return xPath.evaluate(context) as List<Element>
     }
 
     fun queryRequestBodyJsonPath(
         jsonPath: String,
         httpExchange: HttpExchange
+    ): Any? {
+        val compiled = try {
+            JsonPath.compile(jsonPath)
+        } catch (e: Exception) {
+            logger.warn("Error compiling JsonPath expression '$jsonPath' for ${LogUtil.describeRequest(httpExchange)}", e)
+            return null
+        }
+        return queryRequestBodyJsonPath(compiled, httpExchange)
+    }
+
+    /**
+     * As [queryRequestBodyJsonPath], but using a precompiled [JsonPath],
+     * for callers that evaluate the same expression for many requests.
+     */
+    fun queryRequestBodyJsonPath(
+        jsonPath: JsonPath,
+        httpExchange: HttpExchange
     ): Any? {
         val body = httpExchange.request.bodyAsString
         return if (Strings.isNullOrEmpty(body)) {
@@ -118,7 +135,7 @@ object BodyQueryUtil {
                 // this is just a negative result
                 null
             } catch (e: Exception) {
-                logger.warn("Error evaluating JsonPath expression '$jsonPath' against request body for ${LogUtil.describeRequest(httpExchange)}", e)
+                logger.warn("Error evaluating JsonPath expression '${jsonPath.path}' against request body for ${LogUtil.describeRequest(httpExchange)}", e)
                 null
             }
         }
@@ -144,6 +161,24 @@ object BodyQueryUtil {
         xPath: String,
         xmlNamespaces: Map<String, String>?,
         httpExchange: HttpExchange,
+    ): Any? {
+        val compiled = try {
+            compileXPath(xPath, xmlNamespaces)
+        } catch (e: Exception) {
+            logger.warn("Error compiling XPath expression '$xPath' for ${LogUtil.describeRequest(httpExchange)}", e)
+            return null
+        }
+        return queryRequestBodyXPath(compiled, httpExchange)
+    }
+
+    /**
+     * As [queryRequestBodyXPath], but using an expression precompiled
+     * with [compileXPath], for callers that evaluate the same expression
+     * for many requests.
+     */
+    fun queryRequestBodyXPath(
+        xPath: XPathExpression<Any>,
+        httpExchange: HttpExchange,
     ): Any? {
         val body = httpExchange.request.bodyAsString
         return if (Strings.isNullOrEmpty(body)) {
@@ -151,16 +186,24 @@ object BodyQueryUtil {
         } else {
             try {
                 val document = getRequestXmlDocument(httpExchange, body)
-                getXPathValue(document, xPath, buildNamespaces(xmlNamespaces))
+                getXPathValue(document, xPath)
             } catch (e: Exception) {
-                logger.warn("Error evaluating XPath expression '$xPath' against request body for ${LogUtil.describeRequest(httpExchange)}", e)
+                logger.warn("Error evaluating XPath expression '${xPath.expression}' against request body for ${LogUtil.describeRequest(httpExchange)}", e)
                 null
             }
         }
     }
 
-    fun getXPathValue(context: Any, expression: String, xPathNamespaces: List<Namespace>): String? {
-        val xPath = buildXPath(expression, xPathNamespaces, Filters.fpassthrough())
+    /**
+     * Compiles an XPath expression suitable for [getXPathValue].
+     */
+    fun compileXPath(expression: String, xmlNamespaces: Map<String, String>?): XPathExpression<Any> =
+        buildXPath(expression, buildNamespaces(xmlNamespaces), Filters.fpassthrough())
+
+    fun getXPathValue(context: Any, expression: String, xPathNamespaces: List<Namespace>): String? =
+        getXPathValue(context, buildXPath(expression, xPathNamespaces, Filters.fpassthrough()))
+
+    private fun getXPathValue(context: Any, xPath: XPathExpression<*>): String? {
         return when (val result = xPath.evaluateFirst(context)) {
             is Content -> result.value // matches also Element
             is Attribute -> result.value
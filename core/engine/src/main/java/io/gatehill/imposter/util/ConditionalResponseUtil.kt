@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.util
+
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import com.google.common.hash.Hashing
+import com.google.common.io.MoreFiles
+import io.gatehill.imposter.config.util.EnvVars
+import io.gatehill.imposter.http.HttpExchange
+import io.gatehill.imposter.http.HttpMethod
+import io.gatehill.imposter.http.HttpRequest
+import kotlinx.coroutines.future.future
+import kotlinx.coroutines.launch
+import org.apache.logging.log4j.LogManager
+import java.io.File
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.attribute.BasicFileAttributes
+import java.time.Instant
+import java.time.ZoneOffset
+import java.time.ZonedDateTime
+import java.time.format.DateTimeFormatter
+import java.time.format.DateTimeParseException
+import java.util.concurrent.CompletableFuture
+
+/**
+ * Adds validators to file responses, and answers conditional requests
+ * with `304 Not Modified`.
+ *
+ * The `ETag` is a strong validator derived from the SHA-256 hash of the file
+ * content. Hashes are cached, keyed by the modification time and size of the
+ * file, and are computed on a worker thread, so the file content is not read
+ * on the event loop.
+ *
+ * @author Pete Cornish
+ */
+object ConditionalResponseUtil {
+    private val LOGGER = LogManager.getLogger(ConditionalResponseUtil::class.java)
+    private const val ENV_CONDITIONAL_RESPONSES = "IMPOSTER_CONDITIONAL_RESPONSES"
+    private const val MAX_CACHED_FILES = 10_000L
+
+    private const val HEADER_ETAG = "ETag"
+    private const val HEADER_LAST_MODIFIED = "Last-Modified"
+    private const val HEADER_IF_NONE_MATCH = "If-None-Match"
+    private const val HEADER_IF_MODIFIED_SINCE = "If-Modified-Since"
+    private const val HEADER_ACCEPT_ENCODING = "Accept-Encoding"
+    private const val HEADER_CONTENT_ENCODING = "Content-Encoding"
+    private const val HEADER_VARY = "Vary"
+
+    /**
+     * Precompressed variants, in order of preference, keyed by content encoding.
+     */
+    private val PRECOMPRESSED_EXTENSIONS = linkedMapOf(
+        "br" to ".br",
+        "gzip" to ".gz",
+    )
+
+    private val HTTP_DATE_FORMATTER: DateTimeFormatter = DateTimeFormatter.RFC_1123_DATE_TIME
+
+    private val enabled: Boolean by lazy {
+        EnvVars.getEnv(ENV_CONDITIONAL_RESPONSES)?.toBoolean() != false
+    }
+
+    private val fileCache: Cache<String, FileValidators> = CacheBuilder.newBuilder()
+        .maximumSize(MAX_CACHED_FILES)
+        .build()
+
+    /**
+     * Sets the validators for [file] on the response. If the request is conditional
+     * and the client's copy is current, a `304 Not Modified` response is sent.
+     *
+     * If [allowPrecompressed] is `true` and a precompressed variant of the file exists
+     * that the client accepts, such as `file.txt.gz`, the variant is selected and
+     * the `Content-Encoding` header is set.
+     *
+     * If the file has not been hashed since it was last modified, it is hashed
+     * on a worker thread before the future completes.
+     *
+     * @return the path of the file to send, or `null` if the response has been sent
+     */
+    fun prepareFileResponse(httpExchange: HttpExchange, file: File, allowPrecompressed: Boolean): CompletableFuture<String?> {
+        if (!isConditional(httpExchange)) {
+            return CompletableFuture.completedFuture(file.path)
+        }
+        selectFile(httpExchange.request, file, allowPrecompressed, hash = false)?.let { selected ->
+            return CompletableFuture.completedFuture(applyValidators(httpExchange, file, selected))
+        }
+        return supervisedIOCoroutineScope.future {
+            applyValidators(httpExchange, file, selectFile(httpExchange.request, file, allowPrecompressed, hash = true))
+        }
+    }
+
+    /**
+     * As [prepareFileResponse], but does not wait for the file to be hashed. If the file
+     * has not been hashed since it was last modified, the response has no validators,
+     * and the file is hashed on a worker thread for later requests.
+     *
+     * @return the path of the file to send, or `null` if the response has been sent
+     */
+    fun prepareHashedFileResponse(httpExchange: HttpExchange, file: File, allowPrecompressed: Boolean): String? {
+        if (!isConditional(httpExchange)) {
+            return file.path
+        }
+        selectFile(httpExchange.request, file, allowPrecompressed, hash = false)?.let { selected ->
+            return applyValidators(httpExchange, file, selected)
+        }
+        LOGGER.trace("File {} not yet hashed - sending without validators", file)
+        supervisedIOCoroutineScope.launch { hashFiles(listOf(file)) }
+        return file.path
+    }
+
+    /**
+     * Hashes each of the [files], and their precompressed variants, that have not been
+     * hashed since they were last modified. This reads the files on the calling thread.
+     */
+    fun hashFiles(files: Collection<File>) {
+        if (!enabled) {
+            return
+        }
+        files.forEach { file ->
+            getValidators(file, hash = true)?.variants?.values?.forEach { getValidators(File(it), hash = true) }
+        }
+    }
+
+    private fun isConditional(httpExchange: HttpExchange): Boolean {
+        val method = httpExchange.request.method
+        return enabled && httpExchange.response.statusCode == HttpUtil.HTTP_OK &&
+            (method == HttpMethod.GET || method == HttpMethod.HEAD)
+    }
+
+    /**
+     * @param hash whether to hash files that have not been hashed since they were last modified
+     * @return the file to serve, or `null` if [file] is not a regular file, or if [hash] is `false`
+     * and the file, or its selected variant, has not been hashed since it was last modified
+     */
+    private fun selectFile(request: HttpRequest, file: File, allowPrecompressed: Boolean, hash: Boolean): SelectedFile? {
+        val validators = getValidators(file, hash) ?: return null
+        val varyByEncoding = allowPrecompressed && validators.variants.isNotEmpty()
+        if (varyByEncoding) {
+            val accepted = parseAcceptEncoding(request.getHeader(HEADER_ACCEPT_ENCODING))
+            validators.variants.entries.firstOrNull { it.key in accepted }?.let { (encoding, variantPath) ->
+                val variant = getValidators(File(variantPath), hash)
+                if (null != variant) {
+                    return SelectedFile(validators, variant, encoding, varyByEncoding)
+                } else if (!hash) {
+                    return null
+                }
+            }
+        }
+        return SelectedFile(validators, validators, null, varyByEncoding)
+    }
+
+    /**
+     * @return the path of the file to send, or `null` if the response has been sent
+     */
+    private fun applyValidators(httpExchange: HttpExchange, file: File, selected: SelectedFile?): String? {
+        selected ?: return file.path
+        val response = httpExchange.response
+        val validators = selected.validators
+
+        if (selected.varyByEncoding) {
+            response.putHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING)
+        }
+        response.putHeader(HEADER_ETAG, selected.served.etag)
+        response.putHeader(HEADER_LAST_MODIFIED, formatHttpDate(validators.lastModified))
+
+        if (isNotModified(httpExchange.request, selected.served.etag, validators.lastModified)) {
+            LOGGER.trace("File {} not modified - sending 304", file)
+            response.setStatusCode(HttpUtil.HTTP_NOT_MODIFIED).end()
+            return null
+        }
+        selected.contentEncoding?.let { response.putHeader(HEADER_CONTENT_ENCODING, it) }
+        return selected.served.path
+    }
+
+    /**
+     * Reads the file attributes, and returns the cached validators if the file is
+     * unchanged. Otherwise, if [hash] is `true`, the file content is hashed, and
+     * its precompressed variants are looked up again.
+     *
+     * @return the validators for the file, or `null` if it is not a regular file,
+     * or if [hash] is `false` and the file has not been hashed since it was last modified
+     */
+    private fun getValidators(file: File, hash: Boolean): FileValidators? {
+        val path = file.absolutePath
+        val attributes = readAttributes(file) ?: return null
+        val lastModified = attributes.lastModifiedTime().toMillis()
+        val size = attributes.size()
+
+        fileCache.getIfPresent(path)?.let { cached ->
+            if (cached.lastModified == lastModified && cached.size == size) {
+                return cached
+            }
+        }
+        if (!hash) {
+            return null
+        }
+        val validators = FileValidators(
+            path = path,
+            etag = "\"" + MoreFiles.asByteSource(file.toPath()).hash(Hashing.sha256()) + "\"",
+            lastModified = lastModified,
+            size = size,
+            variants = PRECOMPRESSED_EXTENSIONS.mapValues { (_, ext) -> path + ext }
+                .filterValues { File(it).isFile },
+        )
+
+        // don't cache the hash if the file changed while it was read
+        readAttributes(file)?.takeIf { it.lastModifiedTime().toMillis() == lastModified && it.size() == size }?.let {
+            fileCache.put(path, validators)
+        }
+        return validators
+    }
+
+    private fun readAttributes(file: File): BasicFileAttributes? = try {
+        Files.readAttributes(file.toPath(), BasicFileAttributes::class.java).takeIf { it.isRegularFile }
+    } catch (e: IOException) {
+        null
+    }
+
+    private fun isNotModified(request: HttpRequest, etag: String, lastModified: Long): Boolean {
+        // If-None-Match takes precedence; the ETag is a content hash, so only an identical strong tag matches
+        request.getHeader(HEADER_IF_NONE_MATCH)?.let { ifNoneMatch ->
+            return ifNoneMatch.split(',').map { it.trim() }.any { candidate ->
+                candidate == "*" || candidate == etag
+            }
+        }
+        request.getHeader(HEADER_IF_MODIFIED_SINCE)?.let { ifModifiedSince ->
+            return try {
+                val since = ZonedDateTime.parse(ifModifiedSince, HTTP_DATE_FORMATTER).toEpochSecond()
+                lastModified / 1000 <= since
+            } catch (e: DateTimeParseException) {
+                LOGGER.trace("Ignoring invalid {} header: {}", HEADER_IF_MODIFIED_SINCE, ifModifiedSince)
+                false
+            }
+        }
+        return false
+    }
+
+    /**
+     * @return the encodings accepted by the client, excluding those with a zero quality value
+     */
+    private fun parseAcceptEncoding(acceptEncoding: String?): Set<String> {
+        if (acceptEncoding.isNullOrBlank()) {
+            return emptySet()
+        }
+        return acceptEncoding.split(',').mapNotNull { token ->
+            val parts = token.split(';').map { it.trim() }
+            val quality = parts.drop(1).firstOrNull { it.startsWith("q=") }
+                ?.substringAfter("q=")?.toDoubleOrNull() ?: 1.0
+            parts[0].lowercase().takeIf { it.isNotEmpty() && quality > 0 }
+        }.toSet()
+    }
+
+    private fun formatHttpDate(epochMillis: Long): String =
+        HTTP_DATE_FORMATTER.format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC))
+
+    /**
+     * @property validators the validators of the requested file
+     * @property served the validators of the file to send, which may be a precompressed variant
+     * @property varyByEncoding whether the file sent depends on the accepted encodings
+     */
+    private class SelectedFile(
+        val validators: FileValidators,
+        val served: FileValidators,
+        val contentEncoding: String?,
+        val varyByEncoding: Boolean,
+    )
+
+    private class FileValidators(
+        val path: String,
+        val etag: String,
+        val lastModified: Long,
+        val size: Long,
+        val variants: Map<String, String>,
+    )
+}
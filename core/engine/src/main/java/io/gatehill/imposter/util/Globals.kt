@@ -44,6 +44,7 @@ package io.gatehill.imposter.util
 
 import com.google.inject.Singleton
 import com.google.inject.binder.ScopedBindingBuilder
+import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
@@ -83,7 +84,34 @@ fun <T>makeFuture(autoComplete: Boolean = true, block: (CompletableFuture<T>) ->
 
 fun completedUnitFuture(): CompletableFuture<Unit> = CompletableFuture.completedFuture(Unit)
 
+/**
+ * Dispatches request handling. Uses virtual threads if enabled, otherwise [Dispatchers.Default].
+ *
+ * Resolved on each access, as envfiles are loaded after this file is initialised.
+ */
+val requestDispatcher: CoroutineDispatcher
+    get() = VirtualThreadUtil.dispatcher ?: Dispatchers.Default
+
+/**
+ * Dispatches blocking operations. Uses virtual threads if enabled, otherwise [Dispatchers.IO].
+ *
+ * Resolved on each access, as envfiles are loaded after this file is initialised.
+ */
+val blockingDispatcher: CoroutineDispatcher
+    get() = VirtualThreadUtil.dispatcher ?: Dispatchers.IO
+
 val supervisedDefaultCoroutineScope = CoroutineScope(Dispatchers.Default + SupervisorJob())
-val supervisedIOCoroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob())
+
+/**
+ * A new supervised scope using the [requestDispatcher] in effect when it is accessed.
+ */
+val supervisedRequestCoroutineScope: CoroutineScope
+    get() = CoroutineScope(requestDispatcher + SupervisorJob())
+
+/**
+ * A new supervised scope using the [blockingDispatcher] in effect when it is accessed.
+ */
+val supervisedIOCoroutineScope: CoroutineScope
+    get() = CoroutineScope(blockingDispatcher + SupervisorJob())
 
 fun ScopedBindingBuilder.asSingleton() = `in`(Singleton::class.java)
@@ -103,14 +103,14 @@ object LogUtil {
     /**
      * Whether to log the request body.
      */
-    private val logRequestBody: Boolean by lazy {
+    val logRequestBody: Boolean by lazy {
         EnvVars.getEnv("IMPOSTER_LOG_REQUEST_BODY")?.toBoolean() == true
     }
 
     /**
      * Whether to log the response body.
      */
-    private val logResponseBody: Boolean by lazy {
+    val logResponseBody: Boolean by lazy {
         EnvVars.getEnv("IMPOSTER_LOG_RESPONSE_BODY")?.toBoolean() == true
     }
 
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.util
+
+import io.gatehill.imposter.ImposterConfig
+import io.gatehill.imposter.config.ConfigReference
+import io.gatehill.imposter.config.LoadedConfig
+import io.gatehill.imposter.config.util.EnvVars
+import io.gatehill.imposter.config.util.MetaUtil
+import io.gatehill.imposter.model.snapshot.SnapshotConfig
+import io.gatehill.imposter.model.snapshot.SnapshotInputs
+import io.gatehill.imposter.model.snapshot.StartupSnapshot
+import org.apache.logging.log4j.LogManager
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+import java.util.stream.Collectors
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+import kotlin.io.path.exists
+import kotlin.io.path.inputStream
+import kotlin.io.path.isRegularFile
+import kotlin.io.path.outputStream
+
+/**
+ * Reads and writes startup snapshots, which hold the result of configuration
+ * discovery, interpolation and parsing, and data recorded by plugins, such
+ * as parsed specifications.
+ *
+ * A snapshot is written by the `prepare` command, and used at startup if
+ * the `IMPOSTER_SNAPSHOT_PATH` environment variable points to it. The snapshot
+ * is ignored if any of its inputs have changed, such as the content of any file
+ * in the configuration directories, or the value of an environment variable
+ * referenced by the configuration.
+ *
+ * @author Pete Cornish
+ */
+object StartupSnapshotUtil {
+    private val LOGGER = LogManager.getLogger(StartupSnapshotUtil::class.java)
+    private const val FORMAT_VERSION = 1
+    private val envReferencePattern = Regex("\\$\\{env\\.([a-zA-Z0-9_]+)")
+
+    private var active: StartupSnapshot? = null
+    private var recording: MutableMap<String, MutableMap<String, String>>? = null
+
+    val snapshotPath: Path?
+        get() = EnvVars.getEnv("IMPOSTER_SNAPSHOT_PATH")?.takeIf { it.isNotBlank() }?.let { Paths.get(it) }
+
+    /**
+     * Enables recording of plugin data, for inclusion in a snapshot.
+     */
+    fun startRecording() {
+        recording = ConcurrentHashMap()
+    }
+
+    /**
+     * Records data for inclusion in the snapshot being prepared. Has no
+     * effect unless recording has been started.
+     */
+    fun recordEntry(namespace: String, key: String, value: () -> String) {
+        recording?.let { entries ->
+            entries.getOrPut(namespace) { ConcurrentHashMap() }[key] = value()
+        }
+    }
+
+    /**
+     * @return the data recorded in the active snapshot, or `null`
+     */
+    fun lookupEntry(namespace: String, key: String): String? = active?.entries?.get(namespace)?.get(key)
+
+    /**
+     * Loads the snapshot from [snapshotPath], if it exists and its configuration
+     * file inputs match the current configuration.
+     *
+     * Note that the environment variables referenced by the configuration should be
+     * checked with [isEnvCurrent] after any envfiles have been applied.
+     */
+    fun load(imposterConfig: ImposterConfig): StartupSnapshot? {
+        val path = snapshotPath?.takeIf { it.exists() } ?: return null
+        try {
+            val snapshot = GZIPInputStream(path.inputStream()).use {
+                MapUtil.JSON_MAPPER.readValue(it, StartupSnapshot::class.java)
+            }
+            val staleReason = when {
+                snapshot.formatVersion != FORMAT_VERSION -> "format version ${snapshot.formatVersion}"
+                snapshot.engineVersion != MetaUtil.readVersion() -> "engine version ${snapshot.engineVersion}"
+                snapshot.inputs.configDirs != imposterConfig.configDirs.toList() -> "configuration directories"
+                snapshot.inputs.plugins != imposterConfig.plugins?.toList().orEmpty() -> "plugins"
+                snapshot.inputs.fileHashes != hashFiles(imposterConfig.configDirs) -> "configuration files"
+                else -> null
+            }
+            if (null != staleReason) {
+                LOGGER.info("Ignoring stale startup snapshot {} - changed {}", path, staleReason)
+                return null
+            }
+            LOGGER.debug("Loaded startup snapshot: {}", path)
+            return snapshot
+
+        } catch (e: Exception) {
+            LOGGER.warn("Ignoring unreadable startup snapshot: $path", e)
+            return null
+        }
+    }
+
+    /**
+     * @return `true` if the environment and engine settings match those used to build the snapshot
+     */
+    fun isEnvCurrent(imposterConfig: ImposterConfig, snapshot: StartupSnapshot): Boolean {
+        val current = snapshot.inputs.envHashes == hashEnv(snapshot.inputs.envHashes.keys) &&
+            snapshot.inputs.settingsHash == hashSettings(imposterConfig)
+        if (!current) {
+            LOGGER.info("Ignoring stale startup snapshot - environment has changed")
+        }
+        return current
+    }
+
+    /**
+     * Makes the entries in the snapshot available via [lookupEntry].
+     */
+    fun activate(snapshot: StartupSnapshot) {
+        active = snapshot
+    }
+
+    /**
+     * @return the configurations in the snapshot, grouped by plugin class
+     */
+    fun restoreConfigs(snapshot: StartupSnapshot): Map<String, List<LoadedConfig>> {
+        val pluginConfigs = mutableMapOf<String, MutableList<LoadedConfig>>()
+        snapshot.configs.forEach { config ->
+            val ref = ConfigReference(File(config.file), File(config.configRoot))
+            pluginConfigs.getOrPut(config.pluginClass) { mutableListOf() } +=
+                LoadedConfig(ref, config.serialised, config.plugin)
+        }
+        return pluginConfigs
+    }
+
+    /**
+     * Writes a snapshot of the configuration, and any data recorded since [startRecording].
+     */
+    fun write(
+        path: Path,
+        imposterConfig: ImposterConfig,
+        pluginConfigs: Map<String, List<LoadedConfig>>,
+        pluginNames: Map<String, String>,
+        envFiles: List<Path>,
+    ) {
+        val configs = pluginConfigs.flatMap { (pluginClass, loadedConfigs) ->
+            loadedConfigs.map { loaded ->
+                SnapshotConfig(
+                    file = loaded.ref.file.absolutePath,
+                    configRoot = loaded.ref.configRoot.absolutePath,
+                    pluginClass = pluginClass,
+                    plugin = loaded.plugin,
+                    serialised = loaded.serialised,
+                )
+            }
+        }
+        val envReferences = pluginConfigs.values.flatten()
+            .flatMap { envReferencePattern.findAll(it.ref.file.readText()).map { m -> m.groupValues[1] }.toList() }
+            .toSet()
+
+        val snapshot = StartupSnapshot(
+            formatVersion = FORMAT_VERSION,
+            engineVersion = MetaUtil.readVersion(),
+            inputs = SnapshotInputs(
+                configDirs = imposterConfig.configDirs.toList(),
+                plugins = imposterConfig.plugins?.toList().orEmpty(),
+                fileHashes = hashFiles(imposterConfig.configDirs),
+                envHashes = hashEnv(envReferences),
+                settingsHash = hashSettings(imposterConfig),
+            ),
+            pluginNames = pluginNames,
+            envFiles = envFiles.map { it.toAbsolutePath().toString() },
+            configs = configs,
+            entries = recording.orEmpty(),
+        )
+
+        path.toAbsolutePath().parent?.let { Files.createDirectories(it) }
+        GZIPOutputStream(path.outputStream()).use { MapUtil.JSON_MAPPER.writeValue(it, snapshot) }
+        LOGGER.info("Wrote startup snapshot with {} configuration file(s) to: {}", configs.size, path)
+    }
+
+    private fun hashFiles(configDirs: Array<String>): Map<String, String> {
+        val excluded = snapshotPath?.toAbsolutePath()
+        return configDirs.flatMap { configDir ->
+            val dir = Paths.get(configDir)
+            check(dir.exists()) { "Configuration directory $configDir must be local to use a startup snapshot" }
+            Files.walk(dir).use { paths ->
+                paths.filter { it.isRegularFile() }.map { it.toAbsolutePath() }.filter { it != excluded }.collect(Collectors.toList())
+            }
+        }.sorted().associate { it.toString() to hash(Files.readAllBytes(it)) }
+    }
+
+    private fun hashEnv(names: Collection<String>): Map<String, String> =
+        names.associateWith { hash((EnvVars.getEnv(it) ?: "\u0000unset").toByteArray()) }
+
+    private fun hashSettings(imposterConfig: ImposterConfig): String {
+        val settings = listOf(
+            imposterConfig.host,
+            imposterConfig.listenPort,
+            imposterConfig.serverUrl,
+            EnvVars.getEnv("IMPOSTER_CONFIG_SCAN_RECURSIVE"),
+            EnvVars.getEnv("IMPOSTER_IGNORE_CONFIG_ERRORS"),
+            EnvVars.discoverEnvFiles,
+        )
+        return hash(settings.joinToString("\n").toByteArray())
+    }
+
+    private fun hash(data: ByteArray): String =
+        MessageDigest.getInstance("SHA-256").digest(data).joinToString("") { "%02x".format(it) }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.util
+
+import io.gatehill.imposter.config.util.EnvVars
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.asCoroutineDispatcher
+import org.apache.logging.log4j.LogManager
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * Provides a coroutine dispatcher backed by JDK virtual threads, if
+ * enabled with the `IMPOSTER_VIRTUAL_THREADS` environment variable.
+ *
+ * Blocking calls, such as store access, script execution, file reads
+ * and upstream HTTP calls, park the virtual thread instead of holding
+ * a pool thread, so concurrency is not limited by the size of the
+ * [kotlinx.coroutines.Dispatchers.Default] or [kotlinx.coroutines.Dispatchers.IO] pools.
+ *
+ * Virtual threads require Java 21 or later. On earlier versions, a warning
+ * is logged and the standard dispatchers are used.
+ *
+ * @author Pete Cornish
+ */
+object VirtualThreadUtil {
+    private val LOGGER = LogManager.getLogger(VirtualThreadUtil::class.java)
+    const val ENV_VAR_VIRTUAL_THREADS = "IMPOSTER_VIRTUAL_THREADS"
+
+    val enabled: Boolean
+        get() = EnvVars.getEnv(ENV_VAR_VIRTUAL_THREADS)?.toBoolean() == true
+
+    private val virtualThreadDispatcher: CoroutineDispatcher? by lazy {
+        buildExecutor()?.asCoroutineDispatcher()
+    }
+
+    /**
+     * The virtual thread dispatcher, or `null` if virtual threads
+     * are disabled or not supported by the JVM.
+     *
+     * The setting is read on each access, so it reflects envfiles
+     * loaded after this class is initialised.
+     */
+    val dispatcher: CoroutineDispatcher?
+        get() = if (enabled) virtualThreadDispatcher else null
+
+    internal fun buildExecutor(): ExecutorService? {
+        return try {
+            // looked up reflectively, as the engine targets Java 11
+            val factory = Executors::class.java.getMethod("newVirtualThreadPerTaskExecutor")
+            val executor = factory.invoke(null) as ExecutorService
+            LOGGER.debug("Using virtual threads for request handling and blocking operations")
+            executor
+        } catch (e: ReflectiveOperationException) {
+            warnUnavailable(e)
+            null
+        } catch (e: UnsupportedOperationException) {
+            warnUnavailable(e)
+            null
+        }
+    }
+
+    private fun warnUnavailable(cause: Exception) {
+        LOGGER.warn(
+            "Virtual threads require Java 21 or later, but are not available on Java {} - using standard thread pools",
+            getJvmVersion()
+        )
+        LOGGER.debug("Virtual thread executor could not be created", cause)
+    }
+}
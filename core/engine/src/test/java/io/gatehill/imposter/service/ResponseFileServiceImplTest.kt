@@ -43,11 +43,18 @@
 
 package io.gatehill.imposter.service
 
+import io.gatehill.imposter.http.ExchangePhase
 import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.http.HttpMethod
 import io.gatehill.imposter.http.HttpRequest
 import io.gatehill.imposter.http.HttpResponse
+import io.gatehill.imposter.lifecycle.EngineLifecycleHooks
+import io.gatehill.imposter.plugin.config.InterceptorsHolder
+import io.gatehill.imposter.plugin.config.PluginConfig
 import io.gatehill.imposter.plugin.config.PluginConfigImpl
+import io.gatehill.imposter.plugin.config.capture.CaptureConfigHolder
+import io.gatehill.imposter.plugin.config.capture.ItemCaptureConfig
+import io.gatehill.imposter.plugin.config.resource.BasicResourceConfig
 import io.gatehill.imposter.plugin.config.resource.RestResourceConfig
 import io.gatehill.imposter.script.ReadWriteResponseBehaviourImpl
 import io.vertx.core.Vertx
@@ -60,8 +67,12 @@ import org.mockito.kotlin.doAnswer
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.eq
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
 import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
 import java.io.File
+import java.nio.file.Files
 
 /**
  * Tests for [ResponseFileServiceImpl].
@@ -85,7 +96,7 @@ class ResponseFileServiceImplTest {
         val vertx = mock<Vertx> {
             on { fileSystem() } doReturn fileSystem
         }
-        val service = ResponseFileServiceImpl(responseService, vertx)
+        val service = ResponseFileServiceImpl(EngineLifecycleHooks(), responseService, vertx)
 
         val pluginConfig = PluginConfigImpl().apply {
             dir = File(ResponseFileServiceImplTest::class.java.getResource("/response-file.txt")!!.toURI()).parentFile
@@ -118,9 +129,117 @@ class ResponseFileServiceImplTest {
         )
     }
 
+    @Test
+    fun `should send file without buffering`() {
+        val responseService = mock<ResponseService>()
+        val fileSystem = mock<FileSystem>()
+        val vertx = mock<Vertx> {
+            on { fileSystem() } doReturn fileSystem
+        }
+        val service = ResponseFileServiceImpl(EngineLifecycleHooks(), responseService, vertx)
+
+        val responseFile = File(ResponseFileServiceImplTest::class.java.getResource("/response-file.txt")!!.toURI())
+        val pluginConfig = PluginConfigImpl().apply {
+            dir = responseFile.parentFile
+        }
+        val resourceConfig = RestResourceConfig()
+        val httpExchange = mockExchange(sendFileSupported = true)
+        val responseBehaviour = ReadWriteResponseBehaviourImpl().apply {
+            this.responseFile = "response-file.txt"
+        }
+
+        service.serveResponseFile(pluginConfig, resourceConfig, httpExchange, responseBehaviour)
+
+        verify(responseService).writeResponseFile(eq(resourceConfig), eq(httpExchange), eq("response-file.txt"), any())
+        verify(fileSystem, never()).readFileBlocking(any())
+    }
+
+    @Test
+    fun `should buffer file when an interceptor captures after the response is sent`() {
+        val responseService = mock<ResponseService>()
+        val fileSystem = mock<FileSystem> {
+            on { readFileBlocking(any()) } doAnswer {
+                val path = it.arguments[0] as String
+                Buffer.buffer(File(path).readBytes())
+            }
+        }
+        val vertx = mock<Vertx> {
+            on { fileSystem() } doReturn fileSystem
+        }
+        val service = ResponseFileServiceImpl(EngineLifecycleHooks(), responseService, vertx)
+
+        val responseFile = File(ResponseFileServiceImplTest::class.java.getResource("/response-file.txt")!!.toURI())
+        val interceptor = mock<BasicResourceConfig>(extraInterfaces = arrayOf(CaptureConfigHolder::class))
+        whenever((interceptor as CaptureConfigHolder).captureConfig).thenReturn(
+            mapOf(
+                "body" to ItemCaptureConfig(
+                    expression = "\${context.response.body}",
+                    phase = ExchangePhase.RESPONSE_SENT,
+                )
+            )
+        )
+        val pluginConfig = mock<PluginConfig>(extraInterfaces = arrayOf(InterceptorsHolder::class))
+        whenever(pluginConfig.dir).thenReturn(responseFile.parentFile)
+        whenever((pluginConfig as InterceptorsHolder<*>).interceptors).thenReturn(listOf(interceptor))
+
+        val httpExchange = mockExchange(sendFileSupported = true)
+        val responseBehaviour = ReadWriteResponseBehaviourImpl().apply {
+            this.responseFile = "response-file.txt"
+        }
+
+        service.serveResponseFile(pluginConfig, RestResourceConfig(), httpExchange, responseBehaviour)
+
+        verify(responseService, never()).writeResponseFile(any(), any(), any(), any())
+        verify(fileSystem).readFileBlocking(any())
+    }
+
+    @Test
+    fun `should reload cached file when modified`() {
+        val responseService = mock<ResponseService>()
+        val fileSystem = mock<FileSystem> {
+            on { readFileBlocking(any()) } doAnswer {
+                val path = it.arguments[0] as String
+                Buffer.buffer(File(path).readBytes())
+            }
+        }
+        val vertx = mock<Vertx> {
+            on { fileSystem() } doReturn fileSystem
+        }
+        val service = ResponseFileServiceImpl(EngineLifecycleHooks(), responseService, vertx)
+
+        val configDir = Files.createTempDirectory("response-file").toFile()
+        val responseFile = File(configDir, "response.txt").apply { writeText("first") }
+        val pluginConfig = PluginConfigImpl().apply {
+            dir = configDir
+        }
+        val httpExchange = mockExchange(sendFileSupported = false)
+        val responseBehaviour = ReadWriteResponseBehaviourImpl().apply {
+            this.responseFile = "response.txt"
+        }
+
+        // second request should be served from the cache
+        service.serveResponseFile(pluginConfig, null, httpExchange, responseBehaviour)
+        service.serveResponseFile(pluginConfig, null, httpExchange, responseBehaviour)
+        verify(fileSystem, times(1)).readFileBlocking(any())
+
+        responseFile.writeText("second")
+        responseFile.setLastModified(responseFile.lastModified() + 1000)
+
+        service.serveResponseFile(pluginConfig, null, httpExchange, responseBehaviour)
+        verify(fileSystem, times(2)).readFileBlocking(any())
+        verify(responseService).writeResponseData(
+            eq(null),
+            eq(httpExchange),
+            any(),
+            eq(Buffer.buffer("second")),
+            eq(false),
+            eq(false)
+        )
+    }
+
     @Test
     fun `should load file as JSON array`() {
-        val service = ResponseFileServiceImpl(mock(), mock())
+        val service = ResponseFileServiceImpl(EngineLifecycleHooks(), mock(), mock())
 
         val jsonFile = File(ResponseFileServiceImplTest::class.java.getResource("/test-array.json")!!.toURI())
         val pluginConfig = PluginConfigImpl().apply {
@@ -133,4 +252,18 @@ class ResponseFileServiceImplTest {
 
         assertEquals(1, result.size())
     }
+
+    private fun mockExchange(sendFileSupported: Boolean): HttpExchange {
+        val httpRequest = mock<HttpRequest> {
+            on { method } doReturn HttpMethod.GET
+            on { path } doReturn "/foo"
+        }
+        val httpResponse = mock<HttpResponse> {
+            on { this.sendFileSupported } doReturn sendFileSupported
+        }
+        return mock<HttpExchange> {
+            on { request } doReturn httpRequest
+            on { response } doReturn httpResponse
+        }
+    }
 }
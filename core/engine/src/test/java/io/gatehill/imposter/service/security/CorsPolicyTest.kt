@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.service.security
+
+import io.gatehill.imposter.http.HttpResponse
+import io.gatehill.imposter.plugin.config.security.CorsConfig
+import io.gatehill.imposter.util.HttpUtil
+import io.gatehill.imposter.util.MapUtil
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.verify
+
+/**
+ * Tests for [CorsPolicy].
+ */
+class CorsPolicyTest {
+    @Test
+    fun `should not allow any origin if unset`() {
+        val policy = compile("allowCredentials: true")
+        assertNull(policy.determineResponseOrigin("https://example.com"))
+    }
+
+    @Test
+    fun `should allow listed origins`() {
+        val policy = compile(
+            """
+            allowOrigins:
+              - https://example.com
+              - https://example.org
+            """.trimIndent()
+        )
+        assertEquals("https://example.com", policy.determineResponseOrigin("https://example.com"))
+        assertEquals("https://example.org", policy.determineResponseOrigin("https://example.org"))
+        assertNull(policy.determineResponseOrigin("https://example.net"))
+        assertNull(policy.determineResponseOrigin(null))
+    }
+
+    @Test
+    fun `should allow single origin`() {
+        val policy = compile("allowOrigins: https://example.com")
+        assertEquals("https://example.com", policy.determineResponseOrigin("https://example.com"))
+        assertNull(policy.determineResponseOrigin("https://example.net"))
+    }
+
+    @Test
+    fun `should return wildcard for unlisted origin`() {
+        val policy = compile(
+            """
+            allowOrigins:
+              - https://example.com
+              - "*"
+            """.trimIndent()
+        )
+        assertEquals("https://example.com", policy.determineResponseOrigin("https://example.com"))
+        assertEquals("*", policy.determineResponseOrigin("https://example.net"))
+    }
+
+    @Test
+    fun `should echo request origin if all origins allowed`() {
+        val policy = compile("allowOrigins: all")
+        assertEquals("https://example.net", policy.determineResponseOrigin("https://example.net"))
+    }
+
+    @Test
+    fun `should add rendered headers`() {
+        val policy = compile(
+            """
+            allowOrigins: all
+            allowMethods: [ GET, POST ]
+            maxAge: 300
+            """.trimIndent()
+        )
+        val response = mock<HttpResponse> {
+            on { putHeader(any(), any()) } doReturn mock
+        }
+        policy.addHeaders(response, "https://example.com")
+
+        verify(response).putHeader(eq(HttpUtil.CORS_ALLOW_ORIGIN), eq("https://example.com"))
+        verify(response).putHeader(eq("Access-Control-Allow-Methods"), eq("GET,POST"))
+        verify(response).putHeader(eq("Access-Control-Allow-Headers"), eq("*"))
+        verify(response).putHeader(eq("Access-Control-Allow-Credentials"), eq("true"))
+        verify(response).putHeader(eq("Access-Control-Max-Age"), eq("300"))
+    }
+
+    private fun compile(yaml: String) =
+        CorsPolicy.compile(MapUtil.YAML_MAPPER.readValue(yaml, CorsConfig::class.java))
+}
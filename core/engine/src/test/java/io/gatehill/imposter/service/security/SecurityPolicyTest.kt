@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.service.security
+
+import io.gatehill.imposter.http.HttpRequest
+import io.gatehill.imposter.plugin.config.security.SecurityConfig
+import io.gatehill.imposter.plugin.config.security.SecurityEffect
+import io.gatehill.imposter.util.MapUtil
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+
+/**
+ * Tests for [SecurityPolicy].
+ */
+class SecurityPolicyTest {
+    @Test
+    fun `should apply default effect without conditions`() {
+        val denyAll = compile("default: Deny")
+        assertEquals(SecurityEffect.Deny, denyAll.evaluate(buildRequest()).effect)
+
+        val permitAll = compile("default: Permit")
+        assertEquals(SecurityEffect.Permit, permitAll.evaluate(buildRequest()).effect)
+    }
+
+    @Test
+    fun `should permit when permit condition matches`() {
+        val policy = compile(
+            """
+            default: Deny
+            conditions:
+              - effect: Permit
+                requestHeaders:
+                  Authorization: s3cr3t
+            """.trimIndent()
+        )
+
+        // header names are matched case-insensitively
+        val permitted = policy.evaluate(buildRequest(headers = mapOf("authorization" to "s3cr3t")))
+        assertEquals(SecurityEffect.Permit, permitted.effect)
+
+        val denied = policy.evaluate(buildRequest(headers = mapOf("Authorization" to "wrong")))
+        assertEquals(SecurityEffect.Deny, denied.effect)
+        assertEquals("header conditions: [Authorization]", denied.policySource)
+    }
+
+    @Test
+    fun `should deny when deny condition matches even if permit condition matches`() {
+        val policy = compile(
+            """
+            default: Permit
+            conditions:
+              - effect: Permit
+                requestHeaders:
+                  Authorization: s3cr3t
+              - effect: Deny
+                queryParams:
+                  user: blocked
+            """.trimIndent()
+        )
+
+        val permitted = policy.evaluate(
+            buildRequest(headers = mapOf("Authorization" to "s3cr3t"), queryParams = mapOf("user" to "alice"))
+        )
+        assertEquals(SecurityEffect.Permit, permitted.effect)
+
+        val denied = policy.evaluate(
+            buildRequest(headers = mapOf("Authorization" to "s3cr3t"), queryParams = mapOf("user" to "blocked"))
+        )
+        assertEquals(SecurityEffect.Deny, denied.effect)
+        assertEquals("query conditions: [user]", denied.policySource)
+    }
+
+    @Test
+    fun `should describe all failed conditions`() {
+        val policy = compile(
+            """
+            conditions:
+              - effect: Permit
+                requestHeaders:
+                  Authorization: s3cr3t
+              - effect: Permit
+                queryParams:
+                  apiKey:
+                    value: key
+                    operator: EqualTo
+            """.trimIndent()
+        )
+
+        val outcome = policy.evaluate(buildRequest())
+        assertEquals(SecurityEffect.Deny, outcome.effect)
+        assertTrue(outcome.policySource.contains("header conditions: [Authorization]"))
+        assertTrue(outcome.policySource.contains("query conditions: [apiKey]"))
+    }
+
+    private fun compile(yaml: String) =
+        SecurityPolicy.compile(MapUtil.YAML_MAPPER.readValue(yaml, SecurityConfig::class.java))
+
+    private fun buildRequest(
+        headers: Map<String, String> = emptyMap(),
+        queryParams: Map<String, String> = emptyMap(),
+    ) = mock<HttpRequest> {
+        on { this.headers } doReturn headers
+        on { this.queryParams } doReturn queryParams
+        on { formParams } doReturn emptyMap()
+    }
+}
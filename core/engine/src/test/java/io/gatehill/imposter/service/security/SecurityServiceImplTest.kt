@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.service.security
+
+import io.gatehill.imposter.ImposterConfig
+import io.gatehill.imposter.lifecycle.EngineLifecycleHooks
+import io.gatehill.imposter.lifecycle.SecurityLifecycleHooks
+import io.gatehill.imposter.plugin.config.PluginConfig
+import io.gatehill.imposter.plugin.config.security.SecurityConfig
+import io.gatehill.imposter.plugin.config.security.SecurityConfigHolder
+import io.gatehill.imposter.util.MapUtil
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.whenever
+
+/**
+ * Tests for [SecurityServiceImpl].
+ */
+class SecurityServiceImplTest {
+    @Test
+    fun `should discard policies of replaced configuration on reload`() {
+        val service = SecurityServiceImpl(EngineLifecycleHooks(), SecurityLifecycleHooks(), mock())
+
+        service.afterRoutesConfigured(ImposterConfig(), listOf(buildPluginConfig()), mock())
+        assertEquals(1, service.policyCount)
+
+        repeat(10) {
+            service.afterRoutesReloaded(ImposterConfig(), listOf(buildPluginConfig()), emptyList(), mock())
+            assertEquals(1, service.policyCount, "Policies should not accumulate across reloads")
+        }
+    }
+
+    /**
+     * @return a plugin configuration with a new security configuration, as following a reload
+     */
+    private fun buildPluginConfig(): PluginConfig {
+        val securityConfig = MapUtil.YAML_MAPPER.readValue("default: Deny", SecurityConfig::class.java)
+        return mock<PluginConfig>(extraInterfaces = arrayOf(SecurityConfigHolder::class)).also {
+            whenever((it as SecurityConfigHolder).securityConfig).thenReturn(securityConfig)
+        }
+    }
+}
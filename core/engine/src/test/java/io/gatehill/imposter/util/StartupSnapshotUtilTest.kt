@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.util
+
+import io.gatehill.imposter.ImposterConfig
+import io.gatehill.imposter.config.ConfigReference
+import io.gatehill.imposter.config.LoadedConfig
+import io.gatehill.imposter.config.util.EnvVars
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotNull
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+import java.nio.file.Path
+
+/**
+ * Tests for [StartupSnapshotUtil].
+ *
+ * @author Pete Cornish
+ */
+class StartupSnapshotUtilTest {
+    @TempDir
+    lateinit var tempDir: Path
+
+    @AfterEach
+    fun tearDown() {
+        EnvVars.reset(emptyList())
+    }
+
+    @Test
+    fun `should restore configuration from snapshot`() {
+        val (imposterConfig, pluginConfigs) = prepareConfig()
+        val snapshotPath = tempDir.resolve("snapshot.gz")
+        EnvVars.populate("IMPOSTER_SNAPSHOT_PATH" to snapshotPath.toString(), "EXAMPLE" to "foo")
+
+        StartupSnapshotUtil.startRecording()
+        StartupSnapshotUtil.recordEntry("test", "key") { "value" }
+        StartupSnapshotUtil.write(snapshotPath, imposterConfig, pluginConfigs, mapOf("rest" to "RestPlugin"), emptyList())
+
+        val snapshot = StartupSnapshotUtil.load(imposterConfig)
+        assertNotNull(snapshot, "snapshot should be loaded")
+        assertEquals(true, StartupSnapshotUtil.isEnvCurrent(imposterConfig, snapshot!!))
+        assertEquals(mapOf("rest" to "RestPlugin"), snapshot.pluginNames)
+
+        val restored = StartupSnapshotUtil.restoreConfigs(snapshot)
+        assertEquals(pluginConfigs, restored)
+
+        StartupSnapshotUtil.activate(snapshot)
+        assertEquals("value", StartupSnapshotUtil.lookupEntry("test", "key"))
+    }
+
+    @Test
+    fun `should ignore snapshot when inputs change`() {
+        val (imposterConfig, pluginConfigs) = prepareConfig()
+        val snapshotPath = tempDir.resolve("snapshot.gz")
+        EnvVars.populate("IMPOSTER_SNAPSHOT_PATH" to snapshotPath.toString(), "EXAMPLE" to "foo")
+
+        StartupSnapshotUtil.write(snapshotPath, imposterConfig, pluginConfigs, emptyMap(), emptyList())
+
+        // referenced environment variable changes
+        EnvVars.populate("IMPOSTER_SNAPSHOT_PATH" to snapshotPath.toString(), "EXAMPLE" to "bar")
+        val snapshot = StartupSnapshotUtil.load(imposterConfig)
+        assertNotNull(snapshot, "file inputs are unchanged")
+        assertEquals(false, StartupSnapshotUtil.isEnvCurrent(imposterConfig, snapshot!!))
+
+        // configuration file changes
+        File(imposterConfig.configDirs.first(), "response.json").writeText("{}")
+        assertNull(StartupSnapshotUtil.load(imposterConfig), "snapshot should be stale")
+    }
+
+    private fun prepareConfig(): Pair<ImposterConfig, Map<String, List<LoadedConfig>>> {
+        val configDir = tempDir.resolve("config").toFile().apply { mkdirs() }
+        val configFile = File(configDir, "test-config.yaml").apply {
+            writeText("plugin: rest\nresponse:\n  content: \${env.EXAMPLE}\n")
+        }
+        File(configDir, "response.json").writeText("[]")
+
+        val imposterConfig = ImposterConfig().apply {
+            configDirs = arrayOf(configDir.absolutePath)
+        }
+        val loadedConfig = LoadedConfig(
+            ConfigReference(configFile, configDir),
+            "plugin: rest\nresponse:\n  content: foo\n",
+            "rest",
+        )
+        return imposterConfig to mapOf("io.gatehill.imposter.plugin.rest.RestPluginImpl" to listOf(loadedConfig))
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.util
+
+import io.gatehill.imposter.config.util.EnvVars
+import kotlinx.coroutines.Dispatchers
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotNull
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+
+/**
+ * Tests for [VirtualThreadUtil].
+ *
+ * @author Pete Cornish
+ */
+class VirtualThreadUtilTest {
+    @AfterEach
+    fun tearDown() {
+        EnvVars.reset(emptyList())
+    }
+
+    @Test
+    fun `falls back if virtual threads are not supported`() {
+        val executor = VirtualThreadUtil.buildExecutor()
+        if (getJvmVersion() >= 21) {
+            assertNotNull(executor, "Virtual thread executor should be available")
+        } else {
+            assertNull(executor, "Virtual thread executor should not be available")
+        }
+    }
+
+    @Test
+    fun `runs tasks on virtual threads`() {
+        val executor = VirtualThreadUtil.buildExecutor() ?: return
+        try {
+            val isVirtual = executor.submit<Boolean> {
+                Thread::class.java.getMethod("isVirtual").invoke(Thread.currentThread()) as Boolean
+            }.get()
+            assertEquals(true, isVirtual, "Task should run on a virtual thread")
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun `reads setting on each access`() {
+        EnvVars.populate(VirtualThreadUtil.ENV_VAR_VIRTUAL_THREADS to "false")
+        assertNull(VirtualThreadUtil.dispatcher, "Dispatcher should be null when disabled")
+        assertSame(Dispatchers.IO, blockingDispatcher)
+
+        EnvVars.populate(VirtualThreadUtil.ENV_VAR_VIRTUAL_THREADS to "true")
+        if (getJvmVersion() >= 21) {
+            assertNotNull(VirtualThreadUtil.dispatcher, "Dispatcher should be available when enabled")
+            assertSame(VirtualThreadUtil.dispatcher, blockingDispatcher)
+        } else {
+            assertNull(VirtualThreadUtil.dispatcher, "Dispatcher should not be available")
+        }
+    }
+}
@@ -43,6 +43,7 @@
 package io.gatehill.imposter.expression.util
 
 import io.gatehill.imposter.expression.QueryProvider
+import io.gatehill.imposter.expression.eval.BatchExpressionEvaluator
 import io.gatehill.imposter.expression.eval.ExpressionEvaluator
 import org.apache.logging.log4j.LogManager
 import java.util.regex.Pattern
@@ -74,6 +75,13 @@ object ExpressionUtil {
         val replacement: String? = null,
     )
 
+    private data class ParsedExpression(
+        val itemKey: String,
+        val jsonPath: String? = null,
+        val xPath: String? = null,
+        val fallbackValue: String? = null,
+    )
+
     /**
      * Evaluates an expression in the form:
      * ```
@@ -91,6 +99,7 @@ object ExpressionUtil {
         queryProvider: QueryProvider? = null,
         onUnsupported: UnsupportedBehaviour,
     ): String {
+        val prefetched = prefetch(input, evaluators, context)
         val matcher = expressionPattern.matcher(input)
         var matched = false
         val sb = StringBuffer()
@@ -98,7 +107,7 @@ object ExpressionUtil {
             matched = true
             val expression = matcher.group(1)
             try {
-                val result = evalSingle(expression, evaluators, context, queryProvider, onUnsupported)
+                val result = evalSingle(expression, evaluators, context, queryProvider, onUnsupported, prefetched)
                 LOGGER.trace("{}={}", expression, result)
                 if (result.replace) {
                     matcher.appendReplacement(sb, result.replacement)
@@ -118,18 +127,52 @@ object ExpressionUtil {
         }
     }
 
+    /**
+     * Resolves the expressions in [input] that are handled by a [BatchExpressionEvaluator]
+     * in a single call per evaluator, rather than one call per placeholder.
+     *
+     * @return the resolved values, keyed by evaluator, then by item key
+     */
+    private fun prefetch(
+        input: String,
+        evaluators: Map<String, ExpressionEvaluator<*>>,
+        context: Map<String, Any>,
+    ): Map<ExpressionEvaluator<*>, Map<String, Any?>> {
+        if (evaluators.values.none { it is BatchExpressionEvaluator<*> }) {
+            return emptyMap()
+        }
+        val batches = mutableMapOf<BatchExpressionEvaluator<*>, MutableSet<String>>()
+        val matcher = expressionPattern.matcher(input)
+        while (matcher.find()) {
+            val expression = matcher.group(1)
+            val evaluator = lookupEvaluator(expression, evaluators) as? BatchExpressionEvaluator<*> ?: continue
+            batches.getOrPut(evaluator) { mutableSetOf() } += parseExpression(expression).itemKey
+        }
+
+        // a batch of one gains nothing over individual evaluation
+        return batches.filterValues { it.size > 1 }.mapValues { (evaluator, itemKeys) ->
+            try {
+                evaluator.evalAll(itemKeys, context)
+            } catch (e: Exception) {
+                LOGGER.warn("Error evaluating expressions in batch using ${evaluator.name} evaluator - falling back to individual evaluation", e)
+                emptyMap()
+            }
+        }
+    }
+
     private fun evalSingle(
         expression: String,
         evaluators: Map<String, ExpressionEvaluator<*>>,
         context: Map<String, Any>,
         queryProvider: QueryProvider?,
         onUnsupported: UnsupportedBehaviour,
+        prefetched: Map<ExpressionEvaluator<*>, Map<String, Any?>>,
     ): MatchResult {
         val evaluator = lookupEvaluator(expression, evaluators)
         evaluator?.let {
             return MatchResult(
                 replace = true,
-                replacement = loadAndQuery(expression, context, evaluator, queryProvider) ?: ""
+                replacement = loadAndQuery(expression, context, evaluator, queryProvider, prefetched[evaluator]) ?: ""
             )
         } ?: run {
             when (onUnsupported) {
@@ -179,44 +222,52 @@ object ExpressionUtil {
      *
      * @param rawItemKey the placeholder key
      * @param evaluator the evaluator to provide the value, prior to any querying
+     * @param prefetched values already resolved by the evaluator, keyed by item key
      */
     private fun loadAndQuery(
         rawItemKey: String,
         context: Map<String, *>,
         evaluator: ExpressionEvaluator<*>,
         queryProvider: QueryProvider?,
+        prefetched: Map<String, Any?>?,
     ): String? {
-        val itemKey: String
-        var jsonPath: String? = null
-        var xPath: String? = null
-        var fallbackValue: String? = null
+        val parsed = parseExpression(rawItemKey)
 
-        // check for query
-        val colonIndex = rawItemKey.indexOf(":")
-        if (colonIndex > 0) {
-            when (rawItemKey[colonIndex + 1]) {
-                '$' -> jsonPath = rawItemKey.substring(colonIndex + 1)
-                '/', '!' -> xPath = rawItemKey.substring(colonIndex + 1)
-                '-' -> fallbackValue = rawItemKey.substring(colonIndex + 2)
-            }
-            itemKey = rawItemKey.substring(0, colonIndex)
+        val evaluated = if (prefetched?.containsKey(parsed.itemKey) == true) {
+            prefetched[parsed.itemKey]
         } else {
-            itemKey = rawItemKey
+            evaluator.eval(parsed.itemKey, context)
         }
 
-        val evaluated = evaluator.eval(itemKey, context)
-
         // apply query
         val finalValue = if (queryProvider != null) {
-            evaluated?.let { runQuery(it, queryProvider, jsonPath, xPath) }
+            evaluated?.let { runQuery(it, queryProvider, parsed.jsonPath, parsed.xPath) }
         } else {
             evaluated
         }
-        LOGGER.trace("Resolved {} to value: {}, fallback: {}", rawItemKey, finalValue, fallbackValue)
+        LOGGER.trace("Resolved {} to value: {}, fallback: {}", rawItemKey, finalValue, parsed.fallbackValue)
         if (finalValue == null) {
             LOGGER.debug("Expression: {} evaluated to null", rawItemKey)
         }
-        return finalValue?.toString() ?: fallbackValue
+        return finalValue?.toString() ?: parsed.fallbackValue
+    }
+
+    /**
+     * Splits the item key from any query or fallback value, which
+     * follow the first colon in [rawItemKey].
+     */
+    private fun parseExpression(rawItemKey: String): ParsedExpression {
+        val colonIndex = rawItemKey.indexOf(":")
+        if (colonIndex <= 0) {
+            return ParsedExpression(itemKey = rawItemKey)
+        }
+        val itemKey = rawItemKey.substring(0, colonIndex)
+        return when (rawItemKey.getOrNull(colonIndex + 1)) {
+            '$' -> ParsedExpression(itemKey, jsonPath = rawItemKey.substring(colonIndex + 1))
+            '/', '!' -> ParsedExpression(itemKey, xPath = rawItemKey.substring(colonIndex + 1))
+            '-' -> ParsedExpression(itemKey, fallbackValue = rawItemKey.substring(colonIndex + 2))
+            else -> ParsedExpression(itemKey)
+        }
     }
 
     private fun runQuery(
@@ -1,5 +1,6 @@
 package io.gatehill.imposter.expression.util
 
+import io.gatehill.imposter.expression.eval.BatchExpressionEvaluator
 import io.gatehill.imposter.expression.eval.ExpressionEvaluator
 import org.hamcrest.CoreMatchers.equalTo
 import org.hamcrest.MatcherAssert.assertThat
@@ -51,4 +52,29 @@ class ExpressionUtilTest {
         )
         assertThat(result, equalTo("\${some.expression.with:\$inlineDollar} and \${another.expression}"))
     }
+
+    @Test
+    fun `eval multiple expressions in batch`() {
+        val batches = mutableListOf<Collection<String>>()
+        val evaluator = object : BatchExpressionEvaluator<String> {
+            override val name = "batch"
+            override fun eval(expression: String, context: Map<String, *>) =
+                throw UnsupportedOperationException("Expected batch evaluation")
+
+            override fun evalAll(expressions: Collection<String>, context: Map<String, *>): Map<String, String?> {
+                batches += expressions
+                return expressions.associateWith { if (it == "batch.missing") null else it.uppercase() }
+            }
+        }
+
+        val result = ExpressionUtil.eval(
+            input = "\${batch.foo} \${batch.bar} \${batch.foo} \${batch.missing:-fallback}",
+            evaluators = mapOf("batch" to evaluator),
+            onUnsupported = ExpressionUtil.UnsupportedBehaviour.NULLIFY,
+        )
+
+        assertThat(result, equalTo("BATCH.FOO BATCH.BAR BATCH.FOO fallback"))
+        assertThat(batches.size, equalTo(1))
+        assertThat(batches.first().toSet(), equalTo(setOf("batch.foo", "batch.bar", "batch.missing")))
+    }
 }
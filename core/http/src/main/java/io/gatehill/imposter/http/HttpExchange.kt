@@ -42,6 +42,9 @@
  */
 package io.gatehill.imposter.http
 
+import io.vertx.core.buffer.Buffer
+import java.util.concurrent.CompletableFuture
+
 /**
  * @author Pete Cornish
  */
@@ -65,6 +68,38 @@ interface HttpExchange {
     fun <T> get(key: String): T?
     fun put(key: String, value: Any)
 
+    /**
+     * Reads the request body, if it has not already been read, so it is available
+     * from [HttpRequest.body]. If the body is larger than [maxBodySize] bytes,
+     * the exchange is failed with HTTP 413.
+     *
+     * @param maxBodySize the maximum body size, or `-1` for no limit
+     * @return a future that completes with `true` if the body was read, or `false` if it was rejected
+     */
+    fun readBody(maxBodySize: Long): CompletableFuture<Boolean>
+
+    /**
+     * Discards the request body without buffering it, if it has not already been read.
+     */
+    fun discardBody() {}
+
+    /**
+     * Passes the request body to [chunkHandler] in parts, as it is received, without
+     * buffering the whole body. The next part is not read until the future returned
+     * by [chunkHandler] completes, so the handler controls the rate of reading.
+     *
+     * If the body has already been read, it is passed to [chunkHandler] in one part.
+     *
+     * @return a future that completes when the whole body has been handled
+     */
+    fun streamBody(chunkHandler: (Buffer) -> CompletableFuture<Unit>): CompletableFuture<Unit> {
+        val body = request.body
+        if (null == body || body.length() == 0) {
+            return CompletableFuture.completedFuture(Unit)
+        }
+        return chunkHandler(body)
+    }
+
     fun <T : Any> getOrPut(key: String, defaultSupplier: () -> T): T {
         return get(key) ?: run {
             val value = defaultSupplier()
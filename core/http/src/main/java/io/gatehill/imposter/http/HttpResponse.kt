@@ -44,6 +44,8 @@
 package io.gatehill.imposter.http
 
 import io.vertx.core.buffer.Buffer
+import java.io.File
+import java.util.concurrent.CompletableFuture
 
 /**
  * @author Pete Cornish
@@ -60,6 +62,14 @@ interface HttpResponse {
      * @return the headers for the given keys
      */
     fun getHeadersIgnoreCase(headerKeys: Array<String>): Map<String, String>
+
+    /**
+     * Writes part of the body, without ending the response. The returned future
+     * completes when the response can accept more data, so callers writing a large
+     * body should wait for it before writing the next part.
+     */
+    fun write(chunk: Buffer): CompletableFuture<Unit>
+
     fun end()
     fun end(body: Buffer)
     fun end(body: String?) {
@@ -67,6 +77,25 @@ interface HttpResponse {
     }
     fun close()
 
+    /**
+     * Whether [sendFile] writes the file directly to the connection,
+     * without reading it into memory.
+     */
+    val sendFileSupported: Boolean
+        get() = false
+
+    /**
+     * Ends the response, using the contents of the file at [path] as the body.
+     */
+    fun sendFile(path: String) {
+        end(Buffer.buffer(File(path).readBytes()))
+    }
+
+    /**
+     * The body of the ended response. If [sendFileSupported] is `true`, this is `null`
+     * for a body sent from a file using [sendFile], so callers that need the body
+     * after it is sent should end the response with the file contents instead.
+     */
     val bodyBuffer: Buffer?
 
     /**
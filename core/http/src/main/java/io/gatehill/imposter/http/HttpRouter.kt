@@ -44,6 +44,7 @@ package io.gatehill.imposter.http
 
 import io.gatehill.imposter.http.util.PathNormaliser
 import io.vertx.core.Vertx
+import java.util.IdentityHashMap
 import java.util.concurrent.CompletableFuture
 
 /**
@@ -54,6 +55,10 @@ class HttpRouter(val vertx: Vertx) {
     val errorHandlers = mutableMapOf<Int, HttpExchangeHandler>()
     private val beforeEndHandlers = mutableListOf<HttpExchangeHandler>()
     private val _normalisedParams = mutableMapOf<String, String>()
+    private val deferredRoutes = mutableListOf<DeferredRoutes>()
+    private var deferredRouteCount = 0
+    private var configuringGroup: Int? = null
+    private val deferredRouteGroups = IdentityHashMap<HttpRoute, Int>()
 
     val normalisedParams: Map<String, String>
         get() = _normalisedParams
@@ -86,7 +91,13 @@ class HttpRouter(val vertx: Vertx) {
         if (existingRoute != null) {
             routes.remove(existingRoute)
         }
-        routes.add(route)
+
+        configuringGroup?.let { group ->
+            // keep deferred routes in the order they were deferred, regardless of the order they are configured
+            deferredRouteGroups[route] = group
+            val index = routes.indexOfFirst { (deferredRouteGroups[it] ?: -1) > group }
+            routes.add(if (index < 0) routes.size else index, route)
+        } ?: routes.add(route)
     }
 
     fun get(path: String): HttpRoute {
@@ -129,6 +140,45 @@ class HttpRouter(val vertx: Vertx) {
         return routeWithRegex(HttpMethod.GET, regex)
     }
 
+    /**
+     * Defers adding a group of routes until [configureDeferredRoutes] is called
+     * for a path starting with one of the [pathPrefixes]. If [pathPrefixes] is `null`,
+     * the routes could match any path. Only servers that look up routes in this
+     * router for each request support deferred routes.
+     */
+    @Synchronized
+    fun deferRoutes(pathPrefixes: Set<String>?, configurer: () -> Unit) {
+        deferredRoutes += DeferredRoutes(deferredRouteCount++, pathPrefixes, configurer)
+    }
+
+    val hasDeferredRoutes: Boolean
+        @Synchronized get() = deferredRoutes.isNotEmpty()
+
+    /**
+     * Adds every group of deferred routes that could match the [path], so that the
+     * routes matching a request do not depend on the requests handled before it.
+     * The routes are kept in the order the groups were deferred.
+     *
+     * @return `true` if routes were added, or `false` if no deferred routes could match the path
+     */
+    @Synchronized
+    fun configureDeferredRoutes(path: String): Boolean {
+        val matching = deferredRoutes.filter { it.couldMatch(path) }
+        if (matching.isEmpty()) {
+            return false
+        }
+        deferredRoutes.removeAll(matching)
+        matching.forEach { group ->
+            configuringGroup = group.order
+            try {
+                group.configurer()
+            } finally {
+                configuringGroup = null
+            }
+        }
+        return true
+    }
+
     fun errorHandler(statusCode: Int, handler: HttpExchangeHandler) {
         errorHandlers[statusCode] = handler
     }
@@ -141,6 +191,17 @@ class HttpRouter(val vertx: Vertx) {
         beforeEndHandlers.forEach { it(exchange) }
     }
 
+    private class DeferredRoutes(
+        val order: Int,
+        val pathPrefixes: Set<String>?,
+        val configurer: () -> Unit,
+    ) {
+        fun couldMatch(path: String): Boolean = pathPrefixes?.any { prefix ->
+            // ignore case and trailing slashes, so this never excludes a path the routes could match
+            path.startsWith(prefix.trimEnd('/'), ignoreCase = true)
+        } ?: true
+    }
+
     companion object {
         fun router(vertx: Vertx): HttpRouter {
             return HttpRouter(vertx)
@@ -2,6 +2,7 @@ package io.gatehill.imposter.http
 
 import io.vertx.core.Vertx
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
 import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
 import org.mockito.Mockito.mock
@@ -90,4 +91,34 @@ class HttpRouterTest {
         router.invokeBeforeEndHandlers(mock())
         assertTrue(called)
     }
+
+    @Test
+    fun `configureDeferredRoutes should only add routes that could match the path`() {
+        val router = HttpRouter(Vertx.vertx())
+        router.deferRoutes(setOf("/a")) { router.get("/a/{id}") }
+        router.deferRoutes(setOf("/b/")) { router.get("/b/{id}") }
+
+        assertFalse(router.configureDeferredRoutes("/c/1"))
+        assertTrue(router.routes.isEmpty())
+
+        assertTrue(router.configureDeferredRoutes("/b"))
+        assertEquals(listOf("/b/{id}"), router.routes.map { it.path })
+        assertTrue(router.hasDeferredRoutes)
+    }
+
+    @Test
+    fun `configureDeferredRoutes should keep routes in the order they were deferred`() {
+        val router = HttpRouter(Vertx.vertx())
+        router.get("/system/status")
+        router.deferRoutes(setOf("/a")) { router.get("/a/1") }
+        router.deferRoutes(null) { router.get("/any") }
+        router.deferRoutes(setOf("/b")) { router.get("/b/1") }
+
+        // the route matching any path is added with the first request
+        assertTrue(router.configureDeferredRoutes("/b/1"))
+        assertTrue(router.configureDeferredRoutes("/a/1"))
+        assertFalse(router.hasDeferredRoutes)
+
+        assertEquals(listOf("/system/status", "/a/1", "/any", "/b/1"), router.routes.map { it.path })
+    }
 }
@@ -56,6 +56,12 @@ class FakeExampleProvider : StringExampleProvider() {
             ?: super.provide(schema, null)
     }
 
+    override fun isDeterministic(schema: Schema<*>, propNameHint: String?): Boolean {
+        return schema.extensions?.get(EXTENSION_PROPERTY_NAME) !is String &&
+            propNameHint?.let { FakeGenerator.supportsHint(it) } != true &&
+            super.isDeterministic(schema, null)
+    }
+
     companion object {
         const val EXTENSION_PROPERTY_NAME = "x-fake-data"
     }
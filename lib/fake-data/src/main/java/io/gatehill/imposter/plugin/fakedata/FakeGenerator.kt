@@ -43,17 +43,86 @@
 
 package io.gatehill.imposter.plugin.fakedata
 
+import io.gatehill.imposter.config.util.EnvVars
 import net.datafaker.Faker
+import org.apache.logging.log4j.LogManager
+import java.lang.reflect.Method
+import java.lang.reflect.Modifier
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicBoolean
 
 /**
  * Generates fake data.
+ *
+ * Each [Faker] is borrowed from a bounded pool and used by one caller at a
+ * time, so concurrent requests do not contend on shared random state. Simple
+ * `Provider.method` expressions are resolved to their methods once and invoked
+ * directly thereafter; other expressions are evaluated by Datafaker.
+ *
+ * If [ENV_VAR_POOL_SIZE] is set, values for each expression are pre-generated
+ * into a pool, which is refilled in the background.
  */
 object FakeGenerator {
-    private val faker = Faker()
+    private const val ENV_VAR_POOL_SIZE = "IMPOSTER_FAKE_DATA_POOL_SIZE"
+
+    private val logger = LogManager.getLogger(FakeGenerator::class.java)
+
+    /**
+     * Generation does not block, so no more instances are in use at once than
+     * there are threads running on the CPU.
+     */
+    private val fakers = FakerPool(Runtime.getRuntime().availableProcessors() * 2) { Faker() }
+
+    /**
+     * Resolved expressions, keyed by expression. Expressions that cannot be
+     * resolved to a method are mapped to [FakeBinding.Fallback].
+     */
+    private val bindings = ConcurrentHashMap<String, FakeBinding>()
+
+    private val poolSize: Int
+        get() = EnvVars.getEnv(ENV_VAR_POOL_SIZE)?.toInt() ?: 0
+
+    private val pools = ConcurrentHashMap<String, ValuePool>()
+
+    private val refillExecutor: ExecutorService by lazy {
+        Executors.newSingleThreadExecutor { runnable ->
+            Thread(runnable, "fake-data-pool").apply { isDaemon = true }
+        }
+    }
+
+    /**
+     * Property name hints, mapped to the expression used to generate their value.
+     */
+    private val propNameExpressions = mapOf(
+        "email" to "Internet.emailAddress",
+        "emailaddress" to "Internet.emailAddress",
+        "firstname" to "Name.firstName",
+        "lastname" to "Name.lastName",
+        "surname" to "Name.lastName",
+        "fullname" to "Name.fullName",
+        "username" to "Name.username",
+        "password" to "Internet.password",
+        "address" to "Address.fullAddress",
+        "fulladdress" to "Address.fullAddress",
+        "streetaddress" to "Address.streetAddress",
+        "street" to "Address.streetAddress",
+        "city" to "Address.city",
+        "country" to "Address.country",
+        "zipcode" to "Address.zipCode",
+        "phonenumber" to "PhoneNumber.phoneNumber",
+        "postcode" to "Address.postcode",
+    )
 
     fun expression(expression: String): String? {
         try {
-            return faker.expression("#{$expression}")
+            val poolSize = this.poolSize
+            if (poolSize > 0) {
+                return pools.computeIfAbsent(expression) { ValuePool(it, poolSize, ::generate) }.take()
+            }
+            return generate(expression)
         } catch (e: Exception) {
             throw RuntimeException("Failed to evaluate fake data expression: $expression", e)
         }
@@ -63,20 +132,140 @@ object FakeGenerator {
      * Generates a fake value for the given property name, or `null` if
      * no fake value is available for the given property name.
      */
-    fun fake(propNameHint: String): String? = when (propNameHint.lowercase()) {
-        "email", "emailaddress" -> faker.internet().emailAddress()
-        "firstname" -> faker.name().firstName()
-        "lastname", "surname" -> faker.name().lastName()
-        "fullname" -> faker.name().fullName()
-        "username" -> faker.name().username()
-        "password" -> faker.internet().password()
-        "address", "fulladdress" -> faker.address().fullAddress()
-        "streetaddress", "street" -> faker.address().streetAddress()
-        "city" -> faker.address().city()
-        "country" -> faker.address().country()
-        "zipcode" -> faker.address().zipCode()
-        "phonenumber" -> faker.phoneNumber().phoneNumber()
-        "postcode" -> faker.address().postcode()
-        else -> null
+    fun fake(propNameHint: String): String? =
+        propNameExpressions[propNameHint.lowercase()]?.let(::expression)
+
+    /**
+     * @return `true` if [fake] can generate a value for the given property name
+     */
+    fun supportsHint(propNameHint: String): Boolean =
+        propNameExpressions.containsKey(propNameHint.lowercase())
+
+    /**
+     * @return the pool of values for the expression, if one has been created
+     */
+    internal fun poolFor(expression: String): ValuePool? = pools[expression]
+
+    private fun generate(expression: String): String? =
+        fakers.withFaker { faker -> bindings.computeIfAbsent(expression, ::bind).invoke(faker, expression) }
+
+    /**
+     * Attempts to resolve an expression in the form `Provider.method`
+     * to the Faker methods that produce its value.
+     */
+    private fun bind(expression: String): FakeBinding {
+        val parts = expression.split('.')
+        if (parts.size == 2 && parts.all { part -> part.isNotEmpty() && part.all { it.isLetterOrDigit() } }) {
+            findNoArgMethod(Faker::class.java, parts[0].replaceFirstChar { it.lowercase() })?.let { providerMethod ->
+                findNoArgMethod(providerMethod.returnType, parts[1])?.let { valueMethod ->
+                    logger.trace("Bound fake data expression: {} to {}.{}", expression, providerMethod.name, valueMethod.name)
+                    return FakeBinding.Direct(providerMethod, valueMethod)
+                }
+            }
+        }
+        logger.trace("Fake data expression: {} will be evaluated by Datafaker", expression)
+        return FakeBinding.Fallback
+    }
+
+    private fun findNoArgMethod(clazz: Class<*>, name: String): Method? = try {
+        clazz.getMethod(name).takeIf { !Modifier.isStatic(it.modifiers) && it.returnType != Void.TYPE }
+    } catch (e: NoSuchMethodException) {
+        null
+    }
+
+    private sealed class FakeBinding {
+        abstract fun invoke(faker: Faker, expression: String): String?
+
+        class Direct(
+            private val providerMethod: Method,
+            private val valueMethod: Method,
+        ) : FakeBinding() {
+            override fun invoke(faker: Faker, expression: String): String? =
+                valueMethod.invoke(providerMethod.invoke(faker))?.toString()
+        }
+
+        object Fallback : FakeBinding() {
+            override fun invoke(faker: Faker, expression: String): String? =
+                faker.expression("#{$expression}")
+        }
+    }
+
+    /**
+     * A pool of [Faker] instances. A caller borrows an idle instance, or creates
+     * one if none is idle. Instances returned when the pool is full are discarded,
+     * so the number retained does not depend on the number of threads, such as
+     * when each request runs on its own virtual thread.
+     */
+    internal class FakerPool(
+        val capacity: Int,
+        private val create: () -> Faker,
+    ) {
+        private val idle = ArrayBlockingQueue<Faker>(capacity)
+
+        /**
+         * The number of idle instances in the pool.
+         */
+        val size: Int
+            get() = idle.size
+
+        fun <T> withFaker(block: (Faker) -> T): T {
+            val faker = idle.poll() ?: create()
+            try {
+                return block(faker)
+            } finally {
+                idle.offer(faker)
+            }
+        }
+    }
+
+    /**
+     * A pool of pre-generated values for an expression. When the pool falls
+     * to half its capacity, it is refilled in the background. If the pool is
+     * exhausted, values are generated on the calling thread.
+     */
+    internal class ValuePool(
+        private val expression: String,
+        val capacity: Int,
+        private val generate: (String) -> String?,
+    ) {
+        private val values = ArrayBlockingQueue<String>(capacity)
+        private val refilling = AtomicBoolean(false)
+
+        /**
+         * The number of pre-generated values in the pool.
+         */
+        val size: Int
+            get() = values.size
+
+        init {
+            // generate the first value eagerly, so invalid expressions fail on the caller
+            generate(expression)?.let(values::offer)
+            scheduleRefill()
+        }
+
+        fun take(): String? {
+            val value = values.poll() ?: generate(expression)
+            if (values.size <= capacity / 2) {
+                scheduleRefill()
+            }
+            return value
+        }
+
+        private fun scheduleRefill() {
+            if (refilling.compareAndSet(false, true)) {
+                refillExecutor.execute {
+                    try {
+                        while (values.remainingCapacity() > 0) {
+                            val value = generate(expression) ?: break
+                            if (!values.offer(value)) break
+                        }
+                    } catch (e: Exception) {
+                        logger.warn("Error refilling fake data pool for expression: $expression", e)
+                    } finally {
+                        refilling.set(false)
+                    }
+                }
+            }
+        }
     }
 }
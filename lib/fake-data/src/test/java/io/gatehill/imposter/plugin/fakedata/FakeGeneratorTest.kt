@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2023-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.plugin.fakedata
+
+import io.gatehill.imposter.config.util.EnvVars
+import net.datafaker.Faker
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.containsString
+import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.everyItem
+import org.hamcrest.Matchers.greaterThanOrEqualTo
+import org.hamcrest.Matchers.hasSize
+import org.hamcrest.Matchers.not
+import org.hamcrest.Matchers.emptyOrNullString
+import org.hamcrest.Matchers.notNullValue
+import org.hamcrest.Matchers.nullValue
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Tests for [FakeGenerator].
+ */
+class FakeGeneratorTest {
+    @AfterEach
+    fun tearDown() {
+        EnvVars.reset(emptyList())
+    }
+
+    @Test
+    fun `generate value for expression`() {
+        assertThat(FakeGenerator.expression("Name.firstName"), not(emptyOrNullString()))
+    }
+
+    @Test
+    fun `generate value for property name hint`() {
+        assertThat(FakeGenerator.fake("emailAddress"), containsString("@"))
+        assertThat(FakeGenerator.fake("unknown"), nullValue())
+    }
+
+    @Test
+    fun `generate values concurrently`() {
+        val executor = Executors.newFixedThreadPool(4)
+        try {
+            val values = executor.invokeAll((1..100).map { Callable { FakeGenerator.expression("Address.city") } })
+                .map { it.get() }
+
+            assertThat(values, hasSize(100))
+            assertThat(values, everyItem(notNullValue()))
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun `reuse faker instances up to pool capacity`() {
+        val created = AtomicInteger()
+        val pool = FakeGenerator.FakerPool(2) { created.incrementAndGet(); Faker() }
+
+        // sequential use shares one instance
+        repeat(10) { pool.withFaker { it.name().firstName() } }
+        assertThat(created.get(), equalTo(1))
+
+        // concurrent use creates more instances, but only retains up to capacity
+        val executor = Executors.newFixedThreadPool(8)
+        try {
+            val borrowed = CountDownLatch(8)
+            executor.invokeAll((1..8).map {
+                Callable {
+                    pool.withFaker { faker ->
+                        borrowed.countDown()
+                        borrowed.await()
+                        faker.name().firstName()
+                    }
+                }
+            })
+        } finally {
+            executor.shutdown()
+        }
+        assertThat(created.get(), equalTo(8))
+        assertThat(pool.size, equalTo(2))
+    }
+
+    @Test
+    fun `generate values when pool is exhausted`() {
+        val generated = AtomicInteger()
+        val pool = FakeGenerator.ValuePool("test", 4) { "value${generated.incrementAndGet()}" }
+
+        // take more values than the pool holds, faster than it is refilled
+        val values = (1..20).map { pool.take() }
+
+        assertThat(values, everyItem(notNullValue()))
+        assertThat(values.toSet(), hasSize(20))
+        assertThat(generated.get(), greaterThanOrEqualTo(20))
+    }
+
+    @Test
+    fun `refill pool in background`() {
+        val pool = FakeGenerator.ValuePool("test", 10) { "value" }
+        awaitPoolSize(pool, 10)
+
+        // taking below half capacity triggers a refill
+        repeat(6) { pool.take() }
+        awaitPoolSize(pool, 10)
+        assertThat(pool.size, equalTo(10))
+    }
+
+    @Test
+    fun `use pool for property name hint`() {
+        EnvVars.populate("IMPOSTER_FAKE_DATA_POOL_SIZE" to "5")
+
+        assertThat(FakeGenerator.fake("lastName"), not(emptyOrNullString()))
+        val pool = FakeGenerator.poolFor("Name.lastName")
+        assertThat(pool, notNullValue())
+        assertThat(pool!!.capacity, equalTo(5))
+
+        // pools are keyed by expression, so hints share the pool of their expression
+        assertThat(FakeGenerator.expression("Name.lastName"), not(emptyOrNullString()))
+        assertThat(FakeGenerator.poolFor("Name.lastName"), equalTo(pool))
+
+        assertThat(FakeGenerator.fake("unknown"), nullValue())
+    }
+
+    private fun awaitPoolSize(pool: FakeGenerator.ValuePool, expected: Int) {
+        val deadline = System.currentTimeMillis() + 5000
+        while (pool.size < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+        assertThat(pool.size, equalTo(expected))
+    }
+}
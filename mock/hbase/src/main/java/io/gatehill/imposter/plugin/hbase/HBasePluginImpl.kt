@@ -58,12 +58,11 @@ import io.gatehill.imposter.plugin.hbase.config.HBasePluginConfig
 import io.gatehill.imposter.plugin.hbase.model.RecordInfo
 import io.gatehill.imposter.plugin.hbase.model.ResponsePhase
 import io.gatehill.imposter.plugin.hbase.service.ScannerService
+import io.gatehill.imposter.plugin.hbase.service.TableDatasetService
 import io.gatehill.imposter.plugin.hbase.service.serialisation.DeserialisationService
 import io.gatehill.imposter.plugin.hbase.service.serialisation.SerialisationService
 import io.gatehill.imposter.service.HandlerService
-import io.gatehill.imposter.service.ResponseFileService
 import io.gatehill.imposter.service.ResponseRoutingService
-import io.gatehill.imposter.util.FileUtil.findRow
 import io.gatehill.imposter.util.HttpUtil
 import io.gatehill.imposter.util.HttpUtil.CONTENT_TYPE_JSON
 import io.gatehill.imposter.util.HttpUtil.readAcceptedContentTypes
@@ -85,7 +84,7 @@ class HBasePluginImpl @Inject constructor(
     vertx: Vertx,
     imposterConfig: ImposterConfig,
     private val handlerService: HandlerService,
-    private val responseFileService: ResponseFileService,
+    private val tableDatasetService: TableDatasetService,
     private val responseRoutingService: ResponseRoutingService,
     private val scannerService: ScannerService,
 ) : ConfiguredPlugin<HBasePluginConfig>(
@@ -161,8 +160,8 @@ class HBasePluginImpl @Inject constructor(
                 responseRoutingService.route(config, httpExchange, bindings) { responseBehaviour ->
                     makeFuture {
                         // find the right row from results
-                        val results = responseFileService.loadResponseAsJsonArray(config, responseBehaviour)
-                        val result = findRow(config.idField, recordInfo.recordId, results)
+                        val dataset = tableDatasetService.loadDataset(config, responseBehaviour.responseFile)
+                        val result = dataset.findRow(config.idField, recordInfo.recordId)
                         val response = httpExchange.response
 
                         result?.let {
@@ -260,8 +259,6 @@ class HBasePluginImpl @Inject constructor(
                 val tableName = request.getPathParam("tableName")!!
                 val scannerId = request.getPathParam("scannerId")!!
 
-                // query param e.g. ?n=1
-                val rows = Integer.valueOf(request.getQueryParam("n"))
 
                 // check that the table is registered
                 if (!tableConfigs.containsKey(tableName)) {
@@ -285,6 +282,12 @@ class HBasePluginImpl @Inject constructor(
                         .end()
                     return@build completedUnitFuture()
                 }
+
+                // query param e.g. ?n=1, otherwise the batch size of the scanner
+                val rows = request.getQueryParam("n")?.toInt()
+                    ?: scanner.scanner.batch
+                    ?: DEFAULT_BATCH_SIZE
+
                 LOGGER.info(
                     "Received result request for {} rows from scanner {} for table: {}",
                     rows,
@@ -305,9 +308,9 @@ class HBasePluginImpl @Inject constructor(
                 responseRoutingService.route(config, httpExchange, bindings) { responseBehaviour ->
                     makeFuture {
                         // build results
-                        val results = responseFileService.loadResponseAsJsonArray(config, responseBehaviour)
+                        val dataset = tableDatasetService.loadDataset(config, responseBehaviour.responseFile)
                         val serialiser = findSerialiser(httpExchange)
-                        val buffer = serialiser.serialise(tableName, scannerId, results, scanner, rows)
+                        val buffer = serialiser.serialise(tableName, scannerId, dataset, scanner, rows)
                         httpExchange.response
                             .setStatusCode(HttpUtil.HTTP_OK)
                             .end(buffer)
@@ -423,5 +426,10 @@ class HBasePluginImpl @Inject constructor(
 
     companion object {
         private val LOGGER = LogManager.getLogger(HBasePluginImpl::class.java)
+
+        /**
+         * Rows per batch if neither the request nor the scanner specify it.
+         */
+        private const val DEFAULT_BATCH_SIZE = 100
     }
 }
\ No newline at end of file
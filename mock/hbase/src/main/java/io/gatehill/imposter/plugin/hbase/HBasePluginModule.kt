@@ -46,6 +46,8 @@ import com.google.inject.AbstractModule
 import com.google.inject.name.Names
 import io.gatehill.imposter.plugin.hbase.service.ScannerService
 import io.gatehill.imposter.plugin.hbase.service.ScannerServiceImpl
+import io.gatehill.imposter.plugin.hbase.service.TableDatasetService
+import io.gatehill.imposter.plugin.hbase.service.TableDatasetServiceImpl
 import io.gatehill.imposter.plugin.hbase.service.serialisation.DeserialisationService
 import io.gatehill.imposter.plugin.hbase.service.serialisation.JsonSerialisationServiceImpl
 import io.gatehill.imposter.plugin.hbase.service.serialisation.ProtobufSerialisationServiceImpl
@@ -58,6 +60,7 @@ import io.gatehill.imposter.util.asSingleton
 class HBasePluginModule : AbstractModule() {
     override fun configure() {
         bind(ScannerService::class.java).to(ScannerServiceImpl::class.java).asSingleton()
+        bind(TableDatasetService::class.java).to(TableDatasetServiceImpl::class.java).asSingleton()
 
         bind(SerialisationService::class.java).annotatedWith(Names.named("application/x-protobuf"))
             .to(ProtobufSerialisationServiceImpl::class.java).asSingleton()
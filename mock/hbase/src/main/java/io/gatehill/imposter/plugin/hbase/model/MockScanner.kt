@@ -50,4 +50,9 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties
 @JsonIgnoreProperties(ignoreUnknown = true)
 class MockScanner {
     var filter: String? = null
+
+    /**
+     * The number of rows to return per batch, if set by the client.
+     */
+    var batch: Int? = null
 }
\ No newline at end of file
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.plugin.hbase.model
+
+import com.fasterxml.jackson.core.JsonFactory
+import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.JsonToken
+import com.google.common.base.Strings
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.json.JsonObject
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * The rows of a table, indexed once from its response file.
+ *
+ * The file is streamed when the dataset is created, recording the position
+ * of each row, so rows are read from the file only when they are needed,
+ * rather than holding the whole table in memory. Lookups by ID use an index
+ * of row positions built on first use.
+ *
+ * The encoded bytes of recently used rows are cached per serialisation format,
+ * up to [MAX_ENCODED_ROW_BYTES], so repeated scans reuse them without the cache
+ * growing with the size of the table.
+ *
+ * @author Pete Cornish
+ */
+class TableDataset private constructor(
+    private val file: Path?,
+    private val rowOffsets: LongArray,
+    private val rowLengths: IntArray,
+) {
+    private val idIndexes = ConcurrentHashMap<String, Map<String, Int>>()
+    private val encodedRows: Cache<EncodedRowKey, ByteArray> = CacheBuilder.newBuilder()
+        .maximumWeight(MAX_ENCODED_ROW_BYTES)
+        .weigher { _: EncodedRowKey, bytes: ByteArray -> bytes.size }
+        .build()
+
+    val size: Int
+        get() = rowOffsets.size
+
+    /**
+     * Reads the row at [index] from the file.
+     */
+    fun getRow(index: Int): JsonObject =
+        openChannel().use { channel -> readRow(channel, index) }
+
+    private fun openChannel(): FileChannel =
+        FileChannel.open(checkNotNull(file) { "Table has no data file" }, StandardOpenOption.READ)
+
+    private fun readRow(channel: FileChannel, index: Int): JsonObject {
+        val bytes = ByteBuffer.allocate(rowLengths[index])
+        var position = rowOffsets[index]
+        while (bytes.hasRemaining()) {
+            val read = channel.read(bytes, position)
+            check(read >= 0) { "Unexpected end of table data file: $file" }
+            position += read
+        }
+        return JsonObject(Buffer.buffer(bytes.array()))
+    }
+
+    /**
+     * Finds the first row whose ID field matches [rowId], ignoring case.
+     */
+    fun findRow(idFieldName: String?, rowId: String): JsonObject? {
+        check(!Strings.isNullOrEmpty(idFieldName)) { "ID field name not configured" }
+        val index = idIndexes.computeIfAbsent(idFieldName!!, ::buildIndex)
+        return index[rowId.lowercase()]?.let(::getRow)
+    }
+
+    /**
+     * Streams the file, mapping the value of the ID field of each row to its position.
+     */
+    private fun buildIndex(idFieldName: String): Map<String, Int> {
+        val index = HashMap<String, Int>(size)
+        file ?: return index
+
+        Files.newInputStream(file).use { stream ->
+            JSON_FACTORY.createParser(stream).use { parser ->
+                parser.nextToken()
+                var rowIndex = 0
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    findFieldValue(parser, idFieldName)?.let { index.putIfAbsent(it.lowercase(), rowIndex) }
+                    rowIndex++
+                }
+            }
+        }
+        return index
+    }
+
+    /**
+     * Reads the fields of the current object, returning the value of the field
+     * named [fieldName], if it is a scalar. Leaves the parser at the end of the object.
+     */
+    private fun findFieldValue(parser: JsonParser, fieldName: String): String? {
+        var value: String? = null
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            val name = parser.currentName
+            val token = parser.nextToken()
+            if (token.isStructStart) {
+                parser.skipChildren()
+            } else if (null == value && name == fieldName && token != JsonToken.VALUE_NULL) {
+                value = parser.text
+            }
+        }
+        return value
+    }
+
+    /**
+     * Returns the encoded bytes of the rows at [indices] for the given [format],
+     * invoking [encoder] for rows that are not cached. The file is opened at most
+     * once for all the rows.
+     */
+    fun getEncodedRows(format: String, indices: IntRange, encoder: (Int, JsonObject) -> ByteArray): List<ByteArray> {
+        var channel: FileChannel? = null
+        try {
+            return indices.map { index ->
+                val key = EncodedRowKey(format, index)
+                encodedRows.getIfPresent(key) ?: run {
+                    val rowChannel = channel ?: openChannel().also { channel = it }
+
+                    // concurrent encodings of the same row produce equal values, so the race is benign
+                    encoder(index, readRow(rowChannel, index)).also { encodedRows.put(key, it) }
+                }
+            }
+        } finally {
+            channel?.close()
+        }
+    }
+
+    private data class EncodedRowKey(val format: String, val index: Int)
+
+    companion object {
+        private val JSON_FACTORY = JsonFactory()
+
+        val EMPTY = TableDataset(null, LongArray(0), IntArray(0))
+
+        /**
+         * Streams the JSON array in [file], recording the position and length
+         * of each row, without holding the rows in memory.
+         */
+        fun index(file: Path): TableDataset {
+            var offsets = LongArray(INITIAL_CAPACITY)
+            var lengths = IntArray(INITIAL_CAPACITY)
+            var count = 0
+
+            Files.newInputStream(file).use { stream ->
+                JSON_FACTORY.createParser(stream).use { parser ->
+                    check(parser.nextToken() == JsonToken.START_ARRAY) { "Table data must be a JSON array: $file" }
+                    while (true) {
+                        val token = parser.nextToken()
+                        if (token == JsonToken.END_ARRAY || null == token) {
+                            break
+                        }
+                        check(token == JsonToken.START_OBJECT) { "Table data rows must be JSON objects: $file" }
+
+                        val start = parser.tokenLocation.byteOffset
+                        parser.skipChildren()
+                        val end = parser.currentLocation.byteOffset
+
+                        if (count == offsets.size) {
+                            offsets = offsets.copyOf(count * 2)
+                            lengths = lengths.copyOf(count * 2)
+                        }
+                        offsets[count] = start
+                        lengths[count] = (end - start).toInt()
+                        count++
+                    }
+                }
+            }
+            return TableDataset(file, offsets.copyOf(count), lengths.copyOf(count))
+        }
+
+        private const val INITIAL_CAPACITY = 64
+
+        /**
+         * The maximum size of the cached encoded rows of each dataset, in bytes.
+         */
+        const val MAX_ENCODED_ROW_BYTES = 16L * 1024 * 1024
+    }
+}
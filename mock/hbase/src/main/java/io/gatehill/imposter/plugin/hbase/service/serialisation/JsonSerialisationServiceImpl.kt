@@ -47,6 +47,7 @@ import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.plugin.hbase.model.InMemoryScanner
 import io.gatehill.imposter.plugin.hbase.model.MockScanner
 import io.gatehill.imposter.plugin.hbase.model.ResultCell
+import io.gatehill.imposter.plugin.hbase.model.TableDataset
 import io.gatehill.imposter.plugin.hbase.service.ScannerService
 import io.gatehill.imposter.util.MapUtil
 import io.vertx.core.buffer.Buffer
@@ -86,32 +87,40 @@ class JsonSerialisationServiceImpl @Inject constructor(
     }
 
     override fun serialise(tableName: String, recordId: String, result: JsonObject): Buffer {
-        val cellSet = JsonObject()
-        val rowsJson = JsonArray()
-        cellSet.put("Row", rowsJson)
-        rowsJson.add(buildRow(result, recordId))
+        val cellSet = buildCellSet(listOf(encodeRow(buildRow(result, recordId))))
         logger.info("Returning single row with ID: {} for table: {}", recordId, tableName)
-        return Buffer.buffer(cellSet.encodePrettily())
+        return cellSet
     }
 
-    override fun serialise(tableName: String, scannerId: String, results: JsonArray, scanner: InMemoryScanner, rows: Int): Buffer {
-        val cellSet = JsonObject()
-        val rowsJson = JsonArray()
-        cellSet.put("Row", rowsJson)
-
-        // start the row counter from the last position in the scanner
-        val lastPosition = scanner.rowCounter.get()
-        var i = lastPosition
-        while (i < lastPosition + rows && i < results.size()) {
-            val result = results.getJsonObject(i)
-            rowsJson.add(buildRow(result, buildRowKey(scanner)))
-            i++
-        }
+    override fun serialise(tableName: String, scannerId: String, dataset: TableDataset, scanner: InMemoryScanner, rows: Int): Buffer {
+        val batch = nextBatch(dataset, scanner, rows)
+
+        val cellSet = buildCellSet(dataset.getEncodedRows(ENCODING_NAME, batch) { index, result ->
+            encodeRow(buildRow(result, buildRowKey(index)))
+        })
 
         // scanner exhausted?
-        checkExhausted(tableName, scannerId, results, scanner)
-        logger.info("Returning {} rows from scanner {} for table: {}", rowsJson.size(), scannerId, tableName)
-        return Buffer.buffer(cellSet.encodePrettily())
+        checkExhausted(tableName, scannerId, dataset, scanner)
+        logger.info("Returning {} rows from scanner {} for table: {}", batch.count(), scannerId, tableName)
+        return cellSet
+    }
+
+    /**
+     * Pretty prints a row, indented by one level, as it is nested in the cell set.
+     */
+    private fun encodeRow(row: JsonObject): ByteArray =
+        row.encodePrettily().replace("\n", "\n  ").toByteArray()
+
+    /**
+     * Assembles a cell set from the encoded rows, as [JsonObject.encodePrettily] would.
+     */
+    private fun buildCellSet(rows: List<ByteArray>): Buffer {
+        val cellSet = Buffer.buffer("{$LINE_SEPARATOR  \"Row\" : [ ")
+        rows.forEachIndexed { index, row ->
+            if (index > 0) cellSet.appendString(", ")
+            cellSet.appendBytes(row)
+        }
+        return cellSet.appendString(if (rows.isEmpty()) "]$LINE_SEPARATOR}" else " ]$LINE_SEPARATOR}")
     }
 
     /**
@@ -146,4 +155,9 @@ class JsonSerialisationServiceImpl @Inject constructor(
     private fun toBase64(data: String?): String {
         return BaseEncoding.base64().encode(data!!.toByteArray())
     }
-}
\ No newline at end of file
+
+    companion object {
+        private const val ENCODING_NAME = "json"
+        private val LINE_SEPARATOR = System.lineSeparator()
+    }
+}
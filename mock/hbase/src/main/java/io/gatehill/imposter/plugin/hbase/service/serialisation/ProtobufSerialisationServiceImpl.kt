@@ -46,9 +46,9 @@ import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.plugin.hbase.model.InMemoryScanner
 import io.gatehill.imposter.plugin.hbase.model.MockScanner
 import io.gatehill.imposter.plugin.hbase.model.ResultCell
+import io.gatehill.imposter.plugin.hbase.model.TableDataset
 import io.gatehill.imposter.plugin.hbase.service.ScannerService
 import io.vertx.core.buffer.Buffer
-import io.vertx.core.json.JsonArray
 import io.vertx.core.json.JsonObject
 import org.apache.hadoop.hbase.filter.Filter
 import org.apache.hadoop.hbase.filter.PrefixFilter
@@ -77,6 +77,7 @@ class ProtobufSerialisationServiceImpl @Inject constructor(
             scannerModel = getScannerModel(httpExchange)
             val scanner = MockScanner()
             scanner.filter = scannerModel.filter
+            scanner.batch = scannerModel.batch.takeIf { it > 0 }
             scanner
         } catch (e: IOException) {
             throw RuntimeException(e)
@@ -121,26 +122,23 @@ class ProtobufSerialisationServiceImpl @Inject constructor(
     override fun serialise(
         tableName: String,
         scannerId: String,
-        results: JsonArray,
+        dataset: TableDataset,
         scanner: InMemoryScanner,
         rows: Int
     ): Buffer {
-        val cellSetModel = CellSetModel()
+        val batch = nextBatch(dataset, scanner, rows)
 
-        // start the row counter from the last position in the scanner
-        val lastPosition = scanner.rowCounter.get()
-        var i = lastPosition
-        while (i < lastPosition + rows && i < results.size()) {
-            val result = results.getJsonObject(i)
-            cellSetModel.addRow(buildRow(result, buildRowKey(scanner)))
-            i++
-        }
+        // rows are a repeated field of the cell set, so concatenating
+        // single row cell sets produces a valid cell set of all the rows
+        val buffer = Buffer.buffer()
+        dataset.getEncodedRows(ENCODING_NAME, batch) { index, result ->
+            CellSetModel().apply { addRow(buildRow(result, buildRowKey(index))) }.createProtobufOutput()
+        }.forEach(buffer::appendBytes)
 
         // scanner exhausted?
-        checkExhausted(tableName, scannerId, results, scanner)
-        logger.info("Returning {} rows from scanner {} for table: {}", cellSetModel.rows.size, scannerId, tableName)
-        val protobufOutput = cellSetModel.createProtobufOutput()
-        return Buffer.buffer(protobufOutput)
+        checkExhausted(tableName, scannerId, dataset, scanner)
+        logger.info("Returning {} rows from scanner {} for table: {}", batch.count(), scannerId, tableName)
+        return buffer
     }
 
     /**
@@ -163,4 +161,8 @@ class ProtobufSerialisationServiceImpl @Inject constructor(
         }
         return row
     }
-}
\ No newline at end of file
+
+    companion object {
+        private const val ENCODING_NAME = "protobuf"
+    }
+}
@@ -45,9 +45,9 @@ package io.gatehill.imposter.plugin.hbase.service.serialisation
 import io.gatehill.imposter.plugin.hbase.model.InMemoryScanner
 import io.gatehill.imposter.plugin.hbase.model.ResultCell
 import io.gatehill.imposter.plugin.hbase.model.ResultCellComparator
+import io.gatehill.imposter.plugin.hbase.model.TableDataset
 import io.gatehill.imposter.plugin.hbase.service.ScannerService
 import io.vertx.core.buffer.Buffer
-import io.vertx.core.json.JsonArray
 import io.vertx.core.json.JsonObject
 import org.apache.logging.log4j.Logger
 
@@ -63,14 +63,28 @@ interface SerialisationService {
     fun serialise(
         tableName: String,
         scannerId: String,
-        results: JsonArray,
+        dataset: TableDataset,
         scanner: InMemoryScanner,
         rows: Int
     ): Buffer
 
-    fun buildRowKey(scanner: InMemoryScanner): String {
+    /**
+     * Builds the key for the row at the given position in the dataset.
+     */
+    fun buildRowKey(index: Int): String {
         // TODO consider setting key to prefix from scanner filter
-        return "rowKey" + scanner.rowCounter.incrementAndGet()
+        return "rowKey" + (index + 1)
+    }
+
+    /**
+     * Reserves the next batch of up to [rows] row positions from the scanner.
+     */
+    fun nextBatch(dataset: TableDataset, scanner: InMemoryScanner, rows: Int): IntRange {
+        val size = dataset.size
+        val start = scanner.rowCounter.getAndUpdate { position ->
+            if (position >= size) position else minOf(size.toLong(), position.toLong() + rows).toInt()
+        }
+        return start until minOf(size.toLong(), start.toLong() + rows).toInt()
     }
 
     fun buildSortedCells(result: JsonObject): List<ResultCell> {
@@ -83,8 +97,8 @@ interface SerialisationService {
         return cells.sortedWith(ResultCellComparator())
     }
 
-    fun checkExhausted(tableName: String, scannerId: String, results: JsonArray, scanner: InMemoryScanner) {
-        val exhausted = scanner.rowCounter.get() >= results.size()
+    fun checkExhausted(tableName: String, scannerId: String, dataset: TableDataset, scanner: InMemoryScanner) {
+        val exhausted = scanner.rowCounter.get() >= dataset.size
         if (exhausted) {
             logger.info("Scanner {} for table: {} exhausted", scannerId, tableName)
             scannerService.invalidateScanner(Integer.valueOf(scannerId))
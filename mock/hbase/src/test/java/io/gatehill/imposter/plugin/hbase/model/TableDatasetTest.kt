@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.plugin.hbase.model
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Path
+import kotlin.io.path.writeText
+
+/**
+ * Tests for [TableDataset].
+ *
+ * @author Pete Cornish
+ */
+class TableDatasetTest {
+    @TempDir
+    lateinit var tempDir: Path
+
+    @Test
+    fun `index rows from file`() {
+        val dataset = TableDataset.index(writeRows(100))
+
+        assertEquals(100, dataset.size)
+        assertEquals("row1", dataset.getRow(0).getString("abc:id"))
+        assertEquals("value50", dataset.getRow(49).getString("abc:value"))
+        assertEquals("row100", dataset.getRow(99).getString("abc:id"))
+    }
+
+    @Test
+    fun `index rows with nested values and multibyte characters`() {
+        val file = tempDir.resolve("nested.json")
+        file.writeText(
+            """
+            [
+              { "abc:id": "één", "nested": { "list": [ 1, { "x": "}" } ] } },
+              {"abc:id":"two","abc:value":"[]"}
+            ]
+            """.trimIndent()
+        )
+        val dataset = TableDataset.index(file)
+
+        assertEquals(2, dataset.size)
+        assertEquals("één", dataset.getRow(0).getString("abc:id"))
+        assertEquals("}", dataset.getRow(0).getJsonObject("nested").getJsonArray("list").getJsonObject(1).getString("x"))
+        assertEquals("[]", dataset.getRow(1).getString("abc:value"))
+    }
+
+    @Test
+    fun `find row by ID`() {
+        val dataset = TableDataset.index(writeRows(10))
+
+        assertEquals("value3", dataset.findRow("abc:id", "ROW3")?.getString("abc:value"))
+        assertNull(dataset.findRow("abc:id", "row404"))
+    }
+
+    @Test
+    fun `reject non-array data`() {
+        val file = tempDir.resolve("invalid.json")
+        file.writeText("""{ "abc:id": "row1" }""")
+        assertThrows<IllegalStateException> { TableDataset.index(file) }
+    }
+
+    @Test
+    fun `cache encoded rows`() {
+        val dataset = TableDataset.index(writeRows(3))
+        var encodings = 0
+        repeat(2) {
+            val encoded = dataset.getEncodedRows("test", 0 until dataset.size) { _, row ->
+                encodings++
+                ("encoded-" + row.getString("abc:id")).toByteArray()
+            }
+            assertEquals(listOf("encoded-row1", "encoded-row2", "encoded-row3"), encoded.map { String(it) })
+        }
+        assertEquals(3, encodings)
+        assertEquals(
+            listOf("encoded-row2"),
+            dataset.getEncodedRows("test", 1..1) { _, _ -> throw IllegalStateException("not cached") }.map { String(it) }
+        )
+    }
+
+    private fun writeRows(count: Int): Path {
+        val file = tempDir.resolve("rows.json")
+        file.writeText((1..count).joinToString(",\n", "[\n", "\n]") { i ->
+            """  { "abc:id": "row$i", "abc:value": "value$i" }"""
+        })
+        return file
+    }
+}
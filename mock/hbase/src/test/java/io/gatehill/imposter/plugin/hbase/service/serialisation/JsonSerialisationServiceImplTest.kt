@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.plugin.hbase.service.serialisation
+
+import com.google.common.io.BaseEncoding
+import io.gatehill.imposter.plugin.config.PluginConfigImpl
+import io.gatehill.imposter.plugin.hbase.config.HBasePluginConfig
+import io.gatehill.imposter.plugin.hbase.model.InMemoryScanner
+import io.gatehill.imposter.plugin.hbase.model.MockScanner
+import io.gatehill.imposter.plugin.hbase.model.TableDataset
+import io.gatehill.imposter.plugin.hbase.service.ScannerService
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.json.JsonObject
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Path
+import kotlin.io.path.writeText
+
+/**
+ * Tests for scanner batches returned by [JsonSerialisationServiceImpl].
+ *
+ * @author Pete Cornish
+ */
+class JsonSerialisationServiceImplTest {
+    @TempDir
+    lateinit var tempDir: Path
+
+    private val invalidatedScanners = mutableListOf<Int>()
+
+    private val scannerService = object : ScannerService {
+        override fun registerScanner(config: HBasePluginConfig, scanner: MockScanner) = throw UnsupportedOperationException()
+        override fun fetchScanner(scannerId: Int): InMemoryScanner? = null
+        override fun invalidateScanner(scannerId: Int) {
+            invalidatedScanners += scannerId
+        }
+    }
+
+    private val service = JsonSerialisationServiceImpl(scannerService)
+
+    @Test
+    fun `return scanner rows in batches`() {
+        val dataset = writeDataset(5)
+        val scanner = InMemoryScanner(PluginConfigImpl(), MockScanner())
+
+        assertEquals(listOf("rowKey1", "rowKey2"), readRowKeys(service.serialise("table", "1", dataset, scanner, 2)))
+        assertTrue(invalidatedScanners.isEmpty(), "Scanner should not be exhausted")
+
+        assertEquals(listOf("rowKey3", "rowKey4"), readRowKeys(service.serialise("table", "1", dataset, scanner, 2)))
+        assertTrue(invalidatedScanners.isEmpty(), "Scanner should not be exhausted")
+
+        assertEquals(listOf("rowKey5"), readRowKeys(service.serialise("table", "1", dataset, scanner, 2)))
+        assertEquals(listOf(1), invalidatedScanners, "Scanner should be exhausted")
+    }
+
+    @Test
+    fun `return same rows from separate scanners`() {
+        val dataset = writeDataset(3)
+        val first = service.serialise("table", "1", dataset, InMemoryScanner(PluginConfigImpl(), MockScanner()), 10)
+        val second = service.serialise("table", "2", dataset, InMemoryScanner(PluginConfigImpl(), MockScanner()), 10)
+
+        assertEquals(first.toString(), second.toString())
+        assertEquals(listOf("rowKey1", "rowKey2", "rowKey3"), readRowKeys(second))
+    }
+
+    @Test
+    fun `return cells of each row`() {
+        val dataset = writeDataset(1)
+        val buffer = service.serialise("table", "1", dataset, InMemoryScanner(PluginConfigImpl(), MockScanner()), 1)
+
+        // the cell set is pretty printed
+        assertTrue(buffer.toString().contains("\n"), "Cell set should be pretty printed")
+        assertEquals(JsonObject(buffer).encodePrettily(), buffer.toString())
+
+        val cells = JsonObject(buffer).getJsonArray("Row").getJsonObject(0).getJsonArray("Cell")
+        val values = cells.map { decode((it as JsonObject).getString("$")) }.toSet()
+        assertEquals(setOf("row1", "value1"), values)
+    }
+
+    @Test
+    fun `pretty print cell sets of several rows`() {
+        val dataset = writeDataset(3)
+        val buffer = service.serialise("table", "1", dataset, InMemoryScanner(PluginConfigImpl(), MockScanner()), 3)
+        assertEquals(JsonObject(buffer).encodePrettily(), buffer.toString())
+
+        val single = service.serialise("table", "row1", dataset.getRow(0))
+        assertEquals(JsonObject(single).encodePrettily(), single.toString())
+    }
+
+    private fun readRowKeys(buffer: Buffer): List<String> =
+        JsonObject(buffer).getJsonArray("Row").map { decode((it as JsonObject).getString("key")) }
+
+    private fun decode(encoded: String) = String(BaseEncoding.base64().decode(encoded))
+
+    private fun writeDataset(count: Int): TableDataset {
+        val file = tempDir.resolve("rows.json")
+        file.writeText((1..count).joinToString(",", "[", "]") { i ->
+            """{ "abc:id": "row$i", "abc:value": "value$i" }"""
+        })
+        return TableDataset.index(file)
+    }
+}
@@ -54,6 +54,7 @@ import io.gatehill.imposter.plugin.RequireModules
 import io.gatehill.imposter.plugin.config.ConfiguredPlugin
 import io.gatehill.imposter.plugin.config.resource.BasicResourceConfig
 import io.gatehill.imposter.plugin.openapi.config.OpenApiPluginConfig
+import io.gatehill.imposter.plugin.openapi.config.OpenApiPluginValidationConfig.ValidationIssueBehaviour
 import io.gatehill.imposter.plugin.openapi.config.Settings
 import io.gatehill.imposter.plugin.openapi.http.OpenApiResponseBehaviourFactory
 import io.gatehill.imposter.plugin.openapi.model.ParsedSpec
@@ -149,12 +150,24 @@ class OpenApiPluginImpl @Inject constructor(
         }
     }
 
+    /**
+     * The operation paths are only known once the specifications are parsed, but
+     * they are all served under the configured root path.
+     */
+    override val routePathPrefixes: Set<String>
+        get() {
+            val prefixes = configs.map { (it.path ?: "").substringBefore('{').substringBefore('*') }.toSet()
+            return if (Settings.shouldExposeSpec) prefixes + specPathPrefix else prefixes
+        }
+
     private fun parseSpecs(router: HttpRouter) {
         val parsedSpecs = mutableListOf<ParsedSpec>()
 
+        // parse concurrently, then add routes in configuration order
+        val specs = specificationLoaderService.parseSpecifications(configs)
+
         // specification mock endpoints
-        configs.forEach { config: OpenApiPluginConfig ->
-            val spec = specificationLoaderService.parseSpecification(config)
+        configs.zip(specs).forEach { (config, spec) ->
 
             // The *path prefix* includes the plugin configuration root path,
             // but not the OpenAPI server entry 'basePath', as this is
@@ -291,7 +304,11 @@ class OpenApiPluginImpl @Inject constructor(
     ): HttpExchangeFutureHandler {
         // statically calculate as much as possible
         val statusCodeFactory = buildStatusCodeCalculator(operation)
-        return handlerService.build(imposterConfig, pluginConfig, resourceMatcher) { httpExchange: HttpExchange ->
+
+        // the body is only read by the handler for request validation
+        val validateRequests = pluginConfig.validation?.let { it.request != ValidationIssueBehaviour.IGNORE } == true
+
+        return handlerService.build(imposterConfig, pluginConfig, resourceMatcher, validateRequests) { httpExchange: HttpExchange ->
             LOGGER.trace("Operation ${operation.operationId} matched for request: ${describeRequestShort(httpExchange)}")
 
             if (!specificationService.isValidRequest(pluginConfig, httpExchange, allSpecs)) {
@@ -42,6 +42,8 @@
  */
 package io.gatehill.imposter.plugin.openapi.service
 
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
 import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.plugin.openapi.model.ContentTypedHolder
 import io.gatehill.imposter.plugin.openapi.service.valueprovider.DefaultExampleProviders
@@ -60,14 +62,30 @@ import org.apache.logging.log4j.LogManager
 import java.time.OffsetDateTime
 import java.util.Date
 import java.util.Objects.nonNull
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
 
 /**
  * Collects examples from schema definitions.
  *
+ * Examples built from deterministic parts of a schema are cached, keyed by the
+ * schema instance and property name hint, so subsequent requests reuse them.
+ * Parts of a schema whose values come from non-deterministic providers, such as
+ * UUIDs, timestamps or fake data, are rebuilt for every request. Recursive
+ * schemas are cut off with a `null` value where a schema refers back to itself.
+ *
  * @author benjvoigt
  * @author Pete Cornish
  */
 class SchemaServiceImpl : SchemaService {
+    /**
+     * Cached examples, keyed by schema instance, then by property name hint.
+     * Weak keys use identity comparison, and allow schemas to be collected
+     * when their specification is no longer referenced.
+     */
+    private val exampleCache: Cache<Schema<*>, ConcurrentMap<String, CachedExample>> =
+        CacheBuilder.newBuilder().weakKeys().build()
+
     init {
         DefaultExampleProviders.registerDefaults()
     }
@@ -77,7 +95,7 @@ class SchemaServiceImpl : SchemaService {
             spec: OpenAPI,
             schema: ContentTypedHolder<Schema<*>>
     ): ContentTypedHolder<*> {
-        val example = collectSchemaExample(spec, schema.value)
+        val example = collectSchemaExample(ExampleContext(spec), schema.value)
         LOGGER.trace(
                 "Collected example from {} schema for {}: {}",
                 schema.contentType,
@@ -87,7 +105,43 @@ class SchemaServiceImpl : SchemaService {
         return ContentTypedHolder(schema.contentType, example)
     }
 
-    private fun collectSchemaExample(spec: OpenAPI, schema: Schema<*>, propNameHint: String? = null): Any? {
+    private fun collectSchemaExample(ctx: ExampleContext, schema: Schema<*>, propNameHint: String? = null): Any? {
+        val depth = ctx.stack.size
+        val cycleTarget = ctx.stack.indexOfFirst { it === schema }
+        if (cycleTarget >= 0) {
+            LOGGER.trace("Recursive schema detected [propName={}] - using null for example: {}", propNameHint, schema)
+            ctx.minCycleDepth = minOf(ctx.minCycleDepth, cycleTarget)
+            return null
+        }
+
+        val hintKey = propNameHint ?: ""
+        val cachedExamples = exampleCache.get(schema) { ConcurrentHashMap() }
+        cachedExamples[hintKey]?.let { return it.value }
+
+        // track determinism and cycles for this subtree only
+        val parentDeterministic = ctx.deterministic
+        val parentMinCycleDepth = ctx.minCycleDepth
+        ctx.deterministic = true
+        ctx.minCycleDepth = Int.MAX_VALUE
+
+        ctx.stack.add(schema)
+        try {
+            val example = buildSchemaExample(ctx, schema, propNameHint)
+
+            // a subtree cut off by a cycle through one of its ancestors depends on the path taken to it
+            if (ctx.deterministic && ctx.minCycleDepth >= depth) {
+                cachedExamples[hintKey] = CachedExample(example)
+            }
+            return example
+
+        } finally {
+            ctx.stack.removeAt(ctx.stack.size - 1)
+            ctx.deterministic = parentDeterministic && ctx.deterministic
+            ctx.minCycleDepth = minOf(parentMinCycleDepth, ctx.minCycleDepth)
+        }
+    }
+
+    private fun buildSchemaExample(ctx: ExampleContext, schema: Schema<*>, propNameHint: String?): Any? {
         try {
             // $ref takes precedence, per spec:
             //   "Any sibling elements of a $ref are ignored. This is because
@@ -95,8 +149,8 @@ class SchemaServiceImpl : SchemaService {
             //   with the definition it is pointing at."
             // See: https://swagger.io/docs/specification/using-ref/
             val example: Any? = if (nonNull(schema.`$ref`)) {
-                val referent = RefUtil.lookupSchemaRef(spec, schema)
-                collectSchemaExample(spec, referent)
+                val referent = RefUtil.lookupSchemaRef(ctx.spec, schema)
+                collectSchemaExample(ctx, referent)
             } else if (nonNull(schema.example)) {
                 when (schema) {
                     is DateTimeSchema -> {
@@ -112,13 +166,13 @@ class SchemaServiceImpl : SchemaService {
                     }
                 }
             } else if (nonNull(schema.properties)) {
-                buildFromProperties(spec, schema.properties)
+                buildFromProperties(ctx, schema.properties)
             } else {
                 when (schema) {
-                    is ObjectSchema -> buildFromProperties(spec, schema.properties)
-                    is ArraySchema -> buildFromArraySchema(spec, schema)
-                    is ComposedSchema -> buildFromComposedSchema(spec, schema)
-                    else -> determineFromType(spec, schema, propNameHint)
+                    is ObjectSchema -> buildFromProperties(ctx, schema.properties)
+                    is ArraySchema -> buildFromArraySchema(ctx, schema)
+                    is ComposedSchema -> buildFromComposedSchema(ctx, schema)
+                    else -> determineFromType(ctx, schema, propNameHint)
                 }
             }
             return example
@@ -130,14 +184,14 @@ class SchemaServiceImpl : SchemaService {
     /**
      * Use the schema `type` or `types` (OpenAPI 3.1) properties to build an example.
      */
-    private fun determineFromType(spec: OpenAPI, schema: Schema<*>, propNameHint: String?): Any? {
+    private fun determineFromType(ctx: ExampleContext, schema: Schema<*>, propNameHint: String?): Any? {
         schema.type?.let { schemaType ->
-            return buildFromType(spec, schema, schemaType, propNameHint)
+            return buildFromType(ctx, schema, schemaType, propNameHint)
 
         } ?: schema.types?.let { schemaTypes ->
             if (schemaTypes.isEmpty()) {
                 LOGGER.warn("Schema type is null and no schema types set [propName={}] - falling back to property default: {}", propNameHint, schema)
-                return getPropertyDefault(schema, propNameHint)
+                return getPropertyDefault(ctx, schema, propNameHint)
             } else {
                 val schemaType = schemaTypes.first()
                 if (schemaTypes.size > 1) {
@@ -146,11 +200,11 @@ class SchemaServiceImpl : SchemaService {
                 } else {
                     LOGGER.trace("Exactly one schema type set [propName={}]: {}", propNameHint, schemaType)
                 }
-                return buildFromType(spec, schema, schemaType, propNameHint)
+                return buildFromType(ctx, schema, schemaType, propNameHint)
             }
         } ?: run {
             LOGGER.warn("No schema type or types set - falling back to property default for '{}', {}", propNameHint, schema)
-            return getPropertyDefault(schema, propNameHint)
+            return getPropertyDefault(ctx, schema, propNameHint)
         }
     }
 
@@ -158,30 +212,30 @@ class SchemaServiceImpl : SchemaService {
      * Use the given schema type to build an example.
      */
     private fun buildFromType(
-        spec: OpenAPI,
+        ctx: ExampleContext,
         schema: Schema<*>,
         schemaType: String,
         propNameHint: String?,
     ) = when (schemaType) {
-        "array" -> buildFromArraySchema(spec, schema)
-        "object" -> buildFromProperties(spec, schema.properties)
+        "array" -> buildFromArraySchema(ctx, schema)
+        "object" -> buildFromProperties(ctx, schema.properties)
         else -> {
             // schema type is not an aggregate - look for specific example
-            getPropertyDefault(schema, propNameHint)
+            getPropertyDefault(ctx, schema, propNameHint)
         }
     }
 
-    private fun buildFromArraySchema(spec: OpenAPI, schema: Schema<*>): List<Any?> {
+    private fun buildFromArraySchema(ctx: ExampleContext, schema: Schema<*>): List<Any?> {
         if (null == schema.items) {
             return emptyList()
         }
         // items may be a schema type with multiple children
         return mutableListOf(
-                collectSchemaExample(spec, schema.items)
+                collectSchemaExample(ctx, schema.items)
         )
     }
 
-    private fun buildFromComposedSchema(spec: OpenAPI, schema: ComposedSchema): Any? {
+    private fun buildFromComposedSchema(ctx: ExampleContext, schema: ComposedSchema): Any? {
         val example: Any? = if (nonNull(schema.allOf) && schema.allOf.isNotEmpty()) {
             val allOf = schema.allOf
 
@@ -189,7 +243,7 @@ class SchemaServiceImpl : SchemaService {
             // See: https://swagger.io/docs/specification/data-models/oneof-anyof-allof-not/
             val combinedExampleProperties: MutableMap<String, Any> = mutableMapOf()
             allOf.forEach { s ->
-                val exampleMap = collectSchemaExample(spec, s)
+                val exampleMap = collectSchemaExample(ctx, s)
                 if (nonNull(exampleMap) && exampleMap is Map<*, *>) {
                     // FIXME code defensively around this cast
                     @Suppress("UNCHECKED_CAST")
@@ -203,14 +257,14 @@ class SchemaServiceImpl : SchemaService {
                     "Found 'oneOf' in schema {} - using first schema example", (schema.name ?: "")
             )
             val oneOf = schema.oneOf
-            collectSchemaExample(spec, oneOf[0])
+            collectSchemaExample(ctx, oneOf[0])
 
         } else if (nonNull(schema.anyOf) && schema.anyOf.isNotEmpty()) {
             LOGGER.debug(
                     "Found 'anyOf' in schema {} - using first schema example", (schema.name ?: "")
             )
             val anyOf = schema.anyOf
-            collectSchemaExample(spec, anyOf[0])
+            collectSchemaExample(ctx, anyOf[0])
 
         } else if (nonNull(schema.not)) {
             LOGGER.debug(
@@ -228,15 +282,15 @@ class SchemaServiceImpl : SchemaService {
      * @param properties must be nullable as the return type of [Schema.properties] can be `null`
      */
     private fun buildFromProperties(
-            spec: OpenAPI,
+            ctx: ExampleContext,
             properties: Map<String, Schema<*>>?
     ): Map<String, Any?> {
         return properties?.entries?.associate { (propName, propDef) ->
-            propName to collectSchemaExample(spec, propDef, propName)
+            propName to collectSchemaExample(ctx, propDef, propName)
         } ?: emptyMap()
     }
 
-    private fun getPropertyDefault(schema: Schema<*>, propNameHint: String?): Any? {
+    private fun getPropertyDefault(ctx: ExampleContext, schema: Schema<*>, propNameHint: String?): Any? {
         // if a non-empty enum exists, choose the first value
         if (schema.enum?.isNotEmpty() == true) {
             return schema.enum[0]
@@ -247,6 +301,9 @@ class SchemaServiceImpl : SchemaService {
 
         // fall back to a default for the type
         schemaType?.let {
+            if (!ExampleProvider.isDeterministic(schema, schemaType, propNameHint)) {
+                ctx.deterministic = false
+            }
             return ExampleProvider.provide(schema, schemaType, propNameHint) ?: run {
                 LOGGER.warn(
                         "Unknown type: {} for schema: {} - returning null for example property {}",
@@ -261,6 +318,28 @@ class SchemaServiceImpl : SchemaService {
         return null
     }
 
+    /**
+     * State for building a single example.
+     */
+    private class ExampleContext(val spec: OpenAPI) {
+        /**
+         * The schemas being visited, from the root.
+         */
+        val stack = mutableListOf<Schema<*>>()
+
+        /**
+         * Whether the current subtree only used deterministic providers.
+         */
+        var deterministic = true
+
+        /**
+         * The shallowest stack depth at which a cycle was cut in the current subtree.
+         */
+        var minCycleDepth = Int.MAX_VALUE
+    }
+
+    private class CachedExample(val value: Any?)
+
     companion object {
         private val LOGGER = LogManager.getLogger(SchemaServiceImpl::class.java)
     }
@@ -44,11 +44,14 @@ package io.gatehill.imposter.plugin.openapi.service
 
 import com.fasterxml.jackson.databind.ObjectMapper
 import io.gatehill.imposter.config.S3FileDownloader
+import io.gatehill.imposter.config.util.ConfigUtil
 import io.gatehill.imposter.plugin.openapi.config.OpenApiPluginConfig
 import io.gatehill.imposter.plugin.openapi.config.Settings
 import io.gatehill.imposter.service.FileCacheService
 import io.gatehill.imposter.util.MapUtil.JSON_MAPPER
 import io.gatehill.imposter.util.MapUtil.YAML_MAPPER
+import io.gatehill.imposter.util.StartupSnapshotUtil
+import io.swagger.v3.core.util.Json
 import io.swagger.v3.oas.models.OpenAPI
 import io.swagger.v3.parser.OpenAPIV3Parser
 import io.swagger.v3.parser.converter.SwaggerConverter
@@ -56,8 +59,10 @@ import io.swagger.v3.parser.core.models.ParseOptions
 import io.swagger.v3.parser.core.models.SwaggerParseResult
 import io.swagger.v3.parser.util.RemoteUrl
 import org.apache.logging.log4j.LogManager
+import java.io.File
 import java.io.IOException
 import java.nio.file.Paths
+import java.util.concurrent.ConcurrentHashMap
 import javax.inject.Inject
 import kotlin.io.path.readBytes
 
@@ -71,8 +76,82 @@ class SpecificationLoaderService @Inject constructor(
 ) {
     private val logger = LogManager.getLogger(SpecificationLoaderService::class.java)
 
+    /**
+     * Parsed local specifications, so unchanged specifications are not parsed again
+     * when configuration is reloaded.
+     */
+    private val parsedLocalSpecs = ConcurrentHashMap<String, ParsedLocalSpec>()
+
+    /**
+     * Parses the specifications for each of the [configs] concurrently. Each distinct
+     * specification location is parsed once, and the result is shared by all the
+     * configurations that refer to it.
+     *
+     * @return the parsed specifications, in the same order as [configs]
+     */
+    fun parseSpecifications(configs: List<OpenApiPluginConfig>): List<OpenAPI> {
+        val locations = configs.map { determineLocation(it) }
+        val distinct = configs.zip(locations).distinctBy { (_, location) -> location }
+
+        val startTime = System.nanoTime()
+        val results = ConfigUtil.mapConcurrently(distinct) { (config, location) ->
+            val specStartTime = System.nanoTime()
+            parseSpecification(config).also {
+                logger.debug("Parsed specification: {} in {}ms", location, elapsedMillis(specStartTime))
+            }
+        }
+        val specs = distinct.zip(results).associate { (entry, result) ->
+            entry.second to result.getOrElse { e ->
+                throw RuntimeException("Error parsing specification: ${entry.second}", e)
+            }
+        }
+        logger.debug(
+            "Parsed {} specification(s) for {} configuration(s) in {}ms",
+            specs.size,
+            configs.size,
+            elapsedMillis(startTime)
+        )
+        return locations.map { specs.getValue(it) }
+    }
+
+    private fun determineLocation(config: OpenApiPluginConfig): String {
+        val specFile = config.specFile ?: throw IllegalStateException("No specification file configured")
+        return if (isRemoteLocation(specFile)) {
+            specFile
+        } else {
+            Paths.get(config.dir.absolutePath, specFile).normalize().toString()
+        }
+    }
+
+    private fun elapsedMillis(startTime: Long) = (System.nanoTime() - startTime) / 1_000_000
+
     fun parseSpecification(config: OpenApiPluginConfig): OpenAPI {
         val specFile = config.specFile ?: throw IllegalStateException("No specification file configured")
+
+        if (isRemoteLocation(specFile)) {
+            return parseSpecificationFromSource(specFile, config)
+        }
+        val location = determineLocation(config)
+        val specPath = File(location)
+        parsedLocalSpecs[location]?.takeIf { it.isCurrent(specPath) }?.let { parsed ->
+            logger.trace("Using previously parsed specification for: {}", specFile)
+            return parsed.spec
+        }
+        val lastModified = specPath.lastModified()
+        val size = specPath.length()
+
+        // only local specifications are covered by the snapshot's input checks
+        val spec = StartupSnapshotUtil.lookupEntry(SNAPSHOT_NAMESPACE, location)?.let { snapshotSpec ->
+            logger.debug("Using parsed specification for: {} from startup snapshot", specFile)
+            Json.mapper().readValue(snapshotSpec, OpenAPI::class.java)
+        } ?: parseSpecificationFromSource(specFile, config).also { spec ->
+            StartupSnapshotUtil.recordEntry(SNAPSHOT_NAMESPACE, location) { Json.mapper().writeValueAsString(spec) }
+        }
+        parsedLocalSpecs[location] = ParsedLocalSpec(lastModified, size, spec)
+        return spec
+    }
+
+    private fun parseSpecificationFromSource(specFile: String, config: OpenApiPluginConfig): OpenAPI {
         val specData: String = loadSpecFromSourceOrCache(specFile, config)
 
         // determine serialisation
@@ -204,4 +283,16 @@ class SpecificationLoaderService @Inject constructor(
     private enum class SpecVersion {
         V2, V3
     }
+
+    private class ParsedLocalSpec(
+        val lastModified: Long,
+        val size: Long,
+        val spec: OpenAPI,
+    ) {
+        fun isCurrent(specPath: File) = specPath.lastModified() == lastModified && specPath.length() == size
+    }
+
+    companion object {
+        private const val SNAPSHOT_NAMESPACE = "openapi-spec"
+    }
 }
@@ -50,6 +50,12 @@ import io.swagger.v3.oas.models.media.Schema
  */
 interface ExampleProvider<T> {
     fun provide(schema: Schema<*>, propNameHint: String?): T
+
+    /**
+     * Whether [provide] always returns the same value for the given schema and
+     * property name hint. Examples built only from deterministic values are cached.
+     */
+    fun isDeterministic(schema: Schema<*>, propNameHint: String?): Boolean = true
     
     companion object {
         private val providers = mutableMapOf<String, ExampleProvider<*>>()
@@ -61,5 +67,9 @@ interface ExampleProvider<T> {
         fun provide(schema: Schema<*>, schemaType: String, propNameHint: String?): Any? {
             return providers[schemaType]?.provide(schema, propNameHint)
         }
+
+        fun isDeterministic(schema: Schema<*>, schemaType: String, propNameHint: String?): Boolean {
+            return providers[schemaType]?.isDeterministic(schema, propNameHint) ?: true
+        }
     }
 }
@@ -75,4 +75,9 @@ open class StringExampleProvider : ExampleProvider<String> {
             }
         } ?: "example"
     }
+
+    override fun isDeterministic(schema: Schema<*>, propNameHint: String?): Boolean = when (schema.format) {
+        "date", "date-time", "uuid", "guid" -> false
+        else -> true
+    }
 }
@@ -42,17 +42,25 @@
  */
 package io.gatehill.imposter.plugin.openapi
 
+import io.gatehill.imposter.plugin.openapi.service.valueprovider.DefaultExampleProviders
+import io.gatehill.imposter.plugin.openapi.service.valueprovider.ExampleProvider
+import io.gatehill.imposter.plugin.openapi.service.valueprovider.StringExampleProvider
 import io.gatehill.imposter.server.BaseVerticleTest
 import io.gatehill.imposter.util.HttpUtil
 import io.restassured.RestAssured
 import io.restassured.http.ContentType
+import io.swagger.v3.oas.models.media.Schema
 import io.vertx.core.Vertx
 import io.vertx.core.json.JsonArray
+import io.vertx.core.json.JsonObject
 import io.vertx.junit5.VertxTestContext
+import org.junit.jupiter.api.AfterEach
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.yaml.snakeyaml.Yaml
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
 
 /**
  * Tests for schema examples.
@@ -70,9 +78,16 @@ internal class SchemaExamplesTest : BaseVerticleTest() {
     }
 
     override val testConfigDirs = listOf(
-        "/openapi2/model-examples"
+        "/openapi2/model-examples",
+        "/openapi3/volatile-examples",
     )
 
+    @AfterEach
+    fun tearDown() {
+        // restore the providers replaced by tests
+        DefaultExampleProviders.registerDefaults()
+    }
+
     @Test
     fun testServeSchemaExamplesAsJson() {
         val body = RestAssured.given()
@@ -107,6 +122,55 @@ internal class SchemaExamplesTest : BaseVerticleTest() {
         assertEquals(expected, actual)
     }
 
+    /**
+     * Examples built from deterministic schemas are cached, so repeat requests
+     * must reuse them, but volatile values must be regenerated on each request.
+     */
+    @Test
+    fun testServeCachedSchemaExamples() {
+        // the schema service registers the default providers when it is created, so create it first
+        RestAssured.given().accept(ContentType.JSON).`when`().get("/api/pets").then().statusCode(HttpUtil.HTTP_OK)
+
+        val provided = ConcurrentHashMap<String, AtomicInteger>()
+        fun count(key: String) = provided.computeIfAbsent(key) { AtomicInteger() }.incrementAndGet()
+
+        ExampleProvider.register("string", object : StringExampleProvider() {
+            override fun provide(schema: Schema<*>, propNameHint: String?): String {
+                count("string:${schema.format ?: ""}")
+                return super.provide(schema, propNameHint)
+            }
+        })
+        ExampleProvider.register("integer", object : ExampleProvider<Int> {
+            override fun provide(schema: Schema<*>, propNameHint: String?): Int {
+                count("integer")
+                return 42
+            }
+        })
+
+        val bodies = (1..2).map {
+            val body = RestAssured.given()
+                .log().ifValidationFails()
+                .accept(ContentType.JSON)
+                .`when`().get("/orders/latest")
+                .then()
+                .log().ifValidationFails()
+                .statusCode(HttpUtil.HTTP_OK)
+                .extract().asString()
+            JsonObject(body)
+        }
+
+        // the deterministic item is built once, then served from the cache
+        assertEquals(JsonObject().put("name", "example").put("quantity", 42), bodies[0].getJsonObject("item"))
+        assertEquals(bodies[0].getJsonObject("item"), bodies[1].getJsonObject("item"))
+        assertEquals(1, provided["string:"]?.get(), "item name should be generated once")
+        assertEquals(1, provided["integer"]?.get(), "item quantity should be generated once")
+
+        // volatile values are generated for each request
+        assertEquals(2, provided["string:uuid"]?.get(), "id should be generated for each request")
+        assertEquals(2, provided["string:date-time"]?.get(), "createdAt should be generated for each request")
+        assertNotEquals(bodies[0].getString("id"), bodies[1].getString("id"))
+    }
+
     @Test
     fun testServeSchemaExamplesAsYaml() {
         val rawBody = RestAssured.given()
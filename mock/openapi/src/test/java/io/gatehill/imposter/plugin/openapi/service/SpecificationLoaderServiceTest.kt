@@ -108,6 +108,31 @@ class SpecificationLoaderServiceTest {
         Assertions.assertEquals(spec.info.title, "Sample Petstore order service", "title should match")
     }
 
+    /**
+     * Should parse each distinct specification once, returning the specifications
+     * in configuration order.
+     */
+    @Test
+    @Throws(Exception::class)
+    fun testParseSpecificationsConcurrently() {
+        val specDir = Paths.get(
+            SpecificationLoaderServiceTest::class.java.getResource("/util/spec-loader")!!.toURI()
+        ).toFile()
+
+        val configs = listOf("order_service.yaml", "pet_service.yaml", "order_service.yaml").map { specFile ->
+            OpenApiPluginConfig().apply {
+                dir = specDir
+                this.specFile = specFile
+            }
+        }
+
+        val specs = service.parseSpecifications(configs)
+        Assertions.assertEquals(3, specs.size, "a spec should be returned for each config")
+        Assertions.assertEquals("Sample Petstore order service", specs[0].info.title)
+        Assertions.assertEquals("Sample Petstore pet service", specs[1].info.title)
+        Assertions.assertSame(specs[0], specs[2], "the same spec file should only be parsed once")
+    }
+
     /**
      * Should be able to load an OpenAPI specification from a URL.
      */
@@ -114,6 +114,18 @@ open class RestPluginImpl @Inject constructor(
         """.trimMargin())
     }
 
+    /**
+     * The literal part of each configured path, up to the first placeholder or wildcard.
+     * The root resource is served at `/` if it has response configuration but no path.
+     */
+    override val routePathPrefixes: Set<String>
+        get() = configs.flatMap { config ->
+            val rootPath = config.path ?: "/".takeIf { config.responseConfig.hasConfiguration() }
+            listOfNotNull(rootPath) + (config.resources?.map { it.path ?: "" } ?: emptyList())
+        }.map { path ->
+            normalisePath(UniqueRoute(path)).substringBefore('{').substringBefore('*')
+        }.toSet()
+
     private fun addResourceHandler(
         router: HttpRouter,
         pluginConfig: RestPluginConfig,
@@ -124,7 +136,8 @@ open class RestPluginImpl @Inject constructor(
         LOGGER.debug("Adding handler: {} -> {}", method, normalisedPath)
 
         router.route(method, normalisedPath).handler(
-            handlerService.build(imposterConfig, pluginConfig, resourceMatcher) { httpExchange: HttpExchange ->
+            // the handler doesn't read the body, so only buffer it if the configuration needs it
+            handlerService.build(imposterConfig, pluginConfig, resourceMatcher, requestBodyRequired = false) { httpExchange: HttpExchange ->
                 val resourceConfig = httpExchange.get<ContentTypedConfig>(ResourceUtil.RESOURCE_CONFIG_KEY)!!
 
                 responseRoutingService.route(pluginConfig, resourceConfig, httpExchange) { responseBehaviour ->
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.plugin.rest
+
+import io.gatehill.imposter.http.HttpExchange
+import io.gatehill.imposter.lifecycle.EngineLifecycleHooks
+import io.gatehill.imposter.lifecycle.EngineLifecycleListener
+import io.gatehill.imposter.plugin.config.resource.ResourceConfig
+import io.gatehill.imposter.server.BaseVerticleTest
+import io.gatehill.imposter.util.HttpUtil
+import io.gatehill.imposter.util.InjectorUtil
+import io.gatehill.imposter.util.getJvmVersion
+import io.restassured.RestAssured.*
+import io.vertx.core.Vertx
+import io.vertx.junit5.VertxTestContext
+import org.hamcrest.Matchers.equalTo
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * Tests enabling virtual threads in an envfile alongside the configuration.
+ *
+ * @author Pete Cornish
+ */
+class VirtualThreadsTest : BaseVerticleTest() {
+    override val pluginClass = RestPluginImpl::class.java
+
+    override val testConfigDirs = listOf(
+        "/virtual-threads"
+    )
+
+    /**
+     * Whether the handler ran on a virtual thread.
+     */
+    private val handledOnVirtualThread = AtomicReference<Boolean>()
+
+    @BeforeEach
+    @Throws(Exception::class)
+    override fun setUp(vertx: Vertx, testContext: VertxTestContext) {
+        super.setUp(vertx, testContext)
+        baseURI = "http://$host:$listenPort"
+        enableLoggingOfRequestAndResponseIfValidationFails()
+
+        InjectorUtil.getInstance<EngineLifecycleHooks>().registerListener(object : EngineLifecycleListener {
+            override fun beforeBuildingResponse(httpExchange: HttpExchange, resourceConfig: ResourceConfig?) {
+                handledOnVirtualThread.set(isVirtual(Thread.currentThread()))
+            }
+        })
+    }
+
+    @Test
+    fun `should handle request on virtual thread if supported`() {
+        given()
+            .`when`()
+            .get("/example")
+            .then()
+            .statusCode(equalTo(HttpUtil.HTTP_OK))
+            .body(equalTo("hello"))
+
+        // earlier JVMs fall back to the standard thread pools
+        assertEquals(
+            getJvmVersion() >= 21,
+            handledOnVirtualThread.get(),
+            "handler should run on a virtual thread if supported"
+        )
+    }
+
+    private fun isVirtual(thread: Thread): Boolean = try {
+        Thread::class.java.getMethod("isVirtual").invoke(thread) as Boolean
+    } catch (e: NoSuchMethodException) {
+        false
+    }
+}
@@ -49,21 +49,24 @@ import io.gatehill.imposter.http.HttpMethod
 import io.gatehill.imposter.http.HttpRouter
 import io.gatehill.imposter.http.SingletonResourceMatcher
 import io.gatehill.imposter.plugin.PluginInfo
+import io.gatehill.imposter.plugin.RequireModules
 import io.gatehill.imposter.plugin.config.ConfiguredPlugin
 import io.gatehill.imposter.plugin.sfdc.config.SfdcPluginConfig
+import io.gatehill.imposter.plugin.sfdc.query.QueryCursor
+import io.gatehill.imposter.plugin.sfdc.query.QueryService
+import io.gatehill.imposter.plugin.sfdc.query.SoqlParser
 import io.gatehill.imposter.service.HandlerService
-import io.gatehill.imposter.service.ResponseFileService
 import io.gatehill.imposter.service.ResponseRoutingService
-import io.gatehill.imposter.util.FileUtil.findRow
 import io.gatehill.imposter.util.HttpUtil
 import io.gatehill.imposter.util.HttpUtil.CONTENT_TYPE
 import io.gatehill.imposter.util.HttpUtil.CONTENT_TYPE_JSON
+import io.gatehill.imposter.util.completedUnitFuture
 import io.gatehill.imposter.util.makeFuture
 import io.vertx.core.Vertx
 import io.vertx.core.buffer.Buffer
+import io.vertx.core.json.JsonArray
 import io.vertx.core.json.JsonObject
 import org.apache.logging.log4j.LogManager
-import java.util.StringTokenizer
 import java.util.UUID
 import javax.inject.Inject
 import kotlin.math.abs
@@ -74,11 +77,12 @@ import kotlin.math.abs
  * @author Pete Cornish
  */
 @PluginInfo("sfdc")
+@RequireModules(SfdcPluginModule::class)
 class SfdcPluginImpl @Inject constructor(
     vertx: Vertx,
     imposterConfig: ImposterConfig,
     private val handlerService: HandlerService,
-    private val responseFileService: ResponseFileService,
+    private val queryService: QueryService,
     private val responseRoutingService: ResponseRoutingService,
 ) : ConfiguredPlugin<SfdcPluginConfig>(
     vertx, imposterConfig
@@ -106,35 +110,58 @@ class SfdcPluginImpl @Inject constructor(
                 val request = httpExchange.request
                 val apiVersion = request.getPathParam("apiVersion")!!
 
-                // e.g. 'SELECT Name, Id from Account LIMIT 100'
-                val query = request.getQueryParam("q")!!
-                val sObjectName = getSObjectName(query)
-                    ?: throw RuntimeException("Could not determine SObject name from query: $query")
+                // e.g. 'SELECT Name, Id from Account WHERE Name = 'Foo' LIMIT 100'
+                val queryString = request.getQueryParam("q")!!
+                val query = try {
+                    SoqlParser.parse(queryString)
+                } catch (e: IllegalArgumentException) {
+                    SoqlParser.unfiltered(queryString)?.also {
+                        LOGGER.warn("Query not supported - returning all {} records: {}", it.sObjectName, queryString, e)
+                    } ?: run {
+                        LOGGER.error("Malformed query: {}", queryString, e)
+                        httpExchange.fail(HttpUtil.HTTP_BAD_REQUEST, e)
+                        return@build completedUnitFuture()
+                    }
+                }
 
                 val config = configs.firstOrNull { sfdcPluginConfig: SfdcPluginConfig ->
-                    sObjectName.equals(sfdcPluginConfig.sObjectName, ignoreCase = true)
-                } ?: throw RuntimeException("Unable to find mock config for SObject: $sObjectName")
+                    query.sObjectName.equals(sfdcPluginConfig.sObjectName, ignoreCase = true)
+                } ?: throw RuntimeException("Unable to find mock config for SObject: ${query.sObjectName}")
 
                 // script should fire first
                 responseRoutingService.route(config, httpExchange) { responseBehaviour ->
                     makeFuture {
-                        // enrich records
-                        val records = responseFileService.loadResponseAsJsonArray(config, responseBehaviour)
-                        for (i in 0 until records.size()) {
-                            addRecordAttributes(records.getJsonObject(i), apiVersion, config.sObjectName)
-                        }
+                        val recordSet = queryService.loadRecordSet(config, responseBehaviour.responseFile)
+                        val cursor = QueryCursor(
+                            recordSet = recordSet,
+                            matches = recordSet.execute(query),
+                            fields = query.fields,
+                            sObjectName = config.sObjectName!!,
+                            pageSize = determinePageSize(httpExchange),
+                        )
+                        LOGGER.info("Found {} SObjects matching query: {}", cursor.matches.size, queryString)
+                        sendPage(httpExchange, apiVersion, cursor, cursorId = null, position = 0)
+                    }
+                }
+            }
+        )
 
-                        val responseWrapper = JsonObject()
-                        responseWrapper.put("done", true)
-                        responseWrapper.put("records", records)
-                        responseWrapper.put("totalSize", records.size())
-                        LOGGER.info("Sending {} SObjects in response to query: {}", records.size(), query)
+        // query more handler
+        router.get("/services/data/{apiVersion}/query/{queryLocator}").handler(
+            handlerService.buildAndWrap(imposterConfig, configs, resourceMatcher) { httpExchange: HttpExchange ->
+                val request = httpExchange.request
+                val apiVersion = request.getPathParam("apiVersion")!!
+                val queryLocator = request.getPathParam("queryLocator")!!
 
-                        httpExchange.response
-                            .putHeader(CONTENT_TYPE, CONTENT_TYPE_JSON)
-                            .setStatusCode(HttpUtil.HTTP_OK)
-                            .end(Buffer.buffer(responseWrapper.encodePrettily()))
-                    }
+                val cursorId = queryLocator.substringBeforeLast('-')
+                val position = queryLocator.substringAfterLast('-').toIntOrNull()
+                val cursor = position?.let { queryService.getCursor(cursorId) }
+
+                cursor?.let {
+                    sendPage(httpExchange, apiVersion, cursor, cursorId, position)
+                } ?: run {
+                    LOGGER.error("Query locator: {} not found or expired", queryLocator)
+                    httpExchange.response.setStatusCode(HttpUtil.HTTP_NOT_FOUND).end()
                 }
             }
         )
@@ -150,11 +177,9 @@ class SfdcPluginImpl @Inject constructor(
                         val sObjectId = request.getPathParam("sObjectId")
 
                         // find and enrich record
-                        val result = findRow(
-                            idFieldName = FIELD_ID,
-                            rowId = sObjectId,
-                            rows = responseFileService.loadResponseAsJsonArray(config, responseBehaviour)
-                        )?.let { r: JsonObject -> addRecordAttributes(r, apiVersion, config.sObjectName) }
+                        val result = queryService.loadRecordSet(config, responseBehaviour.responseFile)
+                            .findRecord(FIELD_ID, sObjectId)
+                            ?.let { r: JsonObject -> addRecordAttributes(r, r.copy(), apiVersion, config.sObjectName) }
 
                         val response = httpExchange.response
 
@@ -162,7 +187,7 @@ class SfdcPluginImpl @Inject constructor(
                             LOGGER.info("Sending SObject with ID: {}", sObjectId)
                             response.putHeader(CONTENT_TYPE, CONTENT_TYPE_JSON)
                                 .setStatusCode(HttpUtil.HTTP_OK)
-                                .end(Buffer.buffer(result.encodePrettily()))
+                                .end(Buffer.buffer(result.encode()))
                         } ?: run {
                             // no such record
                             LOGGER.error("{} SObject with ID: {} not found", config.sObjectName, sObjectId)
@@ -236,31 +261,82 @@ class SfdcPluginImpl @Inject constructor(
         return ret
     }
 
-    private fun getSObjectName(query: String): String? {
-        val tokenizer = StringTokenizer(query, " ")
-        var token = tokenizer.nextToken()
-        while (tokenizer.hasMoreTokens()) {
-            if ("FROM".equals(token, ignoreCase = true) && tokenizer.hasMoreTokens()) {
-                return tokenizer.nextToken()
-            }
-            token = tokenizer.nextToken()
+    /**
+     * Honours the `batchSize` option of the `Sforce-Query-Options` header, if present.
+     */
+    private fun determinePageSize(httpExchange: HttpExchange): Int {
+        val batchSize = httpExchange.request.getHeader(HEADER_QUERY_OPTIONS)
+            ?.split(',')
+            ?.map { it.trim() }
+            ?.firstOrNull { it.startsWith("batchSize=", ignoreCase = true) }
+            ?.substringAfter('=')
+            ?.toIntOrNull()
+            ?: return MAX_PAGE_SIZE
+
+        return batchSize.coerceIn(MIN_PAGE_SIZE, MAX_PAGE_SIZE)
+    }
+
+    /**
+     * Sends the page of records starting at [position]. If further records remain,
+     * the cursor is retained and a `nextRecordsUrl` is included in the response.
+     */
+    private fun sendPage(
+        httpExchange: HttpExchange,
+        apiVersion: String,
+        cursor: QueryCursor,
+        cursorId: String?,
+        position: Int,
+    ) {
+        val end = (position + cursor.pageSize).coerceAtMost(cursor.matches.size)
+        val records = JsonArray()
+        for (i in position until end) {
+            val index = cursor.matches[i]
+            val projection = cursor.recordSet.project(index, cursor.fields)
+            addRecordAttributes(cursor.recordSet.getRecord(index), projection, apiVersion, cursor.sObjectName)
+            records.add(projection)
+        }
+
+        val done = end >= cursor.matches.size
+        val responseWrapper = JsonObject()
+        responseWrapper.put("done", done)
+        responseWrapper.put("totalSize", cursor.matches.size)
+        if (!done) {
+            val nextCursorId = cursorId ?: queryService.openCursor(cursor)
+            responseWrapper.put("nextRecordsUrl", "/services/data/$apiVersion/query/$nextCursorId-$end")
         }
-        return null
+        responseWrapper.put("records", records)
+        LOGGER.info("Sending {} of {} SObjects in response to query", records.size(), cursor.matches.size)
+
+        httpExchange.response
+            .putHeader(CONTENT_TYPE, CONTENT_TYPE_JSON)
+            .setStatusCode(HttpUtil.HTTP_OK)
+            .end(Buffer.buffer(responseWrapper.encode()))
     }
 
-    private fun addRecordAttributes(record: JsonObject, apiVersion: String, sObjectName: String?): JsonObject {
+    /**
+     * Adds the `attributes` of [record] to [target], which may be a projection of the record.
+     */
+    private fun addRecordAttributes(
+        record: JsonObject,
+        target: JsonObject,
+        apiVersion: String,
+        sObjectName: String?,
+    ): JsonObject {
         val sObjectId = record.getString(FIELD_ID)
             ?: throw RuntimeException(String.format("Record missing '%s' field: %s", FIELD_ID, record))
 
         val attributes = JsonObject()
         attributes.put("type", sObjectName)
         attributes.put("url", "/services/data/$apiVersion/sobjects/$sObjectName/$sObjectId")
-        record.put("attributes", attributes)
-        return record
+        target.put("attributes", attributes)
+        return target
     }
 
     companion object {
         private val LOGGER = LogManager.getLogger(SfdcPluginImpl::class.java)
         private const val FIELD_ID = "Id"
+        private const val HEADER_QUERY_OPTIONS = "Sforce-Query-Options"
+        private const val MIN_PAGE_SIZE = 200
+        private const val MAX_PAGE_SIZE = 2000
     }
 }
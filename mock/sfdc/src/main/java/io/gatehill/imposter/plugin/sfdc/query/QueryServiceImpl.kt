@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.plugin.sfdc.query
+
+import com.google.common.base.Strings
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import io.gatehill.imposter.plugin.config.PluginConfig
+import io.gatehill.imposter.util.FileUtil
+import io.vertx.core.json.JsonArray
+import org.apache.logging.log4j.LogManager
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.UUID
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+/**
+ * Caches record sets by file path, reloading a record set when its file is modified.
+ * Cursors expire after a period of inactivity, as in SFDC.
+ *
+ * @author Pete Cornish
+ */
+class QueryServiceImpl : QueryService {
+    private val recordSets = ConcurrentHashMap<Path, CachedRecordSet>()
+
+    private val cursors: Cache<String, QueryCursor> = CacheBuilder.newBuilder()
+        .expireAfterAccess(CURSOR_EXPIRY_MINS, TimeUnit.MINUTES)
+        .build()
+
+    override fun loadRecordSet(config: PluginConfig, responseFile: String?): SObjectRecordSet {
+        if (Strings.isNullOrEmpty(responseFile)) {
+            LOGGER.debug("Response file blank - returning empty record set")
+            return SObjectRecordSet.EMPTY
+        }
+        return try {
+            val responseFilePath = FileUtil.validatePath(responseFile!!, config.dir)
+            val lastModified = Files.getLastModifiedTime(responseFilePath).toMillis()
+
+            recordSets[responseFilePath]?.takeIf { it.lastModified == lastModified }?.recordSet ?: run {
+                LOGGER.trace("Loading record set from: {}", responseFilePath)
+                val recordSet = SObjectRecordSet(JsonArray(responseFilePath.toFile().readText()))
+                recordSets[responseFilePath] = CachedRecordSet(lastModified, recordSet)
+                recordSet
+            }
+        } catch (e: IOException) {
+            throw RuntimeException(e)
+        }
+    }
+
+    override fun openCursor(cursor: QueryCursor): String {
+        val cursorId = UUID.randomUUID().toString().replace("-", "")
+        cursors.put(cursorId, cursor)
+        return cursorId
+    }
+
+    override fun getCursor(cursorId: String): QueryCursor? = cursors.getIfPresent(cursorId)
+
+    private class CachedRecordSet(val lastModified: Long, val recordSet: SObjectRecordSet)
+
+    companion object {
+        private val LOGGER = LogManager.getLogger(QueryServiceImpl::class.java)
+        private const val CURSOR_EXPIRY_MINS = 15L
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.plugin.sfdc.query
+
+import io.vertx.core.json.JsonArray
+import io.vertx.core.json.JsonObject
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * An immutable set of SObject records, with per-field hash indexes built on
+ * first use. Field names are resolved case-insensitively, as in SOQL.
+ *
+ * Records must not be mutated by callers; use [project] to build response objects.
+ *
+ * @author Pete Cornish
+ */
+class SObjectRecordSet(records: JsonArray) {
+    private val records: List<JsonObject> = List(records.size()) { records.getJsonObject(it) }
+
+    /**
+     * Maps a lowercase field name to the name used in the records.
+     */
+    private val fieldNames: Map<String, String> = this.records
+        .flatMap { it.fieldNames() }
+        .associateBy { it.lowercase() }
+
+    private val indexes = ConcurrentHashMap<String, Map<String?, IntArray>>()
+
+    val size: Int
+        get() = records.size
+
+    fun getRecord(index: Int): JsonObject = records[index]
+
+    /**
+     * Resolves the indices of the records matching the query, honouring its
+     * offset and limit. The cost is proportional to the size of the smallest
+     * candidate set, rather than the number of records.
+     */
+    fun execute(query: SoqlQuery): List<Int> {
+        val matches = findMatches(query.predicates)
+        val from = query.offset.coerceIn(0, matches.size)
+        val to = query.limit?.let { (from.toLong() + it).coerceAtMost(matches.size.toLong()).toInt() } ?: matches.size
+        return matches.subList(from, to.coerceAtLeast(from))
+    }
+
+    /**
+     * @return the record with the given value for the field, or `null`
+     */
+    fun findRecord(field: String, value: String?): JsonObject? =
+        getIndex(field)[normaliseValue(value)]?.firstOrNull()?.let { records[it] }
+
+    private fun findMatches(predicates: List<SoqlPredicate>): List<Int> {
+        if (predicates.isEmpty()) {
+            return AllIndices(records.size)
+        }
+        val candidates = predicates.map { it to lookup(it) }.sortedBy { it.second.size }
+        val (_, smallest) = candidates.first()
+        if (candidates.size == 1) {
+            return smallest.asList()
+        }
+        val remaining = candidates.drop(1).map { it.first }
+        return smallest.filter { index ->
+            val record = records[index]
+            remaining.all { predicate ->
+                normaliseValue(record.getValue(resolveField(predicate.field))) in predicate.values
+            }
+        }
+    }
+
+    /**
+     * @return the ordered indices of the records matching the predicate
+     */
+    private fun lookup(predicate: SoqlPredicate): IntArray {
+        val index = getIndex(predicate.field)
+        if (predicate.values.size == 1) {
+            return index[predicate.values.first()] ?: EMPTY_INDICES
+        }
+        return predicate.values.flatMap { (index[it] ?: EMPTY_INDICES).asIterable() }
+            .toIntArray()
+            .apply { sort() }
+    }
+
+    private fun getIndex(field: String): Map<String?, IntArray> {
+        val fieldName = resolveField(field)
+        return indexes.computeIfAbsent(fieldName) {
+            val index = mutableMapOf<String?, MutableList<Int>>()
+            records.forEachIndexed { i, record ->
+                index.getOrPut(normaliseValue(record.getValue(fieldName))) { mutableListOf() } += i
+            }
+            index.mapValues { it.value.toIntArray() }
+        }
+    }
+
+    private fun resolveField(field: String): String = fieldNames[field.lowercase()] ?: field
+
+    /**
+     * Builds a new object containing the selected fields of the record at the
+     * given index, or all fields if [fields] is `null`.
+     */
+    fun project(index: Int, fields: List<String>?): JsonObject {
+        val record = records[index]
+        if (null == fields) {
+            return record.copy()
+        }
+        val projection = JsonObject()
+        fields.forEach { field ->
+            val fieldName = resolveField(field)
+            projection.put(fieldName, record.getValue(fieldName))
+        }
+        return projection
+    }
+
+    /**
+     * A view of the indices of all records, avoiding materialising them.
+     */
+    private class AllIndices(override val size: Int) : AbstractList<Int>() {
+        override fun get(index: Int): Int = index
+    }
+
+    companion object {
+        private val EMPTY_INDICES = IntArray(0)
+
+        val EMPTY = SObjectRecordSet(JsonArray())
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.plugin.sfdc.query
+
+/**
+ * Parses the subset of SOQL supported by the mock:
+ * ```
+ * SELECT field[, field...] | FIELDS(ALL)
+ * FROM sObject
+ * [WHERE field = value | field IN (value[, value...]) [AND ...]]
+ * [ORDER BY field [ASC|DESC][, ...]]
+ * [LIMIT n]
+ * [OFFSET n]
+ * ```
+ * Ordering is accepted but ignored; records are returned in the order they
+ * appear in the response file.
+ *
+ * Queries outside this subset, such as those using `LIKE`, `OR`, range
+ * comparisons or subqueries, can be resolved with [unfiltered].
+ *
+ * @author Pete Cornish
+ */
+object SoqlParser {
+    fun parse(query: String): SoqlQuery {
+        try {
+            return Parser(tokenise(query)).parseQuery()
+        } catch (e: Exception) {
+            throw IllegalArgumentException("Unsupported SOQL query: $query", e)
+        }
+    }
+
+    /**
+     * Builds a query selecting all fields of all records of the sObject named
+     * in the top-level `FROM` clause, ignoring any other clauses.
+     *
+     * @return the query, or `null` if the sObject name cannot be determined
+     */
+    fun unfiltered(query: String): SoqlQuery? {
+        var depth = 0
+        var fromSeen = false
+        for (word in LENIENT_WORD.findAll(query).map { it.value }) {
+            when {
+                word == "(" -> depth++
+                word == ")" -> depth--
+                depth > 0 -> {}
+                fromSeen -> return SoqlQuery(null, word, emptyList(), null, 0)
+                word.equals("FROM", ignoreCase = true) -> fromSeen = true
+            }
+        }
+        return null
+    }
+
+    private val LENIENT_WORD = Regex("[()]|[^\\s,()]+")
+
+    private class Token(val type: TokenType, val text: String) {
+        fun isKeyword(keyword: String) = type == TokenType.IDENTIFIER && text.equals(keyword, ignoreCase = true)
+        fun isSymbol(symbol: String) = type == TokenType.SYMBOL && text == symbol
+        override fun toString() = text
+    }
+
+    private enum class TokenType {
+        IDENTIFIER,
+        NUMBER,
+        STRING,
+        SYMBOL,
+    }
+
+    private fun tokenise(query: String): List<Token> {
+        val tokens = mutableListOf<Token>()
+        var i = 0
+        while (i < query.length) {
+            val c = query[i]
+            when {
+                c.isWhitespace() -> i++
+
+                c.isLetter() || c == '_' -> {
+                    val start = i
+                    while (i < query.length && (query[i].isLetterOrDigit() || query[i] == '_' || query[i] == '.')) i++
+                    tokens += Token(TokenType.IDENTIFIER, query.substring(start, i))
+                }
+
+                c.isDigit() || (c == '-' && i + 1 < query.length && query[i + 1].isDigit()) -> {
+                    val start = i++
+                    while (i < query.length && (query[i].isDigit() || query[i] == '.')) i++
+                    tokens += Token(TokenType.NUMBER, query.substring(start, i))
+                }
+
+                c == '\'' -> {
+                    val value = StringBuilder()
+                    i++
+                    while (i < query.length && query[i] != '\'') {
+                        if (query[i] == '\\' && i + 1 < query.length) i++
+                        value.append(query[i++])
+                    }
+                    check(i < query.length) { "Unterminated string literal" }
+                    i++
+                    tokens += Token(TokenType.STRING, value.toString())
+                }
+
+                c in "=,()" -> {
+                    tokens += Token(TokenType.SYMBOL, c.toString())
+                    i++
+                }
+
+                else -> throw IllegalStateException("Unexpected character '$c' at position $i")
+            }
+        }
+        return tokens
+    }
+
+    private class Parser(private val tokens: List<Token>) {
+        private var position = 0
+
+        private fun peek(): Token? = tokens.getOrNull(position)
+
+        private fun next(): Token = tokens.getOrNull(position++)
+            ?: throw IllegalStateException("Unexpected end of query")
+
+        private fun expectKeyword(keyword: String) {
+            val token = next()
+            check(token.isKeyword(keyword)) { "Expected $keyword but found: $token" }
+        }
+
+        private fun expectSymbol(symbol: String) {
+            val token = next()
+            check(token.isSymbol(symbol)) { "Expected '$symbol' but found: $token" }
+        }
+
+        private fun acceptKeyword(keyword: String): Boolean {
+            if (peek()?.isKeyword(keyword) == true) {
+                position++
+                return true
+            }
+            return false
+        }
+
+        private fun acceptSymbol(symbol: String): Boolean {
+            if (peek()?.isSymbol(symbol) == true) {
+                position++
+                return true
+            }
+            return false
+        }
+
+        private fun identifier(): String {
+            val token = next()
+            check(token.type == TokenType.IDENTIFIER) { "Expected identifier but found: $token" }
+            return token.text
+        }
+
+        private fun integer(): Int {
+            val token = next()
+            check(token.type == TokenType.NUMBER) { "Expected number but found: $token" }
+            return token.text.toInt()
+        }
+
+        fun parseQuery(): SoqlQuery {
+            expectKeyword("SELECT")
+            val fields = parseFields()
+            expectKeyword("FROM")
+            val sObjectName = identifier()
+
+            val predicates = mutableListOf<SoqlPredicate>()
+            if (acceptKeyword("WHERE")) {
+                do {
+                    predicates += parsePredicate()
+                } while (acceptKeyword("AND"))
+            }
+            if (acceptKeyword("ORDER")) {
+                expectKeyword("BY")
+                do {
+                    identifier()
+                    acceptKeyword("ASC") || acceptKeyword("DESC")
+                    if (acceptKeyword("NULLS")) {
+                        acceptKeyword("FIRST") || acceptKeyword("LAST")
+                    }
+                } while (acceptSymbol(","))
+            }
+            val limit = if (acceptKeyword("LIMIT")) integer() else null
+            val offset = if (acceptKeyword("OFFSET")) integer() else 0
+
+            check(null == peek()) { "Unexpected token: ${peek()}" }
+            return SoqlQuery(fields, sObjectName, predicates, limit, offset)
+        }
+
+        private fun parseFields(): List<String>? {
+            if (peek()?.isKeyword("FIELDS") == true && tokens.getOrNull(position + 1)?.isSymbol("(") == true) {
+                position += 2
+                identifier()
+                expectSymbol(")")
+                return null
+            }
+            val fields = mutableListOf<String>()
+            do {
+                fields += identifier()
+            } while (acceptSymbol(","))
+            return fields
+        }
+
+        private fun parsePredicate(): SoqlPredicate {
+            val field = identifier()
+            return if (acceptSymbol("=")) {
+                SoqlPredicate(field, setOf(literal()))
+            } else {
+                expectKeyword("IN")
+                expectSymbol("(")
+                val values = mutableSetOf<String?>()
+                do {
+                    values += literal()
+                } while (acceptSymbol(","))
+                expectSymbol(")")
+                SoqlPredicate(field, values)
+            }
+        }
+
+        private fun literal(): String? {
+            val token = next()
+            return when {
+                token.type == TokenType.STRING || token.type == TokenType.NUMBER -> normaliseValue(token.text)
+                token.isKeyword("TRUE") || token.isKeyword("FALSE") -> normaliseValue(token.text)
+                token.isKeyword("NULL") -> null
+                else -> throw IllegalStateException("Expected literal but found: $token")
+            }
+        }
+    }
+}
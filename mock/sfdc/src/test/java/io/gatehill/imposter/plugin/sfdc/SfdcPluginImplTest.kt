@@ -123,6 +123,38 @@ class SfdcPluginImplTest : BaseVerticleTest() {
         assertTrue(actual.records.any { account: Account -> "0015000000XALDuAAZ" == account.id })
     }
 
+    @Test
+    fun testQueryRecordsWithPredicates() {
+        val api = buildForceApi()
+        val actual = api.query("SELECT Name FROM Account WHERE Name = 'genepoint'", Account::class.java)
+        assertTrue(actual.isDone)
+        assertEquals(1, actual.totalSize)
+        assertEquals("GenePoint", actual.records.single().name)
+
+        val paged = api.query(
+            "SELECT Id FROM Account WHERE Id IN ('0015000000VALDtAAP', '0015000000XALDuAAZ') LIMIT 1 OFFSET 1",
+            Account::class.java
+        )
+        assertEquals(1, paged.records.size)
+        assertEquals("0015000000XALDuAAZ", paged.records.single().id)
+        assertNull(paged.records.single().name)
+    }
+
+    @Test
+    fun testUnsupportedQueryReturnsAllRecords() {
+        val api = buildForceApi()
+        listOf(
+            "SELECT Id, Name FROM Account WHERE Name LIKE 'Gene%'",
+            "SELECT Id, Name FROM Account WHERE Name != 'GenePoint' OR Name = 'Foo'",
+            "SELECT Id, Name, (SELECT Id FROM Contacts) FROM Account",
+        ).forEach { soql ->
+            val actual = api.query(soql, Account::class.java)
+            assertTrue(actual.isDone)
+            assertEquals(2, actual.records.size, soql)
+            assertTrue(actual.records.any { account: Account -> "GenePoint" == account.name }, soql)
+        }
+    }
+
     @Test
     fun testGetRecordByIdSuccess() {
         // GET Query for specific object with ID, like:
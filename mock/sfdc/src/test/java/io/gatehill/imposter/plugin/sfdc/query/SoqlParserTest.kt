@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.plugin.sfdc.query
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+
+/**
+ * Tests for [SoqlParser].
+ *
+ * @author Pete Cornish
+ */
+class SoqlParserTest {
+    @Test
+    fun `parses supported query`() {
+        val query = SoqlParser.parse(
+            "SELECT Id, Name FROM Account WHERE Name = 'Foo' AND Id IN ('a', 'b') ORDER BY Name DESC LIMIT 10 OFFSET 5"
+        )
+        assertEquals(listOf("Id", "Name"), query.fields)
+        assertEquals("Account", query.sObjectName)
+        assertEquals(2, query.predicates.size)
+        assertEquals(setOf("foo"), query.predicates[0].values)
+        assertEquals(setOf("a", "b"), query.predicates[1].values)
+        assertEquals(10, query.limit)
+        assertEquals(5, query.offset)
+    }
+
+    @Test
+    fun `rejects unsupported queries and resolves them unfiltered`() {
+        listOf(
+            "SELECT Id FROM Account WHERE Name LIKE 'Gene%'",
+            "SELECT Id FROM Account WHERE Name != 'Foo'",
+            "SELECT Id FROM Account WHERE NumberOfEmployees > 10",
+            "SELECT Id FROM Account WHERE NumberOfEmployees < 10",
+            "SELECT Id FROM Account WHERE Name = 'Foo' OR Name = 'Bar'",
+            "SELECT Id FROM Account WHERE CreatedDate > 2020-01-01T00:00:00Z",
+            "SELECT Id FROM Account WHERE CreatedDate = LAST_N_DAYS:30",
+            "SELECT COUNT() FROM Account",
+            "SELECT Id, (SELECT Id FROM Contacts) FROM Account",
+            "SELECT Id FROM Account WHERE Id IN (SELECT AccountId FROM Contact)",
+        ).forEach { soql ->
+            assertThrows<IllegalArgumentException>(soql) { SoqlParser.parse(soql) }
+
+            val query = SoqlParser.unfiltered(soql)!!
+            assertEquals("Account", query.sObjectName, soql)
+            assertNull(query.fields, soql)
+            assertEquals(0, query.predicates.size, soql)
+            assertNull(query.limit, soql)
+            assertEquals(0, query.offset, soql)
+        }
+    }
+
+    @Test
+    fun `cannot resolve query without sObject`() {
+        assertNull(SoqlParser.unfiltered("SELECT Id"))
+        assertNull(SoqlParser.unfiltered("SELECT Id FROM"))
+    }
+}
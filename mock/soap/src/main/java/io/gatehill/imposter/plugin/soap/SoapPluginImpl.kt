@@ -43,6 +43,7 @@
 package io.gatehill.imposter.plugin.soap
 
 import io.gatehill.imposter.ImposterConfig
+import io.gatehill.imposter.config.util.ConfigUtil
 import io.gatehill.imposter.http.DefaultStatusCodeFactory
 import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.http.HttpMethod
@@ -77,8 +78,10 @@ import io.gatehill.imposter.util.ResourceUtil
 import io.gatehill.imposter.util.completedUnitFuture
 import io.vertx.core.Vertx
 import org.apache.logging.log4j.LogManager
+import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument
 import java.io.File
 import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
 import javax.inject.Inject
 import kotlin.collections.set
 
@@ -115,13 +118,10 @@ class SoapPluginImpl @Inject constructor(
     }
 
     private fun parseWsdls(router: HttpRouter) {
-        configs.forEach { config: SoapPluginConfig ->
-            val fullWsdlPath = File(config.dir, config.wsdlFile!!)
-            check(fullWsdlPath.exists()) {
-                "WSDL file not found at path: $fullWsdlPath"
-            }
-            val wsdlParser = VersionAwareWsdlParser(fullWsdlPath)
+        // parse concurrently, then add routes in configuration order
+        val parsers = parseWsdlFiles()
 
+        configs.zip(parsers).forEach { (config, wsdlParser) ->
             // TODO optionally support ?wsdl query to return the WSDL
 
             wsdlParser.services.forEach { service ->
@@ -142,6 +142,35 @@ class SoapPluginImpl @Inject constructor(
         }
     }
 
+    /**
+     * Parses the WSDL for each configuration, and compiles its schemas, concurrently.
+     * XSD files are parsed once and shared between WSDLs in the same directory.
+     *
+     * @return the parsers, in the same order as [configs]
+     */
+    private fun parseWsdlFiles(): List<WsdlParser> {
+        val schemaDocuments = ConcurrentHashMap<File, SchemaDocument>()
+        val startTime = System.nanoTime()
+
+        val results = ConfigUtil.mapConcurrently(configs) { config ->
+            val fullWsdlPath = File(config.dir, config.wsdlFile!!)
+            check(fullWsdlPath.exists()) {
+                "WSDL file not found at path: $fullWsdlPath"
+            }
+            val wsdlStartTime = System.nanoTime()
+            VersionAwareWsdlParser(fullWsdlPath, schemaDocuments).also { parser ->
+                // compile schemas up front, rather than on first use
+                parser.schemaContext
+                LOGGER.debug("Parsed WSDL: {} in {}ms", fullWsdlPath, (System.nanoTime() - wsdlStartTime) / 1_000_000)
+            }
+        }
+        val parsers = configs.zip(results).map { (config, result) ->
+            result.getOrElse { e -> throw RuntimeException("Error parsing WSDL: ${config.wsdlFile}", e) }
+        }
+        LOGGER.debug("Parsed {} WSDL(s) in {}ms", parsers.size, (System.nanoTime() - startTime) / 1_000_000)
+        return parsers
+    }
+
     /**
      * Bind a handler to each operation.
      *
@@ -57,15 +57,21 @@ import org.jdom2.Namespace
 import org.jdom2.output.XMLOutputter
 import org.xml.sax.EntityResolver
 import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
 import javax.xml.namespace.QName
 
 /**
+ * Parsed XSD files are held in [schemaDocuments], keyed by file, so they can be
+ * shared between parsers for WSDLs in the same directory.
+ *
  * @author Pete Cornish
  */
 abstract class AbstractWsdlParser(
     private val wsdlFile: File,
     protected val document: Document,
     private val entityResolver: EntityResolver,
+    private val schemaDocuments: ConcurrentMap<File, SchemaDocument> = ConcurrentHashMap(),
 ) : WsdlParser {
     protected val logger: Logger = LogManager.getLogger(this::class.java)
 
@@ -84,12 +90,14 @@ abstract class AbstractWsdlParser(
         // TODO consider only those referenced by 'xs:import' or 'xs:include'
         val xsds = wsdlFile.parentFile.listFiles { _, name -> name.endsWith(".xsd") }?.toList() ?: emptyList()
         schemas += xsds.map { schemaFile ->
-            val options = XmlOptions()
-                .setLoadLineNumbers()
-                .setLoadMessageDigest()
-                .setEntityResolver(entityResolver)
+            schemaDocuments.computeIfAbsent(schemaFile.absoluteFile) {
+                val options = XmlOptions()
+                    .setLoadLineNumbers()
+                    .setLoadMessageDigest()
+                    .setEntityResolver(entityResolver)
 
-            SchemaDocument.Factory.parse(schemaFile, options)
+                SchemaDocument.Factory.parse(schemaFile, options)
+            }
         }
 
         logger.debug("Discovered {} schema(s) for WSDL: {}", schemas.size, wsdlFile)
@@ -47,16 +47,24 @@ import io.gatehill.imposter.plugin.soap.model.WsdlBinding
 import io.gatehill.imposter.plugin.soap.model.WsdlInterface
 import io.gatehill.imposter.plugin.soap.model.WsdlService
 import org.apache.logging.log4j.LogManager
+import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument
 import org.jdom2.input.SAXBuilder
 import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
 
 /**
  * Detects WSDL version from namespaces of root element, then
  * delegates to version-specific [WsdlParser] implementation.
  *
+ * Parsers sharing the same [schemaDocuments] parse each XSD file once.
+ *
  * @author Pete Cornish
  */
-class VersionAwareWsdlParser(wsdlFile: File) : WsdlParser {
+class VersionAwareWsdlParser(
+    wsdlFile: File,
+    schemaDocuments: ConcurrentMap<File, SchemaDocument> = ConcurrentHashMap(),
+) : WsdlParser {
     private val logger = LogManager.getLogger(VersionAwareWsdlParser::class.java)
     private val delegate: WsdlParser
 
@@ -72,8 +80,8 @@ class VersionAwareWsdlParser(wsdlFile: File) : WsdlParser {
         delegate = when (wsdlNamespaces.size) {
             0 -> throw IllegalStateException("No WSDL namespace found on root element")
             1 -> when (wsdlNamespaces.first().uri) {
-                Wsdl1Parser.wsdl1Namespace -> Wsdl1Parser(wsdlFile, document, entityResolver)
-                Wsdl2Parser.wsdl2Namespace -> Wsdl2Parser(wsdlFile, document, entityResolver)
+                Wsdl1Parser.wsdl1Namespace -> Wsdl1Parser(wsdlFile, document, entityResolver, schemaDocuments)
+                Wsdl2Parser.wsdl2Namespace -> Wsdl2Parser(wsdlFile, document, entityResolver, schemaDocuments)
                 else -> throw IllegalStateException("Unsupported WSDL namespace on root element")
             }
             else -> throw IllegalStateException("More than one WSDL namespace found on root element: $wsdlNamespaces")
@@ -56,12 +56,15 @@ import io.gatehill.imposter.plugin.soap.model.WsdlService
 import io.gatehill.imposter.plugin.soap.util.SoapUtil
 import io.gatehill.imposter.plugin.soap.util.SoapUtil.toNamespaceMap
 import io.gatehill.imposter.util.BodyQueryUtil
+import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument
 import org.jdom2.Document
 import org.jdom2.Element
 import org.jdom2.Namespace
 import org.xml.sax.EntityResolver
 import java.io.File
 import java.net.URI
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
 
 /**
  * WSDL 1.x parser.
@@ -72,7 +75,8 @@ class Wsdl1Parser(
     wsdlFile: File,
     document: Document,
     entityResolver: EntityResolver,
-) : AbstractWsdlParser(wsdlFile, document, entityResolver) {
+    schemaDocuments: ConcurrentMap<File, SchemaDocument> = ConcurrentHashMap(),
+) : AbstractWsdlParser(wsdlFile, document, entityResolver, schemaDocuments) {
 
     override val version = WsdlParser.WsdlVersion.V1
 
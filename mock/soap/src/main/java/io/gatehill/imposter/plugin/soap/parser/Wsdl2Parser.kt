@@ -54,12 +54,15 @@ import io.gatehill.imposter.plugin.soap.model.WsdlService
 import io.gatehill.imposter.plugin.soap.util.SoapUtil
 import io.gatehill.imposter.plugin.soap.util.SoapUtil.toNamespaceMap
 import io.gatehill.imposter.util.BodyQueryUtil
+import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument
 import org.jdom2.Document
 import org.jdom2.Element
 import org.jdom2.Namespace
 import org.xml.sax.EntityResolver
 import java.io.File
 import java.net.URI
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
 
 /**
  * WDSL 2.0 parser.
@@ -70,7 +73,8 @@ class Wsdl2Parser(
     wsdlFile: File,
     document: Document,
     entityResolver: EntityResolver,
-) : AbstractWsdlParser(wsdlFile, document, entityResolver) {
+    schemaDocuments: ConcurrentMap<File, SchemaDocument> = ConcurrentHashMap(),
+) : AbstractWsdlParser(wsdlFile, document, entityResolver, schemaDocuments) {
 
     override val version = WsdlParser.WsdlVersion.V2
 
@@ -43,9 +43,13 @@
 
 package io.gatehill.imposter.plugin.soap.parser
 
+import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotNull
+import org.junit.jupiter.api.Assertions.assertSame
 import org.junit.jupiter.api.Test
 import java.io.File
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  * Tests for [VersionAwareWsdlParser].
@@ -68,4 +72,20 @@ class VersionAwareWsdlParserTest {
 
         assertEquals(WsdlParser.WsdlVersion.V2, parser.version)
     }
+
+    @Test
+    fun shareSchemaDocuments() {
+        val wsdlFile = File(VersionAwareWsdlParserTest::class.java.getResource("/wsdl1-soap11-document-bare/service.wsdl")!!.toURI())
+        val schemaDocuments = ConcurrentHashMap<File, SchemaDocument>()
+
+        val first = VersionAwareWsdlParser(wsdlFile, schemaDocuments)
+        assertNotNull(first.schemaContext)
+        assertEquals(1, schemaDocuments.size)
+        val schemaDocument = schemaDocuments.values.first()
+
+        val second = VersionAwareWsdlParser(wsdlFile, schemaDocuments)
+        assertNotNull(second.schemaContext)
+        assertEquals(1, schemaDocuments.size)
+        assertSame(schemaDocument, second.schemaContext.schemas.last(), "XSD should only be parsed once")
+    }
 }
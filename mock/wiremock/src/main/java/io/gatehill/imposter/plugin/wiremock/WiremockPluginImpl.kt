@@ -42,9 +42,10 @@
  */
 package io.gatehill.imposter.plugin.wiremock
 
+import com.google.common.hash.Hashing
 import io.gatehill.imposter.ImposterConfig
-import io.gatehill.imposter.config.ConfigReference
 import io.gatehill.imposter.config.LoadedConfig
+import io.gatehill.imposter.config.util.ConfigUtil
 import io.gatehill.imposter.config.util.EnvVars
 import io.gatehill.imposter.http.HttpMethod
 import io.gatehill.imposter.plugin.PluginInfo
@@ -52,9 +53,12 @@ import io.gatehill.imposter.plugin.config.resource.ResponseConfig
 import io.gatehill.imposter.plugin.rest.RestPluginImpl
 import io.gatehill.imposter.plugin.rest.config.RestPluginConfig
 import io.gatehill.imposter.plugin.rest.config.RestPluginResourceConfig
+import io.gatehill.imposter.plugin.wiremock.model.ConvertedMappingFile
+import io.gatehill.imposter.plugin.wiremock.model.FileFingerprint
 import io.gatehill.imposter.plugin.wiremock.model.WiremockFile
 import io.gatehill.imposter.plugin.wiremock.model.WiremockMapping
 import io.gatehill.imposter.plugin.wiremock.util.ConversionUtil
+import io.gatehill.imposter.service.FileCacheService
 import io.gatehill.imposter.service.HandlerService
 import io.gatehill.imposter.service.ResponseFileService
 import io.gatehill.imposter.service.ResponseRoutingService
@@ -62,18 +66,19 @@ import io.gatehill.imposter.service.ResponseService
 import io.gatehill.imposter.util.HttpUtil
 import io.gatehill.imposter.util.MapUtil
 import io.vertx.core.Vertx
+import io.vertx.core.http.impl.MimeMapping
 import org.apache.logging.log4j.LogManager
 import java.io.File
 import java.io.FileNotFoundException
-import java.io.IOException
 import java.net.URI
-import java.nio.file.Files
+import java.nio.file.Path
 import java.nio.file.Paths
 import javax.inject.Inject
 import kotlin.io.path.exists
+import kotlin.io.path.fileSize
+import kotlin.io.path.getLastModifiedTime
 import kotlin.io.path.name
-import kotlin.io.path.readText
-import kotlin.io.path.writeText
+import kotlin.io.path.readBytes
 
 @PluginInfo("wiremock")
 class WiremockPluginImpl @Inject constructor(
@@ -83,6 +88,7 @@ class WiremockPluginImpl @Inject constructor(
     responseFileService: ResponseFileService,
     responseService: ResponseService,
     responseRoutingService: ResponseRoutingService,
+    private val fileCacheService: FileCacheService,
 ) : RestPluginImpl(
     vertx,
     imposterConfig,
@@ -93,80 +99,162 @@ class WiremockPluginImpl @Inject constructor(
 ) {
     private val logger = LogManager.getLogger(WiremockPluginImpl::class.java)
     private val separateConfigFiles = EnvVars.getEnv("IMPOSTER_WIREMOCK_SEPARATE_CONFIG").toBoolean()
+    private val conversionCacheEnabled = EnvVars.getEnv("IMPOSTER_WIREMOCK_CONVERSION_CACHE")?.toBoolean() != false
 
-    override fun loadConfiguration(loadedConfigs: List<LoadedConfig>) {
-        super.loadConfiguration(loadedConfigs.flatMap { convert(it) })
+    override fun parseConfiguration(loadedConfigs: List<LoadedConfig>): List<RestPluginConfig> {
+        return loadedConfigs.flatMap { loadedConfig ->
+            try {
+                convert(loadedConfig).map { config ->
+                    ConfigUtil.preparePluginConfig(imposterConfig, loadedConfig.ref, config).also {
+                        validateConfig(loadedConfig.ref.file, it)
+                    }
+                }
+            } catch (e: Exception) {
+                val configEx = RuntimeException("Error loading plugin config: $loadedConfig", e)
+                if (ConfigUtil.ignoreConfigErrors) {
+                    logger.warn("Skipping plugin configuration with error", e)
+                    emptyList()
+                } else {
+                    throw configEx
+                }
+            }
+        }
     }
 
     /**
-     * Converts wiremock mappings to Imposter format in a temporary directory,
-     * then returns the path to the generated config file.
+     * Converts wiremock mappings to Imposter configuration in memory.
+     *
+     * Each mapping file is converted independently, and the result is cached,
+     * keyed by the path of the file. Unchanged mapping files, whose response
+     * body files are also unchanged, are not converted again. Files are only
+     * read and hashed if their modification time differs from the cached
+     * conversion, but their size does not.
+     *
+     * Response body files are served from the `__files` directory in place,
+     * unless they contain wiremock placeholders, in which case the converted
+     * body is held as inline content.
      */
-    fun convert(mappingsFile: LoadedConfig): List<LoadedConfig> {
+    fun convert(mappingsFile: LoadedConfig): List<RestPluginConfig> {
         val sourceDir = mappingsFile.ref.file.parentFile
-        val localConfigDir = Files.createTempDirectory("wiremock").toFile()
 
-        val mappings = loadMappings(sourceDir)
-        if (!mappings.isNullOrEmpty()) {
-            logger.debug("Converting ${mappings.size} wiremock mapping file(s) from $sourceDir")
+        val mappingFiles = File(sourceDir, "mappings").listFiles { _, filename -> filename.endsWith(".json") }
+            ?.sortedBy { it.name }
+        if (!mappingFiles.isNullOrEmpty()) {
+            logger.debug("Converting ${mappingFiles.size} wiremock mapping file(s) from $sourceDir")
 
-            val responseFileDir = File(localConfigDir, RESPONSE_FILE_SUBDIR)
-            if (!responseFileDir.mkdirs()) {
-                throw IOException("Failed to create response file dir: $responseFileDir")
-            }
-
-            val configFiles = mutableListOf<LoadedConfig>()
-            val converted = mappings.map { mf ->
-                mf.mapNotNull { m -> convertMapping(sourceDir, localConfigDir, m) }
-            }
+            val converted = mappingFiles.mapNotNull { convertMappingFile(sourceDir, it) }
             if (converted.isNotEmpty()) {
-                if (separateConfigFiles) {
-                    configFiles += converted.mapIndexed { index, res -> writeConfig(localConfigDir, index, res) }
+                val configs = if (separateConfigFiles) {
+                    converted.map { buildConfig(it) }
                 } else {
-                    configFiles += writeConfig(localConfigDir, 0, converted.flatten())
+                    listOf(buildConfig(converted.flatten()))
                 }
-                logger.debug("Wrote converted wiremock mapping file(s) to $localConfigDir")
-                return configFiles
+                logger.debug("Converted wiremock mapping file(s) from $sourceDir")
+                return configs
             }
         }
         logger.warn("No wiremock mapping files found in $sourceDir")
         return emptyList()
     }
 
-    private fun loadMappings(configPath: File): List<List<WiremockMapping>>? =
-        File(configPath, "mappings").listFiles { _, filename -> filename.endsWith(".json") }?.mapNotNull { jsonFile ->
-            try {
-                val config = MapUtil.JSON_MAPPER.readValue(jsonFile, WiremockFile::class.java)
-                logger.trace("Parsed {} as wiremock mapping file: {}", configPath, config)
-                if (config.mappings.isNullOrEmpty()) {
-                    return@mapNotNull listOf(WiremockMapping(config.request!!, config.response!!))
-                } else {
-                    return@mapNotNull config.mappings
-                }
-            } catch (e: Exception) {
-                logger.trace("Unable to parse {} as wiremock mapping file: {}", configPath, e.message)
-                null
+    /**
+     * @return the converted resources, or `null` if the file is not a wiremock mapping file
+     */
+    private fun convertMappingFile(sourceDir: File, mappingFile: File): List<RestPluginResourceConfig>? {
+        val cacheKey = if (conversionCacheEnabled) {
+            CACHE_KEY_PREFIX + mappingFile.absolutePath
+        } else {
+            null
+        }
+        cacheKey?.let { readCachedConversion(sourceDir, mappingFile, cacheKey) }?.let { return it }
+
+        val mappingFilePath = mappingFile.toPath()
+        val mappingFileStat = FileStat.of(mappingFilePath)
+        val content = mappingFilePath.readBytes()
+        val mappings = parseMappings(mappingFile, content) ?: return null
+        val bodyFiles = mutableMapOf<String, FileFingerprint>()
+        val resources = mappings.mapNotNull { m -> convertMapping(sourceDir, m, bodyFiles) }
+
+        cacheKey?.let {
+            val conversion = ConvertedMappingFile(mappingFileStat.fingerprint(content), bodyFiles, resources)
+            fileCacheService.writeToCache(cacheKey, MapUtil.jsonify(conversion))
+        }
+        return resources
+    }
+
+    private fun parseMappings(mappingFile: File, content: ByteArray): List<WiremockMapping>? {
+        try {
+            val config = MapUtil.JSON_MAPPER.readValue(content, WiremockFile::class.java)
+            logger.trace("Parsed {} as wiremock mapping file: {}", mappingFile, config)
+            return if (config.mappings.isNullOrEmpty()) {
+                listOf(WiremockMapping(config.request!!, config.response!!))
+            } else {
+                config.mappings
             }
+        } catch (e: Exception) {
+            logger.trace("Unable to parse {} as wiremock mapping file: {}", mappingFile, e.message)
+            return null
         }
+    }
 
-    private fun writeConfig(destDir: File, index: Int, resources: List<RestPluginResourceConfig>): LoadedConfig {
-        val destFile = File(destDir, "wiremock-$index-config.json")
-        val config = RestPluginConfig().apply {
-            plugin = "rest"
-            this.resources = resources
+    /**
+     * @return the cached resources, or `null` if there is no cached conversion, or the mapping file or a response body file has changed
+     */
+    private fun readCachedConversion(
+        sourceDir: File,
+        mappingFile: File,
+        cacheKey: String,
+    ): List<RestPluginResourceConfig>? {
+        val cached = fileCacheService.readFromCache(cacheKey).takeIf { it.hit }?.value ?: return null
+        try {
+            val conversion = MapUtil.JSON_MAPPER.readValue(cached, ConvertedMappingFile::class.java)
+            val mappingFileFingerprint = revalidate(mappingFile.toPath(), conversion.mappingFile) ?: return null
+            val bodyFiles = conversion.bodyFiles.mapValues { (bodyFileName, fingerprint) ->
+                revalidate(resolveBodyFile(sourceDir, bodyFileName), fingerprint) ?: return null
+            }
+
+            val touched = mappingFileFingerprint !== conversion.mappingFile ||
+                bodyFiles.any { (bodyFileName, fingerprint) -> fingerprint !== conversion.bodyFiles[bodyFileName] }
+            if (touched) {
+                // content is unchanged, so record the new modification times to avoid hashing the files next time
+                val refreshed = ConvertedMappingFile(mappingFileFingerprint, bodyFiles, conversion.resources)
+                fileCacheService.writeToCache(cacheKey, MapUtil.jsonify(refreshed))
+            }
+            logger.trace("Using cached conversion of wiremock mapping file: {}", mappingFile)
+            return conversion.resources
+        } catch (e: Exception) {
+            logger.debug("Ignoring unreadable cached conversion of wiremock mapping file: {}", mappingFile, e)
         }
-        val serialised = MapUtil.jsonify(config)
-        destFile.writeText(serialised)
-        logger.trace("Converted wiremock mapping file to Imposter config: {}", destFile)
-
-        return LoadedConfig(
-            plugin = config.plugin!!,
-            ref = ConfigReference(destFile, destDir),
-            serialised = serialised,
-        )
+        return null
     }
 
-    private fun convertMapping(sourceDir: File, destDir: File, mapping: WiremockMapping): RestPluginResourceConfig? {
+    /**
+     * @return [previous] if the file's modification time and size are unchanged, a new fingerprint if only
+     * its modification time has changed, or `null` if the file is missing or its content has changed
+     */
+    private fun revalidate(file: Path, previous: FileFingerprint): FileFingerprint? {
+        if (!file.exists()) {
+            return null
+        }
+        val stat = FileStat.of(file)
+        if (stat.size != previous.size) {
+            return null
+        } else if (stat.lastModified == previous.lastModified) {
+            return previous
+        }
+        return stat.fingerprint(file.readBytes()).takeIf { it.hash == previous.hash }
+    }
+
+    private fun buildConfig(resources: List<RestPluginResourceConfig>) = RestPluginConfig().apply {
+        plugin = "rest"
+        this.resources = resources
+    }
+
+    private fun convertMapping(
+        sourceDir: File,
+        mapping: WiremockMapping,
+        bodyFiles: MutableMap<String, FileFingerprint>,
+    ): RestPluginResourceConfig? {
         val url = mapping.request.url
         if (null == url) {
             logger.warn("Skipping conversion of mapping with no URL: $mapping")
@@ -184,13 +272,12 @@ class WiremockPluginImpl @Inject constructor(
             responseConfig.apply {
                 statusCode = mapping.response.status
                 headers = mapping.response.headers
-                file = mapping.response.bodyFileName?.let { bodyFileName ->
-                    convertResponseFile(sourceDir, destDir, bodyFileName)
+                mapping.response.bodyFileName?.let { bodyFileName ->
+                    convertResponseFile(sourceDir, this, bodyFileName, bodyFiles)
                 }
-                // TODO consider moving inline content to response files
-                content = mapping.response.body ?: mapping.response.jsonBody?.let { jsonBody ->
+                (mapping.response.body ?: mapping.response.jsonBody?.let { jsonBody ->
                     convertJsonBody(responseConfig, jsonBody)
-                }
+                })?.let { content = it }
                 isTemplate = mapping.response.transformers?.contains("response-template")
                 failureType = ConversionUtil.convertFault(mapping.response.fault)
                 performanceDelay = ConversionUtil.convertDelay(mapping.response)
@@ -198,29 +285,59 @@ class WiremockPluginImpl @Inject constructor(
         }
     }
 
+    /**
+     * Points the response at the body file if it can be served as-is, otherwise
+     * sets the converted body as inline content.
+     */
     private fun convertResponseFile(
         sourceDir: File,
-        destDir: File,
+        responseConfig: ResponseConfig,
         bodyFileName: String,
-    ): String {
-        val sourceFile = Paths.get(sourceDir.path, "__files", bodyFileName).normalize()
+        bodyFiles: MutableMap<String, FileFingerprint>,
+    ) {
+        val sourceFile = resolveBodyFile(sourceDir, bodyFileName)
         if (!sourceFile.exists()) {
             throw FileNotFoundException("Response body file: $sourceFile does not exist")
         }
-        val responseFile = ConversionUtil.convertPlaceholders(sourceFile.readText())
+        val stat = FileStat.of(sourceFile)
+        val original = sourceFile.readBytes()
+        bodyFiles[bodyFileName] = stat.fingerprint(original)
 
-        val destFile = Paths.get(destDir.path, RESPONSE_FILE_SUBDIR, sourceFile.name)
-        destFile.writeText(responseFile)
-        logger.trace("Converted response file {} to {}", sourceFile, destFile)
-        return RESPONSE_FILE_SUBDIR + "/" + destFile.name
+        val originalText = String(original, Charsets.UTF_8)
+        val converted = ConversionUtil.convertPlaceholders(originalText)
+        if (converted == originalText) {
+            responseConfig.file = sourceDir.toPath().relativize(sourceFile).joinToString("/")
+            logger.trace("Using response file {} without conversion", sourceFile)
+        } else {
+            responseConfig.content = converted
+            if (responseConfig.headers?.keys?.none { it.equals(HttpUtil.CONTENT_TYPE, ignoreCase = true) } != false) {
+                // preserve the content type that would have been inferred from the file name
+                val contentType = MimeMapping.getMimeTypeForFilename(sourceFile.name) ?: HttpUtil.CONTENT_TYPE_JSON
+                responseConfig.setHeader(HttpUtil.CONTENT_TYPE, contentType)
+            }
+            logger.trace("Converted response file {} to inline content", sourceFile)
+        }
     }
 
+    private fun resolveBodyFile(sourceDir: File, bodyFileName: String): Path =
+        Paths.get(sourceDir.path, BODY_FILE_SUBDIR, bodyFileName).normalize()
+
     private fun convertJsonBody(responseConfig: ResponseConfig, it: Any): String {
         responseConfig.setHeader(HttpUtil.CONTENT_TYPE, HttpUtil.CONTENT_TYPE_JSON)
         return MapUtil.jsonify(it)
     }
 
     companion object {
-        private const val RESPONSE_FILE_SUBDIR = "files"
+        private const val BODY_FILE_SUBDIR = "__files"
+        private const val CACHE_KEY_PREFIX = "wiremock-conversion-v2:"
+    }
+
+    private class FileStat(val lastModified: Long, val size: Long) {
+        fun fingerprint(content: ByteArray) =
+            FileFingerprint(lastModified, size, Hashing.sha256().hashBytes(content).toString())
+
+        companion object {
+            fun of(file: Path) = FileStat(file.getLastModifiedTime().toMillis(), file.fileSize())
+        }
     }
 }
@@ -47,6 +47,8 @@ import io.gatehill.imposter.ImposterConfig
 import io.gatehill.imposter.config.ConfigReference
 import io.gatehill.imposter.config.LoadedConfig
 import io.gatehill.imposter.config.util.EnvVars
+import io.gatehill.imposter.plugin.rest.config.RestPluginConfig
+import io.gatehill.imposter.service.FileCacheService
 import io.gatehill.imposter.service.HandlerService
 import io.gatehill.imposter.service.ResponseFileService
 import io.gatehill.imposter.service.ResponseRoutingService
@@ -54,13 +56,14 @@ import io.gatehill.imposter.service.ResponseService
 import io.vertx.core.Vertx
 import org.hamcrest.CoreMatchers.containsString
 import org.hamcrest.CoreMatchers.equalTo
-import org.hamcrest.CoreMatchers.hasItem
 import org.hamcrest.CoreMatchers.not
+import org.hamcrest.CoreMatchers.nullValue
 import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.containsInAnyOrder
 import org.hamcrest.Matchers.hasSize
 import org.junit.jupiter.api.Assertions
-import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
 import org.mockito.kotlin.mock
 import java.io.File
 
@@ -72,78 +75,108 @@ import java.io.File
 class WiremockPluginTest {
     @Test
     fun `can convert unwrapped wiremock mappings`() {
-        val configDir = convert("/wiremock-nowrap")
+        val configs = convert(resolveMappingsDir("/wiremock-nowrap"))
 
-        val files = configDir.listFiles()?.map { it.name }
-        Assertions.assertEquals(2, files?.size)
-
-        assertThat(files, hasItem("wiremock-0-config.json"))
-        assertThat(files, hasItem("files"))
+        val resources = configs.first().resources!!
+        assertThat(resources, hasSize(1))
+        Assertions.assertEquals("/example", resources.first().path)
     }
 
     @Test
-    fun `can convert simple wiremock mappings to single config file`() {
-        val configDir = convert("/wiremock-simple")
-
-        val files = configDir.listFiles()?.map { it.name }
-        Assertions.assertEquals(2, files?.size)
+    fun `can convert simple wiremock mappings to single config`() {
+        val configs = convert(resolveMappingsDir("/wiremock-simple"))
 
-        assertThat(files, hasItem("wiremock-0-config.json"))
-        assertThat(files, hasItem("files"))
+        val resources = configs.first().resources!!
+        assertThat(resources.map { it.path }, containsInAnyOrder("/example1", "/example2"))
 
-        val responseFileDir = File(configDir, "files")
-        val responseFiles = responseFileDir.listFiles()?.map { it.name }
-        Assertions.assertEquals(1, responseFiles?.size)
-        assertThat(responseFiles, hasItem("response.json"))
+        // response file should be served in place
+        val resource = resources.first { it.path == "/example1" }
+        Assertions.assertEquals("__files/response.json", resource.responseConfig.file)
+        assertThat(resource.responseConfig.content, nullValue())
     }
 
     @Test
-    fun `can convert simple wiremock mappings to separate config files`() {
-        val configDir = convert("/wiremock-simple", 2, "IMPOSTER_WIREMOCK_SEPARATE_CONFIG" to "true")
-
-        val files = configDir.listFiles()?.map { it.name }
-        Assertions.assertEquals(3, files?.size)
-
-        assertThat(files, hasItem("wiremock-0-config.json"))
-        assertThat(files, hasItem("wiremock-1-config.json"))
-        assertThat(files, hasItem("files"))
+    fun `can convert simple wiremock mappings to separate configs`() {
+        val configs = convert(resolveMappingsDir("/wiremock-simple"), 2, "IMPOSTER_WIREMOCK_SEPARATE_CONFIG" to "true")
 
-        val responseFileDir = File(configDir, "files")
-        val responseFiles = responseFileDir.listFiles()?.map { it.name }
-        Assertions.assertEquals(1, responseFiles?.size)
-        assertThat(responseFiles, hasItem("response.json"))
+        configs.forEach { config -> assertThat(config.resources, hasSize(1)) }
     }
 
     @Test
     fun `can convert templated wiremock mappings`() {
-        val configDir = convert("/wiremock-templated")
+        val configs = convert(resolveMappingsDir("/wiremock-templated"))
 
-        val files = configDir.listFiles()?.map { it.name }
-        Assertions.assertEquals(2, files?.size)
+        val responseConfig = configs.first().resources!!.first().responseConfig
+        assertThat(responseConfig.file, nullValue())
 
-        assertThat(files, hasItem("wiremock-0-config.json"))
-        assertThat(files, hasItem("files"))
-
-        val responseFileDir = File(configDir, "files")
-        val responseFiles = responseFileDir.listFiles()?.map { it.name }
-        Assertions.assertEquals(1, responseFiles?.size)
-        assertThat(responseFiles, hasItem("response.xml"))
-
-        val responseFile = File(responseFileDir, "response.xml").readText()
-        assertThat(responseFile, not(containsString("{{")))
+        val content = responseConfig.content!!
+        assertThat(content, not(containsString("{{")))
         assertThat(
-            responseFile,
+            content,
             containsString("\${context.request.body://getPetByIdRequest/id}")
         )
         assertThat(
-            responseFile,
+            content,
             containsString("\${random.alphabetic(length=5,uppercase=true)}")
         )
     }
 
-    private fun convert(mappingsPath: String, expectedConfigFiles: Int = 1, vararg env: Pair<String, String>): File {
-        val mappingsDir = File(WiremockPluginTest::class.java.getResource(mappingsPath)!!.toURI())
+    @Test
+    fun `reuses cached conversion until response file changes`(@TempDir tempDir: File) {
+        resolveMappingsDir("/wiremock-templated").copyRecursively(tempDir)
+        val fileCacheService = InMemoryFileCacheService()
+
+        val first = convert(tempDir, fileCacheService = fileCacheService)
+        Assertions.assertEquals(1, fileCacheService.writes)
+
+        val second = convert(tempDir, fileCacheService = fileCacheService)
+        Assertions.assertEquals(1, fileCacheService.writes, "Unchanged mappings should not be converted again")
+        assertThat(
+            second.first().resources!!.first().responseConfig.content,
+            equalTo(first.first().resources!!.first().responseConfig.content)
+        )
+
+        File(tempDir, "__files/response.xml").writeText("<changed>{{xPath request.body '//id'}}</changed>")
+        val third = convert(tempDir, fileCacheService = fileCacheService)
+        Assertions.assertEquals(2, fileCacheService.writes, "Changed response file should be converted again")
+        assertThat(
+            third.first().resources!!.first().responseConfig.content,
+            equalTo("<changed>\${context.request.body://id}</changed>")
+        )
+    }
+
+    @Test
+    fun `reuses cached conversion when files are touched but unchanged`(@TempDir tempDir: File) {
+        resolveMappingsDir("/wiremock-templated").copyRecursively(tempDir)
+        val fileCacheService = InMemoryFileCacheService()
+
+        val first = convert(tempDir, fileCacheService = fileCacheService)
+        Assertions.assertEquals(1, fileCacheService.writes)
+
+        val responseFile = File(tempDir, "__files/response.xml")
+        responseFile.setLastModified(responseFile.lastModified() - 60_000)
+        File(tempDir, "mappings").listFiles()!!.forEach { it.setLastModified(it.lastModified() - 60_000) }
 
+        val second = convert(tempDir, fileCacheService = fileCacheService)
+        Assertions.assertEquals(2, fileCacheService.writes, "Touched files should be recorded in the cache")
+        assertThat(
+            second.first().resources!!.first().responseConfig.content,
+            equalTo(first.first().resources!!.first().responseConfig.content)
+        )
+
+        convert(tempDir, fileCacheService = fileCacheService)
+        Assertions.assertEquals(2, fileCacheService.writes, "Unchanged mappings should not be converted again")
+    }
+
+    private fun resolveMappingsDir(mappingsPath: String) =
+        File(WiremockPluginTest::class.java.getResource(mappingsPath)!!.toURI())
+
+    private fun convert(
+        mappingsDir: File,
+        expectedConfigs: Int = 1,
+        vararg env: Pair<String, String>,
+        fileCacheService: FileCacheService = InMemoryFileCacheService(),
+    ): List<RestPluginConfig> {
         if (env.isNotEmpty()) {
             EnvVars.populate(*env)
         }
@@ -154,7 +187,8 @@ class WiremockPluginTest {
             mock<HandlerService>(),
             mock<ResponseFileService>(),
             mock<ResponseService>(),
-            mock<ResponseRoutingService>()
+            mock<ResponseRoutingService>(),
+            fileCacheService,
         )
 
         val configRef = ConfigReference(
@@ -162,17 +196,22 @@ class WiremockPluginTest {
             configRoot = mappingsDir
         )
         val loadedConfig = LoadedConfig(configRef, configRef.file.readText(), "wiremock")
-        val loadedConfigs = wiremock.convert(loadedConfig)
-        assertThat(loadedConfigs, hasSize(expectedConfigFiles))
+        val configs = wiremock.convert(loadedConfig)
+        assertThat(configs, hasSize(expectedConfigs))
+        return configs
+    }
 
-        val configDir = loadedConfigs.first().ref.file.parentFile
+    private class InMemoryFileCacheService : FileCacheService {
+        private val cache = mutableMapOf<String, String>()
+        var writes = 0
 
-        assertTrue(configDir.exists(), "Config dir should exist")
-        assertThat(
-            "Config dir should differ from source dir",
-            configDir,
-            not(equalTo(mappingsDir))
-        )
-        return configDir
+        override fun readFromCache(cacheKey: String) = cache[cacheKey]?.let {
+            FileCacheService.CacheResult(true, it.toByteArray())
+        } ?: FileCacheService.CacheResult(false)
+
+        override fun writeToCache(cacheKey: String, content: String) {
+            cache[cacheKey] = content
+            writes++
+        }
     }
 }
@@ -104,4 +104,6 @@ class DelegatingJsScriptServiceImpl @Inject constructor(
         scriptCode: String,
         scriptBindings: ScriptBindings
     ) = impl.executeEvalScript(scriptId, scriptCode, scriptBindings)
+
+    override fun compileEvalScript(scriptId: String, scriptCode: String) = impl.compileEvalScript(scriptId, scriptCode)
 }
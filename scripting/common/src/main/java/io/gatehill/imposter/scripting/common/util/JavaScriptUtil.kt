@@ -97,6 +97,16 @@ function require(moduleName) {
 }         
 """
 
+    /**
+     * Global names mapped to their prefixed form, computed once.
+     */
+    private val prefixedGlobals: Map<String, String> = globals.associateWith { DSL_OBJECT_PREFIX + it }
+
+    /**
+     * Shared placeholder for when no stores are bound.
+     */
+    private val NO_OP_STORES = Any()
+
     private val GLOBAL_DSL_OBJECTS: String
 
     init {
@@ -116,24 +126,30 @@ function require(moduleName) {
      * Transforms the runtime context into a map for use as script bindings.
      * Always adds the DSL object and, optionally, a console shim and
      * no-op 'stores' object.
+     *
+     * Binding values are not copied, so static members, such as the environment,
+     * are shared across executions.
      */
     fun transformBindingsMap(
         scriptBindings: ScriptBindings,
         addDslPrefix: Boolean,
         addConsoleShim: Boolean
     ): Map<String, *> {
-        val runtimeObjects = scriptBindings.asMap().toMutableMap()
+        val bindings = scriptBindings.asMap()
+        val runtimeObjects = HashMap<String, Any>(bindings.size + 3, 1f)
+        bindings.forEach { (key, value) -> runtimeObjects[toBindingName(key, addDslPrefix)] = value }
+
         runtimeObjects[DSL_VAR_NAME] = DslImpl()
-        if (!runtimeObjects.containsKey("stores")) {
-            runtimeObjects["stores"] = Any()
-        }
+        runtimeObjects.putIfAbsent(toBindingName("stores", addDslPrefix), NO_OP_STORES)
         if (addConsoleShim) {
-            runtimeObjects["console"] = ConsoleShim(runtimeObjects)
+            runtimeObjects["console"] = ConsoleShim(bindings)
         }
         return runtimeObjects
-            .mapKeys { if (addDslPrefix && globals.contains(it.key)) DSL_OBJECT_PREFIX + it.key else it.key }
     }
 
+    private fun toBindingName(name: String, addDslPrefix: Boolean): String =
+        if (addDslPrefix) prefixedGlobals[name] ?: name else name
+
     fun wrapScript(script: ScriptSource): WrappedScript {
         val scriptCode = try {
             when (script.type) {
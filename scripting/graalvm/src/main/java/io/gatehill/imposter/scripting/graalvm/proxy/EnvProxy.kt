@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2025.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.scripting.graalvm.proxy
+
+import org.graalvm.polyglot.Value
+import org.graalvm.polyglot.proxy.ProxyArray
+import org.graalvm.polyglot.proxy.ProxyObject
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * Read-only proxy for the environment. An instance is shared across
+ * script executions using the same environment.
+ */
+class EnvProxy private constructor(
+    private val env: Map<String, String>,
+) : ProxyObject {
+    private val memberKeys by lazy { ProxyArray.fromList(env.keys.toList()) }
+
+    override fun getMember(key: String?): Any? = key?.let { env[it] }
+
+    override fun getMemberKeys(): Any = memberKeys
+
+    override fun hasMember(key: String?): Boolean = key?.let { env.containsKey(key) } ?: false
+
+    override fun putMember(key: String?, value: Value?) {
+        throw UnsupportedOperationException("Environment cannot be modified")
+    }
+
+    companion object {
+        /**
+         * The number of environments whose proxies are kept, so that scripts
+         * alternating between environments, such as the process environment
+         * and an empty environment, reuse their proxies.
+         */
+        private const val MAX_SHARED = 4
+
+        private val shared = AtomicReferenceArray<EnvProxy>(MAX_SHARED)
+        private val nextSlot = AtomicInteger()
+
+        /**
+         * @return the shared proxy for the given environment, creating it if the environment is not shared
+         */
+        fun of(env: Map<String, String>): EnvProxy {
+            for (i in 0 until MAX_SHARED) {
+                shared.get(i)?.let { if (it.env === env) return it }
+            }
+            return EnvProxy(env).also { shared.set(Math.floorMod(nextSlot.getAndIncrement(), MAX_SHARED), it) }
+        }
+    }
+}
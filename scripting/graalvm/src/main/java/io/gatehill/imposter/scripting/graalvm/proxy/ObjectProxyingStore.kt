@@ -60,13 +60,18 @@ class ObjectProxyingStore(private val delegate: Store) : Store {
         get() = delegate.isEphemeral
 
     override fun save(key: String, value: Any?, phase: ExchangePhase) {
-        val v = when(value) {
-            is Value -> {
-                if (value.isHostObject) value.asHostObject() else value
-            }
-            else -> value
+        delegate.save(key, unwrap(value))
+    }
+
+    override fun saveAll(items: Map<String, Any?>, phase: ExchangePhase) {
+        delegate.saveAll(items.mapValues { (_, value) -> unwrap(value) })
+    }
+
+    private fun unwrap(value: Any?): Any? = when (value) {
+        is Value -> {
+            if (value.isHostObject) value.asHostObject() else value
         }
-        delegate.save(key, v)
+        else -> value
     }
 
     override fun <T> load(key: String): T? {
@@ -87,6 +92,15 @@ class ObjectProxyingStore(private val delegate: Store) : Store {
 
     override fun loadByKeyPrefix(keyPrefix: String) = delegate.loadByKeyPrefix(keyPrefix)
 
+    override fun loadPage(keyPrefix: String?, afterKey: String?, limit: Int) =
+        delegate.loadPage(keyPrefix, afterKey, limit)
+
+    override fun loadKeyPage(keyPrefix: String?, afterKey: String?, limit: Int) =
+        delegate.loadKeyPage(keyPrefix, afterKey, limit)
+
+    override fun scanItems(keyPrefix: String?, afterKey: String?, batchSize: Int) =
+        delegate.scanItems(keyPrefix, afterKey, batchSize)
+
     override fun hasItemWithKey(key: String) = delegate.hasItemWithKey(key)
 
     override fun count() = delegate.count()
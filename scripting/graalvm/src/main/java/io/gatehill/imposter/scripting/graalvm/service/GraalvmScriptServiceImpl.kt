@@ -58,7 +58,9 @@ import io.gatehill.imposter.scripting.common.util.JavaScriptUtil
 import io.gatehill.imposter.scripting.common.util.JavaScriptUtil.DSL_VAR_NAME
 import io.gatehill.imposter.scripting.graalvm.GraalvmScriptingModule
 import io.gatehill.imposter.scripting.graalvm.proxy.DeepProxyContextBuilder
+import io.gatehill.imposter.scripting.graalvm.proxy.EnvProxy
 import io.gatehill.imposter.scripting.graalvm.proxy.ObjectProxyingStore
+import io.gatehill.imposter.service.CompiledEvalScript
 import io.gatehill.imposter.service.ScriptContextBuilder
 import io.gatehill.imposter.service.ScriptService
 import io.gatehill.imposter.service.ScriptSource
@@ -68,7 +70,11 @@ import org.apache.logging.log4j.LogManager
 import org.graalvm.polyglot.Context
 import org.graalvm.polyglot.Engine
 import org.graalvm.polyglot.HostAccess
+import org.graalvm.polyglot.PolyglotException
+import org.graalvm.polyglot.Source
 import org.graalvm.polyglot.Value
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.atomic.AtomicInteger
 
 
 /**
@@ -95,6 +101,22 @@ class GraalvmScriptServiceImpl : ScriptService, Plugin, EngineLifecycleListener
         engine = Engine.newBuilder(JS_LANG_ID).build()
     }
 
+    /**
+     * Idle eval contexts. As a context cannot be accessed concurrently, each
+     * evaluation borrows a context from the pool, and returns it afterwards.
+     * Contexts that do not fit in the pool are closed.
+     */
+    private val evalContexts = ArrayBlockingQueue<EvalContext>(MAX_IDLE_EVAL_CONTEXTS)
+
+    /**
+     * Incremented when configuration is reloaded, so contexts holding the
+     * functions of replaced eval scripts are closed rather than reused.
+     */
+    private val evalContextGeneration = AtomicInteger()
+
+    internal val idleEvalContexts: Int
+        get() = evalContexts.size
+
     private val enableStoreProxy = EnvVars.getEnv(ENV_IMPOSTER_GRAAL_STORE_PROXY)?.toBoolean() != false
 
     override fun afterRoutesConfigured(
@@ -105,6 +127,24 @@ class GraalvmScriptServiceImpl : ScriptService, Plugin, EngineLifecycleListener
         checkEnableStoreProxy()
     }
 
+    override fun afterRoutesReloaded(
+        imposterConfig: ImposterConfig,
+        allPluginConfigs: List<PluginConfig>,
+        reloadedPluginConfigs: List<PluginConfig>,
+        router: HttpRouter
+    ) {
+        afterRoutesConfigured(imposterConfig, allPluginConfigs, router)
+        discardEvalContexts()
+    }
+
+    /**
+     * Closes the idle eval contexts. Contexts in use are closed when they are returned.
+     */
+    internal fun discardEvalContexts() {
+        evalContextGeneration.incrementAndGet()
+        generateSequence { evalContexts.poll() }.forEach { it.close() }
+    }
+
     fun checkEnableStoreProxy() {
         if (enableStoreProxy) {
             LOGGER.trace("Graal store proxy enabled")
@@ -148,13 +188,7 @@ class GraalvmScriptServiceImpl : ScriptService, Plugin, EngineLifecycleListener
 
             buildContext().use { context ->
                 val bindings = context.getBindings(JS_LANG_ID)
-                JavaScriptUtil.transformBindingsMap(
-                    scriptBindings,
-                    addDslPrefix = true,
-                    addConsoleShim = false
-                ).map { (key, value) ->
-                    bindings.putMember(key, value)
-                }
+                putBindings(bindings, scriptBindings, addDslPrefix = true)
 
                 val fnHolder = context.eval(JS_LANG_ID, wrapped.code).`as`(FunctionHolder::class.java)
                 return block(bindings, fnHolder)
@@ -170,18 +204,61 @@ class GraalvmScriptServiceImpl : ScriptService, Plugin, EngineLifecycleListener
         scriptBindings: ScriptBindings,
     ): Boolean {
         LOGGER.trace("Executing eval script: {}", scriptId)
+        return evalInNewContext(buildEvalSource(scriptId, scriptCode), scriptBindings)
+    }
+
+    /**
+     * Compiles the script, preferring a function that is reused by each pooled
+     * eval context. Scripts that are not a single expression, such as those with
+     * multiple statements, are instead evaluated in a new context for each
+     * invocation, reusing the parsed source.
+     */
+    override fun compileEvalScript(scriptId: String, scriptCode: String): CompiledEvalScript {
+        val functionSource = Source.newBuilder(JS_LANG_ID, buildEvalFunction(scriptCode), scriptId).buildLiteral()
+        if (isValidSyntax(functionSource)) {
+            LOGGER.trace("Compiled eval script {} as function", scriptId)
+            return CompiledEvalScript { scriptBindings ->
+                try {
+                    withEvalContext { evalContext ->
+                        val result = evalContext.getFunction(functionSource).execute(
+                            scriptBindings.pluginConfig,
+                            scriptBindings.executionContext,
+                            EnvProxy.of(scriptBindings.env),
+                            scriptBindings.logger,
+                        )
+                        result.isBoolean && result.asBoolean()
+                    }
+                } catch (e: Exception) {
+                    throw RuntimeException("Eval script execution terminated abnormally", e)
+                }
+            }
+        }
+
+        // fall back to whole script evaluation, reporting syntax errors now
+        val scriptSource = buildEvalSource(scriptId, scriptCode)
+        buildContext().use { context -> context.parse(scriptSource) }
+        LOGGER.trace("Compiled eval script {} as script", scriptId)
+        return CompiledEvalScript { scriptBindings -> evalInNewContext(scriptSource, scriptBindings) }
+    }
+
+    private fun <T> withEvalContext(block: (EvalContext) -> T): T {
+        val evalContext = evalContexts.poll() ?: EvalContext()
+        try {
+            return block(evalContext)
+        } finally {
+            if (evalContext.generation != evalContextGeneration.get() || !evalContexts.offer(evalContext)) {
+                evalContext.close()
+            }
+        }
+    }
+
+    private fun evalInNewContext(source: Source, scriptBindings: ScriptBindings): Boolean {
         try {
             buildContext().use { context ->
                 val bindings = context.getBindings(JS_LANG_ID)
-                JavaScriptUtil.transformBindingsMap(
-                    scriptBindings,
-                    addDslPrefix = false,
-                    addConsoleShim = false
-                ).map { (key, value) ->
-                    bindings.putMember(key, value)
-                }
+                putBindings(bindings, scriptBindings, addDslPrefix = false)
 
-                val result = context.eval(JS_LANG_ID, scriptCode).`as`(Any::class.java)
+                val result = context.eval(source).`as`(Any::class.java)
                 return result is Boolean && result
             }
         } catch (e: Exception) {
@@ -189,15 +266,76 @@ class GraalvmScriptServiceImpl : ScriptService, Plugin, EngineLifecycleListener
         }
     }
 
+    private fun buildEvalSource(scriptId: String, scriptCode: String): Source =
+        Source.newBuilder(JS_LANG_ID, scriptCode, scriptId).buildLiteral()
+
+    /**
+     * Wraps a single expression in a function accepting the eval bindings.
+     */
+    private fun buildEvalFunction(scriptCode: String): String {
+        val expression = scriptCode.trim().removeSuffix(";")
+        return "(function($EVAL_FUNCTION_PARAMS) {\nreturn (\n$expression\n);\n})"
+    }
+
+    private fun isValidSyntax(source: Source): Boolean = try {
+        buildContext().use { context -> context.parse(source) }
+        true
+    } catch (e: PolyglotException) {
+        if (!e.isSyntaxError) {
+            throw e
+        }
+        false
+    }
+
+    /**
+     * Adds the script bindings to the context bindings. The environment is
+     * exposed via a shared proxy, rather than being converted per execution.
+     */
+    private fun putBindings(bindings: Value, scriptBindings: ScriptBindings, addDslPrefix: Boolean) {
+        JavaScriptUtil.transformBindingsMap(
+            scriptBindings,
+            addDslPrefix = addDslPrefix,
+            addConsoleShim = false
+        ).forEach { (key, value) ->
+            bindings.putMember(key, if (value === scriptBindings.env) EnvProxy.of(scriptBindings.env) else value)
+        }
+    }
+
     private fun buildContext(): Context = Context.newBuilder(JS_LANG_ID)
         .engine(engine)
         .allowHostAccess(HostAccess.ALL)
         .allowHostClassLookup { _ -> true }
         .build()
 
+    /**
+     * A context holding the functions for compiled eval scripts, used by one
+     * evaluation at a time. As the engine is shared, each source is only parsed
+     * once, regardless of the number of contexts. The least recently used
+     * functions are discarded if the context holds more than [MAX_EVAL_FUNCTIONS].
+     */
+    private inner class EvalContext : AutoCloseable {
+        val generation = evalContextGeneration.get()
+        private val context = buildContext()
+        private val functions = object : LinkedHashMap<Source, Value>(16, 0.75f, true) {
+            override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Source, Value>) = size > MAX_EVAL_FUNCTIONS
+        }
+
+        fun getFunction(source: Source): Value = functions.getOrPut(source) { context.eval(source) }
+
+        override fun close() = context.close()
+    }
+
     companion object {
         private val LOGGER = LogManager.getLogger(GraalvmScriptServiceImpl::class.java)
         private const val JS_LANG_ID = "js"
         const val ENV_IMPOSTER_GRAAL_STORE_PROXY = "IMPOSTER_GRAAL_STORE_PROXY"
+
+        /**
+         * Must match the order of arguments passed to compiled eval functions.
+         */
+        private const val EVAL_FUNCTION_PARAMS = "config, context, env, logger"
+
+        internal val MAX_IDLE_EVAL_CONTEXTS = Runtime.getRuntime().availableProcessors() * 2
+        private const val MAX_EVAL_FUNCTIONS = 1000
     }
 }
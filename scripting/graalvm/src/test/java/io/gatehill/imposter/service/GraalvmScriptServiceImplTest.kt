@@ -45,6 +45,14 @@ package io.gatehill.imposter.service
 import io.gatehill.imposter.config.util.EnvVars
 import io.gatehill.imposter.scripting.AbstractScriptServiceImplTest
 import io.gatehill.imposter.scripting.graalvm.service.GraalvmScriptServiceImpl
+import org.graalvm.polyglot.PolyglotException
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
 import javax.inject.Inject
 
 /**
@@ -61,4 +69,75 @@ class GraalvmScriptServiceImplTest : AbstractScriptServiceImplTest() {
     override fun onBeforeInject() {
         EnvVars.populate(GraalvmScriptServiceImpl.ENV_IMPOSTER_GRAAL_STORE_PROXY to "false")
     }
-}
\ No newline at end of file
+
+    @Test
+    fun testCompileEvalScript_Expression() {
+        val compiled = getService().compileEvalScript("expression", "context.request.queryParams.foo === 'bar';")
+
+        assertTrue(compiled.evaluate(buildScriptBindings(queryParams = mapOf("foo" to "bar"))))
+        assertFalse(compiled.evaluate(buildScriptBindings(queryParams = mapOf("foo" to "baz"))))
+    }
+
+    @Test
+    fun testCompileEvalScript_MultipleStatements() {
+        val compiled = getService().compileEvalScript(
+            "statements",
+            "var foo = context.request.queryParams.foo;\nfoo === 'bar'"
+        )
+
+        assertTrue(compiled.evaluate(buildScriptBindings(queryParams = mapOf("foo" to "bar"))))
+        assertFalse(compiled.evaluate(buildScriptBindings(queryParams = mapOf("foo" to "baz"))))
+    }
+
+    @Test
+    fun testCompileEvalScript_SyntaxError() {
+        assertThrows<PolyglotException> {
+            getService().compileEvalScript("invalid", "context.request.queryParams.foo ===")
+        }
+    }
+
+    @Test
+    fun testCompileEvalScript_BoundsIdleContexts() {
+        val compiled = getService().compileEvalScript("pooled", "context.request.queryParams.foo === 'bar';")
+
+        val bindings = buildScriptBindings(queryParams = mapOf("foo" to "bar"))
+
+        // more concurrent evaluations than the pool can hold
+        val threads = GraalvmScriptServiceImpl.MAX_IDLE_EVAL_CONTEXTS * 4
+        val executor = Executors.newFixedThreadPool(threads)
+        try {
+            val results = executor.invokeAll((1..threads * 10).map {
+                Callable { compiled.evaluate(bindings) }
+            })
+            assertTrue(results.all { it.get() }, "All evaluations should match")
+        } finally {
+            executor.shutdown()
+        }
+
+        assertTrue(
+            getService().idleEvalContexts <= GraalvmScriptServiceImpl.MAX_IDLE_EVAL_CONTEXTS,
+            "Idle eval contexts should be bounded"
+        )
+
+        // contexts are reused by later evaluations, regardless of thread
+        val idle = getService().idleEvalContexts
+        compiled.evaluate(bindings)
+        assertEquals(idle, getService().idleEvalContexts)
+    }
+
+    @Test
+    fun testDiscardEvalContexts_OnReload() {
+        val bindings = buildScriptBindings(queryParams = mapOf("foo" to "bar"))
+        getService().discardEvalContexts()
+
+        // resource IDs change on each reload, so each reload compiles new sources
+        repeat(5) { reload ->
+            val compiled = getService().compileEvalScript("reload-$reload", "context.request.queryParams.foo === 'bar';")
+            assertTrue(compiled.evaluate(bindings))
+            assertEquals(1, getService().idleEvalContexts)
+
+            getService().discardEvalContexts()
+            assertEquals(0, getService().idleEvalContexts, "Idle eval contexts should be closed on reload")
+        }
+    }
+}
@@ -99,7 +99,9 @@ class StoreJsonTest : AbstractBaseScriptTest() {
         }
 
         val scriptBindings = buildScriptBindings(mapOf(
-            "stores" to StoreProvider(storeFactory, { ObjectProxyingStore(it) }, "1")
+            "stores" to StoreProvider(storeFactory, { ObjectProxyingStore(it) }) {
+                storeFactory.getStoreByName("request_1", true)
+            }
         ))
         val script = resolveScriptFile(pluginConfig, resourceConfig)
         val actual = getService().executeScript(script, scriptBindings)
@@ -56,6 +56,7 @@ import io.gatehill.imposter.script.dsl.FunctionHolder
 import io.gatehill.imposter.scripting.common.util.CompiledJsScript
 import io.gatehill.imposter.scripting.common.util.JavaScriptUtil
 import io.gatehill.imposter.scripting.nashorn.NashornScriptingModule
+import io.gatehill.imposter.service.CompiledEvalScript
 import io.gatehill.imposter.service.ScriptService
 import io.gatehill.imposter.service.ScriptSource
 import io.gatehill.imposter.util.MetricsUtil.doIfMetricsEnabled
@@ -160,7 +161,22 @@ class NashornScriptServiceImpl : ScriptService, Plugin {
         scriptBindings: ScriptBindings
     ): Boolean {
         LOGGER.trace("Executing eval script: {}", scriptId)
+        return evalCompiledInlineScript(getCompiledInlineScript(scriptId, scriptCode), scriptBindings)
+    }
 
+    /**
+     * Compiles the script immediately, holding a reference to the compiled
+     * form, so it is unaffected by cache eviction.
+     */
+    override fun compileEvalScript(scriptId: String, scriptCode: String): CompiledEvalScript {
+        val compiled = getCompiledInlineScript(scriptId, scriptCode)
+        return CompiledEvalScript { scriptBindings -> evalCompiledInlineScript(compiled, scriptBindings) }
+    }
+
+    private fun evalCompiledInlineScript(
+        compiled: CompiledJsScript<CompiledScript>,
+        scriptBindings: ScriptBindings,
+    ): Boolean {
         try {
             val bindings = SimpleBindings(
                 JavaScriptUtil.transformBindingsMap(
@@ -169,8 +185,6 @@ class NashornScriptServiceImpl : ScriptService, Plugin {
                     addConsoleShim = false
                 )
             )
-
-            val compiled = getCompiledInlineScript(scriptId, scriptCode)
             val result = compiled.code.eval(bindings)
             return result is Boolean && result
 
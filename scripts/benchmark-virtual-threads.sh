@@ -0,0 +1,153 @@
+#!/usr/bin/env bash
+#
+# Copyright (c) 2024.
+#
+# This file is part of Imposter.
+#
+# "Commons Clause" License Condition v1.0
+#
+# The Software is provided to you by the Licensor under the License, as
+# defined below, subject to the following condition.
+#
+# Without limiting other conditions in the License, the grant of rights
+# under the License will not include, and the License does not grant to
+# you, the right to Sell the Software.
+#
+# For purposes of the foregoing, "Sell" means practicing any or all of
+# the rights granted to you under the License to provide to third parties,
+# for a fee or other consideration (including without limitation fees for
+# hosting or consulting/support services related to the Software), a
+# product or service whose value derives, entirely or substantially, from
+# the functionality of the Software. Any license notice or attribution
+# required by the License must also include this Commons Clause License
+# Condition notice.
+#
+# Software: Imposter
+#
+# License: GNU Lesser General Public License version 3
+#
+# Licensor: Peter Cornish
+#
+# Imposter is free software: you can redistribute it and/or modify
+# it under the terms of the GNU Lesser General Public License as published by
+# the Free Software Foundation, either version 3 of the License, or
+# (at your option) any later version.
+#
+# Imposter is distributed in the hope that it will be useful,
+# but WITHOUT ANY WARRANTY; without even the implied warranty of
+# MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+# GNU Lesser General Public License for more details.
+#
+# You should have received a copy of the GNU Lesser General Public License
+# along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+#
+
+# Measures the effect of IMPOSTER_VIRTUAL_THREADS when requests block on a slow dependency.
+#
+# A stand-in upstream responds after a fixed delay. The mock under test calls it with a
+# blocking remote step for every request. The benchmark runs once with the standard thread
+# pools and once with virtual threads, with the same CPU and memory limits.
+#
+# Requires Docker and Apache Bench (ab). Virtual threads require an image running Java 21 or later.
+
+set -e
+
+NETWORK_NAME="imposter-benchmark"
+UPSTREAM_DELAY_MS="${UPSTREAM_DELAY_MS:-200}"
+CONCURRENCY="${CONCURRENCY:-200}"
+REQUESTS="${REQUESTS:-4000}"
+
+function cleanup() {
+  docker rm -f imposter-benchmark-upstream imposter-benchmark-mock >/dev/null 2>&1 || true
+  docker network rm "${NETWORK_NAME}" >/dev/null 2>&1 || true
+  if [[ -n "${CONFIG_DIR}" ]]; then
+    rm -rf "${CONFIG_DIR}"
+  fi
+}
+
+function write_config() {
+  CONFIG_DIR="$( mktemp -d )"
+  mkdir -p "${CONFIG_DIR}/upstream" "${CONFIG_DIR}/mock"
+
+  cat > "${CONFIG_DIR}/upstream/upstream-config.yaml" <<YAML
+plugin: rest
+path: /slow
+response:
+  content: "upstream"
+  delay:
+    exact: ${UPSTREAM_DELAY_MS}
+YAML
+
+  cat > "${CONFIG_DIR}/mock/mock-config.yaml" <<YAML
+plugin: rest
+resources:
+  - path: /example
+    method: GET
+    steps:
+      - type: remote
+        url: http://imposter-benchmark-upstream:8080/slow
+        method: GET
+    response:
+      content: "done"
+YAML
+}
+
+function wait_for() {
+  while ! curl --fail --silent --output /dev/null "$1"; do
+    sleep 1
+  done
+}
+
+function start_upstream() {
+  docker run --rm -d \
+    --network "${NETWORK_NAME}" \
+    -p 8081:8080 \
+    -v "${CONFIG_DIR}/upstream:/opt/imposter/config" \
+    --name imposter-benchmark-upstream \
+    "${DOCKER_IMAGE}" >/dev/null
+
+  wait_for http://localhost:8081/system/status
+}
+
+function run_benchmark() {
+  local virtual_threads="$1"
+  docker rm -f imposter-benchmark-mock >/dev/null 2>&1 || true
+
+  docker run --rm -d \
+    --network "${NETWORK_NAME}" \
+    -p 8080:8080 \
+    -v "${CONFIG_DIR}/mock:/opt/imposter/config" \
+    -e IMPOSTER_LOG_LEVEL=info \
+    -e IMPOSTER_VIRTUAL_THREADS="${virtual_threads}" \
+    --cpus=1 \
+    --memory=256m \
+    --name imposter-benchmark-mock \
+    "${DOCKER_IMAGE}" >/dev/null
+
+  wait_for http://localhost:8080/system/status
+
+  echo "Warming up (IMPOSTER_VIRTUAL_THREADS=${virtual_threads})"
+  for i in {1..5}; do
+    ab -q -t 2 -c 50 http://localhost:8080/example >/dev/null
+  done
+
+  echo "Benchmarking (IMPOSTER_VIRTUAL_THREADS=${virtual_threads})"
+  ab -q -n "${REQUESTS}" -c "${CONCURRENCY}" http://localhost:8080/example \
+    | grep -E "Requests per second|Time per request|Failed requests"
+}
+
+if [[ $# -eq 1 ]]; then
+  DOCKER_IMAGE="$1"
+else
+  echo -e "Usage:\n  $( basename $0 ) DOCKER_IMAGE"
+  exit 1
+fi
+
+trap cleanup EXIT
+cleanup
+write_config
+docker network create "${NETWORK_NAME}" >/dev/null
+start_upstream
+
+run_benchmark false
+run_benchmark true
@@ -52,6 +52,7 @@ import io.gatehill.imposter.store.StoreModule
 import io.gatehill.imposter.util.supervisedDefaultCoroutineScope
 import io.vertx.core.AbstractVerticle
 import io.vertx.core.Promise
+import io.vertx.core.Vertx
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.future.await
 import kotlinx.coroutines.launch
@@ -65,13 +66,7 @@ class ImposterVerticle : AbstractVerticle(), CoroutineScope by supervisedDefault
     override fun start(startPromise: Promise<Void>) {
         launch {
             try {
-                val engine = EngineBuilder.newEngine(
-                    vertx = vertx,
-                    imposterConfig = ConfigHolder.config,
-                    featureModules = featureModules,
-                    GroovyScriptingModule(),
-                    CommonScriptingModule(),
-                )
+                val engine = newEngine(vertx)
                 imposter = engine
                 engine.start().await()
                 startPromise.complete()
@@ -93,5 +88,16 @@ class ImposterVerticle : AbstractVerticle(), CoroutineScope by supervisedDefault
         private val featureModules: Map<String, Class<out Module>> = mapOf(
             "stores" to StoreModule::class.java
         )
+
+        /**
+         * Constructs an engine using the global configuration.
+         */
+        fun newEngine(vertx: Vertx): Imposter = EngineBuilder.newEngine(
+            vertx = vertx,
+            imposterConfig = ConfigHolder.config,
+            featureModules = featureModules,
+            GroovyScriptingModule(),
+            CommonScriptingModule(),
+        )
     }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.server
+
+import io.gatehill.imposter.ImposterConfig
+import io.gatehill.imposter.config.util.EnvVars
+import io.gatehill.imposter.plugin.test.TestPluginImpl
+import io.restassured.RestAssured
+import io.vertx.core.Vertx
+import io.vertx.junit5.VertxTestContext
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.io.File
+import java.nio.file.Files
+
+/**
+ * Tests for reloading changed configuration without restarting the engine.
+ *
+ * @author Pete Cornish
+ */
+class ConfigReloadTest : BaseVerticleTest() {
+    override val pluginClass = TestPluginImpl::class.java
+
+    override val testConfigDirs = listOf(
+        "/config-reload"
+    )
+
+    private lateinit var configDir: File
+
+    private val configFile: File
+        get() = File(configDir, "test-plugin-config.yaml")
+
+    @BeforeEach
+    @Throws(Exception::class)
+    override fun setUp(vertx: Vertx, testContext: VertxTestContext) {
+        super.setUp(vertx, testContext)
+        RestAssured.baseURI = "http://$host:$listenPort"
+        RestAssured.enableLoggingOfRequestAndResponseIfValidationFails()
+    }
+
+    @Throws(Exception::class)
+    override fun configure(imposterConfig: ImposterConfig) {
+        super.configure(imposterConfig)
+
+        // use a copy of the configuration, so it can be changed
+        configDir = Files.createTempDirectory("config-reload").toFile()
+        File(imposterConfig.configDirs.single()).copyRecursively(configDir)
+        imposterConfig.configDirs = arrayOf(configDir.absolutePath)
+
+        EnvVars.populate(
+            "IMPOSTER_CONFIG_WATCH" to "true",
+            "IMPOSTER_CONFIG_WATCH_INTERVAL" to "100",
+        )
+    }
+
+    @AfterEach
+    fun cleanUp() {
+        EnvVars.reset(emptyList())
+        configDir.deleteRecursively()
+    }
+
+    @Test
+    fun `replaces router when configuration changes`() {
+        assertEquals("original", fetchExample())
+
+        writeConfig(content = "updated")
+        awaitExample("updated")
+
+        writeConfig(content = "updated again")
+        awaitExample("updated again")
+    }
+
+    @Test
+    fun `keeps previous configuration when reloaded configuration is invalid`() {
+        assertEquals("original", fetchExample())
+
+        configFile.writeText(
+            """
+            plugin: "io.gatehill.imposter.plugin.test.TestPluginImpl"
+            resources:
+            - method: GET
+              path: /example
+              response:
+                statusCode: not-a-number
+            """.trimIndent()
+        )
+
+        // allow several scans, each of which fails to reload
+        Thread.sleep(1000)
+        assertEquals("original", fetchExample())
+
+        // the watcher continues after a failed reload
+        writeConfig(content = "fixed")
+        awaitExample("fixed")
+    }
+
+    private fun writeConfig(content: String) {
+        configFile.writeText(
+            """
+            plugin: "io.gatehill.imposter.plugin.test.TestPluginImpl"
+            resources:
+            - method: GET
+              path: /example
+              response:
+                content: "$content"
+            """.trimIndent()
+        )
+    }
+
+    private fun fetchExample(): String = RestAssured.given().`when`()
+        .get("/example")
+        .then()
+        .statusCode(200)
+        .extract().asString()
+
+    private fun awaitExample(expected: String) {
+        val deadline = System.currentTimeMillis() + 10_000
+        var actual = fetchExample()
+        while (actual != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100)
+            actual = fetchExample()
+        }
+        assertEquals(expected, actual, "Response should reflect the reloaded configuration")
+    }
+}
@@ -49,6 +49,8 @@ import io.vertx.junit5.VertxTestContext
 import org.hamcrest.Matchers.*
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
+import java.io.File
+import java.security.MessageDigest
 
 /**
  * Tests for returning static content.
@@ -87,4 +89,89 @@ class StaticContentTest : BaseVerticleTest() {
             .statusCode(equalTo(200))
             .body(containsString(".example"))
     }
+
+    @Test
+    fun `fetch static content with validators`() {
+        RestAssured.given().`when`()
+            .get("/styles.css")
+            .then()
+            .statusCode(equalTo(200))
+            .header("ETag", equalTo("\"${hashResource("/static-content/static/styles.css")}\""))
+            .header("Last-Modified", notNullValue())
+    }
+
+    @Test
+    fun `fetch unmodified static content`() {
+        val etag = RestAssured.given().`when`()
+            .get("/styles.css")
+            .then()
+            .statusCode(equalTo(200))
+            .extract().header("ETag")
+
+        RestAssured.given()
+            .header("If-None-Match", etag)
+            .`when`()
+            .get("/styles.css")
+            .then()
+            .statusCode(equalTo(304))
+            .header("ETag", equalTo(etag))
+    }
+
+    @Test
+    fun `fetch static content with weak validator`() {
+        val etag = RestAssured.given().`when`()
+            .get("/styles.css")
+            .then()
+            .statusCode(equalTo(200))
+            .extract().header("ETag")
+
+        // the ETag is strong, so a weak tag with the same value does not match
+        RestAssured.given()
+            .header("If-None-Match", "W/$etag")
+            .`when`()
+            .get("/styles.css")
+            .then()
+            .statusCode(equalTo(200))
+    }
+
+    @Test
+    fun `fetch modified static content`() {
+        RestAssured.given()
+            .header("If-None-Match", "\"stale\"")
+            .`when`()
+            .get("/styles.css")
+            .then()
+            .statusCode(equalTo(200))
+            .body(containsString(".example"))
+    }
+
+    @Test
+    fun `fetch precompressed static content`() {
+        RestAssured.given()
+            .header("Accept-Encoding", "gzip")
+            .`when`()
+            .get("/app.js")
+            .then()
+            .statusCode(equalTo(200))
+            .header("Content-Encoding", equalTo("gzip"))
+            .header("Vary", equalTo("Accept-Encoding"))
+            .body(containsString("precompressed"))
+    }
+
+    @Test
+    fun `fetch uncompressed static content`() {
+        RestAssured.given()
+            .header("Accept-Encoding", "identity")
+            .`when`()
+            .get("/app.js")
+            .then()
+            .statusCode(equalTo(200))
+            .header("Content-Encoding", nullValue())
+            .body(containsString("uncompressed"))
+    }
+
+    private fun hashResource(path: String): String {
+        val file = File(StaticContentTest::class.java.getResource(path)!!.toURI())
+        return MessageDigest.getInstance("SHA-256").digest(file.readBytes()).joinToString("") { "%02x".format(it) }
+    }
 }
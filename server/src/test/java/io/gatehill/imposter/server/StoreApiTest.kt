@@ -50,9 +50,12 @@ import io.vertx.core.Vertx
 import io.vertx.junit5.VertxTestContext
 import org.hamcrest.Matchers.allOf
 import org.hamcrest.Matchers.any
+import org.hamcrest.Matchers.containsString
 import org.hamcrest.Matchers.equalTo
 import org.hamcrest.Matchers.hasEntry
 import org.hamcrest.Matchers.not
+import org.hamcrest.Matchers.startsWith
+import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 
@@ -313,4 +316,89 @@ class StoreApiTest : BaseVerticleTest() {
             .statusCode(equalTo(HttpUtil.HTTP_OK))
             .body("$", not(hasEntry(any(Any::class.java), any(Any::class.java))))
     }
+
+    /**
+     * Import items as NDJSON, then export them in pages.
+     */
+    @Test
+    fun testImportExportNdjson() {
+        val items = (1..5).joinToString("\n") { """{"key":"item$it","value":{"id":$it}}""" }
+        RestAssured.given().`when`()
+            .pathParam("storeId", "ndjson")
+            .contentType("application/x-ndjson")
+            .body(items + "\n")
+            .post("/system/store/{storeId}")
+            .then()
+            .statusCode(equalTo(HttpUtil.HTTP_OK))
+
+        // first page
+        val firstPage = RestAssured.given().`when`()
+            .pathParam("storeId", "ndjson")
+            .accept("application/x-ndjson")
+            .queryParam("limit", 3)
+            .get("/system/store/{storeId}")
+            .then()
+            .statusCode(equalTo(HttpUtil.HTTP_OK))
+            .contentType(startsWith("application/x-ndjson"))
+            .extract().asString().lines().filter { it.isNotBlank() }
+
+        assertEquals(
+            listOf(
+                """{"key":"item1","value":{"id":1}}""",
+                """{"key":"item2","value":{"id":2}}""",
+                """{"key":"item3","value":{"id":3}}""",
+            ),
+            firstPage
+        )
+
+        // next page, starting after the last key
+        val secondPage = RestAssured.given().`when`()
+            .pathParam("storeId", "ndjson")
+            .accept("application/x-ndjson")
+            .queryParam("after", "item3")
+            .get("/system/store/{storeId}")
+            .then()
+            .statusCode(equalTo(HttpUtil.HTTP_OK))
+            .extract().asString().lines().filter { it.isNotBlank() }
+
+        assertEquals(
+            listOf(
+                """{"key":"item4","value":{"id":4}}""",
+                """{"key":"item5","value":{"id":5}}""",
+            ),
+            secondPage
+        )
+    }
+
+    /**
+     * Reject an NDJSON import with an invalid line.
+     */
+    @Test
+    fun testImportInvalidNdjson() {
+        RestAssured.given().`when`()
+            .pathParam("storeId", "ndjson-invalid")
+            .contentType("application/x-ndjson")
+            .body("{\"key\":\"foo\",\"value\":\"bar\"}\nnot json\n")
+            .post("/system/store/{storeId}")
+            .then()
+            .statusCode(equalTo(HttpUtil.HTTP_BAD_REQUEST))
+            .body(containsString("line 2"))
+    }
+
+    /**
+     * Reject a limit that is not a non-negative integer.
+     */
+    @Test
+    fun testInvalidLimit() {
+        listOf("abc", "-1").forEach { limit ->
+            RestAssured.given().`when`()
+                .pathParam("storeId", "invalid-limit")
+                .accept("application/x-ndjson")
+                .queryParam("limit", limit)
+                .get("/system/store/{storeId}")
+                .then()
+                .statusCode(equalTo(HttpUtil.HTTP_BAD_REQUEST))
+                .body(containsString("Invalid limit"))
+        }
+    }
 }
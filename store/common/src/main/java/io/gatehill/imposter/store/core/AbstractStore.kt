@@ -61,9 +61,7 @@ abstract class AbstractStore(
     }
 
     override fun save(key: String, value: Any?, phase: ExchangePhase) {
-        if (phase == ExchangePhase.RESPONSE_SENT && isEphemeral) {
-            throw IllegalStateException("Cannot use deferred persistence for ephemeral store: $storeName of type: $typeDescription")
-        }
+        checkPhase(phase)
         when (phase) {
             ExchangePhase.REQUEST_RECEIVED -> saveItem(key, value)
             ExchangePhase.RESPONSE_SENT -> deferSave(key, value)
@@ -71,6 +69,31 @@ abstract class AbstractStore(
         }
     }
 
+    override fun saveAll(items: Map<String, Any?>, phase: ExchangePhase) {
+        if (items.isEmpty()) {
+            return
+        }
+        checkPhase(phase)
+        when (phase) {
+            ExchangePhase.REQUEST_RECEIVED -> saveItems(items)
+            ExchangePhase.RESPONSE_SENT -> deferSaveAll(items)
+            else -> throw IllegalStateException("Unsupported exchange phase for store persistence: $phase")
+        }
+    }
+
+    private fun checkPhase(phase: ExchangePhase) {
+        if (phase == ExchangePhase.RESPONSE_SENT && isEphemeral) {
+            throw IllegalStateException("Cannot use deferred persistence for ephemeral store: $storeName of type: $typeDescription")
+        }
+    }
+
+    private fun deferSaveAll(items: Map<String, Any?>) {
+        logger.debug("Deferring persistence of {} items to store: {}", items.size, storeName)
+        deferredOperationService.defer("Write ${items.size} items to store: $storeName") {
+            saveItems(items)
+        }
+    }
+
     private fun deferSave(key: String, value: Any?) {
         logger.debug("Deferring persistence of item: $key to store: $storeName")
         deferredOperationService.defer("Write item: $key to store: $storeName") {
@@ -79,4 +102,12 @@ abstract class AbstractStore(
     }
 
     abstract fun saveItem(key: String, value: Any?)
+
+    /**
+     * Persists all the items. Implementations that support bulk writes
+     * should override this to avoid a round-trip per item.
+     */
+    open fun saveItems(items: Map<String, Any?>) {
+        items.forEach { (key, value) -> saveItem(key, value) }
+    }
 }
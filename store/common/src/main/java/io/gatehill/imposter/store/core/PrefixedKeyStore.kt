@@ -71,8 +71,19 @@ class PrefixedKeyStore(
         delegate.save(buildKey(key), value, phase)
     }
 
+    override fun saveAll(items: Map<String, Any?>, phase: ExchangePhase) {
+        delegate.saveAll(items.mapKeys { (key, _) -> buildKey(key) }, phase)
+    }
+
     override fun <T> load(key: String): T? = delegate.load(buildKey(key))
 
+    override fun loadAll(keys: Collection<String>): Map<String, Any?> {
+        // strip out key prefix
+        return delegate.loadAll(keys.map(::buildKey)).entries.associate { (key, value) ->
+            key.substring(keyPrefix.length) to value
+        }
+    }
+
     override fun loadAsJson(key: String): String {
         return delegate.loadAsJson(buildKey(key))
     }
@@ -90,6 +101,25 @@ class PrefixedKeyStore(
         }
     }
 
+    override fun loadPage(keyPrefix: String?, afterKey: String?, limit: Int): Map<String, Any?> {
+        // strip out key prefix
+        return delegate.loadPage(buildKey(keyPrefix ?: ""), afterKey?.let(::buildKey), limit).entries
+            .associateTo(LinkedHashMap()) { (key, value) -> key.substring(this.keyPrefix.length) to value }
+    }
+
+    override fun loadKeyPage(keyPrefix: String?, afterKey: String?, limit: Int): List<String> {
+        // strip out key prefix
+        return delegate.loadKeyPage(buildKey(keyPrefix ?: ""), afterKey?.let(::buildKey), limit)
+            .map { key -> key.substring(this.keyPrefix.length) }
+    }
+
+    override fun scanItems(keyPrefix: String?, afterKey: String?, batchSize: Int): Sequence<Map<String, Any?>> {
+        // strip out key prefix
+        return delegate.scanItems(buildKey(keyPrefix ?: ""), afterKey?.let(::buildKey), batchSize).map { batch ->
+            batch.entries.associateTo(LinkedHashMap()) { (key, value) -> key.substring(this.keyPrefix.length) to value }
+        }
+    }
+
     override fun hasItemWithKey(key: String) = delegate.hasItemWithKey(buildKey(key))
 
     override fun count() = delegate.count()
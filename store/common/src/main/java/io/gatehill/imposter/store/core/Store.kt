@@ -43,6 +43,7 @@
 package io.gatehill.imposter.store.core
 
 import io.gatehill.imposter.http.ExchangePhase
+import io.gatehill.imposter.store.util.StoreUtil
 
 /**
  * @author Pete Cornish
@@ -57,11 +58,75 @@ interface Store {
     fun save(key: String, value: Any?) =
         save(key, value, ExchangePhase.REQUEST_RECEIVED)
 
+    /**
+     * Saves all the items in a single operation, where the implementation supports it.
+     * Items with a `null` value are removed from the store, as with [save].
+     */
+    fun saveAll(items: Map<String, Any?>, phase: ExchangePhase) =
+        items.forEach { (key, value) -> save(key, value, phase) }
+
+    fun saveAll(items: Map<String, Any?>) =
+        saveAll(items, ExchangePhase.REQUEST_RECEIVED)
+
     fun <T> load(key: String): T?
+
+    /**
+     * Loads the items with the given keys in a single operation, where the implementation supports it.
+     * Keys without an item are omitted from the result.
+     */
+    fun loadAll(keys: Collection<String>): Map<String, Any?> =
+        keys.mapNotNull { key -> load<Any>(key)?.let { key to it } }.toMap()
+
     fun loadAsJson(key: String): String
     fun delete(key: String)
     fun loadAll(): Map<String, Any?>
     fun loadByKeyPrefix(keyPrefix: String): Map<String, Any?>
+
+    /**
+     * Loads a page of at most [limit] items, in key order, whose keys start with [keyPrefix]
+     * and sort after [afterKey]. To load the next page, pass the last key of this page
+     * as [afterKey]. A page with fewer than [limit] items is the last page.
+     *
+     * Implementations should override this to avoid loading items outside the page.
+     */
+    fun loadPage(keyPrefix: String?, afterKey: String?, limit: Int): Map<String, Any?> {
+        val candidates = keyPrefix?.let { loadByKeyPrefix(it) } ?: loadAll()
+        val pageKeys = StoreUtil.selectPageKeys(candidates.keys.asSequence(), keyPrefix, afterKey, limit)
+        return pageKeys.associateWithTo(LinkedHashMap()) { candidates[it] }
+    }
+
+    /**
+     * Loads the keys of a page of items, as described for [loadPage], without
+     * reading the item values.
+     *
+     * Implementations should override this where keys can be listed more cheaply than items.
+     */
+    fun loadKeyPage(keyPrefix: String?, afterKey: String?, limit: Int): List<String> =
+        loadPage(keyPrefix, afterKey, limit).keys.toList()
+
+    /**
+     * Loads all the items whose keys start with [keyPrefix] and sort after [afterKey],
+     * in batches of at most [batchSize] items. Each batch is loaded as the sequence
+     * is iterated, such as when exporting the store.
+     *
+     * By default, items are in key order, and each batch is loaded with [loadPage].
+     * Implementations that cannot load a page without reading all keys should override
+     * this to read the store in a single pass, in which case items need not be in key order.
+     */
+    fun scanItems(keyPrefix: String?, afterKey: String?, batchSize: Int): Sequence<Map<String, Any?>> {
+        require(batchSize > 0) { "Batch size must be positive: $batchSize" }
+        return sequence {
+            var cursor = afterKey
+            do {
+                val page = loadPage(keyPrefix, cursor, batchSize)
+                if (page.isNotEmpty()) {
+                    yield(page)
+                    cursor = page.keys.last()
+                }
+            } while (page.size == batchSize)
+        }
+    }
+
     fun hasItemWithKey(key: String): Boolean
     fun count(): Int
 }
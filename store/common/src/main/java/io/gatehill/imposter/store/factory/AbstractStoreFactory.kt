@@ -43,11 +43,14 @@
 package io.gatehill.imposter.store.factory
 
 import io.gatehill.imposter.config.util.EnvVars.Companion.getEnv
+import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.service.DeferredOperationService
 import io.gatehill.imposter.store.core.PrefixedKeyStore
 import io.gatehill.imposter.store.core.Store
 import io.gatehill.imposter.store.factory.AbstractStoreFactory.Companion.ENV_VAR_KEY_PREFIX
 import io.gatehill.imposter.store.inmem.InMemoryStore
+import io.gatehill.imposter.store.util.StoreUtil
+import io.gatehill.imposter.util.ResourceUtil
 import org.apache.logging.log4j.LogManager
 import java.util.concurrent.ConcurrentHashMap
 
@@ -56,6 +59,7 @@ import java.util.concurrent.ConcurrentHashMap
  * environment variable.
  *
  * Ephemeral stores are always backed by an in-memory implementation, regardless of store implementation.
+ * The request store is held by the exchange itself, rather than registered with the factory.
  *
  * @author Pete Cornish
  */
@@ -89,6 +93,17 @@ abstract class AbstractStoreFactory (
         }
     }
 
+    override fun getRequestStore(httpExchange: HttpExchange): Store {
+        return httpExchange.getOrPut(REQUEST_STORE_KEY) {
+            val uniqueRequestId = httpExchange.get<String>(ResourceUtil.RC_REQUEST_ID_KEY)!!
+            val requestStoreName = StoreUtil.buildRequestStoreName(uniqueRequestId)
+            LOGGER.trace("Initialising request store: {}", requestStoreName)
+
+            // confined to the exchange, so thread safety is not required
+            InMemoryStore(deferredOperationService, requestStoreName, isEphemeral = true, threadSafe = false)
+        }
+    }
+
     /**
      * Build a store for the given name. The store must not be ephemeral.
      */
@@ -96,6 +111,7 @@ abstract class AbstractStoreFactory (
 
     companion object {
         private const val ENV_VAR_KEY_PREFIX = "IMPOSTER_STORE_KEY_PREFIX"
+        private const val REQUEST_STORE_KEY = "store.request"
         private val LOGGER = LogManager.getLogger(AbstractStoreFactory::class.java)
     }
 }
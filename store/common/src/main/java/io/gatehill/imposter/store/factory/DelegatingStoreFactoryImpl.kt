@@ -42,6 +42,7 @@
  */
 package io.gatehill.imposter.store.factory
 
+import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.plugin.Plugin
 import io.gatehill.imposter.plugin.PluginManager
 import io.gatehill.imposter.store.core.Store
@@ -88,4 +89,8 @@ class DelegatingStoreFactoryImpl @Inject constructor(
     override fun clearStore(storeName: String, ephemeral: Boolean) {
         impl.clearStore(storeName, ephemeral)
     }
+
+    override fun getRequestStore(httpExchange: HttpExchange): Store {
+        return impl.getRequestStore(httpExchange)
+    }
 }
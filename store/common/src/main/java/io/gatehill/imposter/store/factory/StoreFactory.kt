@@ -42,6 +42,7 @@
  */
 package io.gatehill.imposter.store.factory
 
+import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.store.core.Store
 
 /**
@@ -50,4 +51,10 @@ import io.gatehill.imposter.store.core.Store
 interface StoreFactory {
     fun getStoreByName(storeName: String, ephemeral: Boolean): Store
     fun clearStore(storeName: String, ephemeral: Boolean)
+
+    /**
+     * Gets the request scoped store for the exchange, creating it on first access.
+     * The store lives only as long as the exchange, so it need not be cleared.
+     */
+    fun getRequestStore(httpExchange: HttpExchange): Store
 }
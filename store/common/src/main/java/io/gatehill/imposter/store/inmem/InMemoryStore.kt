@@ -45,6 +45,7 @@ package io.gatehill.imposter.store.inmem
 
 import io.gatehill.imposter.service.DeferredOperationService
 import io.gatehill.imposter.store.core.AbstractStore
+import io.gatehill.imposter.store.util.StoreUtil
 import org.apache.logging.log4j.LogManager
 import java.util.concurrent.ConcurrentHashMap
 
@@ -52,15 +53,19 @@ import java.util.concurrent.ConcurrentHashMap
  * An in-memory store implementation. Does not have any support for item expiration,
  * so data must be managed by the caller.
  *
+ * Stores confined to a single exchange, such as the request store, can set
+ * [threadSafe] to `false`, to be backed by a plain [HashMap].
+ *
  * @author Pete Cornish
  */
 class InMemoryStore(
     deferredOperationService: DeferredOperationService,
     override val storeName: String,
     override val isEphemeral: Boolean,
+    private val threadSafe: Boolean = true,
 ) : AbstractStore(deferredOperationService) {
     private var modified = false
-    private val store: MutableMap<String, Any> by lazy { ConcurrentHashMap() }
+    private val store: MutableMap<String, Any> by lazy { if (threadSafe) ConcurrentHashMap() else HashMap() }
     override val typeDescription = "inmem"
 
     override fun saveItem(key: String, value: Any?) {
@@ -69,6 +74,12 @@ class InMemoryStore(
         value?.let { store[key] = value } ?: store.remove(key)
     }
 
+    override fun saveItems(items: Map<String, Any?>) {
+        LOGGER.trace("Saving {} items to store: {}", items.size, storeName)
+        modified = true
+        items.forEach { (key, value) -> value?.let { store[key] = value } ?: store.remove(key) }
+    }
+
     override fun <T> load(key: String): T? {
         LOGGER.trace("Loading item with key: {} from store: {}", key, storeName)
         @Suppress("UNCHECKED_CAST")
@@ -98,6 +109,22 @@ class InMemoryStore(
         }
     }
 
+    override fun loadPage(keyPrefix: String?, afterKey: String?, limit: Int): Map<String, Any?> {
+        LOGGER.trace("Loading page of {} items in store: {} with key prefix: {} after key: {}", limit, storeName, keyPrefix, afterKey)
+        if (!modified) {
+            return emptyMap()
+        }
+        return selectPageKeys(keyPrefix, afterKey, limit).associateWithTo(LinkedHashMap()) { store[it] }
+    }
+
+    override fun loadKeyPage(keyPrefix: String?, afterKey: String?, limit: Int): List<String> {
+        LOGGER.trace("Loading page of {} keys in store: {} with key prefix: {} after key: {}", limit, storeName, keyPrefix, afterKey)
+        return if (!modified) emptyList() else selectPageKeys(keyPrefix, afterKey, limit)
+    }
+
+    private fun selectPageKeys(keyPrefix: String?, afterKey: String?, limit: Int): List<String> =
+        StoreUtil.selectPageKeys(store.keys.asSequence(), keyPrefix, afterKey, limit)
+
     override fun hasItemWithKey(key: String): Boolean {
         LOGGER.trace("Checking for item with key: {} in store: {}", key, storeName)
         return if (!modified) false else store.containsKey(key)
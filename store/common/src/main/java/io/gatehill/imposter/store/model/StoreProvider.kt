@@ -53,12 +53,11 @@ import io.gatehill.imposter.store.util.StoreUtil
 class StoreProvider(
     private val storeFactory: StoreFactory,
     private val storeInterceptor: StoreInterceptor?,
-    private val requestId: String,
+    private val requestStoreProvider: () -> Store,
 ) {
     fun open(storeName: String): Store {
         var store = if (StoreUtil.isRequestScopedStore(storeName)) {
-            val requestStoreName = StoreUtil.buildRequestStoreName(requestId)
-            storeFactory.getStoreByName(requestStoreName, true)
+            requestStoreProvider()
         } else {
             storeFactory.getStoreByName(storeName, false)
         }
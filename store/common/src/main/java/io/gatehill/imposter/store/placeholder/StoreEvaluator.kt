@@ -43,10 +43,11 @@
 
 package io.gatehill.imposter.store.placeholder
 
+import io.gatehill.imposter.expression.eval.BatchExpressionEvaluator
 import io.gatehill.imposter.placeholder.HttpExpressionEvaluator
+import io.gatehill.imposter.store.core.Store
 import io.gatehill.imposter.store.factory.StoreFactory
 import io.gatehill.imposter.store.util.StoreUtil
-import io.gatehill.imposter.util.ResourceUtil
 import org.apache.logging.log4j.LogManager
 
 /**
@@ -58,37 +59,23 @@ import org.apache.logging.log4j.LogManager
  * ```
  * stores.storename.itemkey
  * ```
+ *
+ * Where a template refers to several items, they are loaded using
+ * a single [Store.loadAll] call per store.
  */
 class StoreEvaluator(
     private val storeFactory: StoreFactory,
-) : HttpExpressionEvaluator<Any>() {
+) : HttpExpressionEvaluator<Any>(), BatchExpressionEvaluator<Any> {
     override val name = "store"
 
     override fun eval(expression: String, context: Map<String, *>): Any? {
         try {
-            // remove prefix if present
-            val parts = expression.substringAfter(evaluatorPrefix).split(
-                delimiters = arrayOf("."),
-                ignoreCase = false,
-                limit = 2,
-            )
-            if (parts.size < 2) {
+            val (storeName, itemKey) = parseExpression(expression) ?: run {
                 LOGGER.warn("Could not parse store expression: $expression")
                 return ""
             }
 
-            val storeName = parts[0]
-            val itemKey = parts[1]
-
-            val store = if (StoreUtil.isRequestScopedStore(storeName)) {
-                val httpExchange = getHttpExchange(context)
-                val uniqueRequestId = httpExchange.get<String>(ResourceUtil.RC_REQUEST_ID_KEY)!!
-                val requestStoreName = StoreUtil.buildRequestStoreName(uniqueRequestId)
-                storeFactory.getStoreByName(requestStoreName, true)
-            } else {
-                storeFactory.getStoreByName(storeName, false)
-            }
-
+            val store = openStore(storeName, context)
             val itemValue = store.load<Any>(itemKey)
             LOGGER.trace("Loaded value for key: {} in store: {} as: {}", itemKey, storeName, itemValue)
             return itemValue
@@ -98,6 +85,48 @@ class StoreEvaluator(
         }
     }
 
+    /**
+     * Groups the expressions by store, then loads the items from each store
+     * in a single operation. Expressions that cannot be parsed are omitted,
+     * so they are reported when evaluated individually.
+     */
+    override fun evalAll(expressions: Collection<String>, context: Map<String, *>): Map<String, Any?> {
+        val parsed = expressions.mapNotNull { expression ->
+            parseExpression(expression)?.let { expression to it }
+        }
+        val results = mutableMapOf<String, Any?>()
+        parsed.groupBy({ it.second.first }, { it.first to it.second.second }).forEach { (storeName, items) ->
+            try {
+                val itemValues = openStore(storeName, context).loadAll(items.map { it.second })
+                LOGGER.trace("Loaded {} of {} items from store: {}", itemValues.size, items.size, storeName)
+                items.forEach { (expression, itemKey) -> results[expression] = itemValues[itemKey] }
+            } catch (e: Exception) {
+                throw RuntimeException("Error replacing placeholders with items from store: $storeName", e)
+            }
+        }
+        return results
+    }
+
+    /**
+     * @return the store name and item key, or `null` if the expression is invalid
+     */
+    private fun parseExpression(expression: String): Pair<String, String>? {
+        // remove prefix if present
+        val parts = expression.substringAfter(evaluatorPrefix).split(
+            delimiters = arrayOf("."),
+            ignoreCase = false,
+            limit = 2,
+        )
+        return if (parts.size < 2) null else parts[0] to parts[1]
+    }
+
+    private fun openStore(storeName: String, context: Map<String, *>): Store =
+        if (StoreUtil.isRequestScopedStore(storeName)) {
+            storeFactory.getRequestStore(getHttpExchange(context))
+        } else {
+            storeFactory.getStoreByName(storeName, false)
+        }
+
     companion object {
         private val LOGGER = LogManager.getLogger(StoreEvaluator::class.java)
         private const val evaluatorPrefix = "stores."
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.gatehill.imposter.store.service
+
+import com.google.common.base.Strings
+import com.jayway.jsonpath.JsonPath
+import io.gatehill.imposter.expression.eval.ExpressionEvaluator
+import io.gatehill.imposter.http.ExchangePhase
+import io.gatehill.imposter.http.HttpExchange
+import io.gatehill.imposter.plugin.config.capture.CaptureConfig
+import io.gatehill.imposter.plugin.config.capture.ItemCaptureConfig
+import io.gatehill.imposter.util.BodyQueryUtil
+import io.gatehill.imposter.util.PlaceholderUtil
+import org.apache.logging.log4j.LogManager
+
+/**
+ * The captures for a resource, compiled once from its capture configuration
+ * and grouped by the exchange phase in which they run.
+ *
+ * @author Pete Cornish
+ */
+class CapturePlan private constructor(
+    private val capturesByPhase: Map<ExchangePhase, List<CompiledItemCapture>>,
+) {
+    fun capturesFor(phase: ExchangePhase): List<CompiledItemCapture> =
+        capturesByPhase[phase] ?: emptyList()
+
+    companion object {
+        val EMPTY = CapturePlan(emptyMap())
+
+        fun compile(captureConfig: Map<String, ItemCaptureConfig>?): CapturePlan {
+            val captures = captureConfig
+                ?.filterValues { it.enabled }
+                ?.map { (captureConfigKey, itemConfig) -> CompiledItemCapture.compile(captureConfigKey, itemConfig) }
+                ?.takeIf { it.isNotEmpty() }
+                ?: return EMPTY
+
+            return CapturePlan(captures.groupBy { it.phase })
+        }
+    }
+}
+
+/**
+ * A single item capture, with its source, store name and key resolved
+ * to the cheapest form possible at compile time.
+ */
+class CompiledItemCapture private constructor(
+    val captureConfigKey: String,
+    val phase: ExchangePhase,
+    private val itemConfig: ItemCaptureConfig,
+    private val storeName: ValueCapture?,
+    private val key: ValueCapture?,
+    private val value: ValueCapture,
+
+    /**
+     * Whether the capture refers to a store, so must see the items
+     * written by earlier captures.
+     */
+    val readsStore: Boolean,
+) {
+    fun determineStoreName(httpExchange: HttpExchange): String {
+        try {
+            return storeName?.capture(httpExchange, PlaceholderUtil.defaultEvaluators) as String?
+                ?: StoreService.DEFAULT_CAPTURE_STORE_NAME
+
+        } catch (e: Exception) {
+            throw RuntimeException("Error capturing store name: $itemConfig", e)
+        }
+    }
+
+    /**
+     * Determines the item name, if possible.
+     * May return `null` if dynamic value could not be resolved or resolves to `null`.
+     */
+    fun determineItemName(httpExchange: HttpExchange, storeName: String): String? {
+        if (null == key) {
+            LOGGER.debug("Capturing item: {} into store: {}", captureConfigKey, storeName)
+            return captureConfigKey
+        }
+        try {
+            val itemName = key.capture(httpExchange, PlaceholderUtil.defaultEvaluators) as String?
+            if (null != itemName) {
+                LOGGER.debug("Capturing item: {} into store: {} with name: {}", captureConfigKey, storeName, itemName)
+            } else {
+                LOGGER.trace("Could not capture item name for: {} as item name resolved to null", captureConfigKey)
+            }
+            return itemName
+
+        } catch (e: Exception) {
+            throw RuntimeException("Error capturing item name: $captureConfigKey", e)
+        }
+    }
+
+    fun captureValue(httpExchange: HttpExchange, evaluators: Map<String, ExpressionEvaluator<*>>): Any? {
+        try {
+            return value.capture(httpExchange, evaluators)
+        } catch (e: Exception) {
+            throw RuntimeException("Error capturing item value: $captureConfigKey", e)
+        }
+    }
+
+    companion object {
+        private val LOGGER = LogManager.getLogger(CompiledItemCapture::class.java)
+
+        fun compile(captureConfigKey: String, itemConfig: ItemCaptureConfig): CompiledItemCapture {
+            try {
+                return CompiledItemCapture(
+                    captureConfigKey = captureConfigKey,
+                    phase = itemConfig.phase,
+                    itemConfig = itemConfig,
+                    storeName = itemConfig.store?.let(ValueCapture::compile),
+                    key = itemConfig.key?.let(ValueCapture::compile),
+                    value = ValueCapture.compile(itemConfig),
+                    readsStore = listOfNotNull(itemConfig, itemConfig.store, itemConfig.key).any(ValueCapture::readsStore),
+                )
+            } catch (e: Exception) {
+                throw RuntimeException("Error compiling capture: $captureConfigKey", e)
+            }
+        }
+    }
+}
+
+/**
+ * Obtains a value from an [HttpExchange], using the source selected
+ * from a [CaptureConfig] at compile time.
+ */
+fun interface ValueCapture {
+    fun capture(httpExchange: HttpExchange, evaluators: Map<String, ExpressionEvaluator<*>>): Any?
+
+    companion object {
+        private val NULL_CAPTURE = ValueCapture { _, _ -> null }
+        private const val STORE_PLACEHOLDER_PREFIX = "\${stores."
+
+        /**
+         * @return `true` if the capture expression contains a store placeholder
+         */
+        fun readsStore(captureConfig: CaptureConfig): Boolean =
+            captureConfig.expression?.contains(STORE_PLACEHOLDER_PREFIX) == true
+
+        fun compile(captureConfig: CaptureConfig): ValueCapture {
+            return if (!Strings.isNullOrEmpty(captureConfig.constValue)) {
+                constant(captureConfig.constValue)
+
+            } else if (!Strings.isNullOrEmpty(captureConfig.pathParam)) {
+                val pathParam = captureConfig.pathParam!!
+                ValueCapture { httpExchange, _ -> httpExchange.request.getPathParam(pathParam) }
+
+            } else if (!Strings.isNullOrEmpty(captureConfig.queryParam)) {
+                val queryParam = captureConfig.queryParam!!
+                ValueCapture { httpExchange, _ -> httpExchange.request.getQueryParam(queryParam) }
+
+            } else if (!Strings.isNullOrEmpty(captureConfig.formParam)) {
+                val formParam = captureConfig.formParam!!
+                ValueCapture { httpExchange, _ -> httpExchange.request.getFormParam(formParam) }
+
+            } else if (!Strings.isNullOrEmpty(captureConfig.requestHeader)) {
+                val requestHeader = captureConfig.requestHeader!!
+                ValueCapture { httpExchange, _ -> httpExchange.request.getHeader(requestHeader) }
+
+            } else if (!Strings.isNullOrEmpty(captureConfig.requestBody.jsonPath)) {
+                val jsonPath = JsonPath.compile(captureConfig.requestBody.jsonPath!!)
+                ValueCapture { httpExchange, _ -> BodyQueryUtil.queryRequestBodyJsonPath(jsonPath, httpExchange) }
+
+            } else if (!Strings.isNullOrEmpty(captureConfig.requestBody.xPath)) {
+                val xPath = BodyQueryUtil.compileXPath(
+                    captureConfig.requestBody.xPath!!,
+                    captureConfig.requestBody.xmlNamespaces,
+                )
+                ValueCapture { httpExchange, _ -> BodyQueryUtil.queryRequestBodyXPath(xPath, httpExchange) }
+
+            } else if (!Strings.isNullOrEmpty(captureConfig.expression)) {
+                val expression = captureConfig.expression!!
+                if (expression.contains("\${")) {
+                    ValueCapture { httpExchange, evaluators -> PlaceholderUtil.replace(expression, httpExchange, evaluators) }
+                } else {
+                    // no placeholders, so the expression always resolves to itself
+                    constant(expression)
+                }
+
+            } else {
+                NULL_CAPTURE
+            }
+        }
+
+        private fun constant(value: Any?) = ValueCapture { _, _ -> value }
+    }
+}
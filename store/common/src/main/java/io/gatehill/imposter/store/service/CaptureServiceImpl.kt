@@ -42,30 +42,38 @@
  */
 package io.gatehill.imposter.store.service
 
-import com.google.common.base.Strings
+import io.gatehill.imposter.ImposterConfig
 import io.gatehill.imposter.expression.eval.ExpressionEvaluator
 import io.gatehill.imposter.http.ExchangePhase
 import io.gatehill.imposter.http.HttpExchange
+import io.gatehill.imposter.http.HttpRouter
 import io.gatehill.imposter.lifecycle.EngineLifecycleHooks
 import io.gatehill.imposter.lifecycle.EngineLifecycleListener
-import io.gatehill.imposter.plugin.config.capture.CaptureConfig
+import io.gatehill.imposter.plugin.config.InterceptorsHolder
+import io.gatehill.imposter.plugin.config.PluginConfig
+import io.gatehill.imposter.plugin.config.ResourcesHolder
 import io.gatehill.imposter.plugin.config.capture.CaptureConfigHolder
 import io.gatehill.imposter.plugin.config.capture.ItemCaptureConfig
 import io.gatehill.imposter.plugin.config.resource.ResourceConfig
+import io.gatehill.imposter.plugin.config.resource.StableResourceIdHolder
 import io.gatehill.imposter.service.CaptureService
 import io.gatehill.imposter.store.core.Store
 import io.gatehill.imposter.store.factory.StoreFactory
 import io.gatehill.imposter.store.util.StoreUtil
-import io.gatehill.imposter.util.BodyQueryUtil
 import io.gatehill.imposter.util.PlaceholderUtil
-import io.gatehill.imposter.util.ResourceUtil
 import org.apache.logging.log4j.LogManager
-import java.util.*
+import java.util.concurrent.ConcurrentHashMap
 import javax.inject.Inject
 
 /**
  * Captures request data into stores.
  *
+ * Capture configurations are compiled into a [CapturePlan] per resource,
+ * which is executed once per exchange phase. Captured items are grouped
+ * by store, so each store receives a single batch write, unless a capture
+ * refers to a store, in which case the items captured before it are
+ * written first.
+ *
  * @author Pete Cornish
  */
 class CaptureServiceImpl @Inject constructor(
@@ -73,10 +81,50 @@ class CaptureServiceImpl @Inject constructor(
     engineLifecycle: EngineLifecycleHooks,
 ) : CaptureService, EngineLifecycleListener {
 
+    /**
+     * Compiled plans, keyed by resource ID.
+     */
+    private val plans = ConcurrentHashMap<String, CapturePlan>()
+
+    internal val planCount: Int
+        get() = plans.size
+
     init {
         engineLifecycle.registerListener(this)
     }
 
+    override fun afterRoutesConfigured(
+        imposterConfig: ImposterConfig,
+        allPluginConfigs: List<PluginConfig>,
+        router: HttpRouter,
+    ) {
+        // compile all plans up front, so invalid captures fail at startup
+        listResources(allPluginConfigs).forEach(::getPlan)
+        LOGGER.trace("Compiled {} capture plans", plans.size)
+    }
+
+    override fun afterRoutesReloaded(
+        imposterConfig: ImposterConfig,
+        allPluginConfigs: List<PluginConfig>,
+        reloadedPluginConfigs: List<PluginConfig>,
+        router: HttpRouter,
+    ) {
+        val resources = listResources(allPluginConfigs)
+        resources.forEach(::getPlan)
+
+        // resource IDs are not reused, so discard the plans of replaced resources
+        val resourceIds = resources.mapNotNullTo(HashSet()) { (it as? StableResourceIdHolder)?.resourceId }
+        plans.keys.retainAll(resourceIds)
+        LOGGER.trace("Compiled {} capture plans", plans.size)
+    }
+
+    private fun listResources(allPluginConfigs: List<PluginConfig>): List<ResourceConfig> =
+        allPluginConfigs.flatMap { config ->
+            listOfNotNull(config as? ResourceConfig) +
+                (config as? ResourcesHolder<*>)?.resources.orEmpty() +
+                (config as? InterceptorsHolder<*>)?.interceptors.orEmpty()
+        }
+
     override fun beforeBuildingResponse(httpExchange: HttpExchange, resourceConfig: ResourceConfig?) {
         // immediate captures
         captureItems(resourceConfig, httpExchange, ExchangePhase.REQUEST_RECEIVED)
@@ -87,169 +135,92 @@ class CaptureServiceImpl @Inject constructor(
         captureItems(resourceConfig, httpExchange, ExchangePhase.RESPONSE_SENT)
     }
 
-    private fun captureItems(
-        resourceConfig: ResourceConfig?,
-        httpExchange: HttpExchange,
-        phaseFilter: ExchangePhase,
-    ) {
-        when (resourceConfig) {
-            is CaptureConfigHolder -> {
-                resourceConfig.captureConfig
-                    ?.filterValues { it.enabled && it.phase == phaseFilter }
-                    ?.forEach { (captureConfigKey: String, itemConfig: ItemCaptureConfig) ->
-                        captureItem(captureConfigKey, itemConfig, httpExchange, PlaceholderUtil.defaultEvaluators)
-                    }
+    private fun getPlan(resourceConfig: ResourceConfig?): CapturePlan {
+        if (resourceConfig !is CaptureConfigHolder) {
+            return CapturePlan.EMPTY
+        }
+        return when (resourceConfig) {
+            is StableResourceIdHolder -> plans.computeIfAbsent(resourceConfig.resourceId) {
+                CapturePlan.compile(resourceConfig.captureConfig)
             }
+            else -> CapturePlan.compile(resourceConfig.captureConfig)
         }
     }
 
-    override fun captureItem(
-        captureConfigKey: String,
-        itemConfig: ItemCaptureConfig,
+    private fun captureItems(
+        resourceConfig: ResourceConfig?,
         httpExchange: HttpExchange,
-        evaluators: Map<String, ExpressionEvaluator<*>>,
+        phase: ExchangePhase,
     ) {
-        val storeName = determineStoreName(itemConfig, httpExchange)
+        val captures = getPlan(resourceConfig).capturesFor(phase)
+        if (captures.isEmpty()) {
+            return
+        }
 
-        val itemName: String? =
-            determineItemName(itemConfig, httpExchange, storeName, captureConfigKey)
+        val itemsByStore = mutableMapOf<String, MutableMap<String, Any?>>()
+        captures.forEach { capture ->
+            if (capture.readsStore && itemsByStore.isNotEmpty()) {
+                // the capture might read an item captured earlier in this phase
+                saveItems(httpExchange, itemsByStore, phase)
+            }
+            val storeName = capture.determineStoreName(httpExchange)
 
-        // item name may not be set, if dynamic value was null
-        itemName?.let {
-            val itemValue = captureItemValue(itemConfig, httpExchange, captureConfigKey, evaluators)
-            val store = openCaptureStore(httpExchange, storeName)
-            store.save(itemName, itemValue, itemConfig.phase)
+            // item name may not be set, if dynamic value was null
+            capture.determineItemName(httpExchange, storeName)?.let { itemName ->
+                val itemValue = capture.captureValue(httpExchange, PlaceholderUtil.defaultEvaluators)
+                itemsByStore.getOrPut(storeName) { mutableMapOf() }[itemName] = itemValue
 
-        } ?: run {
-            LOGGER.warn(
-                "Could not capture item: {} into store: {} as dynamic item name resolved to null",
-                captureConfigKey,
-                storeName
-            )
+            } ?: logNullItemName(capture.captureConfigKey, storeName)
         }
-    }
 
-    private fun determineStoreName(
-        itemConfig: ItemCaptureConfig,
-        httpExchange: HttpExchange
-    ): String {
-        try {
-            return (itemConfig.store?.let { capture<String>(httpExchange, it, PlaceholderUtil.defaultEvaluators) }
-                ?: StoreService.DEFAULT_CAPTURE_STORE_NAME)
+        saveItems(httpExchange, itemsByStore, phase)
+    }
 
-        } catch (e: Exception) {
-            throw RuntimeException("Error capturing store name: $itemConfig", e)
+    private fun saveItems(
+        httpExchange: HttpExchange,
+        itemsByStore: MutableMap<String, MutableMap<String, Any?>>,
+        phase: ExchangePhase,
+    ) {
+        itemsByStore.forEach { (storeName, items) ->
+            openCaptureStore(httpExchange, storeName).saveAll(items, phase)
         }
+        itemsByStore.clear()
     }
 
-    /**
-     * Determines the item name, if possible.
-     * May return `null` if dynamic value could not be resolved or resolves to `null`.
-     */
-    private fun determineItemName(
+    override fun captureItem(
+        captureConfigKey: String,
         itemConfig: ItemCaptureConfig,
         httpExchange: HttpExchange,
-        storeName: String,
-        captureConfigKey: String
-    ): String? {
-        if (Objects.isNull(itemConfig.key)) {
-            LOGGER.debug("Capturing item: {} into store: {}", captureConfigKey, storeName)
-            return captureConfigKey
-
-        } else {
-            try {
-                capture<String?>(httpExchange, itemConfig.key, PlaceholderUtil.defaultEvaluators)?.let { itemName ->
-                    LOGGER.debug(
-                        "Capturing item: $captureConfigKey into store: $storeName with name: $itemName"
-                    )
-                    return itemName
+        evaluators: Map<String, ExpressionEvaluator<*>>,
+    ) {
+        val capture = CompiledItemCapture.compile(captureConfigKey, itemConfig)
+        val storeName = capture.determineStoreName(httpExchange)
 
-                } ?: run {
-                    LOGGER.trace(
-                        "Could not capture item name for: $captureConfigKey as item name resolved to null",
-                    )
-                    return null
-                }
+        // item name may not be set, if dynamic value was null
+        capture.determineItemName(httpExchange, storeName)?.let { itemName ->
+            val itemValue = capture.captureValue(httpExchange, evaluators)
+            val store = openCaptureStore(httpExchange, storeName)
+            store.save(itemName, itemValue, itemConfig.phase)
 
-            } catch (e: Exception) {
-                throw RuntimeException("Error capturing item name: $captureConfigKey", e)
-            }
-        }
+        } ?: logNullItemName(captureConfigKey, storeName)
     }
 
-    private fun captureItemValue(
-        itemConfig: ItemCaptureConfig,
-        httpExchange: HttpExchange,
-        captureConfigKey: String,
-        evaluators: Map<String, ExpressionEvaluator<*>>,
-    ): Any? {
-        try {
-            return capture(httpExchange, itemConfig, evaluators)
-        } catch (e: Exception) {
-            throw RuntimeException("Error capturing item value: $captureConfigKey", e)
-        }
+    private fun logNullItemName(captureConfigKey: String, storeName: String) {
+        LOGGER.warn(
+            "Could not capture item: {} into store: {} as dynamic item name resolved to null",
+            captureConfigKey,
+            storeName
+        )
     }
 
     private fun openCaptureStore(httpExchange: HttpExchange, storeName: String): Store {
         return if (StoreUtil.isRequestScopedStore(storeName)) {
-            val uniqueRequestId = httpExchange.get<String>(ResourceUtil.RC_REQUEST_ID_KEY)!!
-            val requestStoreName = StoreUtil.buildRequestStoreName(uniqueRequestId)
-            storeFactory.getStoreByName(requestStoreName, true)
+            storeFactory.getRequestStore(httpExchange)
         } else {
             storeFactory.getStoreByName(storeName, false)
         }
     }
 
-    /**
-     * Use the [CaptureConfig] to determine the value to capture
-     * from the [HttpExchange].
-     */
-    @Suppress("UNCHECKED_CAST")
-    private fun <T> capture(
-        httpExchange: HttpExchange,
-        captureConfig: CaptureConfig?,
-        evaluators: Map<String, ExpressionEvaluator<*>>,
-    ): T? {
-        if (null == captureConfig) {
-            return null
-        }
-
-        return if (!Strings.isNullOrEmpty(captureConfig.constValue)) {
-            captureConfig.constValue as T?
-
-        } else if (!Strings.isNullOrEmpty(captureConfig.pathParam)) {
-            httpExchange.request.getPathParam(captureConfig.pathParam!!) as T?
-
-        } else if (!Strings.isNullOrEmpty(captureConfig.queryParam)) {
-            httpExchange.request.getQueryParam(captureConfig.queryParam!!) as T?
-
-        } else if (!Strings.isNullOrEmpty(captureConfig.formParam)) {
-            httpExchange.request.getFormParam(captureConfig.formParam!!) as T?
-
-        } else if (!Strings.isNullOrEmpty(captureConfig.requestHeader)) {
-            httpExchange.request.getHeader(captureConfig.requestHeader!!) as T?
-
-        } else if (!Strings.isNullOrEmpty(captureConfig.requestBody.jsonPath)) {
-            BodyQueryUtil.queryRequestBodyJsonPath(
-                captureConfig.requestBody.jsonPath!!,
-                httpExchange
-            ) as T?
-
-        } else if (!Strings.isNullOrEmpty(captureConfig.requestBody.xPath)) {
-            BodyQueryUtil.queryRequestBodyXPath(
-                captureConfig.requestBody.xPath!!,
-                captureConfig.requestBody.xmlNamespaces,
-                httpExchange
-            ) as T?
-
-        } else if (!Strings.isNullOrEmpty(captureConfig.expression)) {
-            PlaceholderUtil.replace(captureConfig.expression!!, httpExchange, evaluators) as T?
-
-        } else {
-            null
-        }
-    }
-
     companion object {
         private val LOGGER = LogManager.getLogger(CaptureServiceImpl::class.java)
     }
@@ -43,10 +43,14 @@
 package io.gatehill.imposter.store.service
 
 import com.fasterxml.jackson.core.JsonProcessingException
+import com.fasterxml.jackson.databind.ObjectWriter
+import com.fasterxml.jackson.databind.SerializationFeature
 import io.gatehill.imposter.ImposterConfig
 import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.http.HttpExchangeFutureHandler
+import io.gatehill.imposter.http.HttpRequest
 import io.gatehill.imposter.http.HttpRouter
+import io.gatehill.imposter.http.RequestBodyPolicy
 import io.gatehill.imposter.http.SingletonResourceMatcher
 import io.gatehill.imposter.lifecycle.EngineLifecycleHooks
 import io.gatehill.imposter.lifecycle.EngineLifecycleListener
@@ -56,20 +60,30 @@ import io.gatehill.imposter.store.core.Store
 import io.gatehill.imposter.store.factory.StoreFactory
 import io.gatehill.imposter.util.HttpUtil
 import io.gatehill.imposter.util.MapUtil
+import io.gatehill.imposter.util.supervisedRequestCoroutineScope
+import io.vertx.core.buffer.Buffer
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.future.await
+import kotlinx.coroutines.future.future
 import org.apache.logging.log4j.LogManager
 import java.util.Objects
+import java.util.concurrent.CompletableFuture
 import javax.inject.Inject
 
 /**
  * Provides CRUD operations on stores and items via a RESTful API.
  *
+ * Stores can be exported and imported as newline-delimited JSON (NDJSON), one
+ * item per line, in the form `{"key":"...","value":...}`. Both are streamed,
+ * so memory use does not depend on the size of the store.
+ *
  * @author Pete Cornish
  */
 class StoreRestApiServiceImpl @Inject constructor(
     private val handlerService: HandlerService,
     private val storeFactory: StoreFactory,
     engineLifecycle: EngineLifecycleHooks,
-) : EngineLifecycleListener {
+) : EngineLifecycleListener, CoroutineScope by supervisedRequestCoroutineScope {
 
     private val resourceMatcher = SingletonResourceMatcher.instance
 
@@ -94,33 +108,91 @@ class StoreRestApiServiceImpl @Inject constructor(
         imposterConfig: ImposterConfig,
         allPluginConfigs: List<PluginConfig>
     ): HttpExchangeFutureHandler {
-        return handlerService.buildAndWrap(imposterConfig, allPluginConfigs, resourceMatcher) { httpExchange: HttpExchange ->
-            val request = httpExchange.request
-            val storeName = request.getPathParam("storeName")!!
-            val store = openStore(storeName)
-            if (Objects.isNull(store)) {
-                return@buildAndWrap
-            }
+        return handlerService.build(imposterConfig, allPluginConfigs, resourceMatcher) { httpExchange: HttpExchange ->
+            future {
+                val request = httpExchange.request
+                val storeName = request.getPathParam("storeName")!!
+                val store = openStore(storeName)
+                if (Objects.isNull(store)) {
+                    return@future
+                }
 
-            if (httpExchange.isAcceptHeaderEmpty() || httpExchange.acceptsMimeType(HttpUtil.CONTENT_TYPE_JSON)) {
-                val items = request.getQueryParam("keyPrefix")?.let { keyPrefix ->
-                    LOGGER.debug("Listing items in store: {} with key prefix: {}", storeName, keyPrefix)
-                    store.loadByKeyPrefix(keyPrefix)
-                } ?: run {
-                    LOGGER.debug("Listing all items in store: {}", storeName)
-                    store.loadAll()
+                val keyPrefix = request.getQueryParam("keyPrefix")
+                val afterKey = request.getQueryParam("after")
+                val limit = request.getQueryParam("limit")?.let { limitParam ->
+                    limitParam.toIntOrNull()?.takeIf { it >= 0 } ?: run {
+                        LOGGER.warn("Invalid limit for store: {}: {}", storeName, limitParam)
+                        httpExchange.response
+                            .setStatusCode(HttpUtil.HTTP_BAD_REQUEST)
+                            .putHeader(HttpUtil.CONTENT_TYPE, HttpUtil.CONTENT_TYPE_PLAIN_TEXT)
+                            .end("Invalid limit: $limitParam - must be a non-negative integer")
+                        return@future
+                    }
                 }
-                serialiseBodyAsJson(httpExchange, items)
 
-            } else {
-                // client doesn't accept JSON
-                LOGGER.warn("Cannot serialise store: {} as client does not accept JSON", storeName)
-                httpExchange.response
-                    .setStatusCode(HttpUtil.HTTP_NOT_ACCEPTABLE)
-                    .putHeader(HttpUtil.CONTENT_TYPE, HttpUtil.CONTENT_TYPE_PLAIN_TEXT)
-                    .end("Stores are only available as JSON. Please set an appropriate Accept header.")
+                if (acceptsNdjson(request)) {
+                    exportItems(httpExchange, store, keyPrefix, afterKey, limit)
+
+                } else if (httpExchange.isAcceptHeaderEmpty() || httpExchange.acceptsMimeType(HttpUtil.CONTENT_TYPE_JSON)) {
+                    val items = if (null != afterKey || null != limit) {
+                        LOGGER.debug("Listing page of items in store: {} with key prefix: {} after key: {}", storeName, keyPrefix, afterKey)
+                        store.loadPage(keyPrefix, afterKey, limit ?: Int.MAX_VALUE)
+                    } else {
+                        keyPrefix?.let {
+                            LOGGER.debug("Listing items in store: {} with key prefix: {}", storeName, keyPrefix)
+                            store.loadByKeyPrefix(keyPrefix)
+                        } ?: run {
+                            LOGGER.debug("Listing all items in store: {}", storeName)
+                            store.loadAll()
+                        }
+                    }
+                    serialiseBodyAsJson(httpExchange, items)
+
+                } else {
+                    // client doesn't accept JSON
+                    LOGGER.warn("Cannot serialise store: {} as client does not accept JSON", storeName)
+                    httpExchange.response
+                        .setStatusCode(HttpUtil.HTTP_NOT_ACCEPTABLE)
+                        .putHeader(HttpUtil.CONTENT_TYPE, HttpUtil.CONTENT_TYPE_PLAIN_TEXT)
+                        .end("Stores are only available as JSON. Please set an appropriate Accept header.")
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the items as NDJSON, a batch at a time, waiting for each batch to be
+     * written before loading the next.
+     */
+    private suspend fun exportItems(
+        httpExchange: HttpExchange,
+        store: Store,
+        keyPrefix: String?,
+        afterKey: String?,
+        limit: Int?,
+    ) {
+        LOGGER.debug("Exporting items in store: {} with key prefix: {} after key: {}", store.storeName, keyPrefix, afterKey)
+        val response = httpExchange.response
+        response.putHeader(HttpUtil.CONTENT_TYPE, CONTENT_TYPE_NDJSON)
+
+        val maxItems = limit ?: Int.MAX_VALUE
+        var exported = 0
+        if (maxItems > 0) {
+            for (batch in store.scanItems(keyPrefix, afterKey, minOf(EXPORT_PAGE_SIZE, maxItems))) {
+                val chunk = Buffer.buffer()
+                batch.entries.take(maxItems - exported).forEach { (key, value) ->
+                    chunk.appendString(NDJSON_WRITER.writeValueAsString(mapOf("key" to key, "value" to value)))
+                    chunk.appendString("\n")
+                    exported++
+                }
+                response.write(chunk).await()
+                if (exported >= maxItems) {
+                    break
+                }
             }
         }
+        response.end()
+        LOGGER.debug("Exported {} items from store: {}", exported, store.storeName)
     }
 
     private fun handleDeleteStore(
@@ -204,23 +276,102 @@ class StoreRestApiServiceImpl @Inject constructor(
         imposterConfig: ImposterConfig,
         allPluginConfigs: List<PluginConfig>
     ): HttpExchangeFutureHandler {
-        return handlerService.buildAndWrap(imposterConfig, allPluginConfigs, resourceMatcher) { httpExchange: HttpExchange ->
-            val request = httpExchange.request
-            val storeName = request.getPathParam("storeName")!!
-            val store = openStore(storeName)
-            if (Objects.isNull(store)) {
-                return@buildAndWrap
+        return handlerService.build(imposterConfig, allPluginConfigs, resourceMatcher, requestBodyStreamed = true) { httpExchange: HttpExchange ->
+            future {
+                val request = httpExchange.request
+                val storeName = request.getPathParam("storeName")!!
+                val store = openStore(storeName)
+                if (Objects.isNull(store)) {
+                    httpExchange.discardBody()
+                    return@future
+                }
+
+                val itemCount = if (isNdjson(request)) {
+                    try {
+                        importItems(httpExchange, store)
+                    } catch (e: IllegalArgumentException) {
+                        LOGGER.warn("Failed to import items to store: {}: {}", storeName, e.message)
+                        httpExchange.response
+                            .setStatusCode(HttpUtil.HTTP_BAD_REQUEST)
+                            .putHeader(HttpUtil.CONTENT_TYPE, HttpUtil.CONTENT_TYPE_PLAIN_TEXT)
+                            .end(e.message)
+                        return@future
+                    }
+                } else {
+                    if (!httpExchange.readBody(RequestBodyPolicy.defaultMaxBodySize).await()) {
+                        return@future
+                    }
+                    val items = request.bodyAsJson
+                    items?.forEach { (key: String, value: Any?) -> store.save(key, value) }
+                    items?.size() ?: 0
+                }
+                LOGGER.debug("Saved {} items to store: {}", itemCount, storeName)
+
+                httpExchange.response
+                    .setStatusCode(HttpUtil.HTTP_OK)
+                    .end()
             }
+        }
+    }
 
-            val items = request.bodyAsJson
-            items?.forEach { (key: String, value: Any?) -> store.save(key, value) }
-            val itemCount = items?.size() ?: 0
-            LOGGER.debug("Saved {} items to store: {}", itemCount, storeName)
+    /**
+     * Reads NDJSON items from the request body as it is received, saving them
+     * in batches, so the body is never held in memory.
+     *
+     * @return the number of items saved
+     */
+    private suspend fun importItems(httpExchange: HttpExchange, store: Store): Int {
+        LOGGER.debug("Importing items to store: {}", store.storeName)
+        val batch = mutableMapOf<String, Any?>()
+        var partialLine = Buffer.buffer()
+        var lineNumber = 0
+        var itemCount = 0
 
-            httpExchange.response
-                .setStatusCode(HttpUtil.HTTP_OK)
-                .end()
+        fun saveBatch() {
+            if (batch.isNotEmpty()) {
+                store.saveAll(batch.toMap())
+                itemCount += batch.size
+                batch.clear()
+            }
         }
+
+        fun parseLine(line: Buffer) {
+            lineNumber++
+            if (line.toString(Charsets.UTF_8).isBlank()) {
+                return
+            }
+            val item = try {
+                MapUtil.JSON_MAPPER.readValue(line.bytes, Map::class.java)
+            } catch (e: JsonProcessingException) {
+                throw IllegalArgumentException("Invalid JSON on line $lineNumber", e)
+            }
+            val key = item["key"] as? String
+                ?: throw IllegalArgumentException("Item on line $lineNumber has no key")
+            batch[key] = item["value"]
+            if (batch.size >= IMPORT_BATCH_SIZE) {
+                saveBatch()
+            }
+        }
+
+        httpExchange.streamBody { chunk ->
+            // store writes may block, so are not performed on the event loop
+            future {
+                var lineStart = 0
+                for (i in 0 until chunk.length()) {
+                    if (chunk.getByte(i) == NEWLINE) {
+                        parseLine(partialLine.appendBuffer(chunk.getBuffer(lineStart, i)))
+                        partialLine = Buffer.buffer()
+                        lineStart = i + 1
+                    }
+                }
+                partialLine.appendBuffer(chunk.getBuffer(lineStart, chunk.length()))
+                Unit
+            }
+        }.await()
+
+        parseLine(partialLine)
+        saveBatch()
+        return itemCount
     }
 
     private fun handleDeleteSingle(
@@ -245,6 +396,12 @@ class StoreRestApiServiceImpl @Inject constructor(
         }
     }
 
+    private fun acceptsNdjson(request: HttpRequest): Boolean =
+        request.getHeader("Accept")?.contains(CONTENT_TYPE_NDJSON) == true
+
+    private fun isNdjson(request: HttpRequest): Boolean =
+        request.getHeader(HttpUtil.CONTENT_TYPE)?.startsWith(CONTENT_TYPE_NDJSON) == true
+
     private fun openStore(storeName: String): Store {
         return storeFactory.getStoreByName(storeName, false)
     }
@@ -261,5 +418,23 @@ class StoreRestApiServiceImpl @Inject constructor(
 
     companion object {
         private val LOGGER = LogManager.getLogger(StoreRestApiServiceImpl::class.java)
+        private const val CONTENT_TYPE_NDJSON = "application/x-ndjson"
+        private const val NEWLINE = '\n'.code.toByte()
+
+        /**
+         * The number of items loaded from the store for each write to the response.
+         */
+        private const val EXPORT_PAGE_SIZE = 500
+
+        /**
+         * The number of imported items saved to the store in each write.
+         */
+        private const val IMPORT_BATCH_SIZE = 100
+
+        /**
+         * Writes each item on a single line.
+         */
+        private val NDJSON_WRITER: ObjectWriter = MapUtil.JSON_MAPPER.writer()
+            .without(SerializationFeature.INDENT_OUTPUT)
     }
 }
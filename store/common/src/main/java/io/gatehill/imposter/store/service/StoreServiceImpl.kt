@@ -50,7 +50,6 @@ import io.gatehill.imposter.lifecycle.EngineLifecycleListener
 import io.gatehill.imposter.lifecycle.ScriptLifecycleHooks
 import io.gatehill.imposter.lifecycle.ScriptLifecycleListener
 import io.gatehill.imposter.plugin.config.PluginConfig
-import io.gatehill.imposter.plugin.config.resource.ResourceConfig
 import io.gatehill.imposter.plugin.config.system.StoreConfig
 import io.gatehill.imposter.plugin.config.system.SystemConfigHolder
 import io.gatehill.imposter.script.ExecutionContext
@@ -61,7 +60,6 @@ import io.gatehill.imposter.store.util.StoreUtil
 import io.gatehill.imposter.util.FileUtil
 import io.gatehill.imposter.util.MapUtil
 import io.gatehill.imposter.util.PlaceholderUtil
-import io.gatehill.imposter.util.ResourceUtil
 import org.apache.logging.log4j.LogManager
 import java.io.IOException
 import javax.inject.Inject
@@ -98,6 +96,16 @@ class StoreServiceImpl @Inject constructor(
         preloadStores(allPluginConfigs)
     }
 
+    override fun afterRoutesReloaded(
+        imposterConfig: ImposterConfig,
+        allPluginConfigs: List<PluginConfig>,
+        reloadedPluginConfigs: List<PluginConfig>,
+        router: HttpRouter,
+    ) {
+        // existing store contents are retained, so only preload data from reloaded configuration
+        preloadStores(reloadedPluginConfigs)
+    }
+
     private fun preloadStores(allPluginConfigs: List<PluginConfig>) {
         allPluginConfigs.filter { it is SystemConfigHolder }.forEach { pluginConfig: PluginConfig ->
             val storeConfigs = (pluginConfig as SystemConfigHolder).systemConfig?.storeConfigs
@@ -148,17 +156,9 @@ class StoreServiceImpl @Inject constructor(
         executionContext: ExecutionContext,
     ) {
         // inject store object into script engine
-        val requestId = httpExchange.get<String>(ResourceUtil.RC_REQUEST_ID_KEY)!!
         val interceptor: StoreInterceptor? = storeInterceptors[scriptEngineName]
-        additionalBindings["stores"] = StoreProvider(storeFactory, interceptor, requestId)
-    }
-
-    override fun afterResponseSent(httpExchange: HttpExchange, resourceConfig: ResourceConfig?) {
-        // clean up request store if one exists
-        httpExchange.get<String?>(ResourceUtil.RC_REQUEST_ID_KEY)?.let { uniqueRequestId: String ->
-            storeFactory.clearStore(
-                StoreUtil.buildRequestStoreName(uniqueRequestId), ephemeral = true
-            )
+        additionalBindings["stores"] = StoreProvider(storeFactory, interceptor) {
+            storeFactory.getRequestStore(httpExchange)
         }
     }
 
@@ -43,6 +43,7 @@
 package io.gatehill.imposter.store.util
 
 import io.gatehill.imposter.config.util.EnvVars
+import java.util.PriorityQueue
 
 /**
  * @author Pete Cornish
@@ -64,4 +65,29 @@ object StoreUtil {
      */
     val activeDriver: String
         get() = EnvVars.getEnv(envStoreDriver) ?: defaultStoreDriver
+
+    /**
+     * Selects the first [limit] keys, in key order, that start with [keyPrefix] and sort
+     * after [afterKey], holding no more than [limit] keys in memory.
+     *
+     * @return the selected keys, in key order
+     */
+    fun selectPageKeys(keys: Sequence<String>, keyPrefix: String?, afterKey: String?, limit: Int): List<String> {
+        if (limit <= 0) {
+            return emptyList()
+        }
+        // the greatest selected key is at the head, so it can be replaced by a lesser key
+        val selected = PriorityQueue<String>(limit, Comparator.reverseOrder())
+        keys.filter { key ->
+            (null == keyPrefix || key.startsWith(keyPrefix)) && (null == afterKey || key > afterKey)
+        }.forEach { key ->
+            if (selected.size < limit) {
+                selected.add(key)
+            } else if (key < selected.peek()) {
+                selected.poll()
+                selected.add(key)
+            }
+        }
+        return selected.sorted()
+    }
 }
@@ -81,4 +81,24 @@ class PrefixedKeyStoreTest {
         MatcherAssert.assertThat(allKeys, CoreMatchers.not(CoreMatchers.hasItem("pref.foo")))
         MatcherAssert.assertThat(allKeys, CoreMatchers.hasItem("foo"))
     }
+
+    @Test
+    fun testLoadAllByKeys() {
+        store!!.saveAll(mapOf("foo" to "bar", "baz" to "qux"))
+
+        val items = store!!.loadAll(listOf("foo", "baz", "missing"))
+        Assertions.assertEquals(mapOf("foo" to "bar", "baz" to "qux"), items)
+    }
+
+    @Test
+    fun testScanItemsInBatches() {
+        delegateStore!!.save("other", "ignored")
+        store!!.saveAll((1..5).associate { "item$it" to it })
+
+        val batches = store!!.scanItems(null, "item1", 2).toList()
+        Assertions.assertEquals(
+            listOf(mapOf("item2" to 2, "item3" to 3), mapOf("item4" to 4, "item5" to 5)),
+            batches
+        )
+    }
 }
@@ -43,22 +43,35 @@
 
 package io.gatehill.imposter.store.service
 
+import io.gatehill.imposter.http.ExchangePhase
 import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.http.HttpRequest
 import io.gatehill.imposter.lifecycle.EngineLifecycleHooks
+import io.gatehill.imposter.plugin.config.PluginConfig
+import io.gatehill.imposter.plugin.config.ResourcesHolder
 import io.gatehill.imposter.plugin.config.capture.CaptureConfig
+import io.gatehill.imposter.plugin.config.capture.CaptureConfigHolder
 import io.gatehill.imposter.plugin.config.capture.ItemCaptureConfig
+import io.gatehill.imposter.plugin.config.resource.BasicResourceConfig
+import io.gatehill.imposter.plugin.config.resource.ResourceConfig
 import io.gatehill.imposter.store.core.Store
 import io.gatehill.imposter.store.factory.StoreFactory
 import io.gatehill.imposter.util.DateTimeUtil
 import io.gatehill.imposter.util.PlaceholderUtil
+import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Test
 import org.mockito.kotlin.any
+import org.mockito.kotlin.argThat
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.eq
+import org.mockito.kotlin.inOrder
 import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
 import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
 import java.time.LocalDate
+import java.util.UUID
 
 class CaptureServiceImplTest {
     @Test
@@ -160,4 +173,125 @@ class CaptureServiceImplTest {
         val storeName = "store_${DateTimeUtil.DATE_FORMATTER.format(LocalDate.now())}"
         verify(storeFactory).getStoreByName(eq(storeName), eq(false))
     }
+
+    @Test
+    fun `batch captures into each store`() {
+        val store = mock<Store>()
+        val storeFactory = mock<StoreFactory> {
+            on { getStoreByName(any(), any()) } doReturn store
+        }
+        val service = CaptureServiceImpl(
+            storeFactory = storeFactory,
+            engineLifecycle = EngineLifecycleHooks(),
+        )
+
+        val request = mock<HttpRequest> {
+            on { getHeader(eq("Correlation-ID")) } doReturn "test-id"
+        }
+        val httpExchange = mock<HttpExchange> {
+            on { this.request } doReturn request
+        }
+
+        val resourceConfig = mock<ResourceConfig>(extraInterfaces = arrayOf(CaptureConfigHolder::class))
+        whenever((resourceConfig as CaptureConfigHolder).captureConfig).thenReturn(
+            mapOf(
+                "correlationId" to ItemCaptureConfig(
+                    requestHeader = "Correlation-ID",
+                    _store = "test",
+                ),
+                "foo" to ItemCaptureConfig(
+                    constValue = "bar",
+                    _store = "test",
+                ),
+                "deferred" to ItemCaptureConfig(
+                    constValue = "later",
+                    _store = "test",
+                    phase = ExchangePhase.RESPONSE_SENT,
+                ),
+            )
+        )
+
+        service.beforeBuildingResponse(httpExchange, resourceConfig)
+
+        verify(store).saveAll(
+            eq(mapOf("correlationId" to "test-id", "foo" to "bar")),
+            eq(ExchangePhase.REQUEST_RECEIVED)
+        )
+        verify(store, never()).save(any(), any(), any())
+        verify(storeFactory, times(1)).getStoreByName(eq("test"), eq(false))
+    }
+
+    @Test
+    fun `write earlier captures before a capture that reads a store`() {
+        val store = mock<Store>()
+        val storeFactory = mock<StoreFactory> {
+            on { getStoreByName(any(), any()) } doReturn store
+        }
+        val service = CaptureServiceImpl(
+            storeFactory = storeFactory,
+            engineLifecycle = EngineLifecycleHooks(),
+        )
+
+        val httpExchange = mock<HttpExchange> {
+            on { this.request } doReturn mock<HttpRequest>()
+        }
+
+        val resourceConfig = mock<ResourceConfig>(extraInterfaces = arrayOf(CaptureConfigHolder::class))
+        whenever((resourceConfig as CaptureConfigHolder).captureConfig).thenReturn(
+            mapOf(
+                "foo" to ItemCaptureConfig(
+                    constValue = "bar",
+                    _store = "test",
+                ),
+                "copy" to ItemCaptureConfig(
+                    expression = "\${stores.test.foo}",
+                    _store = "test",
+                ),
+                "baz" to ItemCaptureConfig(
+                    constValue = "qux",
+                    _store = "test",
+                ),
+            )
+        )
+
+        service.beforeBuildingResponse(httpExchange, resourceConfig)
+
+        inOrder(store) {
+            verify(store).saveAll(eq(mapOf("foo" to "bar")), eq(ExchangePhase.REQUEST_RECEIVED))
+            verify(store).saveAll(argThat { keys == setOf("copy", "baz") }, eq(ExchangePhase.REQUEST_RECEIVED))
+        }
+    }
+
+    @Test
+    fun `discard plans of replaced resources on reload`() {
+        val service = CaptureServiceImpl(
+            storeFactory = mock(),
+            engineLifecycle = EngineLifecycleHooks(),
+        )
+
+        service.afterRoutesConfigured(mock(), listOf(buildPluginConfig()), mock())
+        assertEquals(2, service.planCount)
+
+        repeat(10) {
+            service.afterRoutesReloaded(mock(), listOf(buildPluginConfig()), emptyList(), mock())
+            assertEquals(2, service.planCount, "Plans should not accumulate across reloads")
+        }
+    }
+
+    /**
+     * @return a plugin configuration with two resources, each with a new resource ID, as following a reload
+     */
+    private fun buildPluginConfig(): PluginConfig {
+        val resources = List(2) { index ->
+            mock<BasicResourceConfig>(extraInterfaces = arrayOf(CaptureConfigHolder::class)).also { resource ->
+                whenever(resource.resourceId).thenReturn(UUID.randomUUID().toString())
+                whenever((resource as CaptureConfigHolder).captureConfig).thenReturn(
+                    mapOf("item$index" to ItemCaptureConfig(constValue = "value", _store = "test"))
+                )
+            }
+        }
+        val pluginConfig = mock<PluginConfig>(extraInterfaces = arrayOf(ResourcesHolder::class))
+        whenever((pluginConfig as ResourcesHolder<*>).resources).thenReturn(resources)
+        return pluginConfig
+    }
 }
@@ -44,10 +44,15 @@ package io.gatehill.imposter.store.dynamodb
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB
 import com.amazonaws.services.dynamodbv2.model.AttributeValue
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest
 import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest
 import com.amazonaws.services.dynamodbv2.model.GetItemRequest
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes
 import com.amazonaws.services.dynamodbv2.model.PutItemRequest
+import com.amazonaws.services.dynamodbv2.model.PutRequest
 import com.amazonaws.services.dynamodbv2.model.QueryRequest
+import com.amazonaws.services.dynamodbv2.model.WriteRequest
 import io.gatehill.imposter.service.DeferredOperationService
 import io.gatehill.imposter.store.core.AbstractStore
 import io.gatehill.imposter.store.dynamodb.config.Settings
@@ -59,6 +64,8 @@ import java.text.NumberFormat
 import java.time.LocalDateTime
 import java.time.ZoneOffset
 import java.util.Objects.nonNull
+import java.util.concurrent.ThreadLocalRandom
+import kotlin.math.min
 
 /**
  * Store implementation using DynamoDB.
@@ -81,12 +88,50 @@ class DynamoDBStore(
 
     override fun saveItem(key: String, value: Any?) {
         logger.trace("Saving item with key: {} to store: {}", key, storeName)
-        val valueAttribute = convertToAttributeValue(value)
+        ddb.putItem(PutItemRequest().withTableName(tableName).withItem(buildItemData(key, value)))
+    }
+
+    /**
+     * Writes the items using [BatchWriteItemRequest]s, in chunks of the maximum
+     * batch size, retrying any items DynamoDB reports as unprocessed after
+     * a backoff delay.
+     */
+    override fun saveItems(items: Map<String, Any?>) {
+        logger.trace("Saving {} items to store: {}", items.size, storeName)
+        items.entries.chunked(MAX_BATCH_WRITE_SIZE).forEach { chunk ->
+            val writeRequests = chunk.map { (key, value) ->
+                WriteRequest().withPutRequest(PutRequest().withItem(buildItemData(key, value)))
+            }
+            var pending: Map<String, List<WriteRequest>> = mapOf(tableName to writeRequests)
+            var attempt = 0
+            while (pending.isNotEmpty()) {
+                if (attempt++ == MAX_BATCH_ATTEMPTS) {
+                    throw IllegalStateException(
+                        "Unable to write ${pending.values.sumOf { it.size }} items to store: $storeName after $MAX_BATCH_ATTEMPTS attempts"
+                    )
+                }
+                awaitRetry(attempt)
+                pending = ddb.batchWriteItem(BatchWriteItemRequest().withRequestItems(pending)).unprocessedItems ?: emptyMap()
+            }
+        }
+    }
+
+    /**
+     * Waits before a retry of unprocessed items. Has no effect on the first attempt.
+     */
+    private fun awaitRetry(attempt: Int) {
+        if (attempt > 1) {
+            val delayMs = computeRetryDelayMillis(attempt - 1)
+            logger.trace("Retrying unprocessed items in store: {} after {}ms", storeName, delayMs)
+            Thread.sleep(delayMs)
+        }
+    }
 
+    private fun buildItemData(key: String, value: Any?): Map<String, AttributeValue> {
         val itemData = mutableMapOf(
             "StoreName" to AttributeValue().withS(storeName),
             "Key" to AttributeValue().withS(key),
-            "Value" to valueAttribute
+            "Value" to convertToAttributeValue(value)
         )
         if (Settings.Ttl.enabled) {
             itemData[Settings.Ttl.attributeName] = AttributeValue().withN(
@@ -96,7 +141,7 @@ class DynamoDBStore(
                     .toString()
             )
         }
-        ddb.putItem(PutItemRequest().withTableName(tableName).withItem(itemData))
+        return itemData
     }
 
     private fun convertToAttributeValue(value: Any?): AttributeValue {
@@ -124,12 +169,7 @@ class DynamoDBStore(
     override fun <T> load(key: String): T? {
         logger.trace("Loading item with key: {} from store: {}", key, storeName)
         val result = ddb.getItem(
-            GetItemRequest().withTableName(tableName).withKey(
-                mapOf(
-                    "StoreName" to AttributeValue().withS(storeName),
-                    "Key" to AttributeValue().withS(key)
-                )
-            )
+            GetItemRequest().withTableName(tableName).withKey(buildItemKey(key))
         )
 
         return result?.item?.let {
@@ -138,18 +178,46 @@ class DynamoDBStore(
         }
     }
 
+    /**
+     * Reads the items using [BatchGetItemRequest]s, in chunks of the maximum
+     * batch size, retrying any keys DynamoDB reports as unprocessed after
+     * a backoff delay.
+     */
+    override fun loadAll(keys: Collection<String>): Map<String, Any?> {
+        logger.trace("Loading {} items from store: {}", keys.size, storeName)
+        val items = mutableMapOf<String, Any?>()
+        keys.distinct().chunked(MAX_BATCH_GET_SIZE).forEach { chunk ->
+            var pending: Map<String, KeysAndAttributes> = mapOf(
+                tableName to KeysAndAttributes().withKeys(chunk.map(::buildItemKey))
+            )
+            var attempt = 0
+            while (pending.isNotEmpty()) {
+                if (attempt++ == MAX_BATCH_ATTEMPTS) {
+                    throw IllegalStateException(
+                        "Unable to read ${pending.values.sumOf { it.keys.size }} items from store: $storeName after $MAX_BATCH_ATTEMPTS attempts"
+                    )
+                }
+                awaitRetry(attempt)
+                val result = ddb.batchGetItem(BatchGetItemRequest().withRequestItems(pending))
+                result.responses?.get(tableName)?.forEach { items += destructure<Any>(it) }
+                pending = result.unprocessedKeys ?: emptyMap()
+            }
+        }
+        return items
+    }
+
     override fun delete(key: String) {
         logger.trace("Deleting item with key: {} from store: {}", key, storeName)
         ddb.deleteItem(
-            DeleteItemRequest().withTableName(tableName).withKey(
-                mapOf(
-                    "StoreName" to AttributeValue().withS(storeName),
-                    "Key" to AttributeValue().withS(key)
-                )
-            )
+            DeleteItemRequest().withTableName(tableName).withKey(buildItemKey(key))
         )
     }
 
+    private fun buildItemKey(key: String): Map<String, AttributeValue> = mapOf(
+        "StoreName" to AttributeValue().withS(storeName),
+        "Key" to AttributeValue().withS(key)
+    )
+
     override fun loadAll(): Map<String, Any?> {
         logger.trace("Loading all items in store: {}", storeName)
         return listAllInStore().items.associate { destructure<Any>(it) }
@@ -177,6 +245,76 @@ class DynamoDBStore(
         return items.associate { destructure(it) }
     }
 
+    /**
+     * Queries the items in key order, starting after [afterKey], so only
+     * the items in the page are read.
+     */
+    override fun loadPage(keyPrefix: String?, afterKey: String?, limit: Int): Map<String, Any?> {
+        logger.trace("Loading page of {} items in store: {} with key prefix: {} after key: {}", limit, storeName, keyPrefix, afterKey)
+        val page = queryPage(keyPrefix, afterKey, limit, keysOnly = false)
+            .associateTo(LinkedHashMap()) { item -> destructure<Any>(item) }
+
+        logger.trace("{} items found in page of store: {}", page.size, storeName)
+        return page
+    }
+
+    override fun loadKeyPage(keyPrefix: String?, afterKey: String?, limit: Int): List<String> {
+        logger.trace("Loading page of {} keys in store: {} with key prefix: {} after key: {}", limit, storeName, keyPrefix, afterKey)
+        val keys = queryPage(keyPrefix, afterKey, limit, keysOnly = true).map { item -> item.getValue("Key").s }
+
+        logger.trace("{} keys found in page of store: {}", keys.size, storeName)
+        return keys
+    }
+
+    /**
+     * Queries up to [limit] items in key order, following the query pagination
+     * until enough items are returned. If [keysOnly] is `true`, only the item keys
+     * are projected, so values are not read from the table.
+     */
+    private fun queryPage(
+        keyPrefix: String?,
+        afterKey: String?,
+        limit: Int,
+        keysOnly: Boolean,
+    ): List<Map<String, AttributeValue>> {
+        val items = mutableListOf<Map<String, AttributeValue>>()
+        if (limit <= 0) {
+            return items
+        }
+
+        val attributeValues = mutableMapOf(":storeName" to AttributeValue().withS(storeName))
+        val keyCondition = keyPrefix?.let {
+            attributeValues[":keyPrefix"] = AttributeValue().withS(keyPrefix)
+            "StoreName = :storeName AND begins_with(#k, :keyPrefix)"
+        } ?: "StoreName = :storeName"
+
+        // DynamoDB rejects a start key outside the key condition, so clamp it to the prefix range
+        val startAfter = when {
+            null == afterKey || null == keyPrefix || afterKey.startsWith(keyPrefix) -> afterKey
+            afterKey < keyPrefix -> null
+            else -> return items
+        }
+        var startKey: Map<String, AttributeValue>? = startAfter?.let(::buildItemKey)
+        do {
+            val query = QueryRequest().withTableName(tableName)
+                .withKeyConditionExpression(keyCondition)
+                .withExpressionAttributeValues(attributeValues)
+                .withExclusiveStartKey(startKey)
+                .withLimit(limit - items.size)
+            if (keysOnly) {
+                query.withProjectionExpression("#k")
+            }
+            if (null != keyPrefix || keysOnly) {
+                query.withExpressionAttributeNames(mapOf("#k" to "Key"))
+            }
+            val result = ddb.query(query)
+            items += result.items
+            startKey = result.lastEvaluatedKey
+        } while (null != startKey && items.size < limit)
+
+        return items
+    }
+
     override fun hasItemWithKey(key: String): Boolean {
         logger.trace("Checking for item with key: {} in store: {}", key, storeName)
         return load<Any>(key) != null
@@ -231,4 +369,32 @@ class DynamoDBStore(
         m.entries.associate { (key, value) ->
             key to convertFromAttributeValue<Any>(attributeKey, value)
         }
+
+    companion object {
+        /**
+         * The maximum number of items DynamoDB accepts in a single batch write.
+         */
+        private const val MAX_BATCH_WRITE_SIZE = 25
+
+        /**
+         * The maximum number of items DynamoDB returns from a single batch read.
+         */
+        private const val MAX_BATCH_GET_SIZE = 100
+
+        private const val MAX_BATCH_ATTEMPTS = 5
+
+        private const val BASE_RETRY_DELAY_MS = 50L
+        private const val MAX_RETRY_DELAY_MS = 2000L
+
+        /**
+         * Computes the delay before the given retry of a batch operation, using
+         * exponential backoff with full jitter, as recommended by AWS.
+         *
+         * @param retry the retry number, starting at 1
+         */
+        internal fun computeRetryDelayMillis(retry: Int): Long {
+            val ceiling = min(MAX_RETRY_DELAY_MS, BASE_RETRY_DELAY_MS shl (retry - 1).coerceIn(0, 16))
+            return ThreadLocalRandom.current().nextLong(ceiling + 1)
+        }
+    }
 }
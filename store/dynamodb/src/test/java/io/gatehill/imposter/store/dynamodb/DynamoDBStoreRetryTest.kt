@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016-2023.
+ *
+ * This file is part of Imposter.
+ *
+ * "Commons Clause" License Condition v1.0
+ *
+ * The Software is provided to you by the Licensor under the License, as
+ * defined below, subject to the following condition.
+ *
+ * Without limiting other conditions in the License, the grant of rights
+ * under the License will not include, and the License does not grant to
+ * you, the right to Sell the Software.
+ *
+ * For purposes of the foregoing, "Sell" means practicing any or all of
+ * the rights granted to you under the License to provide to third parties,
+ * for a fee or other consideration (including without limitation fees for
+ * hosting or consulting/support services related to the Software), a
+ * product or service whose value derives, entirely or substantially, from
+ * the functionality of the Software. Any license notice or attribution
+ * required by the License must also include this Commons Clause License
+ * Condition notice.
+ *
+ * Software: Imposter
+ *
+ * License: GNU Lesser General Public License version 3
+ *
+ * Licensor: Peter Cornish
+ *
+ * Imposter is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Imposter is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Imposter.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.gatehill.imposter.store.dynamodb
+
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+/**
+ * Tests for the retry delays of DynamoDB batch operations.
+ *
+ * @author Pete Cornish
+ */
+class DynamoDBStoreRetryTest {
+    @Test
+    fun `retry delay grows exponentially with jitter`() {
+        val ceilings = mapOf(1 to 50L, 2 to 100L, 3 to 200L, 4 to 400L)
+        ceilings.forEach { (retry, ceiling) ->
+            repeat(100) {
+                val delayMs = DynamoDBStore.computeRetryDelayMillis(retry)
+                assertTrue(delayMs in 0..ceiling, "Delay for retry $retry should be between 0 and $ceiling: $delayMs")
+            }
+        }
+    }
+
+    @Test
+    fun `retry delay is capped`() {
+        repeat(100) {
+            val delayMs = DynamoDBStore.computeRetryDelayMillis(100)
+            assertTrue(delayMs in 0..2000L, "Delay should be capped: $delayMs")
+        }
+    }
+}
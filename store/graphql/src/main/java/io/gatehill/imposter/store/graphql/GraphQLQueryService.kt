@@ -47,6 +47,7 @@ import com.apurebase.kgraphql.KGraphQL
 import com.apurebase.kgraphql.ValidationException
 import com.apurebase.kgraphql.schema.Schema
 import io.gatehill.imposter.ImposterConfig
+import io.gatehill.imposter.config.util.EnvVars
 import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.http.HttpRouter
 import io.gatehill.imposter.lifecycle.EngineLifecycleHooks
@@ -54,11 +55,13 @@ import io.gatehill.imposter.lifecycle.EngineLifecycleListener
 import io.gatehill.imposter.plugin.config.PluginConfig
 import io.gatehill.imposter.store.factory.StoreFactory
 import io.gatehill.imposter.store.graphql.model.GraphQLRequest
+import io.gatehill.imposter.store.graphql.model.PageInfo
 import io.gatehill.imposter.store.graphql.model.StoreItem
+import io.gatehill.imposter.store.graphql.model.StoreItemPage
 import io.gatehill.imposter.util.HttpUtil
 import io.gatehill.imposter.util.MapUtil
 import io.gatehill.imposter.util.makeFuture
-import io.gatehill.imposter.util.supervisedDefaultCoroutineScope
+import io.gatehill.imposter.util.supervisedRequestCoroutineScope
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.launch
 import org.apache.logging.log4j.LogManager
@@ -69,7 +72,7 @@ import javax.inject.Inject
 class GraphQLQueryService @Inject constructor(
     private val storeFactory: StoreFactory,
     engineLifecycle: EngineLifecycleHooks,
-) : EngineLifecycleListener, CoroutineScope by supervisedDefaultCoroutineScope {
+) : EngineLifecycleListener, CoroutineScope by supervisedRequestCoroutineScope {
 
     private val logger: Logger = LogManager.getLogger(GraphQLQueryService::class.java)
     private val schema: Schema
@@ -86,18 +89,21 @@ class GraphQLQueryService @Inject constructor(
             }
 
             query("items") {
-                resolver { storeName: String, keyPrefix: String? ->
+                description = "Returns the items in a store. Pass `first` or `after` to return a single page of items."
+                resolver { storeName: String, keyPrefix: String?, first: Int?, after: String? ->
                     val store = storeFactory.getStoreByName(storeName, false)
 
-                    val rawItems: Map<String, Any?> = keyPrefix?.let {
-                        store.loadByKeyPrefix(keyPrefix)
-                    } ?: run {
-                        store.loadAll()
+                    val rawItems: Map<String, Any?> = if (null != first || null != after) {
+                        store.loadPage(keyPrefix, after, pageSize(first))
+                    } else {
+                        keyPrefix?.let {
+                            store.loadByKeyPrefix(keyPrefix)
+                        } ?: run {
+                            store.loadAll()
+                        }
                     }
 
-                    val items = rawItems.entries.map {
-                        StoreItem(it.key, it.value.toString())
-                    }
+                    val items = rawItems.entries.map { toStoreItem(it.key, it.value) }
                     if (logger.isTraceEnabled) {
                         logger.trace("GraphQL query produced ${items.size} results: {}", items)
                     } else {
@@ -107,6 +113,36 @@ class GraphQLQueryService @Inject constructor(
                 }
             }
 
+            query("itemPage") {
+                description = "Returns a page of items in a store, in key order. To load the next page, pass `pageInfo.endCursor` as `after`."
+                resolver { storeName: String, keyPrefix: String?, first: Int?, after: String? ->
+                    val store = storeFactory.getStoreByName(storeName, false)
+                    val limit = pageSize(first)
+
+                    // load one extra key to determine whether there is a next page
+                    val keys = store.loadKeyPage(keyPrefix, after, limit + 1)
+                    val pageKeys = keys.take(limit)
+
+                    logger.debug("GraphQL page query produced ${pageKeys.size} keys")
+                    return@resolver StoreItemPage(
+                        storeName = storeName,
+                        keys = pageKeys,
+                        pageInfo = PageInfo(endCursor = pageKeys.lastOrNull(), hasNextPage = keys.size > limit),
+                    )
+                }
+            }
+
+            type<StoreItemPage> {
+                // values are only loaded if the items are selected
+                property<List<StoreItem>>("items") {
+                    resolver { page ->
+                        val store = storeFactory.getStoreByName(page.storeName, false)
+                        val rawItems = store.loadAll(page.keys)
+                        page.keys.filter { rawItems.containsKey(it) }.map { toStoreItem(it, rawItems[it]) }
+                    }
+                }
+            }
+
             // workaround for GraphiQL bug: https://github.com/pgutkowski/KGraphQL/issues/17
             mutation("doNothing") {
                 description = "Does nothing"
@@ -115,6 +151,20 @@ class GraphQLQueryService @Inject constructor(
         }
     }
 
+    private fun toStoreItem(key: String, value: Any?) = StoreItem(key, value.toString())
+
+    /**
+     * @return the number of items to load in a page, no greater than the maximum page size
+     * @throws ValidationException if [first] is less than 1
+     */
+    private fun pageSize(first: Int?): Int {
+        if (null != first && first < 1) {
+            throw ValidationException("Argument 'first' must be at least 1, but was: $first")
+        }
+        val maxPageSize = EnvVars.getEnv("IMPOSTER_STORE_GRAPHQL_MAX_PAGE_SIZE")?.toInt() ?: 1000
+        return (first ?: defaultPageSize).coerceAtMost(maxPageSize)
+    }
+
     override fun afterRoutesConfigured(
         imposterConfig: ImposterConfig,
         allPluginConfigs: List<PluginConfig>,
@@ -198,5 +248,6 @@ class GraphQLQueryService @Inject constructor(
 
     companion object {
         private const val requestPath = "/system/store/graphql"
+        private const val defaultPageSize = 100
     }
 }
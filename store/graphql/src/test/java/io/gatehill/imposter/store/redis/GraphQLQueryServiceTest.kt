@@ -52,7 +52,9 @@ import io.gatehill.imposter.util.HttpUtil
 import io.vertx.core.json.JsonObject
 import kotlinx.coroutines.runBlocking
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
 import org.junit.jupiter.api.Assertions.assertNotNull
+import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.mockito.kotlin.any
@@ -79,9 +81,13 @@ class GraphQLQueryServiceTest {
     fun before() {
         storeFactory = InMemoryStoreFactoryImpl(mock())
         service = GraphQLQueryService(storeFactory, EngineLifecycleHooks())
+        mockExchange()
+    }
 
+    private fun mockExchange() {
         httpResponse = mock {
             on { putHeader(any(), any()) } doAnswer { httpResponse }
+            on { setStatusCode(any()) } doAnswer { httpResponse }
         }
         httpExchange = mock {
             on { this.response } doReturn httpResponse
@@ -158,6 +164,104 @@ class GraphQLQueryServiceTest {
         assertEquals("StoreItem", firstItem.getString("__typename"))
     }
 
+    /**
+     * Use GraphQL to page through the items in a store.
+     */
+    @Test
+    fun `query pages of items`() {
+        val store = storeFactory.getStoreByName("test", true)
+        store.save("foo_1", "one")
+        store.save("foo_2", "two")
+        store.save("foo_3", "three")
+        store.save("bar", "other")
+
+        val firstPage = queryItemPage("""first: 2""")
+        assertEquals(listOf("foo_1", "foo_2"), firstPage.getJsonArray("keys").map { it as String })
+        val items = firstPage.getJsonArray("items")
+        assertEquals(2, items.size())
+        assertEquals("foo_1", items.getJsonObject(0).getString("key"))
+        assertEquals("one", items.getJsonObject(0).getString("value"))
+
+        val firstPageInfo = firstPage.getJsonObject("pageInfo")
+        assertEquals("foo_2", firstPageInfo.getString("endCursor"))
+        assertTrue(firstPageInfo.getBoolean("hasNextPage"), "First page should have a next page")
+
+        val lastPage = queryItemPage("""first: 2, after: "foo_2"""")
+        assertEquals(listOf("foo_3"), lastPage.getJsonArray("keys").map { it as String })
+        assertFalse(lastPage.getJsonObject("pageInfo").getBoolean("hasNextPage"), "Last page should not have a next page")
+    }
+
+    /**
+     * Use the page arguments in an items query.
+     */
+    @Test
+    fun `query items with limit`() {
+        val store = storeFactory.getStoreByName("test", true)
+        store.save("foo", "bar")
+        store.save("baz", "qux")
+
+        val query = """
+            query {
+              items(storeName: "test", first: 1, after: "baz") {
+                key
+                value
+              }
+            }
+        """.trimIndent()
+        val body = queryAndReadResponse(query)
+
+        val items = JsonObject(body).getJsonObject("data").getJsonArray("items")
+        assertEquals(1, items.size())
+        assertEquals("foo", items.getJsonObject(0).getString("key"))
+        assertEquals("bar", items.getJsonObject(0).getString("value"))
+    }
+
+    /**
+     * Reject a page size less than 1.
+     */
+    @Test
+    fun `reject invalid page size`() {
+        val query = """
+            query {
+              itemPage(storeName: "test", first: 0) {
+                keys
+              }
+            }
+        """.trimIndent()
+        runBlocking {
+            service.execute(query, "{}", httpExchange, CompletableFuture()).join()
+        }
+
+        verify(httpResponse).setStatusCode(eq(400))
+        val endCaptor = argumentCaptor<String>()
+        verify(httpResponse).end(endCaptor.capture())
+        assertTrue(endCaptor.firstValue.contains("'first' must be at least 1"), "Response should describe the invalid argument")
+    }
+
+    private fun queryItemPage(arguments: String): JsonObject {
+        mockExchange()
+        val query = """
+            query {
+              itemPage(storeName: "test", keyPrefix: "foo_", $arguments) {
+                keys
+                items {
+                  key
+                  value
+                }
+                pageInfo {
+                  endCursor
+                  hasNextPage
+                }
+              }
+            }
+        """.trimIndent()
+        val body = queryAndReadResponse(query)
+
+        val graphQlData = JsonObject(body).getJsonObject("data")
+        assertNotNull(graphQlData, "GraphQL data property should exist")
+        return graphQlData.getJsonObject("itemPage")
+    }
+
     private fun queryAndReadResponse(query: String): String {
         runBlocking {
             service.execute(query, "{}", httpExchange, CompletableFuture()).join()
@@ -46,6 +46,7 @@ import io.gatehill.imposter.config.util.EnvVars
 import io.gatehill.imposter.service.DeferredOperationService
 import io.gatehill.imposter.store.core.AbstractStore
 import io.gatehill.imposter.store.redis.RedisStore.Companion.ENV_VAR_EXPIRY
+import io.gatehill.imposter.store.util.StoreUtil
 import org.apache.logging.log4j.LogManager
 import org.redisson.api.RMapCache
 import org.redisson.api.RedissonClient
@@ -89,12 +90,32 @@ class RedisStore(
         }
     }
 
+    override fun saveItems(items: Map<String, Any?>) {
+        LOGGER.trace("Saving {} items to store: {}", items.size, storeName)
+        val toSave = mutableMapOf<String, Any>()
+        val toRemove = mutableListOf<String>()
+        items.forEach { (key, value) -> value?.let { toSave[key] = value } ?: toRemove.add(key) }
+
+        if (toSave.isNotEmpty()) {
+            store.putAll(toSave, expirationSecs.toLong(), TimeUnit.SECONDS)
+        }
+        if (toRemove.isNotEmpty()) {
+            // can't save a null map value - remove existing if present
+            store.fastRemove(*toRemove.toTypedArray())
+        }
+    }
+
     override fun <T> load(key: String): T? {
         LOGGER.trace("Loading item with key: {} from store: {}", key, storeName)
         @Suppress("UNCHECKED_CAST")
         return store[key] as T?
     }
 
+    override fun loadAll(keys: Collection<String>): Map<String, Any?> {
+        LOGGER.trace("Loading {} items from store: {}", keys.size, storeName)
+        return store.getAll(keys.toSet())
+    }
+
     override fun delete(key: String) {
         LOGGER.trace("Deleting item with key: {} from store: {}", key, storeName)
         store.remove(key)
@@ -113,6 +134,46 @@ class RedisStore(
         return items
     }
 
+    /**
+     * Redis hashes are unordered, so the keys are scanned in batches to select the
+     * page, and only the values in the page are loaded. As each page scans all
+     * keys, use [scanItems] to read the whole store.
+     */
+    override fun loadPage(keyPrefix: String?, afterKey: String?, limit: Int): Map<String, Any?> {
+        LOGGER.trace("Loading page of {} items in store: {} with key prefix: {} after key: {}", limit, storeName, keyPrefix, afterKey)
+        val pageKeys = scanPageKeys(keyPrefix, afterKey, limit)
+        val items = store.getAll(pageKeys.toSet())
+
+        // preserve key order
+        return pageKeys.filter { items.containsKey(it) }.associateWithTo(LinkedHashMap()) { items[it] }
+    }
+
+    override fun loadKeyPage(keyPrefix: String?, afterKey: String?, limit: Int): List<String> {
+        LOGGER.trace("Loading page of {} keys in store: {} with key prefix: {} after key: {}", limit, storeName, keyPrefix, afterKey)
+        return scanPageKeys(keyPrefix, afterKey, limit)
+    }
+
+    /**
+     * Reads the store with a single scan, rather than scanning the keys for each batch,
+     * so the items are not in key order.
+     */
+    override fun scanItems(keyPrefix: String?, afterKey: String?, batchSize: Int): Sequence<Map<String, Any?>> {
+        require(batchSize > 0) { "Batch size must be positive: $batchSize" }
+        LOGGER.trace("Scanning items in batches of {} in store: {} with key prefix: {} after key: {}", batchSize, storeName, keyPrefix, afterKey)
+        return store.entrySet(buildPattern(keyPrefix), SCAN_BATCH_SIZE).asSequence()
+            .filter { (key, _) -> null == afterKey || key > afterKey }
+            .chunked(batchSize) { batch -> batch.associateTo(LinkedHashMap()) { (key, value) -> key to value } }
+    }
+
+    private fun scanPageKeys(keyPrefix: String?, afterKey: String?, limit: Int): List<String> =
+        StoreUtil.selectPageKeys(store.keySet(buildPattern(keyPrefix), SCAN_BATCH_SIZE).asSequence(), keyPrefix, afterKey, limit)
+
+    private fun buildPattern(keyPrefix: String?): String =
+        (keyPrefix?.let(::escapePattern) ?: "") + "*"
+
+    private fun escapePattern(literal: String): String =
+        literal.replace(Regex("""([*?\[\]\\])"""), """\\$1""")
+
     override fun hasItemWithKey(key: String): Boolean {
         LOGGER.trace("Checking for item with key: {} in store: {}", key, storeName)
         return store.containsKey(key)
@@ -132,5 +193,10 @@ class RedisStore(
          * 30 minutes.
          */
         private const val DEFAULT_EXPIRY_SECS = 1800
+
+        /**
+         * The number of keys requested per scan when loading a page.
+         */
+        private const val SCAN_BATCH_SIZE = 1000
     }
 }
@@ -43,11 +43,18 @@
 package io.gatehill.imposter.store
 
 import io.gatehill.imposter.ImposterConfig
+import io.gatehill.imposter.http.HttpExchange
 import io.gatehill.imposter.store.factory.AbstractStoreFactory
 import io.gatehill.imposter.store.support.Example
+import io.gatehill.imposter.util.ResourceUtil
 import org.junit.jupiter.api.Assertions
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
+import org.mockito.ArgumentMatchers.any
+import org.mockito.ArgumentMatchers.anyString
+import org.mockito.Mockito.CALLS_REAL_METHODS
+import org.mockito.Mockito.doAnswer
+import org.mockito.Mockito.mock
 import java.nio.file.Files
 
 /**
@@ -112,6 +119,30 @@ abstract class AbstractStoreFactoryTest {
         Assertions.assertEquals("baz", items["foo_two"])
     }
 
+    @Test
+    fun testLoadPage() {
+        val store = factory.buildNewStore("page")
+        Assertions.assertEquals(0, store.count())
+        store.save("foo_3", "three")
+        store.save("foo_1", "one")
+        store.save("foo_2", "two")
+        store.save("bar_1", "other")
+
+        val firstPage = store.loadPage("foo_", null, 2)
+        Assertions.assertEquals(listOf("foo_1", "foo_2"), firstPage.keys.toList())
+        Assertions.assertEquals("one", firstPage["foo_1"])
+
+        val lastPage = store.loadPage("foo_", firstPage.keys.last(), 2)
+        Assertions.assertEquals(listOf("foo_3"), lastPage.keys.toList())
+        Assertions.assertEquals("three", lastPage["foo_3"])
+
+        val allItems = store.loadPage(null, null, 10)
+        Assertions.assertEquals(listOf("bar_1", "foo_1", "foo_2", "foo_3"), allItems.keys.toList())
+
+        Assertions.assertEquals(listOf("foo_2", "foo_3"), store.loadKeyPage("foo_", "foo_1", 10))
+        Assertions.assertEquals(listOf("bar_1"), store.loadKeyPage(null, null, 1))
+    }
+
     @Test
     fun testSaveLoadMap() {
         val store = factory.buildNewStore("map")
@@ -154,4 +185,24 @@ abstract class AbstractStoreFactoryTest {
         factory.clearStore("ds", false)
         Assertions.assertEquals(0, factory.getStoreByName("ds", false).count(), "Store should be empty")
     }
+
+    @Test
+    fun testRequestStoreScopedToExchange() {
+        val exchange = buildExchange("req1")
+        val store = factory.getRequestStore(exchange)
+        Assertions.assertTrue(store.isEphemeral, "Request store should be ephemeral")
+        store.save("foo", "bar")
+
+        Assertions.assertSame(store, factory.getRequestStore(exchange))
+        Assertions.assertEquals("bar", factory.getRequestStore(exchange).load("foo"))
+        Assertions.assertNull(factory.getRequestStore(buildExchange("req2")).load("foo"))
+    }
+
+    private fun buildExchange(requestId: String): HttpExchange {
+        val attributes = mutableMapOf<String, Any>(ResourceUtil.RC_REQUEST_ID_KEY to requestId)
+        val exchange = mock(HttpExchange::class.java, CALLS_REAL_METHODS)
+        doAnswer { attributes[it.getArgument(0)] }.`when`(exchange).get<Any>(anyString())
+        doAnswer { attributes[it.getArgument(0)] = it.getArgument(1) }.`when`(exchange).put(anyString(), any())
+        return exchange
+    }
 }